@@ -33,6 +33,7 @@ import org.graylog.shaded.elasticsearch7.org.elasticsearch.action.search.MultiSe
 import org.graylog.shaded.elasticsearch7.org.elasticsearch.action.search.SearchRequest;
 import org.graylog.shaded.elasticsearch7.org.elasticsearch.action.search.SearchResponse;
 import org.graylog.shaded.elasticsearch7.org.elasticsearch.action.support.PlainActionFuture;
+import org.graylog.shaded.elasticsearch7.org.elasticsearch.client.Cancellable;
 import org.graylog.shaded.elasticsearch7.org.elasticsearch.client.Request;
 import org.graylog.shaded.elasticsearch7.org.elasticsearch.client.RequestOptions;
 import org.graylog.shaded.elasticsearch7.org.elasticsearch.client.Response;
@@ -54,6 +55,7 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -118,8 +120,20 @@ public class ElasticsearchClient {
 
         searchRequests.forEach(multiSearchRequest::add);
 
-        final PlainActionFuture<MultiSearchResponse> future = new PlainActionFuture<>();
-        client.msearchAsync(multiSearchRequest, requestOptions(), future);
+        final AtomicReference<Cancellable> request = new AtomicReference<>();
+        final PlainActionFuture<MultiSearchResponse> future = new PlainActionFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                final boolean cancelled = super.cancel(mayInterruptIfRunning);
+                // aborting the HTTP request makes Elasticsearch cancel the search tasks it started for it
+                Optional.ofNullable(request.get()).ifPresent(Cancellable::cancel);
+                return cancelled;
+            }
+        };
+        request.set(client.msearchAsync(multiSearchRequest, requestOptions(), future));
+        if (future.isCancelled()) {
+            request.get().cancel();
+        }
 
         return future;
     }
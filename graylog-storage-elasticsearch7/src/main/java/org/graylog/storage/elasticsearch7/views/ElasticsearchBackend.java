@@ -75,6 +75,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -117,6 +118,22 @@ public class ElasticsearchBackend implements QueryBackend<ESGeneratedQueryContex
                 : QueryBuilders.queryStringQuery(queryString).allowLeadingWildcard(allowLeadingWildcard);
     }
 
+    private static boolean usesQueryIndices(final Query query, final SearchType searchType) {
+        return searchType.effectiveStreams().isEmpty()
+                && query.globalOverride().flatMap(GlobalOverride::timerange).isEmpty()
+                && searchType.timerange().isEmpty();
+    }
+
+    /**
+     * If the indices searched for a search type only contain messages of the streams it filters by, the streams
+     * filter would match every document and can be left out.
+     */
+    private boolean indicesContainOnlyStreams(final Query query, final SearchType searchType, final Set<String> streamIds) {
+        return usesQueryIndices(query, searchType)
+                ? indexLookup.indicesContainOnlyStreams(query.usedStreamIds(), query.timerange(), streamIds)
+                : indexLookup.indicesContainOnlyStreams(query.effectiveStreams(searchType), query.effectiveTimeRange(searchType), streamIds);
+    }
+
     @Override
     public StatsCollector<QueryExecutionStats> getExecutionStatsCollector() {
         return this.executionStatsCollector;
@@ -174,8 +191,12 @@ public class ElasticsearchBackend implements QueryBackend<ESGeneratedQueryContex
                                             ),
                                             "Timerange for search type " + searchType.id() + " cannot be found in query or search type."
                                     )
-                            )
-                            .must(QueryBuilders.termsQuery(Message.FIELD_STREAMS, effectiveStreamIds));
+                            );
+
+                    if (!indicesContainOnlyStreams(query, searchType, effectiveStreamIds)) {
+                        searchTypeOverrides
+                                .must(QueryBuilders.termsQuery(Message.FIELD_STREAMS, effectiveStreamIds));
+                    }
 
                     searchType.query().ifPresent(searchTypeQuery -> {
                         final QueryBuilder normalizedSearchTypeQuery = translateQueryString(searchTypeQuery.queryString());
@@ -259,9 +280,7 @@ public class ElasticsearchBackend implements QueryBackend<ESGeneratedQueryContex
                     final Set<String> affectedIndicesForSearchType = query.searchTypes().stream()
                             .filter(s -> s.id().equalsIgnoreCase(searchTypeId)).findFirst()
                             .flatMap(searchType -> {
-                                if (searchType.effectiveStreams().isEmpty()
-                                        && query.globalOverride().flatMap(GlobalOverride::timerange).isEmpty()
-                                        && searchType.timerange().isEmpty()) {
+                                if (usesQueryIndices(query, searchType)) {
                                     return Optional.empty();
                                 }
                                 return Optional.of(indexLookup.indexNamesForStreamsInTimeRange(query.effectiveStreams(searchType), query.effectiveTimeRange(searchType)));
@@ -339,7 +358,7 @@ public class ElasticsearchBackend implements QueryBackend<ESGeneratedQueryContex
             } else {
                 return Arrays.asList(mSearchFuture.get().getResponses());
             }
-        } catch (TimeoutException | InterruptedException | ExecutionException e) {
+        } catch (TimeoutException | InterruptedException | ExecutionException | CancellationException e) {
             return Collections.nCopies(numSearchTypes, new MultiSearchResponse.Item(null, e));
         }
     }
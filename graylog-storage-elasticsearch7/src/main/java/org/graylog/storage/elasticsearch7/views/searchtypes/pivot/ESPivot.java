@@ -25,8 +25,12 @@ import org.graylog.plugins.views.search.searchtypes.pivot.BucketSpec;
 import org.graylog.plugins.views.search.searchtypes.pivot.BucketSpecHandler;
 import org.graylog.plugins.views.search.searchtypes.pivot.Pivot;
 import org.graylog.plugins.views.search.searchtypes.pivot.PivotResult;
+import org.graylog.plugins.views.search.searchtypes.pivot.PivotSampling;
 import org.graylog.plugins.views.search.searchtypes.pivot.SeriesSpec;
 import org.graylog.shaded.elasticsearch7.org.elasticsearch.action.search.SearchResponse;
+import org.graylog.shaded.elasticsearch7.org.elasticsearch.common.lucene.search.function.CombineFunction;
+import org.graylog.shaded.elasticsearch7.org.elasticsearch.index.query.QueryBuilders;
+import org.graylog.shaded.elasticsearch7.org.elasticsearch.index.query.functionscore.ScoreFunctionBuilders;
 import org.graylog.shaded.elasticsearch7.org.elasticsearch.search.aggregations.Aggregation;
 import org.graylog.shaded.elasticsearch7.org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.graylog.shaded.elasticsearch7.org.elasticsearch.search.aggregations.AggregationBuilders;
@@ -50,6 +54,7 @@ import java.util.stream.Stream;
 public class ESPivot implements ESSearchTypeHandler<Pivot> {
     private static final Logger LOG = LoggerFactory.getLogger(ESPivot.class);
     private static final String AGG_NAME = "agg";
+    private static final String SAMPLING_FIELD = "_seq_no";
 
     private final Map<String, ESPivotBucketSpecHandler<? extends BucketSpec>> bucketHandlers;
     private final Map<String, ESPivotSeriesSpecHandler<? extends SeriesSpec, ? extends Aggregation>> seriesHandlers;
@@ -69,6 +74,10 @@ public class ESPivot implements ESSearchTypeHandler<Pivot> {
         LOG.debug("Generating aggregation for {}", pivot);
         final SearchSourceBuilder searchSourceBuilder = queryContext.searchSourceBuilder(pivot);
 
+        if (pivot.isSampled()) {
+            addSampling(pivot, searchSourceBuilder);
+        }
+
         var generateRollups = pivot.rollup() || (pivot.rowGroups().isEmpty() && pivot.columnGroups().isEmpty());
 
         // add global rollup series if those were requested
@@ -123,6 +132,18 @@ public class ESPivot implements ESSearchTypeHandler<Pivot> {
         addTimeStampAggregations(searchSourceBuilder);
     }
 
+    /**
+     * Restricts the query to a random sample of the matching documents. Every document gets a uniformly distributed
+     * score in [0, 1), only documents scoring at least {@code 1 - sampleRate} match. The seed is derived from the pivot
+     * id, so repeated executions of a pivot use the same sample.
+     */
+    private void addSampling(Pivot pivot, SearchSourceBuilder searchSourceBuilder) {
+        searchSourceBuilder.query(QueryBuilders.functionScoreQuery(searchSourceBuilder.query(),
+                        ScoreFunctionBuilders.randomFunction().seed(pivot.id().hashCode()).setField(SAMPLING_FIELD))
+                .boostMode(CombineFunction.REPLACE)
+                .setMinScore((float) (1.0 - pivot.sampleRate())));
+    }
+
     private void addTimeStampAggregations(SearchSourceBuilder searchSourceBuilder) {
         final MinAggregationBuilder startTimestamp = AggregationBuilders.min("timestamp-min").field("timestamp");
         final MaxAggregationBuilder endTimestamp = AggregationBuilders.max("timestamp-max").field("timestamp");
@@ -182,9 +203,10 @@ public class ESPivot implements ESSearchTypeHandler<Pivot> {
         final PivotResult.Builder resultBuilder = PivotResult.builder()
                 .id(pivot.id())
                 .effectiveTimerange(effectiveTimerange)
-                .total(extractDocumentCount(queryResult));
+                .total(PivotSampling.scaleTotal(pivot, extractDocumentCount(queryResult)));
 
         pivot.name().ifPresent(resultBuilder::name);
+        PivotSampling.addApproximation(pivot, resultBuilder, extractDocumentCount(queryResult));
 
         final MultiBucketsAggregation.Bucket initialBucket = createInitialBucket(queryResult);
 
@@ -253,7 +275,7 @@ public class ESPivot implements ESSearchTypeHandler<Pivot> {
             seriesHandler.handleResult(pivot, seriesSpec, searchResult, series, queryContext)
                     .map(value -> {
                         columnKeys.addLast(value.id());
-                        final PivotResult.Value v = PivotResult.Value.create(columnKeys, value.value(), rollup, source);
+                        final PivotResult.Value v = PivotResult.Value.create(columnKeys, PivotSampling.scale(pivot, seriesSpec, value.value()), rollup, source);
                         columnKeys.removeLast();
                         return v;
                     })
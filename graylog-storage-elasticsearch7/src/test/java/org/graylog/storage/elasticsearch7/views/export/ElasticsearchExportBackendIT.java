@@ -228,6 +228,21 @@ public class ElasticsearchExportBackendIT extends ElasticsearchBaseTest {
                 "graylog_0, 2015-01-01T04:00:00.000Z, source-2, Ho");
     }
 
+    @Test
+    public void keepsSortOrderWithParallelSlices() {
+        importFixture("messages.json");
+
+        final ElasticsearchExportBackendITHelper helper = new ElasticsearchExportBackendITHelper(elasticsearch.elasticsearchClient(), new IgnoreSearchFilters(), 3, "graylog_0", "graylog_1");
+
+        ExportMessagesCommand command = helper.commandBuilderWithAllTestDefaultStreams().chunkSize(1).build();
+
+        helper.runWithExpectedResult(command, "timestamp,source,message",
+                "graylog_0, 2015-01-01T01:00:00.000Z, source-1, Ha",
+                "graylog_1, 2015-01-01T01:59:59.999Z, source-2, He",
+                "graylog_0, 2015-01-01T03:00:00.000Z, source-1, Hi",
+                "graylog_0, 2015-01-01T04:00:00.000Z, source-2, Ho");
+    }
+
     @Test
     public void usesProvidedTimeZone() {
         importFixture("messages.json");
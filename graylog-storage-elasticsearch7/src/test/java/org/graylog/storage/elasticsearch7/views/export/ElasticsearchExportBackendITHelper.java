@@ -16,6 +16,7 @@
  */
 package org.graylog.storage.elasticsearch7.views.export;
 
+import org.graylog.plugins.views.search.export.ExportChunkPrefetcher;
 import org.graylog.plugins.views.search.searchfilters.db.UsedSearchFiltersToQueryStringsMapper;
 import org.graylog.storage.elasticsearch7.ElasticsearchClient;
 import org.graylog.storage.views.export.ExportBackendITHelper;
@@ -23,7 +24,11 @@ import org.graylog.storage.views.export.ExportBackendITHelper;
 public class ElasticsearchExportBackendITHelper extends ExportBackendITHelper {
 
     public ElasticsearchExportBackendITHelper(ElasticsearchClient client, UsedSearchFiltersToQueryStringsMapper filters, String... indices) {
-        super(new ElasticsearchExportBackend(mockIndexLookup(indices), requestStrategy(client), false, filters));
+        this(client, filters, 1, indices);
+    }
+
+    public ElasticsearchExportBackendITHelper(ElasticsearchClient client, UsedSearchFiltersToQueryStringsMapper filters, int parallelSlices, String... indices) {
+        super(new ElasticsearchExportBackend(mockIndexLookup(indices), () -> requestStrategy(client), false, filters, new ExportChunkPrefetcher(2, parallelSlices, parallelSlices)));
     }
 
     private static RequestStrategy requestStrategy(ElasticsearchClient client) {
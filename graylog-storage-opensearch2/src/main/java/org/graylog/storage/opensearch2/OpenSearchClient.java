@@ -33,6 +33,7 @@ import org.graylog.shaded.opensearch2.org.opensearch.action.search.MultiSearchRe
 import org.graylog.shaded.opensearch2.org.opensearch.action.search.SearchRequest;
 import org.graylog.shaded.opensearch2.org.opensearch.action.search.SearchResponse;
 import org.graylog.shaded.opensearch2.org.opensearch.action.support.PlainActionFuture;
+import org.graylog.shaded.opensearch2.org.opensearch.client.Cancellable;
 import org.graylog.shaded.opensearch2.org.opensearch.client.Request;
 import org.graylog.shaded.opensearch2.org.opensearch.client.RequestOptions;
 import org.graylog.shaded.opensearch2.org.opensearch.client.Response;
@@ -55,6 +56,7 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -119,8 +121,20 @@ public class OpenSearchClient {
 
         searchRequests.forEach(multiSearchRequest::add);
 
-        final PlainActionFuture<MultiSearchResponse> future = new PlainActionFuture<>();
-        client.msearchAsync(multiSearchRequest, requestOptions(), future);
+        final AtomicReference<Cancellable> request = new AtomicReference<>();
+        final PlainActionFuture<MultiSearchResponse> future = new PlainActionFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                final boolean cancelled = super.cancel(mayInterruptIfRunning);
+                // aborting the HTTP request makes OpenSearch cancel the search tasks it started for it
+                Optional.ofNullable(request.get()).ifPresent(Cancellable::cancel);
+                return cancelled;
+            }
+        };
+        request.set(client.msearchAsync(multiSearchRequest, requestOptions(), future));
+        if (future.isCancelled()) {
+            request.get().cancel();
+        }
 
         return future;
     }
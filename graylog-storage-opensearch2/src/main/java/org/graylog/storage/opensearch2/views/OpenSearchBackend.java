@@ -77,6 +77,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -118,6 +119,22 @@ public class OpenSearchBackend implements QueryBackend<OSGeneratedQueryContext>
                 : QueryBuilders.queryStringQuery(queryString).allowLeadingWildcard(allowLeadingWildcard);
     }
 
+    private static boolean usesQueryIndices(final Query query, final SearchType searchType) {
+        return searchType.effectiveStreams().isEmpty()
+                && query.globalOverride().flatMap(GlobalOverride::timerange).isEmpty()
+                && searchType.timerange().isEmpty();
+    }
+
+    /**
+     * If the indices searched for a search type only contain messages of the streams it filters by, the streams
+     * filter would match every document and can be left out.
+     */
+    private boolean indicesContainOnlyStreams(final Query query, final SearchType searchType, final Set<String> streamIds) {
+        return usesQueryIndices(query, searchType)
+                ? indexLookup.indicesContainOnlyStreams(query.usedStreamIds(), query.timerange(), streamIds)
+                : indexLookup.indicesContainOnlyStreams(query.effectiveStreams(searchType), query.effectiveTimeRange(searchType), streamIds);
+    }
+
     @Override
     public StatsCollector<QueryExecutionStats> getExecutionStatsCollector() {
         return this.executionStatsCollector;
@@ -175,7 +192,8 @@ public class OpenSearchBackend implements QueryBackend<OSGeneratedQueryContext>
                                     )
                             );
 
-                    if (effectiveStreamIds.stream().noneMatch(s -> s.startsWith(Stream.DATASTREAM_PREFIX))) {
+                    if (effectiveStreamIds.stream().noneMatch(s -> s.startsWith(Stream.DATASTREAM_PREFIX))
+                            && !indicesContainOnlyStreams(query, searchType, effectiveStreamIds)) {
                         searchTypeOverrides
                                 .must(QueryBuilders.termsQuery(Message.FIELD_STREAMS, effectiveStreamIds));
                     }
@@ -262,9 +280,7 @@ public class OpenSearchBackend implements QueryBackend<OSGeneratedQueryContext>
                     final Set<String> affectedIndicesForSearchType = query.searchTypes().stream()
                             .filter(s -> s.id().equalsIgnoreCase(searchTypeId)).findFirst()
                             .flatMap(searchType -> {
-                                if (searchType.effectiveStreams().isEmpty()
-                                        && query.globalOverride().flatMap(GlobalOverride::timerange).isEmpty()
-                                        && searchType.timerange().isEmpty()) {
+                                if (usesQueryIndices(query, searchType)) {
                                     return Optional.empty();
                                 }
                                 return Optional.of(indexLookup.indexNamesForStreamsInTimeRange(query.effectiveStreams(searchType), query.effectiveTimeRange(searchType)));
@@ -341,7 +357,7 @@ public class OpenSearchBackend implements QueryBackend<OSGeneratedQueryContext>
                                                              final int numSearchTypes) {
         try {
             return Arrays.asList(mSearchFuture.get().getResponses());
-        } catch (InterruptedException | ExecutionException e) {
+        } catch (InterruptedException | ExecutionException | CancellationException e) {
             return Collections.nCopies(numSearchTypes, new MultiSearchResponse.Item(null, e));
         }
     }
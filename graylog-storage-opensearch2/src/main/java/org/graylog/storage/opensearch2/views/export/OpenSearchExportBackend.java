@@ -18,9 +18,11 @@ package org.graylog.storage.opensearch2.views.export;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
+import jakarta.inject.Provider;
 import org.graylog.plugins.views.search.elasticsearch.ElasticsearchQueryString;
 import org.graylog.plugins.views.search.elasticsearch.IndexLookup;
 import org.graylog.plugins.views.search.export.ExportBackend;
+import org.graylog.plugins.views.search.export.ExportChunkPrefetcher;
 import org.graylog.plugins.views.search.export.ExportMessagesCommand;
 import org.graylog.plugins.views.search.export.SimpleMessage;
 import org.graylog.plugins.views.search.export.SimpleMessageChunk;
@@ -42,7 +44,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -60,59 +61,37 @@ public class OpenSearchExportBackend implements ExportBackend {
     private static final Logger LOG = LoggerFactory.getLogger(OpenSearchExportBackend.class);
 
     private final IndexLookup indexLookup;
-    private final RequestStrategy requestStrategy;
+    private final Provider<RequestStrategy> requestStrategyProvider;
     private final boolean allowLeadingWildcard;
+    private final ExportChunkPrefetcher exportChunkPrefetcher;
 
     private final UsedSearchFiltersToQueryStringsMapper usedSearchFiltersToQueryStringsMapper;
 
     @Inject
     public OpenSearchExportBackend(IndexLookup indexLookup,
-                                   RequestStrategy requestStrategy,
+                                   Provider<RequestStrategy> requestStrategyProvider,
                                    @Named("allow_leading_wildcard_searches") boolean allowLeadingWildcard,
-                                   final UsedSearchFiltersToQueryStringsMapper usedSearchFiltersToQueryStringsMapper) {
+                                   final UsedSearchFiltersToQueryStringsMapper usedSearchFiltersToQueryStringsMapper,
+                                   ExportChunkPrefetcher exportChunkPrefetcher) {
         this.indexLookup = indexLookup;
-        this.requestStrategy = requestStrategy;
+        this.requestStrategyProvider = requestStrategyProvider;
         this.allowLeadingWildcard = allowLeadingWildcard;
+        this.exportChunkPrefetcher = exportChunkPrefetcher;
         this.usedSearchFiltersToQueryStringsMapper = usedSearchFiltersToQueryStringsMapper;
     }
 
     @Override
     public void run(ExportMessagesCommand command, Consumer<SimpleMessageChunk> chunkCollector) {
-        boolean isFirstChunk = true;
-        int totalCount = 0;
-
-        while (true) {
-            List<SearchHit> hits = search(command);
-
-            if (hits.isEmpty()) {
-                publishChunk(chunkCollector, hits, command.fieldsInOrder(), command.timeZone(), SimpleMessageChunk.ChunkOrder.LAST);
-                return;
-            }
-
-            boolean success = publishChunk(chunkCollector, hits, command.fieldsInOrder(), command.timeZone(), isFirstChunk ? SimpleMessageChunk.ChunkOrder.FIRST : SimpleMessageChunk.ChunkOrder.INTERMEDIATE);
-            if (!success) {
-                return;
-            }
-
-            totalCount += hits.size();
-            if (command.limit().isPresent() && totalCount >= command.limit().getAsInt()) {
-                LOG.info("Limit of {} reached. Stopping message retrieval.", command.limit().getAsInt());
-                publishChunk(chunkCollector, Collections.emptyList(), command.fieldsInOrder(), command.timeZone(), SimpleMessageChunk.ChunkOrder.LAST);
-                return;
-            }
-
-            isFirstChunk = false;
-        }
-    }
-
-    private List<SearchHit> search(ExportMessagesCommand command) {
-        SearchRequest search = prepareSearchRequest(command);
-
-        return requestStrategy.nextChunk(search, command);
+        exportChunkPrefetcher.<SearchHit>run(command,
+                slice -> {
+                    final RequestStrategy requestStrategy = requestStrategyProvider.get();
+                    return () -> requestStrategy.nextChunk(prepareSearchRequest(slice, requestStrategy), slice);
+                },
+                (hits, chunkOrder) -> publishChunk(chunkCollector, hits, command.fieldsInOrder(), command.timeZone(), chunkOrder));
     }
 
-    private SearchRequest prepareSearchRequest(ExportMessagesCommand command) {
-        SearchSourceBuilder ssb = searchSourceBuilderFrom(command);
+    private SearchRequest prepareSearchRequest(ExportMessagesCommand command, RequestStrategy requestStrategy) {
+        SearchSourceBuilder ssb = searchSourceBuilderFrom(command, requestStrategy);
 
         Set<String> indices = indicesFor(command);
         return new SearchRequest()
@@ -121,7 +100,7 @@ public class OpenSearchExportBackend implements ExportBackend {
                 .indicesOptions(IndicesOptions.fromOptions(false, false, true, false));
     }
 
-    private SearchSourceBuilder searchSourceBuilderFrom(ExportMessagesCommand command) {
+    private SearchSourceBuilder searchSourceBuilderFrom(ExportMessagesCommand command, RequestStrategy requestStrategy) {
         QueryBuilder query = queryFrom(command);
 
         SearchSourceBuilder ssb = new SearchSourceBuilder()
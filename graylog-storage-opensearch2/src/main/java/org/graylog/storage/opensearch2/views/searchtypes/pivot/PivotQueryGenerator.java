@@ -21,6 +21,9 @@ import org.graylog.plugins.views.search.searchtypes.pivot.BucketSpec;
 import org.graylog.plugins.views.search.searchtypes.pivot.BucketSpecHandler;
 import org.graylog.plugins.views.search.searchtypes.pivot.Pivot;
 import org.graylog.plugins.views.search.searchtypes.pivot.SeriesSpec;
+import org.graylog.shaded.opensearch2.org.opensearch.common.lucene.search.function.CombineFunction;
+import org.graylog.shaded.opensearch2.org.opensearch.index.query.QueryBuilders;
+import org.graylog.shaded.opensearch2.org.opensearch.index.query.functionscore.ScoreFunctionBuilders;
 import org.graylog.shaded.opensearch2.org.opensearch.search.aggregations.Aggregation;
 import org.graylog.shaded.opensearch2.org.opensearch.search.aggregations.AggregationBuilder;
 import org.graylog.shaded.opensearch2.org.opensearch.search.aggregations.AggregationBuilders;
@@ -43,6 +46,7 @@ import java.util.stream.Stream;
 class PivotQueryGenerator {
     private static final Logger LOG = LoggerFactory.getLogger(PivotQueryGenerator.class);
     private static final String AGG_NAME = "agg";
+    private static final String SAMPLING_FIELD = "_seq_no";
 
     private final Map<String, OSPivotBucketSpecHandler<? extends BucketSpec>> bucketHandlers;
     private final Map<String, OSPivotSeriesSpecHandler<? extends SeriesSpec, ? extends Aggregation>> seriesHandlers;
@@ -57,6 +61,10 @@ class PivotQueryGenerator {
         LOG.debug("Generating aggregation for {}", pivot);
         final SearchSourceBuilder searchSourceBuilder = queryContext.searchSourceBuilder(pivot);
 
+        if (pivot.isSampled()) {
+            addSampling(pivot, searchSourceBuilder);
+        }
+
         final boolean generateRollups = pivot.rollup() || (pivot.rowGroups().isEmpty() && pivot.columnGroups().isEmpty());
 
         if (generateRollups) {
@@ -78,6 +86,18 @@ class PivotQueryGenerator {
         addTimestampAggregations(searchSourceBuilder);
     }
 
+    /**
+     * Restricts the query to a random sample of the matching documents. Every document gets a uniformly distributed
+     * score in [0, 1), only documents scoring at least {@code 1 - sampleRate} match. The seed is derived from the pivot
+     * id, so repeated executions of a pivot use the same sample.
+     */
+    private void addSampling(Pivot pivot, SearchSourceBuilder searchSourceBuilder) {
+        searchSourceBuilder.query(QueryBuilders.functionScoreQuery(searchSourceBuilder.query(),
+                        ScoreFunctionBuilders.randomFunction().seed(pivot.id().hashCode()).setField(SAMPLING_FIELD))
+                .boostMode(CombineFunction.REPLACE)
+                .setMinScore((float) (1.0 - pivot.sampleRate())));
+    }
+
     private void addGlobalRollupSeries(Pivot pivot, OSGeneratedQueryContext queryContext, SearchSourceBuilder searchSourceBuilder) {
         seriesStream(pivot, queryContext, "global rollup")
                 .filter(result -> Placement.METRIC.equals(result.placement()))
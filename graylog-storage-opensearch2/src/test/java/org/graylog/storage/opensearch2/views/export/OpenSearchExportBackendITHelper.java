@@ -16,6 +16,7 @@
  */
 package org.graylog.storage.opensearch2.views.export;
 
+import org.graylog.plugins.views.search.export.ExportChunkPrefetcher;
 import org.graylog.plugins.views.search.searchfilters.db.UsedSearchFiltersToQueryStringsMapper;
 import org.graylog.storage.opensearch2.OpenSearchClient;
 import org.graylog.storage.views.export.ExportBackendITHelper;
@@ -23,7 +24,11 @@ import org.graylog.storage.views.export.ExportBackendITHelper;
 public class OpenSearchExportBackendITHelper extends ExportBackendITHelper {
 
     public OpenSearchExportBackendITHelper(OpenSearchClient openSearchClient, UsedSearchFiltersToQueryStringsMapper filters, String... indices) {
-        super(new OpenSearchExportBackend(mockIndexLookup(indices), requestStrategy(openSearchClient), false, filters));
+        this(openSearchClient, filters, 1, indices);
+    }
+
+    public OpenSearchExportBackendITHelper(OpenSearchClient openSearchClient, UsedSearchFiltersToQueryStringsMapper filters, int parallelSlices, String... indices) {
+        super(new OpenSearchExportBackend(mockIndexLookup(indices), () -> requestStrategy(openSearchClient), false, filters, new ExportChunkPrefetcher(2, parallelSlices, parallelSlices)));
     }
 
     private static RequestStrategy requestStrategy(OpenSearchClient client) {
@@ -86,10 +86,12 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.graylog2.shared.utilities.StringUtils.f;
 
@@ -137,6 +139,22 @@ public class OpenSearchBackend implements QueryBackend<OSGeneratedQueryContext>
                 : QueryStringQuery.of(b -> b.query(queryString).allowLeadingWildcard(allowLeadingWildcard)).toQuery();
     }
 
+    private static boolean usesQueryIndices(final Query query, final SearchType searchType) {
+        return searchType.effectiveStreams().isEmpty()
+                && query.globalOverride().flatMap(GlobalOverride::timerange).isEmpty()
+                && searchType.timerange().isEmpty();
+    }
+
+    /**
+     * If the indices searched for a search type only contain messages of the streams it filters by, the streams
+     * filter would match every document and can be left out.
+     */
+    private boolean indicesContainOnlyStreams(final Query query, final SearchType searchType, final Set<String> streamIds) {
+        return usesQueryIndices(query, searchType)
+                ? indexLookup.indicesContainOnlyStreams(query.usedStreamIds(), query.timerange(), streamIds)
+                : indexLookup.indicesContainOnlyStreams(query.effectiveStreams(searchType), query.effectiveTimeRange(searchType), streamIds);
+    }
+
     @Override
     public StatsCollector<QueryExecutionStats> getExecutionStatsCollector() {
         return this.executionStatsCollector;
@@ -195,7 +213,8 @@ public class OpenSearchBackend implements QueryBackend<OSGeneratedQueryContext>
                                     )
                             );
 
-                    if (effectiveStreamIds.stream().noneMatch(s -> s.startsWith(Stream.DATASTREAM_PREFIX))) {
+                    if (effectiveStreamIds.stream().noneMatch(s -> s.startsWith(Stream.DATASTREAM_PREFIX))
+                            && !indicesContainOnlyStreams(query, searchType, effectiveStreamIds)) {
                         searchTypeOverrides
                                 .must(TermsQuery.builder()
                                         .field(Message.FIELD_STREAMS)
@@ -287,9 +306,7 @@ public class OpenSearchBackend implements QueryBackend<OSGeneratedQueryContext>
                     final Set<String> affectedIndicesForSearchType = query.searchTypes().stream()
                             .filter(s -> s.id().equalsIgnoreCase(searchTypeId)).findFirst()
                             .flatMap(searchType -> {
-                                if (searchType.effectiveStreams().isEmpty()
-                                        && query.globalOverride().flatMap(GlobalOverride::timerange).isEmpty()
-                                        && searchType.timerange().isEmpty()) {
+                                if (usesQueryIndices(query, searchType)) {
                                     return Optional.empty();
                                 }
                                 return Optional.of(indexLookup.indexNamesForStreamsInTimeRange(query.effectiveStreams(searchType), query.effectiveTimeRange(searchType)));
@@ -376,7 +393,8 @@ public class OpenSearchBackend implements QueryBackend<OSGeneratedQueryContext>
     }
 
     CompletableFuture<MsearchResponse<JsonData>> cancellableMsearch(List<SearchRequest> searches) {
-        return client.async(c -> {
+        final AtomicReference<CompletableFuture<MsearchResponse<JsonData>>> request = new AtomicReference<>();
+        final CompletableFuture<MsearchResponse<JsonData>> future = client.async(c -> {
             List<RequestItem> requestItems = searches.stream()
                     .map(searchRequest -> {
                         SearchRequest.Builder builder = searchRequest.toBuilder();
@@ -387,15 +405,23 @@ public class OpenSearchBackend implements QueryBackend<OSGeneratedQueryContext>
                     .map(OSSerializationUtils::toMsearch)
                     .toList();
 
-            MsearchRequest.Builder request = new MsearchRequest.Builder();
+            MsearchRequest.Builder msearchRequest = new MsearchRequest.Builder();
             indexerMaxConcurrentSearches
                     .map(Integer::longValue)
-                    .ifPresent(request::maxConcurrentSearches);
-            request.searches(requestItems);
-
-            return c.msearch(request.build(), JsonData.class);
+                    .ifPresent(msearchRequest::maxConcurrentSearches);
+            msearchRequest.searches(requestItems);
 
+            request.set(c.msearch(msearchRequest.build(), JsonData.class));
+            return request.get();
         }, "Error executing multi search");
+        // the returned future is derived from the one of the transport, cancelling it has to abort the HTTP request
+        // explicitly, which makes OpenSearch cancel the search tasks it started for it
+        future.whenComplete((response, throwable) -> {
+            if (future.isCancelled() && request.get() != null) {
+                request.get().cancel(true);
+            }
+        });
+        return future;
     }
 
     @NotNull
@@ -404,7 +430,7 @@ public class OpenSearchBackend implements QueryBackend<OSGeneratedQueryContext>
         try {
             //TODO: Timeout
             return mSearchFuture.get(1L, TimeUnit.DAYS).responses();
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+        } catch (InterruptedException | ExecutionException | TimeoutException | CancellationException e) {
             OpenSearchException cause = findCause(e);
             if (cause != null) {
                 return Collections.nCopies(numSearchTypes, MultiSearchResponseItem.of(i -> i
@@ -22,6 +22,7 @@ import jakarta.inject.Named;
 import org.graylog.plugins.views.search.elasticsearch.ElasticsearchQueryString;
 import org.graylog.plugins.views.search.elasticsearch.IndexLookup;
 import org.graylog.plugins.views.search.export.ExportBackend;
+import org.graylog.plugins.views.search.export.ExportChunkPrefetcher;
 import org.graylog.plugins.views.search.export.ExportException;
 import org.graylog.plugins.views.search.export.ExportMessagesCommand;
 import org.graylog.plugins.views.search.export.SimpleMessage;
@@ -48,7 +49,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -74,46 +74,29 @@ public class OpenSearchExportBackend implements ExportBackend {
 
     private final OfficialOpensearchClient opensearchClient;
 
+    private final ExportChunkPrefetcher exportChunkPrefetcher;
+
     @Inject
     public OpenSearchExportBackend(IndexLookup indexLookup,
                                    @Named("allow_leading_wildcard_searches") boolean allowLeadingWildcard,
                                    final UsedSearchFiltersToQueryStringsMapper usedSearchFiltersToQueryStringsMapper,
-                                   OfficialOpensearchClient opensearchClient) {
+                                   OfficialOpensearchClient opensearchClient,
+                                   ExportChunkPrefetcher exportChunkPrefetcher) {
         this.indexLookup = indexLookup;
         this.opensearchClient = opensearchClient;
         this.allowLeadingWildcard = allowLeadingWildcard;
         this.usedSearchFiltersToQueryStringsMapper = usedSearchFiltersToQueryStringsMapper;
+        this.exportChunkPrefetcher = exportChunkPrefetcher;
     }
 
     @Override
     public void run(ExportMessagesCommand command, Consumer<SimpleMessageChunk> chunkCollector) {
-        boolean isFirstChunk = true;
-        int totalCount = 0;
-
-        SearchAfterValues searchAfterValues = SearchAfterValues.empty();
-
-        while (true) {
-            List<Hit<Map>> hits = search(command, searchAfterValues);
-
-            if (hits.isEmpty()) {
-                publishChunk(chunkCollector, hits, command.fieldsInOrder(), command.timeZone(), SimpleMessageChunk.ChunkOrder.LAST);
-                return;
-            }
-
-            boolean success = publishChunk(chunkCollector, hits, command.fieldsInOrder(), command.timeZone(), isFirstChunk ? SimpleMessageChunk.ChunkOrder.FIRST : SimpleMessageChunk.ChunkOrder.INTERMEDIATE);
-            if (!success) {
-                return;
-            }
-
-            totalCount += hits.size();
-            if (command.limit().isPresent() && totalCount >= command.limit().getAsInt()) {
-                LOG.info("Limit of {} reached. Stopping message retrieval.", command.limit().getAsInt());
-                publishChunk(chunkCollector, Collections.emptyList(), command.fieldsInOrder(), command.timeZone(), SimpleMessageChunk.ChunkOrder.LAST);
-                return;
-            }
-
-            isFirstChunk = false;
-        }
+        exportChunkPrefetcher.<Hit<Map>>run(command,
+                slice -> {
+                    final SearchAfterValues searchAfterValues = SearchAfterValues.empty();
+                    return () -> search(slice, searchAfterValues);
+                },
+                (hits, chunkOrder) -> publishChunk(chunkCollector, hits, command.fieldsInOrder(), command.timeZone(), chunkOrder));
     }
 
     private List<Hit<Map>> search(ExportMessagesCommand command, SearchAfterValues searchAfterValues) {
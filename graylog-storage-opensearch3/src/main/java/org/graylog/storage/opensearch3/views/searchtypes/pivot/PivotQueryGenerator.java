@@ -24,6 +24,8 @@ import org.graylog.plugins.views.search.searchtypes.pivot.SeriesSpec;
 import org.graylog.storage.opensearch3.views.MutableSearchRequestBuilder;
 import org.graylog.storage.opensearch3.views.OSGeneratedQueryContext;
 import org.opensearch.client.opensearch._types.aggregations.Aggregation;
+import org.opensearch.client.opensearch._types.query_dsl.FunctionBoostMode;
+import org.opensearch.client.opensearch._types.query_dsl.FunctionScoreQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +41,7 @@ import java.util.stream.Stream;
 class PivotQueryGenerator {
     private static final Logger LOG = LoggerFactory.getLogger(PivotQueryGenerator.class);
     private static final String AGG_NAME = "agg";
+    private static final String SAMPLING_FIELD = "_seq_no";
 
     private final Map<String, OSPivotBucketSpecHandler<? extends BucketSpec>> bucketHandlers;
     private final Map<String, OSPivotSeriesSpecHandler<? extends SeriesSpec>> seriesHandlers;
@@ -53,6 +56,10 @@ class PivotQueryGenerator {
         LOG.debug("Generating aggregation for {}", pivot);
         final MutableSearchRequestBuilder searchSourceBuilder = queryContext.searchSourceBuilder(pivot);
 
+        if (pivot.isSampled()) {
+            addSampling(pivot, searchSourceBuilder);
+        }
+
         final boolean generateRollups = pivot.rollup() || (pivot.rowGroups().isEmpty() && pivot.columnGroups().isEmpty());
 
         if (generateRollups) {
@@ -74,6 +81,20 @@ class PivotQueryGenerator {
         addTimestampAggregations(searchSourceBuilder);
     }
 
+    /**
+     * Restricts the query to a random sample of the matching documents. Every document gets a uniformly distributed
+     * score in [0, 1), only documents scoring at least {@code 1 - sampleRate} match. The seed is derived from the pivot
+     * id, so repeated executions of a pivot use the same sample.
+     */
+    private void addSampling(Pivot pivot, MutableSearchRequestBuilder searchSourceBuilder) {
+        searchSourceBuilder.query(FunctionScoreQuery.of(f -> f
+                .query(searchSourceBuilder.query())
+                .functions(fn -> fn.randomScore(r -> r.seed(String.valueOf(pivot.id().hashCode())).field(SAMPLING_FIELD)))
+                .boostMode(FunctionBoostMode.Replace)
+                .minScore((float) (1.0 - pivot.sampleRate()))
+        ).toQuery());
+    }
+
     private void addGlobalRollupSeries(Pivot pivot, OSGeneratedQueryContext queryContext, MutableSearchRequestBuilder searchSourceBuilder) {
         seriesStream(pivot, queryContext, "global rollup")
                 .filter(result -> Placement.METRIC.equals(result.placement()))
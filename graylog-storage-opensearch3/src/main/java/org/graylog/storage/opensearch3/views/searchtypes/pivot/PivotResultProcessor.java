@@ -22,6 +22,7 @@ import org.graylog.plugins.views.search.SearchType;
 import org.graylog.plugins.views.search.searchtypes.pivot.BucketSpec;
 import org.graylog.plugins.views.search.searchtypes.pivot.Pivot;
 import org.graylog.plugins.views.search.searchtypes.pivot.PivotResult;
+import org.graylog.plugins.views.search.searchtypes.pivot.PivotSampling;
 import org.graylog.plugins.views.search.searchtypes.pivot.SeriesSpec;
 import org.graylog.storage.opensearch3.views.OSGeneratedQueryContext;
 import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
@@ -64,9 +65,10 @@ class PivotResultProcessor {
         final PivotResult.Builder resultBuilder = PivotResult.builder()
                 .id(pivot.id())
                 .effectiveTimerange(effectiveTimerange)
-                .total(extractDocumentCount(queryResult));
+                .total(PivotSampling.scaleTotal(pivot, extractDocumentCount(queryResult)));
 
         pivot.name().ifPresent(resultBuilder::name);
+        PivotSampling.addApproximation(pivot, resultBuilder, extractDocumentCount(queryResult));
 
         final InitialBucket initialBucket = InitialBucket.create(queryResult);
 
@@ -145,7 +147,7 @@ class PivotResultProcessor {
             seriesHandler.handleResult(pivot, seriesSpec, searchResult, series, queryContext)
                     .map(value -> {
                         columnKeys.addLast(value.id());
-                        final PivotResult.Value v = PivotResult.Value.create(columnKeys, value.value(), rollup, source);
+                        final PivotResult.Value v = PivotResult.Value.create(columnKeys, PivotSampling.scale(pivot, seriesSpec, value.value()), rollup, source);
                         columnKeys.removeLast();
                         return v;
                     })
@@ -16,6 +16,7 @@
  */
 package org.graylog.storage.opensearch3.views.export;
 
+import org.graylog.plugins.views.search.export.ExportChunkPrefetcher;
 import org.graylog.plugins.views.search.searchfilters.db.UsedSearchFiltersToQueryStringsMapper;
 import org.graylog.storage.opensearch3.OfficialOpensearchClient;
 import org.graylog.storage.views.export.ExportBackendITHelper;
@@ -23,7 +24,11 @@ import org.graylog.storage.views.export.ExportBackendITHelper;
 public class OpenSearchExportBackendITHelper extends ExportBackendITHelper {
 
     public OpenSearchExportBackendITHelper(OfficialOpensearchClient client, UsedSearchFiltersToQueryStringsMapper filters, String... indices) {
-        super(new OpenSearchExportBackend(mockIndexLookup(indices), false, filters, client));
+        this(client, filters, 1, indices);
+    }
+
+    public OpenSearchExportBackendITHelper(OfficialOpensearchClient client, UsedSearchFiltersToQueryStringsMapper filters, int parallelSlices, String... indices) {
+        super(new OpenSearchExportBackend(mockIndexLookup(indices), false, filters, client, new ExportChunkPrefetcher(2, parallelSlices, parallelSlices)));
     }
 
 }
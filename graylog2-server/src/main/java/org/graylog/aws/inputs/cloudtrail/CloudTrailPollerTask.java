@@ -91,6 +91,9 @@ public class CloudTrailPollerTask implements Runnable {
                                 notification.getS3ObjectKey()));
 
                 LOG.debug("[{}] records read from S3.", records.size());
+                // The notification is deleted after this callback, so the records are processed even if the
+                // transport is stopped while waiting for permits.
+                transport.acquireThrottlePermits(records.size());
 
                 for (CloudTrailRecord record : records) {
                     LOG.debug("Processing CloudTrail message content.");
@@ -58,6 +58,7 @@ import org.graylog.events.processor.aggregation.AggregationEventProcessorConfig;
 import org.graylog.events.processor.aggregation.AggregationEventProcessorParameters;
 import org.graylog.events.processor.aggregation.AggregationSearch;
 import org.graylog.events.processor.aggregation.PivotAggregationSearch;
+import org.graylog.events.processor.aggregation.StreamingFilterMessageProcessor;
 import org.graylog.events.processor.modifier.EventSummaryModifier;
 import org.graylog.events.processor.storage.EventStorageHandlerEngine;
 import org.graylog.events.processor.storage.PersistToStreamsStorageHandler;
@@ -111,6 +112,8 @@ public class EventsModule extends PluginModule {
 
         addPeriodical(EventNotificationStatusCleanUp.class);
 
+        addMessageProcessor(StreamingFilterMessageProcessor.class, StreamingFilterMessageProcessor.Descriptor.class);
+
         addEntityFacade(ModelTypes.EVENT_DEFINITION_V1, EventDefinitionFacade.class);
         addEntityFacade(ModelTypes.NOTIFICATION_V1, NotificationFacade.class);
 
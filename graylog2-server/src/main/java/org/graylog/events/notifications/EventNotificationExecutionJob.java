@@ -35,11 +35,14 @@ import org.graylog.scheduler.JobTriggerData;
 import org.graylog.scheduler.JobTriggerDto;
 import org.graylog.scheduler.JobTriggerUpdate;
 import org.graylog2.database.NotFoundException;
+import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import jakarta.inject.Inject;
 
+import javax.annotation.Nullable;
+
 import jakarta.validation.constraints.NotBlank;
 
 import java.util.Locale;
@@ -94,6 +97,10 @@ public class EventNotificationExecutionJob implements Job {
         }
         final Data data = optionalData.get();
         final EventDto eventDto = data.eventDto();
+        if (data.coalescedEvents() > 0) {
+            LOG.debug("Notification <{}> covers {} further events of event definition <{}>", jobConfig.notificationId(),
+                    data.coalescedEvents(), eventDto.eventDefinitionId());
+        }
 
         final NotificationDto notification = notificationService.get(jobConfig.notificationId())
                 .orElseThrow(() -> new JobExecutionException("Couldn't find notification <" + jobConfig.notificationId() + ">", trigger, JobTriggerUpdate.withError(trigger)));
@@ -213,11 +220,35 @@ public class EventNotificationExecutionJob implements Job {
     @JsonTypeName(EventNotificationExecutionJob.TYPE_NAME)
     @JsonDeserialize(builder = Data.Builder.class)
     public static abstract class Data implements JobTriggerData {
-        private static final String FIELD_EVENT_DTO = "event_dto";
+        public static final String FIELD_EVENT_DTO = "event_dto";
+        public static final String FIELD_COALESCED_EVENTS = "coalesced_events";
+        public static final String FIELD_COALESCED_TIMERANGE_START = "coalesced_timerange_start";
+        public static final String FIELD_COALESCED_TIMERANGE_END = "coalesced_timerange_end";
 
         @JsonProperty(FIELD_EVENT_DTO)
         public abstract EventDto eventDto();
 
+        /**
+         * The number of further events of the same event definition which have been folded into this notification
+         * job. See {@link EventNotificationHandler} for details.
+         */
+        @JsonProperty(FIELD_COALESCED_EVENTS)
+        public abstract int coalescedEvents();
+
+        /**
+         * The start of the time range covering all events of this notification job. Only set for coalesced jobs.
+         */
+        @JsonProperty(FIELD_COALESCED_TIMERANGE_START)
+        @Nullable
+        public abstract DateTime coalescedTimerangeStart();
+
+        /**
+         * The end of the time range covering all events of this notification job. Only set for coalesced jobs.
+         */
+        @JsonProperty(FIELD_COALESCED_TIMERANGE_END)
+        @Nullable
+        public abstract DateTime coalescedTimerangeEnd();
+
         public static Builder builder() {
             return Builder.create();
         }
@@ -229,12 +260,22 @@ public class EventNotificationExecutionJob implements Job {
             @JsonCreator
             public static Builder create() {
                 return new AutoValue_EventNotificationExecutionJob_Data.Builder()
-                        .type(TYPE_NAME);
+                        .type(TYPE_NAME)
+                        .coalescedEvents(0);
             }
 
             @JsonProperty(FIELD_EVENT_DTO)
             public abstract Builder eventDto(EventDto dto);
 
+            @JsonProperty(FIELD_COALESCED_EVENTS)
+            public abstract Builder coalescedEvents(int coalescedEvents);
+
+            @JsonProperty(FIELD_COALESCED_TIMERANGE_START)
+            public abstract Builder coalescedTimerangeStart(@Nullable DateTime coalescedTimerangeStart);
+
+            @JsonProperty(FIELD_COALESCED_TIMERANGE_END)
+            public abstract Builder coalescedTimerangeEnd(@Nullable DateTime coalescedTimerangeEnd);
+
             abstract Data autoBuild();
 
             public Data build() {
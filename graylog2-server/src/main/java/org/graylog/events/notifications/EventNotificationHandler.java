@@ -19,20 +19,26 @@ package org.graylog.events.notifications;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.github.joschi.jadconfig.util.Duration;
 import com.google.auto.value.AutoValue;
 import org.graylog.events.contentpack.entities.EventNotificationHandlerConfigEntity;
 import org.graylog.events.event.Event;
+import org.graylog.events.event.EventDto;
 import org.graylog.events.event.EventWithContext;
 import org.graylog.events.processor.EventDefinition;
+import org.graylog.events.processor.EventDefinitionConfiguration;
 import org.graylog.scheduler.DBJobDefinitionService;
 import org.graylog.scheduler.DBJobTriggerService;
 import org.graylog.scheduler.JobDefinitionDto;
+import org.graylog.scheduler.JobTriggerData;
 import org.graylog.scheduler.JobTriggerDto;
+import org.graylog.scheduler.clock.JobSchedulerClock;
 import org.graylog.scheduler.schedule.OnceJobSchedule;
 import org.graylog2.contentpacks.ContentPackable;
 import org.graylog2.contentpacks.EntityDescriptorIds;
 import org.graylog2.contentpacks.model.ModelTypes;
 import org.graylog2.contentpacks.model.entities.references.ValueReference;
+import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,23 +49,56 @@ import jakarta.inject.Inject;
 import java.util.List;
 import java.util.Optional;
 
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.ne;
+import static com.mongodb.client.model.Updates.combine;
+import static com.mongodb.client.model.Updates.inc;
+import static com.mongodb.client.model.Updates.max;
+import static com.mongodb.client.model.Updates.min;
+
+/**
+ * Schedules the notification jobs for the events of an event definition.
+ * <p>
+ * By default every event gets its own notification job. When a coalescing window is configured, all events of an
+ * event definition are folded into one pending job per notification instead. The job is scheduled at the end of the
+ * window and further events are added to it until it gets locked by the scheduler. This keeps the number of
+ * triggers in the scheduler collection bounded during event storms. The job notifies about the first event and
+ * records the number of folded events and the time range covering all of them, which is used to fetch the backlog.
+ */
 public class EventNotificationHandler {
     private static final Logger LOG = LoggerFactory.getLogger(EventNotificationHandler.class);
 
+    private static final String FIELD_DATA_TYPE = DBJobTriggerService.FIELD_DATA + "." + JobTriggerData.TYPE_FIELD;
+    private static final String FIELD_DATA_EVENT_DEFINITION_ID = DBJobTriggerService.FIELD_DATA + "." +
+            EventNotificationExecutionJob.Data.FIELD_EVENT_DTO + "." + EventDto.FIELD_EVENT_DEFINITION_ID;
+    private static final String FIELD_DATA_COALESCED_EVENTS = DBJobTriggerService.FIELD_DATA + "." +
+            EventNotificationExecutionJob.Data.FIELD_COALESCED_EVENTS;
+    private static final String FIELD_DATA_COALESCED_TIMERANGE_START = DBJobTriggerService.FIELD_DATA + "." +
+            EventNotificationExecutionJob.Data.FIELD_COALESCED_TIMERANGE_START;
+    private static final String FIELD_DATA_COALESCED_TIMERANGE_END = DBJobTriggerService.FIELD_DATA + "." +
+            EventNotificationExecutionJob.Data.FIELD_COALESCED_TIMERANGE_END;
+
     private final DBJobDefinitionService jobDefinitionService;
     private final DBJobTriggerService jobTriggerService;
     private final DBNotificationService notificationService;
     private final NotificationGracePeriodService notificationGracePeriodService;
+    private final JobSchedulerClock clock;
+    private final Duration coalescingWindow;
 
     @Inject
     public EventNotificationHandler(DBJobDefinitionService jobDefinitionService,
                                     DBJobTriggerService jobTriggerService,
                                     DBNotificationService notificationService,
-                                    NotificationGracePeriodService notificationGracePeriodService) {
+                                    NotificationGracePeriodService notificationGracePeriodService,
+                                    JobSchedulerClock clock,
+                                    EventDefinitionConfiguration eventDefinitionConfiguration) {
         this.jobDefinitionService = jobDefinitionService;
         this.jobTriggerService = jobTriggerService;
         this.notificationService = notificationService;
         this.notificationGracePeriodService = notificationGracePeriodService;
+        this.clock = clock;
+        this.coalescingWindow = eventDefinitionConfiguration.getNotificationCoalescingWindow();
     }
 
     public void handleEvents(EventDefinition definition, List<EventWithContext> eventsWithContext) {
@@ -80,17 +119,24 @@ public class EventNotificationHandler {
             final EventNotificationConfig notificationConfig = notificationDto.get().config();
             // TODO: The job trigger data needs information about the events and how to re-run the query to create the backlog
 
+            Coalesced coalesced = null;
             for (EventWithContext eventWithContext : eventsWithContext) {
                 final Event event = eventWithContext.event();
                 if (notificationGracePeriodService.inGracePeriod(definition, config.notificationId(), event)) {
                     continue;
                 }
+                final EventDto eventDto = event.toDto();
+                final JobTriggerData triggerData = notificationConfig.toJobTriggerData(eventDto);
+                if (coalescingWindow.toMilliseconds() > 0 && triggerData instanceof EventNotificationExecutionJob.Data data) {
+                    coalesced = coalesced == null ? new Coalesced(data, eventDto) : coalesced.add(eventDto);
+                    continue;
+                }
                 try {
                     final JobTriggerDto trigger = jobTriggerService.create(JobTriggerDto.builder()
                             .jobDefinitionType(EventNotificationExecutionJob.TYPE_NAME)
                             .jobDefinitionId(jobDefinition.get().id())
                             .schedule(OnceJobSchedule.create())
-                            .data(notificationConfig.toJobTriggerData(event.toDto()))
+                            .data(triggerData)
                             .build());
                     LOG.debug("Scheduled job <{}> for notification <{}> - event <{}/{}>", trigger.id(), config.notificationId(), event.getId(), event.getMessage());
                     // TODO: The trigger ID needs to be added to the "triggered_tasks" list of the event
@@ -98,6 +144,72 @@ public class EventNotificationHandler {
                     LOG.error("Couldn't create job trigger for notification <{}> and event: {}", config.notificationId(), event, e);
                 }
             }
+
+            if (coalesced != null) {
+                scheduleCoalesced(definition, config, jobDefinition.get(), coalesced);
+            }
+        }
+    }
+
+    private void scheduleCoalesced(EventDefinition definition, Config config, JobDefinitionDto jobDefinition, Coalesced coalesced) {
+        try {
+            // Fold the events into the pending job of the current window if there is one
+            final Optional<JobTriggerDto> pendingTrigger = jobTriggerService.updatePendingTrigger(jobDefinition.id(),
+                    and(
+                            eq(FIELD_DATA_TYPE, EventNotificationExecutionJob.TYPE_NAME),
+                            eq(FIELD_DATA_EVENT_DEFINITION_ID, definition.id()),
+                            // Only coalesced jobs have a time range, jobs for single events must not be modified
+                            ne(FIELD_DATA_COALESCED_TIMERANGE_START, null)
+                    ),
+                    combine(
+                            inc(FIELD_DATA_COALESCED_EVENTS, coalesced.events()),
+                            min(FIELD_DATA_COALESCED_TIMERANGE_START, coalesced.timerangeStart()),
+                            max(FIELD_DATA_COALESCED_TIMERANGE_END, coalesced.timerangeEnd())
+                    ));
+            if (pendingTrigger.isPresent()) {
+                LOG.debug("Added {} events to pending job <{}> for notification <{}>", coalesced.events(),
+                        pendingTrigger.get().id(), config.notificationId());
+                return;
+            }
+
+            final JobTriggerDto trigger = jobTriggerService.create(JobTriggerDto.builderWithClock(clock)
+                    .jobDefinitionType(EventNotificationExecutionJob.TYPE_NAME)
+                    .jobDefinitionId(jobDefinition.id())
+                    .schedule(OnceJobSchedule.create())
+                    .nextTime(clock.nowUTC().plus(coalescingWindow.toMilliseconds()))
+                    .data(coalesced.toData())
+                    .build());
+            LOG.debug("Scheduled job <{}> for notification <{}> - {} events", trigger.id(), config.notificationId(), coalesced.events());
+        } catch (Exception e) {
+            LOG.error("Couldn't create job trigger for notification <{}> and {} events of event definition <{}>",
+                    config.notificationId(), coalesced.events(), definition.id(), e);
+        }
+    }
+
+    /**
+     * The events of one {@link #handleEvents(EventDefinition, List)} call which get folded into one notification job.
+     */
+    private record Coalesced(EventNotificationExecutionJob.Data first, int events, DateTime timerangeStart,
+                             DateTime timerangeEnd) {
+        Coalesced(EventNotificationExecutionJob.Data first, EventDto event) {
+            this(first, 1, event.timerangeStart().orElse(event.eventTimestamp()), event.timerangeEnd().orElse(event.eventTimestamp()));
+        }
+
+        Coalesced add(EventDto event) {
+            final DateTime start = event.timerangeStart().orElse(event.eventTimestamp());
+            final DateTime end = event.timerangeEnd().orElse(event.eventTimestamp());
+            return new Coalesced(first, events + 1,
+                    start.isBefore(timerangeStart) ? start : timerangeStart,
+                    end.isAfter(timerangeEnd) ? end : timerangeEnd);
+        }
+
+        EventNotificationExecutionJob.Data toData() {
+            // The first event is delivered by the job itself, so it doesn't count as a coalesced event
+            return first.toBuilder()
+                    .coalescedEvents(events - 1)
+                    .coalescedTimerangeStart(timerangeStart)
+                    .coalescedTimerangeEnd(timerangeEnd)
+                    .build();
         }
     }
 
@@ -21,11 +21,14 @@ import jakarta.inject.Inject;
 import org.graylog.events.configuration.EventsConfigurationProvider;
 import org.graylog.events.event.EventDto;
 import org.graylog.events.processor.EventDefinitionDto;
+import org.graylog.scheduler.JobTriggerDto;
 import org.graylog2.database.NotFoundException;
 import org.graylog2.plugin.MessageSummary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Optional;
+
 public class EventNotificationService {
     private static final Logger LOG = LoggerFactory.getLogger(EventNotificationService.class);
 
@@ -59,6 +62,24 @@ public class EventNotificationService {
     }
 
     public ImmutableList<MessageSummary> getBacklogForEvent(EventNotificationContext ctx) {
-        return getBacklogForEvent(ctx.eventDefinition().orElse(null), ctx.event());
+        return getBacklogForEvent(ctx.eventDefinition().orElse(null), backlogEvent(ctx));
+    }
+
+    /**
+     * A coalesced notification job stands for all events of its time window, so the backlog is fetched for the
+     * time range covering all of them instead of the time range of the first event only.
+     */
+    private EventDto backlogEvent(EventNotificationContext ctx) {
+        final Optional<EventNotificationExecutionJob.Data> data = ctx.jobTrigger()
+                .flatMap(JobTriggerDto::data)
+                .filter(EventNotificationExecutionJob.Data.class::isInstance)
+                .map(EventNotificationExecutionJob.Data.class::cast)
+                .filter(d -> d.coalescedEvents() > 0 && d.coalescedTimerangeStart() != null && d.coalescedTimerangeEnd() != null);
+
+        return data.map(d -> ctx.event().toBuilder()
+                        .timerangeStart(d.coalescedTimerangeStart())
+                        .timerangeEnd(d.coalescedTimerangeEnd())
+                        .build())
+                .orElse(ctx.event());
     }
 }
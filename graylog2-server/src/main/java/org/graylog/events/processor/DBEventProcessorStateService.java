@@ -16,7 +16,6 @@
  */
 package org.graylog.events.processor;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 import org.graylog2.database.MongoCollection;
 import com.mongodb.client.model.Filters;
@@ -32,14 +31,17 @@ import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.Optional;
 import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.graylog.events.processor.EventProcessorStateDto.FIELD_AGGREGATION_SLICES;
 import static org.graylog.events.processor.EventProcessorStateDto.FIELD_EVENT_DEFINITION_ID;
 import static org.graylog.events.processor.EventProcessorStateDto.FIELD_MAX_PROCESSED_TIMESTAMP;
 import static org.graylog.events.processor.EventProcessorStateDto.FIELD_MIN_PROCESSED_TIMESTAMP;
+import static org.graylog.events.processor.EventProcessorStateDto.FIELD_STREAMING_GAP;
 
 /**
  * Manages database state for {@link EventProcessor}s.
@@ -66,8 +68,7 @@ public class DBEventProcessorStateService {
      * @param eventDefinitionId the event definition ID to load the state for
      * @return filled optional with the state object if one exists, empty optional otherwise
      */
-    @VisibleForTesting
-    Optional<EventProcessorStateDto> findByEventDefinitionId(String eventDefinitionId) {
+    public Optional<EventProcessorStateDto> findByEventDefinitionId(String eventDefinitionId) {
         checkArgument(!isNullOrEmpty(eventDefinitionId), "eventDefinitionId cannot be null or empty");
 
         return Optional.ofNullable(collection.find(Filters.eq(FIELD_EVENT_DEFINITION_ID, eventDefinitionId)).first());
@@ -135,6 +136,58 @@ public class DBEventProcessorStateService {
                 update, new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER)));
     }
 
+    /**
+     * Loads the partial aggregation results for the given event definition ID.
+     *
+     * @param eventDefinitionId the event definition ID to load the slices for
+     * @return filled optional with the slices if there are any, empty optional otherwise
+     */
+    public Optional<EventProcessorStateDto.AggregationSlices> getAggregationSlices(String eventDefinitionId) {
+        return findByEventDefinitionId(eventDefinitionId).map(EventProcessorStateDto::aggregationSlices);
+    }
+
+    /**
+     * Stores the partial aggregation results for the given event definition ID. Slices are only stored when a state
+     * record exists already, i.e. after the first execution of the event processor.
+     *
+     * @param eventDefinitionId the event definition ID to store the slices for
+     * @param aggregationSlices the slices or null to remove them
+     * @return true if the slices have been stored, false otherwise
+     */
+    public boolean setAggregationSlices(String eventDefinitionId, @Nullable EventProcessorStateDto.AggregationSlices aggregationSlices) {
+        // Only touch the slices, the processed timestamps are updated concurrently by setState()
+        final Bson update = aggregationSlices == null
+                ? Updates.unset(FIELD_AGGREGATION_SLICES)
+                : Updates.set(FIELD_AGGREGATION_SLICES, aggregationSlices);
+        return collection.updateOne(Filters.eq(FIELD_EVENT_DEFINITION_ID, eventDefinitionId), update).getMatchedCount() > 0;
+    }
+
+    /**
+     * Extends the streaming gap of the given event definition ID to include the given time range. The gap is only
+     * stored when a state record exists already, i.e. after the first execution of the event processor.
+     *
+     * @param eventDefinitionId the event definition ID to store the gap for
+     * @param gap               the time range of the messages which couldn't be evaluated
+     */
+    public void addStreamingGap(String eventDefinitionId, EventProcessorStateDto.StreamingGap gap) {
+        collection.updateOne(Filters.eq(FIELD_EVENT_DEFINITION_ID, eventDefinitionId), Updates.combine(
+                Updates.min(FIELD_STREAMING_GAP + ".from", gap.from()),
+                Updates.max(FIELD_STREAMING_GAP + ".to", gap.to())));
+    }
+
+    /**
+     * Removes the streaming gap of the given event definition ID if it ends before the given timestamp.
+     *
+     * @param eventDefinitionId the event definition ID to remove the gap for
+     * @param timestamp         the timestamp up to which messages have been searched or evaluated
+     */
+    public void removeStreamingGapBefore(String eventDefinitionId, DateTime timestamp) {
+        collection.updateOne(Filters.and(
+                        Filters.eq(FIELD_EVENT_DEFINITION_ID, eventDefinitionId),
+                        Filters.lt(FIELD_STREAMING_GAP + ".to", timestamp)),
+                Updates.unset(FIELD_STREAMING_GAP));
+    }
+
     /**
      * Delete state objects for the given event definition ID.
      *
@@ -19,6 +19,7 @@ package org.graylog.events.processor;
 import com.github.joschi.jadconfig.Parameter;
 import com.github.joschi.jadconfig.documentation.Documentation;
 import com.github.joschi.jadconfig.documentation.DocumentationSection;
+import com.github.joschi.jadconfig.util.Duration;
 import com.github.joschi.jadconfig.validators.PositiveIntegerValidator;
 
 @DocumentationSection(heading = "Event Definition", description = "")
@@ -42,6 +43,46 @@ public class EventDefinitionConfiguration {
     @Parameter(value = "event_definition_tactics_techniques_validation_enabled")
     private boolean tacticsTechniquesValidationEnabled = true;
 
+    @Documentation("""
+            Aggregation event definitions which search the same streams with the same query and filters in the same
+            time range are executed as one search if they start within this time window. A value of "0" runs every
+            event definition with its own search.
+            Default: 0 (disabled)
+            """)
+    @Parameter(value = "event_definition_shared_search_window")
+    private Duration sharedSearchWindow = Duration.milliseconds(0);
+
+    @Documentation("""
+            Evaluate filter event definitions (without aggregations) while messages are processed instead of searching
+            the indexed messages on every execution. Only definitions whose query consists of exact field values,
+            "_exists_" checks and boolean operators and which don't use filters or query parameters are evaluated
+            this way; all other definitions keep searching. Events are created right after a message was processed,
+            before it got indexed.
+            Default: false
+            """)
+    @Parameter(value = "event_definition_streaming_filters_enabled")
+    private boolean streamingFiltersEnabled = false;
+
+    @Documentation("""
+            Compute aggregation event definitions whose search window is a multiple of their execution interval from
+            stored partial results per interval, so only the newest interval has to be searched on every execution.
+            Only count, sum, min and max aggregations are supported. Messages which are indexed after their interval
+            has been searched are not taken into account by later executions.
+            Default: false
+            """)
+    @Parameter(value = "event_definition_incremental_aggregation_enabled")
+    private boolean incrementalAggregationEnabled = false;
+
+    @Documentation("""
+            Fold the notifications of an event definition into one notification job per notification and time
+            window instead of scheduling a job for every event. The job runs at the end of the window with the first
+            event of the window and delivers the backlog of all events of the window. A value of "0" schedules a
+            notification job for every event.
+            Default: 0
+            """)
+    @Parameter(value = "event_definition_notification_coalescing_window")
+    private Duration notificationCoalescingWindow = Duration.seconds(0);
+
     public int getMaxEventLimit() {
         return maxEventLimit;
     }
@@ -49,4 +90,20 @@ public class EventDefinitionConfiguration {
     public boolean isTacticsTechniquesValidationEnabled() {
         return tacticsTechniquesValidationEnabled;
     }
+
+    public Duration getSharedSearchWindow() {
+        return sharedSearchWindow;
+    }
+
+    public boolean isStreamingFiltersEnabled() {
+        return streamingFiltersEnabled;
+    }
+
+    public boolean isIncrementalAggregationEnabled() {
+        return incrementalAggregationEnabled;
+    }
+
+    public Duration getNotificationCoalescingWindow() {
+        return notificationCoalescingWindow;
+    }
 }
@@ -107,6 +107,7 @@ public class EventDefinitionHandler {
             throw e;
         }
 
+        clusterEventBus.post(new EventDefinitionUpdated(eventDefinition.id()));
         return eventDefinition;
     }
 
@@ -181,7 +182,7 @@ public class EventDefinitionHandler {
                     createJobDefinitionAndTriggerIfScheduledType(eventDefinition);
                 }
             } else {
-                unschedule(eventDefinition.id());
+                disable(eventDefinition.id());
             }
         } catch (Exception e) {
             // Cleanup if anything goes wrong
@@ -269,6 +270,7 @@ public class EventDefinitionHandler {
         final EventDefinitionDto eventDefinition = getEventDefinitionOrThrowIAE(eventDefinitionId);
 
         createJobDefinitionAndTriggerIfScheduledType(eventDefinition);
+        clusterEventBus.post(new EventDefinitionUpdated(eventDefinitionId));
     }
 
     /**
@@ -277,6 +279,11 @@ public class EventDefinitionHandler {
      * @param eventDefinitionId the event definition to unschedule
      */
     public void unschedule(String eventDefinitionId) {
+        disable(eventDefinitionId);
+        clusterEventBus.post(new EventDefinitionUpdated(eventDefinitionId));
+    }
+
+    private void disable(String eventDefinitionId) {
         final EventDefinitionDto eventDefinition = getEventDefinitionOrThrowIAE(eventDefinitionId);
 
         if (NonDeletableSystemScope.NAME.equals(eventDefinition.scope())) {
@@ -116,7 +116,16 @@ public class EventProcessorEngine {
         }
     }
 
-    private void emitEvents(EventProcessor eventProcessor, EventDefinition eventDefinition, List<EventWithContext> eventsWithContext) throws EventProcessorException {
+    /**
+     * Runs field specs, event modifiers, notifications and storage handlers for the given events. Used for the events
+     * of scheduled executions and for events which have been created while messages were processed.
+     *
+     * @param eventProcessor    the event processor which created the events
+     * @param eventDefinition   the preprocessed event definition
+     * @param eventsWithContext the events to emit
+     * @throws EventProcessorException if the events couldn't be emitted
+     */
+    public void emitEvents(EventProcessor eventProcessor, EventDefinition eventDefinition, List<EventWithContext> eventsWithContext) throws EventProcessorException {
         if (eventsWithContext.isEmpty()) {
             return;
         }
@@ -84,9 +84,9 @@ public class EventProcessorExecutionJob implements Job {
         if (data.isPresent()) {
             LOG.trace("Using timerange from job trigger data: from={} to={} (trigger={})",
                     data.get().timerangeFrom(), data.get().timerangeTo(), ctx.trigger().id());
-            parameters = config.parameters().withTimerange(data.get().timerangeFrom(), data.get().timerangeTo());
+            parameters = config.parameters().withTimerange(data.get().timerangeFrom(), data.get().timerangeTo()).forScheduledExecution();
         } else {
-            parameters = config.parameters();
+            parameters = config.parameters().forScheduledExecution();
         }
 
         final DateTime from = parameters.timerange().getFrom();
@@ -30,6 +30,17 @@ public interface EventProcessorParametersWithTimerange extends EventProcessorPar
     @JsonIgnore
     EventProcessorParametersWithTimerange withTimerange(DateTime from, DateTime to);
 
+    /**
+     * Returns these parameters for an execution by the job scheduler. Event processors can use this to tell
+     * scheduled executions apart from manual ones.
+     *
+     * @return the parameters of a scheduled execution
+     */
+    @JsonIgnore
+    default EventProcessorParametersWithTimerange forScheduledExecution() {
+        return this;
+    }
+
     interface Builder<SELF> extends EventProcessorParameters.Builder<SELF> {
         @JsonProperty(FIELD_TIMERANGE)
         SELF timerange(TimeRange timerange);
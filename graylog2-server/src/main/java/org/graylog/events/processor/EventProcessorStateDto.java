@@ -21,11 +21,14 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.google.auto.value.AutoValue;
 import org.graylog2.database.MongoEntity;
+import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
 import org.joda.time.DateTime;
 import org.mongojack.Id;
 import org.mongojack.ObjectId;
 
 import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Set;
 
 @AutoValue
 @JsonDeserialize(builder = EventProcessorStateDto.Builder.class)
@@ -34,6 +37,8 @@ public abstract class EventProcessorStateDto implements MongoEntity {
     static final String FIELD_EVENT_DEFINITION_ID = "event_definition_id";
     static final String FIELD_MIN_PROCESSED_TIMESTAMP = "min_processed_timestamp";
     static final String FIELD_MAX_PROCESSED_TIMESTAMP = "max_processed_timestamp";
+    static final String FIELD_AGGREGATION_SLICES = "aggregation_slices";
+    static final String FIELD_STREAMING_GAP = "streaming_gap";
 
     @Id
     @ObjectId
@@ -50,6 +55,14 @@ public abstract class EventProcessorStateDto implements MongoEntity {
     @JsonProperty(FIELD_MAX_PROCESSED_TIMESTAMP)
     public abstract DateTime maxProcessedTimestamp();
 
+    @Nullable
+    @JsonProperty(FIELD_AGGREGATION_SLICES)
+    public abstract AggregationSlices aggregationSlices();
+
+    @Nullable
+    @JsonProperty(FIELD_STREAMING_GAP)
+    public abstract StreamingGap streamingGap();
+
     public static Builder builder() {
         return Builder.create();
     }
@@ -77,6 +90,60 @@ public abstract class EventProcessorStateDto implements MongoEntity {
         @JsonProperty(FIELD_MAX_PROCESSED_TIMESTAMP)
         public abstract Builder maxProcessedTimestamp(DateTime maxProcessedTimestamp);
 
+        @JsonProperty(FIELD_AGGREGATION_SLICES)
+        public abstract Builder aggregationSlices(@Nullable AggregationSlices aggregationSlices);
+
+        @JsonProperty(FIELD_STREAMING_GAP)
+        public abstract Builder streamingGap(@Nullable StreamingGap streamingGap);
+
         public abstract EventProcessorStateDto build();
     }
+
+    /**
+     * Partial aggregation results of an aggregation event definition, one per execution interval. They are combined
+     * into the results for the whole search window, so only the newest slice has to be searched on every execution.
+     *
+     * @param fingerprint identifies the configuration the slices have been computed with
+     * @param slices      the slices ordered by time
+     */
+    public record AggregationSlices(@JsonProperty("fingerprint") String fingerprint,
+                                    @JsonProperty("slices") List<AggregationSlice> slices) {}
+
+    /**
+     * The partial aggregation results for one time slice.
+     *
+     * @param from          start of the slice (inclusive)
+     * @param to            end of the slice (exclusive)
+     * @param sourceStreams the streams of the aggregated messages
+     * @param rows          one row per group, empty if there were no messages
+     */
+    public record AggregationSlice(@JsonProperty("from") DateTime from,
+                                   @JsonProperty("to") DateTime to,
+                                   @JsonProperty("source_streams") Set<String> sourceStreams,
+                                   @JsonProperty("rows") List<AggregationSliceRow> rows) {}
+
+    /**
+     * @param key    the group-by values
+     * @param values the series values in the order of the configured series
+     */
+    public record AggregationSliceRow(@JsonProperty("key") List<String> key,
+                                      @JsonProperty("values") List<Double> values) {}
+
+    /**
+     * Time range of messages which matched an event definition evaluated while processing messages, but couldn't be
+     * turned into events. Scheduled executions have to search this time range.
+     *
+     * @param from timestamp of the oldest of these messages
+     * @param to   timestamp of the newest of these messages
+     */
+    public record StreamingGap(@JsonProperty("from") DateTime from,
+                               @JsonProperty("to") DateTime to) {
+        public boolean overlaps(TimeRange timerange) {
+            return !from.isAfter(timerange.getTo()) && !to.isBefore(timerange.getFrom());
+        }
+
+        public StreamingGap union(StreamingGap other) {
+            return new StreamingGap(from.isBefore(other.from()) ? from : other.from(), to.isAfter(other.to()) ? to : other.to());
+        }
+    }
 }
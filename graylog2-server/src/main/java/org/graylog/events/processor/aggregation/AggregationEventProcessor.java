@@ -80,6 +80,7 @@ public class AggregationEventProcessor implements EventProcessor {
     private final Messages messages;
     private final PermittedStreams permittedStreams;
     private final AggregationSearchUtils aggregationSearchUtils;
+    private final StreamingFilterEvaluator streamingFilterEvaluator;
 
     @Inject
     public AggregationEventProcessor(@Assisted EventDefinition eventDefinition,
@@ -91,7 +92,9 @@ public class AggregationEventProcessor implements EventProcessor {
                                      Messages messages,
                                      PermittedStreams permittedStreams,
                                      Set<EventQuerySearchTypeSupplier> eventQueryModifiers,
-                                     MessageFactory messageFactory) {
+                                     MessageFactory messageFactory,
+                                     StreamingFilterEvaluator streamingFilterEvaluator,
+                                     IncrementalAggregation incrementalAggregation) {
         this.eventDefinition = eventDefinition;
         this.config = (AggregationEventProcessorConfig) eventDefinition.config();
         this.dependencyCheck = dependencyCheck;
@@ -100,6 +103,7 @@ public class AggregationEventProcessor implements EventProcessor {
         this.eventStreamService = eventStreamService;
         this.messages = messages;
         this.permittedStreams = permittedStreams;
+        this.streamingFilterEvaluator = streamingFilterEvaluator;
         // If this is a simple Filter search there is no need to initialize aggregationSearchUtils
         this.aggregationSearchUtils = config.series().isEmpty() ? null : new AggregationSearchUtils(
                 eventDefinition,
@@ -108,7 +112,8 @@ public class AggregationEventProcessor implements EventProcessor {
                 aggregationSearchFactory,
                 eventStreamService,
                 messageFactory,
-                permittedStreams
+                permittedStreams,
+                incrementalAggregation
         );
     }
 
@@ -129,7 +134,12 @@ public class AggregationEventProcessor implements EventProcessor {
         // a simple search query. (one message -> one event)
         try {
             if (config.series().isEmpty()) {
-                filterSearch(eventFactory, parameters, eventsConsumer);
+                if (parameters.scheduledExecution() && streamingFilterEvaluator.covers(eventDefinition, parameters.timerange())) {
+                    // Events have already been created while the messages were processed
+                    LOG.debug("Skipping search for streamed event definition <{}/{}>", eventDefinition.title(), eventDefinition.id());
+                } else {
+                    filterSearch(eventFactory, parameters, eventsConsumer);
+                }
             } else {
                 aggregationSearchUtils.aggregatedSearch(eventFactory, parameters, eventsConsumer);
             }
@@ -216,18 +226,22 @@ public class AggregationEventProcessor implements EventProcessor {
      */
     private Set<String> getStreams(AggregationEventProcessorParameters parameters) {
         if (parameters.streams().isEmpty()) {
-            Set<String> configStreams = new HashSet<>(config.streams());
-            if (!config.streamCategories().isEmpty()) {
-                // TODO: We need to account for permissions of the user who created the event here in place of
-                //      a blanket `true` here.
-                configStreams.addAll(permittedStreams.loadWithCategories(config.streamCategories(), streamId -> true));
-            }
-            return configStreams;
+            return getConfigStreams();
         } else {
             return parameters.streams();
         }
     }
 
+    private Set<String> getConfigStreams() {
+        Set<String> configStreams = new HashSet<>(config.streams());
+        if (!config.streamCategories().isEmpty()) {
+            // TODO: We need to account for permissions of the user who created the event here in place of
+            //      a blanket `true` here.
+            configStreams.addAll(permittedStreams.loadWithCategories(config.streamCategories(), streamId -> true));
+        }
+        return configStreams;
+    }
+
     private void filterSearch(EventFactory eventFactory, AggregationEventProcessorParameters parameters,
                               EventConsumer<List<EventWithContext>> eventsConsumer) throws EventProcessorException {
         Set<String> streams = getStreams(parameters);
@@ -241,22 +255,7 @@ public class AggregationEventProcessor implements EventProcessor {
 
             for (final ResultMessage resultMessage : messages) {
                 final Message msg = resultMessage.getMessage();
-                final Event event = eventFactory.createEvent(eventDefinition, msg.getTimestamp(), eventDefinition.title());
-                event.setOriginContext(EventOriginContext.elasticsearchMessage(resultMessage.getIndex(), msg.getId()));
-
-                // Ensure the event has values in the "source_streams" field for permission checks to work
-                eventStreamService.buildEventSourceStreams(getStreams(parameters), ImmutableSet.copyOf(msg.getStreamIds()))
-                        .forEach(event::addSourceStream);
-
-                event.setReplayInfo(EventReplayInfo.builder()
-                        .timerangeStart(parameters.timerange().getFrom())
-                        .timerangeEnd(parameters.timerange().getTo())
-                        .query(config.query())
-                        .streams(event.getSourceStreams())
-                        .filters(config.filters())
-                        .build());
-
-                eventsWithContext.add(EventWithContext.create(event, msg));
+                eventsWithContext.add(createFilterEvent(eventFactory, msg, resultMessage.getIndex(), getStreams(parameters), parameters.timerange()));
                 if (config.eventLimit() != 0) {
                     if (messageCount.incrementAndGet() >= config.eventLimit()) {
                         eventsConsumer.accept(eventsWithContext.build());
@@ -275,6 +274,50 @@ public class AggregationEventProcessor implements EventProcessor {
         }
     }
 
+    /**
+     * Creates one event per message for messages which matched the query of this filter event definition while
+     * they were processed. See {@link StreamingFilterEvaluator}.
+     *
+     * @param eventFactory the event factory
+     * @param messages     the matched messages and the index they are written to
+     * @return the created events, at most as many as the event limit of the definition allows
+     */
+    public List<EventWithContext> createStreamedEvents(EventFactory eventFactory, List<StreamingFilterEvaluator.StreamedMessage> messages) {
+        final Set<String> streams = getConfigStreams();
+        final ImmutableList.Builder<EventWithContext> eventsWithContext = ImmutableList.builder();
+        int messageCount = 0;
+
+        for (final StreamingFilterEvaluator.StreamedMessage streamedMessage : messages) {
+            if (config.eventLimit() != 0 && messageCount++ >= config.eventLimit()) {
+                LOG.debug("Event limit reached at {} for '{}/{}' event definition.", config.eventLimit(), eventDefinition.title(), eventDefinition.id());
+                break;
+            }
+            final Message msg = streamedMessage.message();
+            final TimeRange timeRange = AbsoluteRange.create(msg.getTimestamp().minus(config.searchWithinMs()), msg.getTimestamp());
+            eventsWithContext.add(createFilterEvent(eventFactory, msg, streamedMessage.indexName(), streams, timeRange));
+        }
+        return eventsWithContext.build();
+    }
+
+    private EventWithContext createFilterEvent(EventFactory eventFactory, Message msg, String indexName, Set<String> streams, TimeRange timeRange) {
+        final Event event = eventFactory.createEvent(eventDefinition, msg.getTimestamp(), eventDefinition.title());
+        event.setOriginContext(EventOriginContext.elasticsearchMessage(indexName, msg.getId()));
+
+        // Ensure the event has values in the "source_streams" field for permission checks to work
+        eventStreamService.buildEventSourceStreams(streams, ImmutableSet.copyOf(msg.getStreamIds()))
+                .forEach(event::addSourceStream);
+
+        event.setReplayInfo(EventReplayInfo.builder()
+                .timerangeStart(timeRange.getFrom())
+                .timerangeEnd(timeRange.getTo())
+                .query(config.query())
+                .streams(event.getSourceStreams())
+                .filters(config.filters())
+                .build());
+
+        return EventWithContext.create(event, msg);
+    }
+
     private static class EventLimitReachedException extends RuntimeException {
     }
 }
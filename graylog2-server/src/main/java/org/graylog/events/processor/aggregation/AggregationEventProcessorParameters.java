@@ -17,6 +17,7 @@
 package org.graylog.events.processor.aggregation;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
@@ -47,6 +48,13 @@ public abstract class AggregationEventProcessorParameters implements EventProces
     @JsonProperty(FIELD_BATCH_SIZE)
     public abstract int batchSize();
 
+    /**
+     * Whether the parameters belong to an execution by the job scheduler. Never part of the serialized parameters,
+     * so manual executions are always treated as such.
+     */
+    @JsonIgnore
+    public abstract boolean scheduledExecution();
+
     @Override
     public EventProcessorParametersWithTimerange withTimerange(DateTime from, DateTime to) {
         requireNonNull(from, "from cannot be null");
@@ -56,6 +64,11 @@ public abstract class AggregationEventProcessorParameters implements EventProces
         return toBuilder().timerange(AbsoluteRange.create(from, to)).build();
     }
 
+    @Override
+    public EventProcessorParametersWithTimerange forScheduledExecution() {
+        return toBuilder().scheduledExecution(true).build();
+    }
+
     public abstract Builder toBuilder();
 
     public static Builder builder() {
@@ -78,7 +91,8 @@ public abstract class AggregationEventProcessorParameters implements EventProces
                     .type(AggregationEventProcessorConfig.TYPE_NAME)
                     .timerange(timerange)
                     .streams(Collections.emptySet())
-                    .batchSize(500);
+                    .batchSize(500)
+                    .scheduledExecution(false);
         }
 
         @JsonProperty(FIELD_STREAMS)
@@ -87,6 +101,8 @@ public abstract class AggregationEventProcessorParameters implements EventProces
         @JsonProperty(FIELD_BATCH_SIZE)
         public abstract Builder batchSize(int batchSize);
 
+        public abstract Builder scheduledExecution(boolean scheduledExecution);
+
         public abstract AggregationEventProcessorParameters build();
     }
 }
@@ -61,6 +61,7 @@ public class AggregationSearchUtils {
     private final EventStreamService eventStreamService;
     private final MessageFactory messageFactory;
     private final PermittedStreams permittedStreams;
+    private final IncrementalAggregation incrementalAggregation;
 
     public AggregationSearchUtils(EventDefinition eventDefinition,
                                   AggregationEventProcessorConfig config,
@@ -68,7 +69,8 @@ public class AggregationSearchUtils {
                                   AggregationSearch.Factory aggregationSearchFactory,
                                   EventStreamService eventStreamService,
                                   MessageFactory messageFactory,
-                                  PermittedStreams permittedStreams) {
+                                  PermittedStreams permittedStreams,
+                                  IncrementalAggregation incrementalAggregation) {
         this.eventDefinition = eventDefinition;
         this.config = config;
         this.eventQueryModifiers = eventQueryModifiers;
@@ -76,6 +78,7 @@ public class AggregationSearchUtils {
         this.eventStreamService = eventStreamService;
         this.messageFactory = messageFactory;
         this.permittedStreams = permittedStreams;
+        this.incrementalAggregation = incrementalAggregation;
     }
 
     public void aggregatedSearch(EventFactory eventFactory, AggregationEventProcessorParameters parameters,
@@ -89,8 +92,13 @@ public class AggregationSearchUtils {
         final List<SearchType> additionalSearchTypes = eventQueryModifiers.stream()
                 .flatMap(e -> e.additionalSearchTypes(eventDefinition).stream())
                 .toList();
-        final AggregationSearch search = aggregationSearchFactory.create(config, parameters, owner, eventDefinition, additionalSearchTypes);
-        final AggregationResult result = search.doSearch();
+        final AggregationResult result;
+        if (incrementalAggregation.isEligible(config, parameters, !additionalSearchTypes.isEmpty())) {
+            result = incrementalAggregation.search(eventDefinition, config, parameters, owner, aggregationSearchFactory);
+        } else {
+            final AggregationSearch search = aggregationSearchFactory.create(config, parameters, owner, eventDefinition, additionalSearchTypes);
+            result = search.doSearch();
+        }
 
         if (result.keyResults().isEmpty()) {
             LOG.debug("Aggregated search returned empty result set.");
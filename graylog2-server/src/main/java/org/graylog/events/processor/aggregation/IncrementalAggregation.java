@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.events.processor.aggregation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import jakarta.inject.Inject;
+import org.graylog.events.processor.DBEventProcessorStateService;
+import org.graylog.events.processor.EventDefinition;
+import org.graylog.events.processor.EventDefinitionConfiguration;
+import org.graylog.events.processor.EventProcessorException;
+import org.graylog.events.processor.EventProcessorStateDto.AggregationSlice;
+import org.graylog.events.processor.EventProcessorStateDto.AggregationSliceRow;
+import org.graylog.events.processor.EventProcessorStateDto.AggregationSlices;
+import org.graylog.plugins.views.search.searchtypes.pivot.SeriesSpec;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Count;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Max;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Min;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Sum;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Computes aggregation event definitions with a search window that is larger than the execution interval from
+ * partial results per execution interval ("slices") instead of aggregating the whole window on every execution.
+ * <p>
+ * A definition searching the last 24 hours every minute has 1440 slices per window. Only the slices which are not
+ * part of the stored state are searched, usually just the newest one. The slices are kept in the event processor
+ * state, so executions on other nodes and after a restart can continue with them.
+ * <p>
+ * Only series which can be combined exactly are supported: count, sum, min and max. Messages which are indexed after
+ * their slice has been computed are not part of later windows.
+ */
+public class IncrementalAggregation {
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalAggregation.class);
+
+    // Keeps the state document well below the MongoDB document size limit
+    static final int MAX_PERSISTED_ROWS = 50_000;
+
+    private final boolean enabled;
+    private final DBEventProcessorStateService stateService;
+
+    @Inject
+    public IncrementalAggregation(EventDefinitionConfiguration configuration, DBEventProcessorStateService stateService) {
+        this.enabled = configuration.isIncrementalAggregationEnabled();
+        this.stateService = stateService;
+    }
+
+    /**
+     * Returns whether the aggregation for the given parameters can be computed from slices.
+     *
+     * @param config                   the event definition config
+     * @param parameters               the execution parameters
+     * @param hasAdditionalSearchTypes whether event query modifiers add search types to the aggregation search
+     * @return true if {@link #search} can be used, false otherwise
+     */
+    public boolean isEligible(AggregationEventProcessorConfig config, AggregationEventProcessorParameters parameters,
+                              boolean hasAdditionalSearchTypes) {
+        if (!enabled || hasAdditionalSearchTypes || config.useCronScheduling()) {
+            return false;
+        }
+        // Parameters and stream categories can resolve to different values in every execution
+        if (!config.queryParameters().isEmpty() || !config.streamCategories().isEmpty() || !parameters.streams().isEmpty()) {
+            return false;
+        }
+        if (config.series().isEmpty() || !config.series().stream().allMatch(IncrementalAggregation::isCombinable)) {
+            return false;
+        }
+
+        final long searchWithinMs = config.searchWithinMs();
+        final long executeEveryMs = config.executeEveryMs();
+        if (executeEveryMs <= 0 || executeEveryMs % 1000 != 0 || searchWithinMs <= executeEveryMs || searchWithinMs % executeEveryMs != 0) {
+            return false;
+        }
+
+        // The time range has to consist of whole windows which are executeEveryMs apart, like scheduled executions
+        final long timeRangeMs = parameters.timerange().getTo().getMillis() - parameters.timerange().getFrom().getMillis();
+        return timeRangeMs >= searchWithinMs && (timeRangeMs - searchWithinMs) % executeEveryMs == 0;
+    }
+
+    private static boolean isCombinable(SeriesSpec series) {
+        return series instanceof Count || series instanceof Sum || series instanceof Min || series instanceof Max;
+    }
+
+    /**
+     * Computes the aggregation result for the given parameters. Only call this if {@link #isEligible} returned true.
+     *
+     * @return the aggregation result with one key result per window and group
+     */
+    public AggregationResult search(EventDefinition eventDefinition,
+                                    AggregationEventProcessorConfig config,
+                                    AggregationEventProcessorParameters parameters,
+                                    AggregationSearch.User searchOwner,
+                                    AggregationSearch.Factory searchFactory) throws EventProcessorException {
+        final String fingerprint = fingerprint(config);
+        final long sliceMs = config.executeEveryMs();
+        final DateTime from = parameters.timerange().getFrom();
+        final DateTime to = parameters.timerange().getTo();
+
+        final TreeMap<Long, AggregationSlice> slices = new TreeMap<>();
+        stateService.getAggregationSlices(eventDefinition.id())
+                .filter(stored -> fingerprint.equals(stored.fingerprint()))
+                .ifPresent(stored -> stored.slices().forEach(slice -> slices.put(slice.from().getMillis(), slice)));
+
+        DateTime missingFrom = null;
+        DateTime missingTo = null;
+        for (DateTime sliceFrom = from; sliceFrom.isBefore(to); sliceFrom = sliceFrom.plus(sliceMs)) {
+            final AggregationSlice slice = slices.get(sliceFrom.getMillis());
+            if (slice == null || slice.to().getMillis() != sliceFrom.getMillis() + sliceMs) {
+                if (missingFrom == null) {
+                    missingFrom = sliceFrom;
+                }
+                missingTo = sliceFrom.plus(sliceMs);
+            }
+        }
+
+        if (missingFrom != null) {
+            LOG.debug("Searching aggregation slices from <{}> to <{}> for event definition <{}/{}>",
+                    missingFrom, missingTo, eventDefinition.title(), eventDefinition.id());
+            searchSlices(eventDefinition, config, parameters, searchOwner, searchFactory, missingFrom, missingTo)
+                    .forEach(slice -> slices.put(slice.from().getMillis(), slice));
+        }
+
+        final AggregationResult result = combine(config, parameters.timerange(), slices);
+
+        // Only keep the slices which are part of the next window
+        final long keepFrom = to.getMillis() - config.searchWithinMs() + sliceMs;
+        final List<AggregationSlice> retainedSlices = slices.tailMap(keepFrom, true).values().stream()
+                .filter(slice -> slice.to().getMillis() <= to.getMillis())
+                .toList();
+        final int rows = retainedSlices.stream().mapToInt(slice -> slice.rows().size()).sum();
+        if (rows > MAX_PERSISTED_ROWS) {
+            LOG.debug("Not storing {} aggregation slice rows for event definition <{}/{}>, the limit is {}",
+                    rows, eventDefinition.title(), eventDefinition.id(), MAX_PERSISTED_ROWS);
+            stateService.setAggregationSlices(eventDefinition.id(), null);
+        } else {
+            stateService.setAggregationSlices(eventDefinition.id(), new AggregationSlices(fingerprint, retainedSlices));
+        }
+
+        return result;
+    }
+
+    private List<AggregationSlice> searchSlices(EventDefinition eventDefinition,
+                                                AggregationEventProcessorConfig config,
+                                                AggregationEventProcessorParameters parameters,
+                                                AggregationSearch.User searchOwner,
+                                                AggregationSearch.Factory searchFactory,
+                                                DateTime from,
+                                                DateTime to) throws EventProcessorException {
+        final long sliceMs = config.executeEveryMs();
+        // Using the slice size as the search window makes the search return one date range bucket per slice
+        final AggregationEventProcessorConfig sliceConfig = config.toBuilder()
+                .searchWithinMs(sliceMs)
+                .executeEveryMs(sliceMs)
+                .build();
+        final AggregationEventProcessorParameters sliceParameters = parameters.toBuilder()
+                .timerange(AbsoluteRange.create(from, to))
+                .build();
+        final AggregationResult result = searchFactory.create(sliceConfig, sliceParameters, searchOwner, eventDefinition, List.of())
+                .doSearch();
+
+        final Map<Long, List<AggregationSliceRow>> rowsBySliceEnd = new LinkedHashMap<>();
+        for (final AggregationKeyResult keyResult : result.keyResults()) {
+            keyResult.timestamp().ifPresent(sliceEnd -> rowsBySliceEnd.computeIfAbsent(sliceEnd.getMillis(), k -> new ArrayList<>())
+                    .add(new AggregationSliceRow(keyResult.key(), seriesValues(config, keyResult))));
+        }
+
+        // The source streams are only known for the whole search, so every slice gets all of them
+        final Set<String> sourceStreams = Set.copyOf(result.sourceStreams());
+        final List<AggregationSlice> slices = new ArrayList<>();
+        for (DateTime sliceFrom = from; sliceFrom.isBefore(to); sliceFrom = sliceFrom.plus(sliceMs)) {
+            final DateTime sliceTo = sliceFrom.plus(sliceMs);
+            final List<AggregationSliceRow> rows = rowsBySliceEnd.getOrDefault(sliceTo.getMillis(), List.of());
+            slices.add(new AggregationSlice(sliceFrom, sliceTo, rows.isEmpty() ? Set.of() : sourceStreams, rows));
+        }
+        return slices;
+    }
+
+    private static List<Double> seriesValues(AggregationEventProcessorConfig config, AggregationKeyResult keyResult) {
+        final List<Double> values = new ArrayList<>(config.series().size());
+        for (final SeriesSpec series : config.series()) {
+            values.add(keyResult.seriesValues().stream()
+                    .filter(value -> value.series().id().equals(series.id()))
+                    .map(AggregationSeriesValue::value)
+                    .findFirst()
+                    .orElse(Double.NaN));
+        }
+        return values;
+    }
+
+    static AggregationResult combine(AggregationEventProcessorConfig config, TimeRange timeRange, TreeMap<Long, AggregationSlice> slices) {
+        final List<SeriesSpec> series = config.series();
+        final long from = timeRange.getFrom().getMillis();
+        final long to = timeRange.getTo().getMillis();
+        final ImmutableList.Builder<AggregationKeyResult> keyResults = ImmutableList.builder();
+        final Set<String> sourceStreams = new HashSet<>();
+
+        for (long windowFrom = from; windowFrom + config.searchWithinMs() <= to; windowFrom += config.executeEveryMs()) {
+            final long windowTo = windowFrom + config.searchWithinMs();
+            final Map<List<String>, double[]> groups = new LinkedHashMap<>();
+            // Without group-by the search returns a row for every window, even if there are no messages
+            if (config.groupBy().isEmpty()) {
+                groups.put(List.of(), initialValues(series));
+            }
+
+            for (final AggregationSlice slice : slices.subMap(windowFrom, true, windowTo, false).values()) {
+                sourceStreams.addAll(slice.sourceStreams());
+                for (final AggregationSliceRow row : slice.rows()) {
+                    final double[] values = groups.computeIfAbsent(row.key(), k -> initialValues(series));
+                    for (int i = 0; i < series.size(); i++) {
+                        values[i] = combine(series.get(i), values[i], row.values().get(i));
+                    }
+                }
+            }
+
+            final DateTime timestamp = new DateTime(windowTo, timeRange.getTo().getZone());
+            groups.forEach((key, values) -> {
+                final ImmutableList.Builder<AggregationSeriesValue> seriesValues = ImmutableList.builder();
+                for (int i = 0; i < series.size(); i++) {
+                    seriesValues.add(AggregationSeriesValue.builder()
+                            .series(series.get(i))
+                            .key(key)
+                            .value(values[i])
+                            .build());
+                }
+                keyResults.add(AggregationKeyResult.builder()
+                        .key(key)
+                        .timestamp(timestamp)
+                        .seriesValues(seriesValues.build())
+                        .build());
+            });
+        }
+
+        final ImmutableList<AggregationKeyResult> results = keyResults.build();
+        return AggregationResult.builder()
+                .keyResults(results)
+                .effectiveTimerange(AbsoluteRange.create(timeRange.getFrom(), timeRange.getTo()))
+                .totalAggregatedMessages(0)
+                .sourceStreams(sourceStreams)
+                .build();
+    }
+
+    private static double[] initialValues(List<SeriesSpec> series) {
+        final double[] values = new double[series.size()];
+        for (int i = 0; i < series.size(); i++) {
+            // Like the search, min and max of no values are NaN while counts and sums are zero
+            values[i] = series.get(i) instanceof Min || series.get(i) instanceof Max ? Double.NaN : 0;
+        }
+        return values;
+    }
+
+    private static double combine(SeriesSpec series, double current, Double value) {
+        if (value == null || Double.isNaN(value)) {
+            return current;
+        }
+        if (Double.isNaN(current)) {
+            return value;
+        }
+        if (series instanceof Min) {
+            return Math.min(current, value);
+        }
+        if (series instanceof Max) {
+            return Math.max(current, value);
+        }
+        return current + value;
+    }
+
+    // Slices can only be combined if they have been computed for the same data and series
+    static String fingerprint(AggregationEventProcessorConfig config) {
+        final String description = String.join("\n",
+                config.query(),
+                new TreeSet<>(config.streams()).toString(),
+                String.valueOf(config.filters()),
+                String.valueOf(config.groupBy()),
+                String.valueOf(config.series()),
+                String.valueOf(config.executeEveryMs()));
+        return Hashing.sha256().hashString(description, StandardCharsets.UTF_8).toString();
+    }
+}
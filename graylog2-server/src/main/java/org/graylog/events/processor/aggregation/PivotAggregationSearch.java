@@ -105,6 +105,7 @@ public class PivotAggregationSearch implements AggregationSearch {
     private final QueryStringDecorators queryStringDecorators;
     private final StreamService streamService;
     private final SearchNormalization searchNormalization;
+    private final SharedAggregationSearchExecutor sharedSearchExecutor;
     private final boolean isCloud;
 
     @Inject
@@ -121,6 +122,7 @@ public class PivotAggregationSearch implements AggregationSearch {
                                   QueryStringDecorators queryStringDecorators,
                                   StreamService streamService,
                                   SearchNormalization searchNormalization,
+                                  SharedAggregationSearchExecutor sharedSearchExecutor,
                                   @Named("is_cloud") boolean isCloud) {
         this.config = config;
         this.parameters = parameters;
@@ -135,6 +137,7 @@ public class PivotAggregationSearch implements AggregationSearch {
         this.queryStringDecorators = queryStringDecorators;
         this.streamService = streamService;
         this.searchNormalization = searchNormalization;
+        this.sharedSearchExecutor = sharedSearchExecutor;
         this.isCloud = isCloud;
     }
 
@@ -144,9 +147,9 @@ public class PivotAggregationSearch implements AggregationSearch {
 
     @Override
     public AggregationResult doSearch() throws EventProcessorException {
-        final SearchJob searchJob = getSearchJob(parameters, searchOwner, config.searchWithinMs(), config.executeEveryMs());
-        final QueryResult queryResult = searchJob.results().get(QUERY_ID);
-        final QueryResult streamQueryResult = searchJob.results().get(STREAMS_QUERY_ID);
+        final Map<String, QueryResult> results = getSearchResults(parameters, searchOwner, config.searchWithinMs(), config.executeEveryMs());
+        final QueryResult queryResult = results.get(QUERY_ID);
+        final QueryResult streamQueryResult = results.get(STREAMS_QUERY_ID);
         final Map<String, SearchType.Result> additionalResults = additionalSearchTypes.stream()
                 .filter(searchType -> queryResult.searchTypes().containsKey(searchType.id()))
                 .map(searchType -> queryResult.searchTypes().get(searchType.id()))
@@ -201,6 +204,9 @@ public class PivotAggregationSearch implements AggregationSearch {
 
         final PivotResult pivotResult = (PivotResult) queryResult.searchTypes().get(PIVOT_ID);
         final PivotResult streamsResult = (PivotResult) streamQueryResult.searchTypes().get(STREAMS_PIVOT_ID);
+        if (pivotResult == null || streamsResult == null) {
+            throw new EventProcessorException("Aggregation search returned no result.", false, eventDefinition);
+        }
 
         return AggregationResult.builder()
                 .keyResults(extractValues(pivotResult))
@@ -401,20 +407,35 @@ public class PivotAggregationSearch implements AggregationSearch {
         return permittedStreams.loadAllMessageStreams((streamId) -> true);
     }
 
-    protected SearchJob getSearchJob(AggregationEventProcessorParameters parameters, User user,
-                           long searchWithinMs, long executeEveryMs) throws EventProcessorException {
-        final var username = user.name();
+    private Map<String, QueryResult> getSearchResults(AggregationEventProcessorParameters parameters, User user,
+                                                      long searchWithinMs, long executeEveryMs) throws EventProcessorException {
+        // Searches with parameters or additional search types are specific to this event definition, so there is
+        // no point in waiting for other event definitions to share the search.
+        if (sharedSearchExecutor.isEnabled() && additionalSearchTypes.isEmpty() && config.queryParameters().isEmpty()) {
+            return sharedSearchExecutor.execute(buildSearch(parameters, searchWithinMs, executeEveryMs),
+                    QUERY_ID, PIVOT_ID, user, eventDefinition);
+        }
+        return getSearchJob(parameters, user, searchWithinMs, executeEveryMs).results();
+    }
+
+    private Search buildSearch(AggregationEventProcessorParameters parameters, long searchWithinMs, long executeEveryMs) {
         final Query queryWithSearchFilters = searchNormalization.postValidation(
                 getAggregationQuery(parameters, searchWithinMs, executeEveryMs),
                 ParameterProvider.of(config.queryParameters()));
-        Search search = Search.builder()
+        final Search search = Search.builder()
                 .queries(ImmutableSet.of(queryWithSearchFilters, getSourceStreamsQuery(parameters)))
                 .parameters(config.queryParameters())
                 .build();
         // This adds all streams if none were provided
         // TODO: Once we introduce "EventProcessor owners" this should only load the permitted streams of the
         //       user who created this EventProcessor.
-        search = search.addStreamsToQueriesWithoutStreams(this::loadAllStreams);
+        return search.addStreamsToQueriesWithoutStreams(this::loadAllStreams);
+    }
+
+    protected SearchJob getSearchJob(AggregationEventProcessorParameters parameters, User user,
+                           long searchWithinMs, long executeEveryMs) throws EventProcessorException {
+        final var username = user.name();
+        final Search search = buildSearch(parameters, searchWithinMs, executeEveryMs);
         final SearchJob searchJob = queryEngine.execute(searchJobService.create(search, username, NO_CANCELLATION), Collections.emptySet(), user.timezone());
         try {
             Uninterruptibles.getUninterruptibly(
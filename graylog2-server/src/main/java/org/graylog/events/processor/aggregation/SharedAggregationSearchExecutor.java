@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.events.processor.aggregation;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Uninterruptibles;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.graylog.events.configuration.EventsConfigurationProvider;
+import org.graylog.events.processor.EventDefinition;
+import org.graylog.events.processor.EventDefinitionConfiguration;
+import org.graylog.events.processor.EventProcessorException;
+import org.graylog.plugins.views.search.Parameter;
+import org.graylog.plugins.views.search.Query;
+import org.graylog.plugins.views.search.QueryResult;
+import org.graylog.plugins.views.search.Search;
+import org.graylog.plugins.views.search.SearchJob;
+import org.graylog.plugins.views.search.SearchType;
+import org.graylog.plugins.views.search.db.SearchJobService;
+import org.graylog.plugins.views.search.engine.QueryEngine;
+import org.graylog.plugins.views.search.errors.SearchError;
+import org.graylog.plugins.views.search.errors.SearchTypeError;
+import org.graylog.plugins.views.search.searchtypes.pivot.Pivot;
+import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.MoreObjects.firstNonNull;
+import static org.graylog.plugins.views.search.SearchJob.NO_CANCELLATION;
+
+/**
+ * Executes the searches of aggregation event definitions which only differ in their pivot as one search job.
+ * <p>
+ * The first search for a query opens a batch and waits for the configured window, so searches of other event
+ * definitions which are due at the same time can join. Every search contributes its own pivot to the shared query,
+ * so the group-by fields and series can differ, and every event definition evaluates its conditions against the
+ * result of its own pivot.
+ */
+@Singleton
+public class SharedAggregationSearchExecutor {
+    private static final Logger LOG = LoggerFactory.getLogger(SharedAggregationSearchExecutor.class);
+
+    private final SearchJobService searchJobService;
+    private final QueryEngine queryEngine;
+    private final EventsConfigurationProvider configurationProvider;
+    private final long windowMs;
+    private final Histogram batchSize;
+    private final ConcurrentMap<ScanKey, Batch> openBatches = new ConcurrentHashMap<>();
+
+    @Inject
+    public SharedAggregationSearchExecutor(SearchJobService searchJobService,
+                                           QueryEngine queryEngine,
+                                           EventsConfigurationProvider configurationProvider,
+                                           EventDefinitionConfiguration eventDefinitionConfiguration,
+                                           MetricRegistry metricRegistry) {
+        this.searchJobService = searchJobService;
+        this.queryEngine = queryEngine;
+        this.configurationProvider = configurationProvider;
+        this.windowMs = eventDefinitionConfiguration.getSharedSearchWindow().toMilliseconds();
+        this.batchSize = metricRegistry.histogram(name(getClass(), "batch-size"));
+    }
+
+    public boolean isEnabled() {
+        return windowMs > 0;
+    }
+
+    /**
+     * Executes the given search, possibly together with other searches which only differ in the pivot of the
+     * aggregation query.
+     *
+     * @param search             the search to execute
+     * @param aggregationQueryId ID of the query containing the pivot
+     * @param pivotId            ID of the pivot which is specific to the event definition
+     * @param user               the user executing the search
+     * @param eventDefinition    the event definition the search is executed for
+     * @return the query results by query ID, containing only the result of the given pivot for the aggregation query
+     * @throws EventProcessorException if the search failed or timed out
+     */
+    public Map<String, QueryResult> execute(Search search,
+                                            String aggregationQueryId,
+                                            String pivotId,
+                                            AggregationSearch.User user,
+                                            EventDefinition eventDefinition) throws EventProcessorException {
+        final Query aggregationQuery = search.queries().stream()
+                .filter(query -> aggregationQueryId.equals(query.id()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Search has no query <" + aggregationQueryId + ">"));
+        final Pivot pivot = aggregationQuery.searchTypes().stream()
+                .filter(searchType -> pivotId.equals(searchType.id()))
+                .map(Pivot.class::cast)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Query has no pivot <" + pivotId + ">"));
+        if (aggregationQuery.searchTypes().size() > 1) {
+            throw new IllegalArgumentException("Aggregation query must only contain the pivot <" + pivotId + ">");
+        }
+
+        final Set<Query> otherQueries = search.queries().stream()
+                .filter(query -> !aggregationQueryId.equals(query.id()))
+                .collect(Collectors.toSet());
+        final ScanKey key = new ScanKey(user.name(), user.timezone(),
+                aggregationQuery.toBuilder().searchTypes(Collections.emptySet()).build(), otherQueries, search.parameters());
+        final Participant participant = new Participant(pivot, new CompletableFuture<>());
+
+        while (true) {
+            final Batch newBatch = new Batch(participant);
+            final Batch batch = openBatches.putIfAbsent(key, newBatch);
+            if (batch == null) {
+                executeBatch(key, newBatch, search, aggregationQuery, user);
+                break;
+            }
+            if (batch.join(participant)) {
+                break;
+            }
+            // The batch has been closed but not removed yet
+            openBatches.remove(key, batch);
+        }
+
+        try {
+            return Uninterruptibles.getUninterruptibly(participant.results(),
+                    windowMs + configurationProvider.get().eventsSearchTimeout(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new EventProcessorException("Error executing search job: " + e.getCause().getMessage(), false, eventDefinition, e.getCause());
+        } catch (TimeoutException e) {
+            throw new EventProcessorException("Timeout while executing search job.", false, eventDefinition, e);
+        }
+    }
+
+    private void executeBatch(ScanKey key, Batch batch, Search search, Query aggregationQuery, AggregationSearch.User user) {
+        Uninterruptibles.sleepUninterruptibly(windowMs, TimeUnit.MILLISECONDS);
+        openBatches.remove(key, batch);
+        final List<Participant> participants = batch.close();
+        batchSize.update(participants.size());
+        LOG.debug("Executing shared aggregation search for {} event definitions", participants.size());
+
+        try {
+            // Every participant gets its own pivot ID in the shared query
+            final Set<SearchType> pivots = new HashSet<>();
+            for (int i = 0; i < participants.size(); i++) {
+                pivots.add(participants.get(i).pivot().toBuilder().id(sharedPivotId(i)).build());
+            }
+            final Search sharedSearch = search.toBuilder()
+                    .queries(ImmutableSet.<Query>builder()
+                            .add(aggregationQuery.toBuilder().searchTypes(pivots).build())
+                            .addAll(key.otherQueries())
+                            .build())
+                    .build();
+
+            final Map<String, QueryResult> results = executeSearch(sharedSearch, user);
+            for (int i = 0; i < participants.size(); i++) {
+                final Participant participant = participants.get(i);
+                participant.results().complete(resultsFor(results, aggregationQuery.id(), sharedPivotId(i), participant.pivot().id()));
+            }
+        } catch (Exception e) {
+            // Participants which already got their results are not affected, all others must not wait for the timeout
+            final Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            participants.forEach(participant -> participant.results().completeExceptionally(cause));
+        }
+    }
+
+    private Map<String, QueryResult> executeSearch(Search search, AggregationSearch.User user) throws ExecutionException, TimeoutException {
+        final SearchJob searchJob = queryEngine.execute(searchJobService.create(search, user.name(), NO_CANCELLATION), Collections.emptySet(), user.timezone());
+        Uninterruptibles.getUninterruptibly(
+                searchJob.getResultFuture(),
+                configurationProvider.get().eventsSearchTimeout(),
+                TimeUnit.MILLISECONDS);
+        return searchJob.results();
+    }
+
+    private static Map<String, QueryResult> resultsFor(Map<String, QueryResult> results, String aggregationQueryId,
+                                                       String sharedPivotId, String pivotId) {
+        final Map<String, QueryResult> participantResults = new HashMap<>(results);
+        final QueryResult aggregationResult = results.get(aggregationQueryId);
+        if (aggregationResult != null) {
+            final Map<String, SearchType.Result> searchTypes = new HashMap<>();
+            final SearchType.Result pivotResult = aggregationResult.searchTypes().get(sharedPivotId);
+            if (pivotResult != null) {
+                searchTypes.put(pivotId, pivotResult);
+            }
+            // Errors of the other pivots don't concern this event definition
+            final Set<SearchError> errors = firstNonNull(aggregationResult.errors(), Collections.<SearchError>emptySet()).stream()
+                    .filter(error -> !(error instanceof SearchTypeError searchTypeError) || searchTypeError.searchTypeId().equals(sharedPivotId))
+                    .collect(Collectors.toCollection(HashSet::new));
+            if (pivotResult == null && errors.isEmpty()) {
+                errors.add(new SearchTypeError(aggregationResult.query(), pivotId, "Shared search returned no result for pivot <" + sharedPivotId + ">"));
+            }
+            participantResults.put(aggregationQueryId, aggregationResult.toBuilder()
+                    .searchTypes(searchTypes)
+                    .errors(errors)
+                    .build());
+        }
+        return participantResults;
+    }
+
+    private static String sharedPivotId(int index) {
+        return "shared-pivot-" + index;
+    }
+
+    private record ScanKey(String username, DateTimeZone timezone, Query query, Set<Query> otherQueries,
+                           Set<Parameter> parameters) {}
+
+    private record Participant(Pivot pivot, CompletableFuture<Map<String, QueryResult>> results) {}
+
+    private static class Batch {
+        private final List<Participant> participants = new ArrayList<>();
+        private boolean closed = false;
+
+        Batch(Participant leader) {
+            participants.add(leader);
+        }
+
+        synchronized boolean join(Participant participant) {
+            if (closed) {
+                return false;
+            }
+            participants.add(participant);
+            return true;
+        }
+
+        synchronized List<Participant> close() {
+            closed = true;
+            return List.copyOf(participants);
+        }
+    }
+}
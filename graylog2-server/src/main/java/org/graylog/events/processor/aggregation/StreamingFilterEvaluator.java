@@ -0,0 +1,368 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.events.processor.aggregation;
+
+import com.codahale.metrics.InstrumentedExecutorService;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.swrve.ratelimitedlogger.RateLimitedLog;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import org.graylog.events.event.EventProcessorEventFactory;
+import org.graylog.events.event.EventWithContext;
+import org.graylog.events.processor.DBEventDefinitionService;
+import org.graylog.events.processor.DBEventProcessorStateService;
+import org.graylog.events.processor.EventDefinition;
+import org.graylog.events.processor.EventDefinitionConfiguration;
+import org.graylog.events.processor.EventDefinitionDeleted;
+import org.graylog.events.processor.EventDefinitionUpdated;
+import org.graylog.events.processor.EventProcessorEngine;
+import org.graylog.events.processor.EventProcessorStateDto;
+import org.graylog2.indexer.indexset.IndexSet;
+import org.graylog2.plugin.Message;
+import org.graylog2.plugin.MessageFactory;
+import org.graylog2.plugin.Messages;
+import org.graylog2.plugin.Tools;
+import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
+import org.graylog2.plugin.streams.Stream;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.graylog2.plugin.utilities.ratelimitedlog.RateLimitedLogFactory.createQuietDefaultRateLimitedLog;
+
+/**
+ * Evaluates filter event definitions (without aggregations) against messages while they are processed, instead of
+ * searching the indexed messages when the event definition gets executed.
+ * <p>
+ * Only event definitions whose query can be compiled by {@link StreamingFilterQueryCompiler} and which don't use
+ * filters, query parameters or stream categories are evaluated. Matching messages are turned into events on a
+ * background thread, so message processing never waits for notifications or event storage. Scheduled executions
+ * of these event definitions skip their search for time ranges which have been evaluated here, see
+ * {@link AggregationEventProcessor}. Manual executions always search. If matching messages can't be queued because
+ * event creation falls behind, their time range is recorded in the event processor state and searched by the next
+ * scheduled executions instead.
+ */
+@Singleton
+public class StreamingFilterEvaluator {
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingFilterEvaluator.class);
+    private static final RateLimitedLog RATE_LIMITED_LOG = createQuietDefaultRateLimitedLog(StreamingFilterEvaluator.class);
+    private static final int QUEUE_SIZE = 1000;
+
+    private final boolean enabled;
+    private final DateTime startedAt = Tools.nowUTC();
+    private final DBEventDefinitionService eventDefinitionService;
+    private final DBEventProcessorStateService stateService;
+    private final AggregationEventProcessor.Factory eventProcessorFactory;
+    private final EventProcessorEngine eventProcessorEngine;
+    private final Provider<EventProcessorEventFactory> eventFactoryProvider;
+    private final MessageFactory messageFactory;
+    private final AtomicReference<List<CompiledFilter>> filters = new AtomicReference<>(List.of());
+    private final ExecutorService executor;
+    private final Meter matchedMessages;
+    private final Meter droppedMessages;
+    private final ConcurrentMap<String, EventProcessorStateDto.StreamingGap> pendingGaps = new ConcurrentHashMap<>();
+
+    /**
+     * A message which matched a streamed event definition.
+     *
+     * @param message   a copy of the processed message
+     * @param indexName the index the message is written to
+     */
+    public record StreamedMessage(Message message, String indexName) {}
+
+    private record CompiledFilter(EventDefinition eventDefinition, Set<String> streams, Predicate<Message> predicate) {
+        boolean matches(Message message) {
+            if (!streams.isEmpty() && message.getStreamIds().stream().noneMatch(streams::contains)) {
+                return false;
+            }
+            return predicate.test(message);
+        }
+    }
+
+    private record Match(Message message, @Nullable IndexSet indexSet) {}
+
+    @Inject
+    public StreamingFilterEvaluator(EventDefinitionConfiguration configuration,
+                                    DBEventDefinitionService eventDefinitionService,
+                                    DBEventProcessorStateService stateService,
+                                    AggregationEventProcessor.Factory eventProcessorFactory,
+                                    EventProcessorEngine eventProcessorEngine,
+                                    Provider<EventProcessorEventFactory> eventFactoryProvider,
+                                    MessageFactory messageFactory,
+                                    EventBus serverEventBus,
+                                    @Named("daemonScheduler") ScheduledExecutorService scheduler,
+                                    MetricRegistry metricRegistry) {
+        this.enabled = configuration.isStreamingFiltersEnabled();
+        this.eventDefinitionService = eventDefinitionService;
+        this.stateService = stateService;
+        this.eventProcessorFactory = eventProcessorFactory;
+        this.eventProcessorEngine = eventProcessorEngine;
+        this.eventFactoryProvider = eventFactoryProvider;
+        this.messageFactory = messageFactory;
+        this.matchedMessages = metricRegistry.meter(name(getClass(), "matched-messages"));
+        this.droppedMessages = metricRegistry.meter(name(getClass(), "dropped-messages"));
+        this.executor = buildExecutor(metricRegistry);
+
+        if (enabled) {
+            serverEventBus.register(this);
+            reload();
+            scheduler.scheduleWithFixedDelay(this::storePendingGaps, 1, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    private static ExecutorService buildExecutor(MetricRegistry metricRegistry) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE),
+                new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("streaming-event-filters-%d")
+                        .setUncaughtExceptionHandler((t, e) -> LOG.error("Unhandled exception", e))
+                        .build());
+        return new InstrumentedExecutorService(executor, metricRegistry, name(StreamingFilterEvaluator.class, "executor"));
+    }
+
+    /**
+     * Returns whether the given event definition is evaluated while messages are processed.
+     *
+     * @param eventDefinition the event definition
+     * @return true if the definition's events are created by this evaluator, false if it has to search for messages
+     */
+    public boolean evaluates(EventDefinition eventDefinition) {
+        return enabled && compile(eventDefinition).isPresent();
+    }
+
+    /**
+     * Returns whether the events of the given event definition for the given time range have been created while
+     * the messages were processed. That is the case if the event definition in its current version has been
+     * evaluated since before the start of the time range and no matching messages of the time range were dropped.
+     *
+     * @param eventDefinition the event definition
+     * @param timerange       the time range of a scheduled execution
+     * @return true if the execution doesn't need to search for messages, false otherwise
+     */
+    public boolean covers(EventDefinition eventDefinition, TimeRange timerange) {
+        if (!evaluates(eventDefinition)) {
+            return false;
+        }
+        final DateTime updatedAt = eventDefinition.updatedAt();
+        final DateTime evaluatedSince = updatedAt != null && updatedAt.isAfter(startedAt) ? updatedAt : startedAt;
+        if (timerange.getFrom().isBefore(evaluatedSince)) {
+            return false;
+        }
+        final EventProcessorStateDto.StreamingGap pendingGap = pendingGaps.get(eventDefinition.id());
+        if (pendingGap != null && pendingGap.overlaps(timerange)) {
+            return false;
+        }
+        // Gaps can only be recorded once a state exists, so the first execution always searches
+        final Optional<EventProcessorStateDto> state = stateService.findByEventDefinitionId(eventDefinition.id());
+        if (state.isEmpty()) {
+            return false;
+        }
+        final EventProcessorStateDto.StreamingGap gap = state.get().streamingGap();
+        if (gap == null) {
+            return true;
+        }
+        if (gap.overlaps(timerange)) {
+            return false;
+        }
+        if (gap.to().isBefore(timerange.getFrom())) {
+            stateService.removeStreamingGapBefore(eventDefinition.id(), timerange.getFrom());
+        }
+        return true;
+    }
+
+    private static Optional<Predicate<Message>> compile(EventDefinition eventDefinition) {
+        if (!(eventDefinition.config() instanceof AggregationEventProcessorConfig config)) {
+            return Optional.empty();
+        }
+        if (!config.series().isEmpty() || !config.filters().isEmpty() || !config.queryParameters().isEmpty()
+                || !config.streamCategories().isEmpty()) {
+            return Optional.empty();
+        }
+        return StreamingFilterQueryCompiler.compile(config.query());
+    }
+
+    @Subscribe
+    public void handleEventDefinitionUpdated(EventDefinitionUpdated event) {
+        reload();
+    }
+
+    @Subscribe
+    public void handleEventDefinitionDeleted(EventDefinitionDeleted event) {
+        reload();
+    }
+
+    private void reload() {
+        final List<CompiledFilter> compiledFilters = new ArrayList<>();
+        try (var eventDefinitions = eventDefinitionService.streamAll()) {
+            eventDefinitions
+                    .filter(eventDefinition -> eventDefinition.state() == EventDefinition.State.ENABLED)
+                    .forEach(eventDefinition -> compile(eventDefinition).ifPresent(predicate -> {
+                        final var config = (AggregationEventProcessorConfig) eventDefinition.config();
+                        compiledFilters.add(new CompiledFilter(eventDefinition, config.streams(), predicate));
+                    }));
+        } catch (Exception e) {
+            LOG.error("Couldn't load event definitions for streaming evaluation", e);
+            return;
+        }
+        LOG.debug("Evaluating {} event definitions while processing messages", compiledFilters.size());
+        filters.set(List.copyOf(compiledFilters));
+    }
+
+    /**
+     * Evaluates all streamed event definitions against the given messages. Has to run after stream routing.
+     *
+     * @param messages the processed messages
+     */
+    public void evaluate(Messages messages) {
+        final List<CompiledFilter> compiledFilters = filters.get();
+        if (compiledFilters.isEmpty()) {
+            return;
+        }
+
+        final Map<CompiledFilter, List<Match>> matches = new LinkedHashMap<>();
+        final Map<Message, Message> copies = new IdentityHashMap<>();
+        for (final Message message : messages) {
+            if (message.getFilterOut()) {
+                continue;
+            }
+            for (final CompiledFilter filter : compiledFilters) {
+                if (filter.matches(message)) {
+                    // The original message keeps being modified by the output path, events get created from a copy
+                    final Message copy = copies.computeIfAbsent(message, this::copy);
+                    matches.computeIfAbsent(filter, f -> new ArrayList<>()).add(new Match(copy, indexSet(filter, message)));
+                }
+            }
+        }
+
+        matches.forEach(this::submit);
+    }
+
+    private Message copy(Message message) {
+        final Message copy = messageFactory.createUnaccountedMessage(message.getId(), new HashMap<>(message.getFields()));
+        copy.addStreams(message.getStreams());
+        return copy;
+    }
+
+    @Nullable
+    private static IndexSet indexSet(CompiledFilter filter, Message message) {
+        return message.getStreams().stream()
+                .filter(stream -> filter.streams().isEmpty() || filter.streams().contains(stream.getId()))
+                .map(Stream::getIndexSet)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private void submit(CompiledFilter filter, List<Match> matches) {
+        matchedMessages.mark(matches.size());
+        try {
+            executor.execute(() -> emit(filter.eventDefinition(), matches));
+        } catch (RejectedExecutionException e) {
+            droppedMessages.mark(matches.size());
+            RATE_LIMITED_LOG.warn("Event creation is falling behind, searching for {} matched messages of event definition <{}/{}> instead",
+                    matches.size(), filter.eventDefinition().title(), filter.eventDefinition().id());
+            pendingGaps.merge(filter.eventDefinition().id(), gapOf(matches), EventProcessorStateDto.StreamingGap::union);
+        }
+    }
+
+    private static EventProcessorStateDto.StreamingGap gapOf(List<Match> matches) {
+        DateTime from = null;
+        DateTime to = null;
+        for (final Match match : matches) {
+            final DateTime timestamp = match.message().getTimestamp();
+            from = from == null || timestamp.isBefore(from) ? timestamp : from;
+            to = to == null || timestamp.isAfter(to) ? timestamp : to;
+        }
+        return new EventProcessorStateDto.StreamingGap(from, to);
+    }
+
+    private void storePendingGaps() {
+        for (final String eventDefinitionId : List.copyOf(pendingGaps.keySet())) {
+            final EventProcessorStateDto.StreamingGap gap = pendingGaps.remove(eventDefinitionId);
+            if (gap == null) {
+                continue;
+            }
+            try {
+                stateService.addStreamingGap(eventDefinitionId, gap);
+            } catch (Exception e) {
+                LOG.error("Couldn't store streaming gap for event definition <{}>", eventDefinitionId, e);
+                pendingGaps.merge(eventDefinitionId, gap, EventProcessorStateDto.StreamingGap::union);
+            }
+        }
+    }
+
+    private void emit(EventDefinition eventDefinition, List<Match> matches) {
+        final Map<IndexSet, String> indexNames = new IdentityHashMap<>();
+        final List<StreamedMessage> streamedMessages = matches.stream()
+                .map(match -> new StreamedMessage(match.message(),
+                        match.indexSet() == null ? "" : indexNames.computeIfAbsent(match.indexSet(), StreamingFilterEvaluator::writeIndex)))
+                .toList();
+
+        try {
+            final AggregationEventProcessor eventProcessor = eventProcessorFactory.create(eventDefinition);
+            final EventDefinition preprocessedDefinition = eventProcessor.preprocessEventDefinition(eventDefinition);
+            final List<EventWithContext> events = eventProcessor.createStreamedEvents(eventFactoryProvider.get(), streamedMessages);
+            eventProcessorEngine.emitEvents(eventProcessor, preprocessedDefinition, events);
+        } catch (Exception e) {
+            LOG.error("Couldn't emit streamed events for event definition <{}/{}>, searching for {} matched messages instead",
+                    eventDefinition.title(), eventDefinition.id(), matches.size(), e);
+            pendingGaps.merge(eventDefinition.id(), gapOf(matches), EventProcessorStateDto.StreamingGap::union);
+        }
+    }
+
+    // The message is written to the current write index, which is what the search hit would have referenced
+    private static String writeIndex(IndexSet indexSet) {
+        try {
+            final String activeWriteIndex = indexSet.getActiveWriteIndex();
+            if (activeWriteIndex != null) {
+                return activeWriteIndex;
+            }
+        } catch (Exception e) {
+            LOG.debug("Couldn't resolve active write index of index set <{}>", indexSet.getConfig().id(), e);
+        }
+        return indexSet.getWriteIndexAlias();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.events.processor.aggregation;
+
+import jakarta.inject.Inject;
+import org.graylog2.plugin.Messages;
+import org.graylog2.plugin.messageprocessors.MessageProcessor;
+
+/**
+ * Runs the {@link StreamingFilterEvaluator} in the processing chain. New message processors are appended to the
+ * configured processor order, so this runs after stream routing and pipelines by default.
+ */
+public class StreamingFilterMessageProcessor implements MessageProcessor {
+    public static class Descriptor implements MessageProcessor.Descriptor {
+        @Override
+        public String name() {
+            return "Event Definition Filter Processor";
+        }
+
+        @Override
+        public String className() {
+            return StreamingFilterMessageProcessor.class.getCanonicalName();
+        }
+    }
+
+    private final StreamingFilterEvaluator evaluator;
+
+    @Inject
+    public StreamingFilterMessageProcessor(StreamingFilterEvaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    @Override
+    public Messages process(Messages messages) {
+        evaluator.evaluate(messages);
+        return messages;
+    }
+}
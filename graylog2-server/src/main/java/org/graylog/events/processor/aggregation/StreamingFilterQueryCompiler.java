@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.events.processor.aggregation;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.graylog.plugins.views.search.validation.LuceneQueryParser;
+import org.graylog.plugins.views.search.validation.ParsedTerm;
+import org.graylog2.plugin.Message;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+/**
+ * Compiles the search query of a filter event definition into a predicate which can be evaluated against a single
+ * message while it is being processed.
+ * <p>
+ * Only the subset of the query language with an unambiguous per-message meaning is supported: exact terms on
+ * explicit fields, {@code _exists_} checks and boolean combinations of those. Full text searches on the analyzed
+ * message fields, wildcards, ranges, phrases, regular expressions and fuzzy queries depend on the index mapping and
+ * are not compiled. Callers have to fall back to searching the indexed messages for those queries.
+ */
+final class StreamingFilterQueryCompiler {
+    // Analyzed fields and fields which only get their indexed value when the message is written
+    private static final Set<String> UNSUPPORTED_FIELDS = Set.of(
+            ParsedTerm.DEFAULT_FIELD,
+            Message.FIELD_MESSAGE,
+            Message.FIELD_FULL_MESSAGE,
+            Message.FIELD_TIMESTAMP,
+            Message.FIELD_ID,
+            Message.FIELD_INDEX,
+            Message.FIELD_GL2_ACCOUNTED_MESSAGE_SIZE,
+            Message.FIELD_GL2_PROCESSING_ERROR,
+            Message.FIELD_GL2_PROCESSING_TIMESTAMP
+    );
+    // The source field is indexed with a lowercasing keyword analyzer
+    private static final Set<String> CASE_INSENSITIVE_FIELDS = Set.of(Message.FIELD_SOURCE);
+
+    private StreamingFilterQueryCompiler() {
+    }
+
+    /**
+     * Compiles the given query string.
+     *
+     * @param queryString the query string of an event definition
+     * @return the message predicate or an empty optional if the query cannot be evaluated per message
+     */
+    static Optional<Predicate<Message>> compile(String queryString) {
+        if (isNullOrEmpty(queryString) || queryString.isBlank() || "*".equals(queryString.trim())) {
+            return Optional.of(message -> true);
+        }
+
+        final QueryParser parser = new QueryParser(ParsedTerm.DEFAULT_FIELD, LuceneQueryParser.ANALYZER);
+        parser.setSplitOnWhitespace(true);
+        try {
+            return compile(parser.parse(queryString));
+        } catch (ParseException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<Predicate<Message>> compile(Query query) {
+        if (query instanceof MatchAllDocsQuery) {
+            return Optional.of(message -> true);
+        }
+        if (query instanceof TermQuery termQuery) {
+            return compileTerm(termQuery.getTerm());
+        }
+        if (query instanceof BooleanQuery booleanQuery) {
+            return compileBoolean(booleanQuery);
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<Predicate<Message>> compileTerm(Term term) {
+        final String field = term.field();
+        final String value = term.text();
+
+        if (ParsedTerm.EXISTS.equals(field)) {
+            return Optional.of(message -> message.hasField(value));
+        }
+        if (UNSUPPORTED_FIELDS.contains(field)) {
+            return Optional.empty();
+        }
+        // The streams field is filled from the stream routing result when the message is indexed
+        if (Message.FIELD_STREAMS.equals(field)) {
+            return Optional.of(message -> message.getStreamIds().contains(value));
+        }
+        if (CASE_INSENSITIVE_FIELDS.contains(field)) {
+            final String lowerCaseValue = value.toLowerCase(Locale.ROOT);
+            return Optional.of(message -> {
+                final Object fieldValue = message.getField(field);
+                return fieldValue != null && String.valueOf(fieldValue).toLowerCase(Locale.ROOT).equals(lowerCaseValue);
+            });
+        }
+        return Optional.of(message -> valueMatches(message.getField(field), value));
+    }
+
+    private static Optional<Predicate<Message>> compileBoolean(BooleanQuery query) {
+        if (query.getMinimumNumberShouldMatch() > 0) {
+            return Optional.empty();
+        }
+
+        final List<Predicate<Message>> required = new ArrayList<>();
+        final List<Predicate<Message>> optional = new ArrayList<>();
+        final List<Predicate<Message>> prohibited = new ArrayList<>();
+
+        for (final BooleanClause clause : query.clauses()) {
+            final Optional<Predicate<Message>> predicate = compile(clause.query());
+            if (predicate.isEmpty()) {
+                return Optional.empty();
+            }
+            switch (clause.occur()) {
+                case MUST, FILTER -> required.add(predicate.get());
+                case SHOULD -> optional.add(predicate.get());
+                case MUST_NOT -> prohibited.add(predicate.get());
+            }
+        }
+
+        // Like the search backend, a query with optional clauses only needs at least one of them to match, unless
+        // there are required clauses. A purely negative query matches all messages which don't match the negations.
+        final boolean anyOptionalRequired = required.isEmpty() && !optional.isEmpty();
+        return Optional.of(message -> {
+            for (final Predicate<Message> predicate : required) {
+                if (!predicate.test(message)) {
+                    return false;
+                }
+            }
+            for (final Predicate<Message> predicate : prohibited) {
+                if (predicate.test(message)) {
+                    return false;
+                }
+            }
+            return !anyOptionalRequired || optional.stream().anyMatch(predicate -> predicate.test(message));
+        });
+    }
+
+    private static boolean valueMatches(Object fieldValue, String value) {
+        if (fieldValue == null) {
+            return false;
+        }
+        if (fieldValue instanceof Collection<?> values) {
+            return values.stream().anyMatch(element -> valueMatches(element, value));
+        }
+        if (fieldValue instanceof Number number) {
+            try {
+                return new BigDecimal(number.toString()).compareTo(new BigDecimal(value)) == 0;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return String.valueOf(fieldValue).equals(value);
+    }
+}
@@ -63,7 +63,8 @@ public class OTelLogsService extends LogsServiceGrpc.LogsServiceImplBase {
             return;
         }
 
-        if (transport.isThrottled()) {
+        final var records = OTelJournalRecordFactory.createFromRequest(request);
+        if (transport.isThrottled() || !transport.tryAcquireThrottlePermits(records.size())) {
             responseObserver.onError(createThrottledStatusRuntimeException());
             return;
         }
@@ -76,7 +77,7 @@ public class OTelLogsService extends LogsServiceGrpc.LogsServiceImplBase {
         }
 
         RecordSizeDistributingProcessor.processRecords(
-                OTelJournalRecordFactory.createFromRequest(request),
+                records,
                 request.getSerializedSize(),
                 r -> r.getLog().getLogRecord().getSerializedSize(),
                 createRawMessage,
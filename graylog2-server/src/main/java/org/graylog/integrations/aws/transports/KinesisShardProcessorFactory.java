@@ -103,6 +103,10 @@ public class KinesisShardProcessorFactory implements ShardRecordProcessorFactory
                 transport.blockUntilUnthrottled();
                 LOG.info("[unthrottled] Kinesis consumer will now resume processing records.");
             }
+            if (!transport.acquireThrottlePermits(processRecordsInput.records().size())) {
+                LOG.debug("Kinesis transport is stopping, not processing [{}] records.", processRecordsInput.records().size());
+                return;
+            }
 
             for (KinesisClientRecord record : processRecordsInput.records()) {
                 try {
@@ -20,13 +20,14 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.Sets;
+import org.graylog2.events.CoalescingClusterEvent;
 
 import java.util.Set;
 
 import static java.util.Collections.emptySet;
 
 @AutoValue
-public abstract class PipelinesChangedEvent {
+public abstract class PipelinesChangedEvent implements CoalescingClusterEvent<PipelinesChangedEvent> {
 
     @JsonProperty
     public abstract Set<String> deletedPipelineIds();
@@ -51,6 +52,13 @@ public abstract class PipelinesChangedEvent {
         return builder().deletedPipelineIds(deletedIds).updatedPipelineIds(updatedIds).build();
     }
 
+    @Override
+    public PipelinesChangedEvent coalesce(PipelinesChangedEvent other) {
+        // The later event wins for pipelines which have been updated and deleted
+        return create(Sets.union(Sets.difference(deletedPipelineIds(), other.updatedPipelineIds()), other.deletedPipelineIds()).immutableCopy(),
+                Sets.union(Sets.difference(updatedPipelineIds(), other.deletedPipelineIds()), other.updatedPipelineIds()).immutableCopy());
+    }
+
     @AutoValue.Builder
     public abstract static class Builder {
         public abstract Builder deletedPipelineIds(Set<String> ids);
@@ -17,14 +17,17 @@
 package org.graylog.plugins.pipelineprocessor.events;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.graylog2.events.CoalescingClusterEvent;
 
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.util.Collections.emptySet;
 
 public record RulesChangedEvent(
         @JsonProperty("updated_rules") Set<Reference> updatedRules,
-        @JsonProperty("deleted_rules") Set<Reference> deletedRules) {
+        @JsonProperty("deleted_rules") Set<Reference> deletedRules) implements CoalescingClusterEvent<RulesChangedEvent> {
     public record Reference(String id, String title) {}
 
     public static RulesChangedEvent updatedRule(String id, String title) {
@@ -34,4 +37,19 @@ public record RulesChangedEvent(
     public static RulesChangedEvent deletedRule(String id, String title) {
         return new RulesChangedEvent(emptySet(), Set.of(new Reference(id, title)));
     }
+
+    @Override
+    public RulesChangedEvent coalesce(RulesChangedEvent other) {
+        // The later event wins for rules which have been updated and deleted
+        return new RulesChangedEvent(merge(updatedRules(), other.deletedRules(), other.updatedRules()),
+                merge(deletedRules(), other.updatedRules(), other.deletedRules()));
+    }
+
+    private static Set<Reference> merge(Set<Reference> earlier, Set<Reference> overridden, Set<Reference> later) {
+        final Set<String> overriddenIds = Stream.concat(overridden.stream(), later.stream())
+                .map(Reference::id)
+                .collect(Collectors.toSet());
+        return Stream.concat(earlier.stream().filter(reference -> !overriddenIds.contains(reference.id())), later.stream())
+                .collect(Collectors.toSet());
+    }
 }
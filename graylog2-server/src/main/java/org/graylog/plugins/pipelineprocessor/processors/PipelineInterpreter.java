@@ -19,9 +19,8 @@ package org.graylog.plugins.pipelineprocessor.processors;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
@@ -56,12 +55,14 @@ import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -483,7 +484,9 @@ public class PipelineInterpreter implements MessageProcessor {
 
         private final ImmutableMap<String, Pipeline> currentPipelines;
         private final ImmutableSetMultimap<String, Pipeline> streamPipelineConnections;
-        private final LoadingCache<Set<Pipeline>, StageIterator.Configuration> cache;
+        // Dense index of every pipeline instance in this state, used to build the stage cache keys
+        private final Map<Pipeline, Integer> pipelineIndexes;
+        private final Cache<PipelineSetKey, StageIterator.Configuration> cache;
         private final boolean cachedIterators;
         private final RuleMetricsConfigDto ruleMetricsConfig;
 
@@ -498,16 +501,12 @@ public class PipelineInterpreter implements MessageProcessor {
             this.streamPipelineConnections = streamPipelineConnections;
             this.cachedIterators = cachedIterators;
             this.ruleMetricsConfig = ruleMetricsConfig;
+            this.pipelineIndexes = indexPipelines(currentPipelines, streamPipelineConnections);
 
             cache = CacheBuilder.newBuilder()
                     .concurrencyLevel(processorCount)
                     .recordStats()
-                    .build(new CacheLoader<>() {
-                        @Override
-                        public StageIterator.Configuration load(@Nonnull Set<Pipeline> pipelines) {
-                            return new StageIterator.Configuration(pipelines);
-                        }
-                    });
+                    .build();
 
             // Synchronized to prevent concurrent State constructions from racing on remove+register,
             // which would cause duplicate metric registration errors. (See #26080)
@@ -518,6 +517,19 @@ public class PipelineInterpreter implements MessageProcessor {
             }
         }
 
+        private static Map<Pipeline, Integer> indexPipelines(@Nullable ImmutableMap<String, Pipeline> currentPipelines,
+                                                             @Nullable ImmutableSetMultimap<String, Pipeline> streamPipelineConnections) {
+            // Pipelines are compared by their source, only the same instances have the same resolved rules
+            final Map<Pipeline, Integer> indexes = new IdentityHashMap<>();
+            if (currentPipelines != null) {
+                currentPipelines.values().forEach(pipeline -> indexes.putIfAbsent(pipeline, indexes.size()));
+            }
+            if (streamPipelineConnections != null) {
+                streamPipelineConnections.values().forEach(pipeline -> indexes.putIfAbsent(pipeline, indexes.size()));
+            }
+            return indexes;
+        }
+
         protected String getStageCacheMetricName() {
             return name(PipelineInterpreter.class, STAGE_CACHE_METRIC_SUFFIX);
         }
@@ -534,19 +546,86 @@ public class PipelineInterpreter implements MessageProcessor {
             return ruleMetricsConfig.metricsEnabled();
         }
 
+        /**
+         * Takes over the cached stage iterator configurations of the given state for all pipeline sets which are
+         * unchanged in this state, so they don't have to be built again after unrelated pipeline or rule changes.
+         *
+         * @param previous the previous state, may be null
+         */
+        public void reuseStageIterators(@Nullable State previous) {
+            if (!cachedIterators || previous == null) {
+                return;
+            }
+            // Only pipeline sets whose instances are all part of this state get a key
+            previous.cache.asMap().forEach((key, configuration) -> {
+                final PipelineSetKey newKey = keyFor(key.pipelines());
+                if (newKey != null) {
+                    cache.put(newKey, configuration);
+                }
+            });
+        }
+
         public StageIterator getStageIterator(Set<Pipeline> pipelines) {
+            if (!cachedIterators) {
+                return new StageIterator(pipelines);
+            }
+            final PipelineSetKey key = keyFor(pipelines);
+            if (key == null) {
+                // Pipelines which are not part of this state can't be cached
+                return new StageIterator(pipelines);
+            }
             try {
-                if (cachedIterators) {
-                    return new StageIterator(cache.get(pipelines));
-                } else {
-                    return new StageIterator(pipelines);
-                }
+                return new StageIterator(cache.get(key, () -> new StageIterator.Configuration(pipelines)));
             } catch (ExecutionException e) {
                 LOG.error("Unable to get StageIterator from cache, this should not happen.", ExceptionUtils.getRootCause(e));
                 return new StageIterator(pipelines);
             }
         }
 
+        @Nullable
+        private PipelineSetKey keyFor(Set<Pipeline> pipelines) {
+            final long[] words = new long[(pipelineIndexes.size() + 63) >>> 6];
+            for (final Pipeline pipeline : pipelines) {
+                final Integer index = pipelineIndexes.get(pipeline);
+                if (index == null) {
+                    return null;
+                }
+                words[index >>> 6] |= 1L << index;
+            }
+            return new PipelineSetKey(words, pipelines);
+        }
+
+        /**
+         * Stage cache key for a set of pipelines, represented as a bitset of the pipeline indexes in the state.
+         * Hashing and comparing the bitset is much cheaper than hashing and comparing the pipelines themselves.
+         */
+        private static final class PipelineSetKey {
+            private final long[] words;
+            private final int hashCode;
+            // Only used to build the stage iterator configuration, not part of equals/hashCode
+            private final Set<Pipeline> pipelines;
+
+            private PipelineSetKey(long[] words, Set<Pipeline> pipelines) {
+                this.words = words;
+                this.hashCode = Arrays.hashCode(words);
+                this.pipelines = pipelines;
+            }
+
+            Set<Pipeline> pipelines() {
+                return pipelines;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                return this == o || (o instanceof PipelineSetKey other && hashCode == other.hashCode && Arrays.equals(words, other.words));
+            }
+
+            @Override
+            public int hashCode() {
+                return hashCode;
+            }
+        }
+
 
         public interface Factory {
             State newState(ImmutableMap<String, Pipeline> currentPipelines,
@@ -17,6 +17,7 @@
 package org.graylog.plugins.pipelineprocessor.processors;
 
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import com.swrve.ratelimitedlogger.RateLimitedLog;
@@ -36,6 +37,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static com.codahale.metrics.MetricRegistry.name;
 import static org.graylog2.plugin.utilities.ratelimitedlog.RateLimitedLogFactory.createDefaultRateLimitedLog;
 
 @Singleton
@@ -52,6 +54,7 @@ public class PipelineInterpreterStateUpdater {
     // Coalesces bursts of change events (and retries) into a single pending reload.
     private final AtomicBoolean reloadScheduled = new AtomicBoolean(false);
     private final PipelineMetricRegistry pipelineMetricRegistry;
+    private final Timer stateBuildTimer;
 
     @Inject
     public PipelineInterpreterStateUpdater(PipelineInterpreterStateBuilder stateBuilder,
@@ -61,6 +64,7 @@ public class PipelineInterpreterStateUpdater {
         this.stateBuilder = stateBuilder;
         this.scheduler = scheduler;
         this.pipelineMetricRegistry = PipelineMetricRegistry.create(metricRegistry, Pipeline.class.getName(), Rule.class.getName());
+        this.stateBuildTimer = metricRegistry.timer(name(PipelineInterpreterStateUpdater.class, "state-build-time"));
 
         // Perform the synchronous initial load before registering on the event bus. This closes the race
         // window where an async event could trigger a reload before the initial load completes. A failure
@@ -80,7 +84,13 @@ public class PipelineInterpreterStateUpdater {
         // an update that became visible during the rebuild.
         reloadScheduled.set(false);
         try {
-            final PipelineInterpreter.State newState = stateBuilder.buildState(pipelineMetricRegistry);
+            final PipelineInterpreter.State newState;
+            try (final Timer.Context ignored = stateBuildTimer.time()) {
+                // Unchanged rules and pipelines are reused by the state builder, the stage iterators of unchanged
+                // pipelines are taken over from the current state.
+                newState = stateBuilder.buildState(pipelineMetricRegistry);
+                newState.reuseStageIterators(latestState.get());
+            }
             updateState(newState);
         } catch (Exception e) {
             log.warn("Failed to reload pipeline interpreter state, retrying in 1 second", e);
@@ -131,7 +141,6 @@ public class PipelineInterpreterStateUpdater {
         }
     }
 
-    // TODO avoid reloading everything on every change, certain changes can get away with doing less work
     @Subscribe
     public void handleRuleChanges(RulesChangedEvent event) {
         event.deletedRules().forEach(ref -> {
@@ -16,10 +16,14 @@
  */
 package org.graylog.plugins.pipelineprocessor.processors;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.google.inject.assistedinject.Assisted;
 import jakarta.inject.Inject;
 import org.graylog.plugins.pipelineprocessor.ast.Pipeline;
@@ -34,17 +38,23 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
 /**
  * Resolves pipelines, pipeline rules, and pipeline stream connections from database objects to pipeline AST objects.
+ * <p>
+ * Parsed rules and resolved pipelines are kept between calls and reused as long as their source (and for pipelines,
+ * the rules they reference) didn't change, so resolving after a single change doesn't parse every rule again.
  */
 public class PipelineResolver {
     public interface Factory {
@@ -65,6 +75,13 @@ public class PipelineResolver {
     private final Supplier<Stream<RuleDao>> ruleDaoSupplier;
     private final Supplier<Stream<PipelineDao>> pipelineDaoSupplier;
     private final Supplier<Stream<PipelineConnections>> pipelineConnectionsSupplier;
+    // Parsed rules by rule ID from the last call, only contains the rules which still exist
+    private volatile Map<String, ParsedRule> parsedRules = Map.of();
+    // Resolved pipelines by pipeline ID from the last call, per metric registry because the metrics are registered
+    // while resolving
+    private final Cache<PipelineMetricRegistry, Map<String, ResolvedPipeline>> resolvedPipelines = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
 
     @Inject
     public PipelineResolver(@Assisted PipelineRuleParser ruleParser,
@@ -107,25 +124,49 @@ public class PipelineResolver {
     }
 
     private Map<String, Rule> resolveRules() {
-        // Read all rules and parse them
+        // Read all rules and parse the ones which are new or have been changed
         final Map<String, Rule> ruleNameMap = Maps.newHashMap();
+        final Map<String, ParsedRule> previousRules = parsedRules;
+        final Map<String, ParsedRule> currentRules = Maps.newHashMap();
+        final AtomicInteger parsedCount = new AtomicInteger();
 
         try (final var ruleStream = ruleDaoSupplier.get()) {
             ruleStream.forEach(ruleDao -> {
-                Rule rule;
-                try {
-                    rule = ruleParser.parseRule(ruleDao.id(), ruleDao.source(), false);
-                } catch (ParseException e) {
-                    LOG.warn("Ignoring non parseable rule <{}/{}> with errors <{}>", ruleDao.title(), ruleDao.id(), e.getErrors());
-                    rule = Rule.alwaysFalse("Failed to parse rule: " + ruleDao.id());
+                final HashCode sourceHash = hashSource(ruleDao.source());
+                final ParsedRule parsedRule = ruleDao.id() == null ? null : previousRules.get(ruleDao.id());
+                final Rule rule;
+                if (parsedRule != null && parsedRule.sourceHash().equals(sourceHash)) {
+                    rule = parsedRule.rule();
+                } else {
+                    rule = parseRule(ruleDao);
+                    parsedCount.incrementAndGet();
+                }
+                if (ruleDao.id() != null) {
+                    currentRules.put(ruleDao.id(), new ParsedRule(sourceHash, rule));
                 }
                 ruleNameMap.put(rule.name(), rule);
             });
         }
 
+        LOG.debug("Parsed {} new or changed rules", parsedCount.get());
+        parsedRules = currentRules;
+
         return ruleNameMap;
     }
 
+    private Rule parseRule(RuleDao ruleDao) {
+        try {
+            return ruleParser.parseRule(ruleDao.id(), ruleDao.source(), false);
+        } catch (ParseException e) {
+            LOG.warn("Ignoring non parseable rule <{}/{}> with errors <{}>", ruleDao.title(), ruleDao.id(), e.getErrors());
+            return Rule.alwaysFalse("Failed to parse rule: " + ruleDao.id());
+        }
+    }
+
+    private static HashCode hashSource(String source) {
+        return Hashing.sha256().hashString(source, UTF_8);
+    }
+
     /**
      * Resolves the rule and pipeline DAO objects into AST objects.
      *
@@ -133,23 +174,37 @@ public class PipelineResolver {
      */
     public ImmutableMap<String, Pipeline> resolvePipelines(PipelineMetricRegistry pipelineMetricRegistry) {
         final Map<String, Rule> ruleNameMap = resolveRules();
+        final Map<String, ResolvedPipeline> previousPipelines = Objects.requireNonNullElse(
+                resolvedPipelines.getIfPresent(pipelineMetricRegistry), Map.of());
+        final Map<String, ResolvedPipeline> currentPipelines = Maps.newHashMap();
 
-        // Read all pipelines and parse them
+        // Read all pipelines and parse the ones which are new or have been changed
         final ImmutableMap.Builder<String, Pipeline> pipelineIdMap = ImmutableMap.builder();
         try (final var pipelineStream = pipelineDaoSupplier.get()) {
             pipelineStream.forEach(pipelineDao -> {
+                final HashCode sourceHash = hashSource(pipelineDao.source());
+                final ResolvedPipeline resolvedPipeline = previousPipelines.get(pipelineDao.id());
                 Pipeline pipeline;
-                try {
-                    pipeline = ruleParser.parsePipeline(pipelineDao.id(), pipelineDao.source());
-                } catch (ParseException e) {
-                    LOG.warn("Ignoring non parseable pipeline <{}/{}> with errors <{}>", pipelineDao.title(), pipelineDao.id(), e.getErrors());
-                    pipeline = Pipeline.empty("Failed to parse pipeline: " + pipelineDao.id());
+                if (resolvedPipeline != null && resolvedPipeline.isUpToDate(sourceHash, ruleNameMap)) {
+                    pipeline = resolvedPipeline.pipeline();
+                } else {
+                    try {
+                        pipeline = ruleParser.parsePipeline(pipelineDao.id(), pipelineDao.source());
+                    } catch (ParseException e) {
+                        LOG.warn("Ignoring non parseable pipeline <{}/{}> with errors <{}>", pipelineDao.title(), pipelineDao.id(), e.getErrors());
+                        pipeline = Pipeline.empty("Failed to parse pipeline: " + pipelineDao.id());
+                    }
+                    pipeline = resolvePipeline(pipelineMetricRegistry, pipeline, ruleNameMap);
                 }
                 //noinspection ConstantConditions
-                pipelineIdMap.put(pipelineDao.id(), resolvePipeline(pipelineMetricRegistry, pipeline, ruleNameMap));
+                currentPipelines.put(pipelineDao.id(), new ResolvedPipeline(sourceHash, referencedRules(pipeline, ruleNameMap), pipeline));
+                //noinspection ConstantConditions
+                pipelineIdMap.put(pipelineDao.id(), pipeline);
             });
         }
 
+        resolvedPipelines.put(pipelineMetricRegistry, currentPipelines);
+
         return pipelineIdMap.build();
     }
 
@@ -207,4 +262,24 @@ public class PipelineResolver {
 
         return pipeline;
     }
+
+    private static Map<String, Rule> referencedRules(Pipeline pipeline, Map<String, Rule> ruleNameMap) {
+        // Unresolved rule references are kept with a null value, so the pipeline gets resolved again once they exist
+        final Map<String, Rule> referencedRules = new HashMap<>();
+        pipeline.stages().stream()
+                .filter(stage -> stage.ruleReferences() != null)
+                .flatMap(stage -> stage.ruleReferences().stream())
+                .forEach(ref -> referencedRules.put(ref, ruleNameMap.get(ref)));
+        return referencedRules;
+    }
+
+    private record ParsedRule(HashCode sourceHash, Rule rule) {}
+
+    private record ResolvedPipeline(HashCode sourceHash, Map<String, Rule> referencedRules, Pipeline pipeline) {
+        boolean isUpToDate(HashCode currentSourceHash, Map<String, Rule> ruleNameMap) {
+            // The parsed rule instances are reused as long as the rule didn't change, so comparing by identity is enough
+            return sourceHash.equals(currentSourceHash) && referencedRules.entrySet().stream()
+                    .allMatch(entry -> ruleNameMap.get(entry.getKey()) == entry.getValue());
+        }
+    }
 }
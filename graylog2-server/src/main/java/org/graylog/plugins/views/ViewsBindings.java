@@ -40,6 +40,7 @@ import org.graylog.plugins.views.providers.QuerySuggestionsProvider;
 import org.graylog.plugins.views.search.SearchRequirements;
 import org.graylog.plugins.views.search.SearchRequiresParameterSupport;
 import org.graylog.plugins.views.search.ValueParameter;
+import org.graylog.plugins.views.search.db.AbandonedSearchJobsCancellation;
 import org.graylog.plugins.views.search.db.InMemorySearchJobService;
 import org.graylog.plugins.views.search.db.SearchJobService;
 import org.graylog.plugins.views.search.db.SearchesCleanUpJob;
@@ -55,6 +56,7 @@ import org.graylog.plugins.views.search.export.DecoratingMessagesExporter;
 import org.graylog.plugins.views.search.export.ExportBackend;
 import org.graylog.plugins.views.search.export.LegacyChunkDecorator;
 import org.graylog.plugins.views.search.export.MessagesExporter;
+import org.graylog.plugins.views.search.export.SimpleMessageChunkArrowWriter;
 import org.graylog.plugins.views.search.export.SimpleMessageChunkCsvWriter;
 import org.graylog.plugins.views.search.filter.AndFilter;
 import org.graylog.plugins.views.search.filter.OrFilter;
@@ -84,6 +86,7 @@ import org.graylog.plugins.views.search.rest.contexts.SearchUserBinder;
 import org.graylog.plugins.views.search.rest.exceptionmappers.IllegalTimeRangeExceptionMapper;
 import org.graylog.plugins.views.search.rest.exceptionmappers.MissingCapabilitiesExceptionMapper;
 import org.graylog.plugins.views.search.rest.exceptionmappers.PermissionExceptionMapper;
+import org.graylog.plugins.views.search.rest.exceptionmappers.SearchAdmissionExceptionMapper;
 import org.graylog.plugins.views.search.rest.export.AggregationWidgetExportResource;
 import org.graylog.plugins.views.search.rest.export.response.AggregationWidgetExportResponseWriter;
 import org.graylog.plugins.views.search.rest.remote.SearchJobsStatusResource;
@@ -250,6 +253,7 @@ public class ViewsBindings extends ViewsModule {
         registerVisualizationConfigSubtypes();
 
         addPeriodical(SearchesCleanUpJob.class);
+        addPeriodical(AbandonedSearchJobsCancellation.class);
         addPeriodical(SearchJobStateCleanupOnStartup.class);
         addPeriodical(SearchJobStateCleanupPeriodical.class);
 
@@ -285,10 +289,12 @@ public class ViewsBindings extends ViewsModule {
         registerExceptionMappers();
 
         addExportFormat(() -> MoreMediaTypes.TEXT_CSV_TYPE);
+        addExportFormat(() -> MoreMediaTypes.APPLICATION_ARROW_STREAM_TYPE);
 
 
         jerseyAdditionalComponentsBinder().addBinding().toInstance(AggregationWidgetExportResponseWriter.class);
         jerseyAdditionalComponentsBinder().addBinding().toInstance(SimpleMessageChunkCsvWriter.class);
+        jerseyAdditionalComponentsBinder().addBinding().toInstance(SimpleMessageChunkArrowWriter.class);
         jerseyAdditionalComponentsBinder().addBinding().toInstance(MessageExportFormatFilter.class);
         jerseyAdditionalComponentsBinder().addBinding().toInstance(SearchUserBinder.class);
 
@@ -355,6 +361,7 @@ public class ViewsBindings extends ViewsModule {
         addJerseyExceptionMapper(MissingCapabilitiesExceptionMapper.class);
         addJerseyExceptionMapper(PermissionExceptionMapper.class);
         addJerseyExceptionMapper(IllegalTimeRangeExceptionMapper.class);
+        addJerseyExceptionMapper(SearchAdmissionExceptionMapper.class);
     }
 
 }
@@ -28,13 +28,14 @@ import one.util.streamex.EntryStream;
 import org.graylog.plugins.views.search.errors.SearchError;
 import org.graylog.plugins.views.search.rest.ExecutionInfo;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @JsonAutoDetect
 // execution must come before results, as it signals the overall "done" state
@@ -58,6 +59,8 @@ public class SearchJob implements ParameterProvider {
 
     private final Integer cancelAfterSeconds;
 
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
     public SearchJob(String id,
                      Search search,
                      String owner,
@@ -74,7 +77,7 @@ public class SearchJob implements ParameterProvider {
         this.search = search;
         this.searchJobIdentifier = new SearchJobIdentifier(id, search.id(), owner, executingNodeId);
         this.cancelAfterSeconds = cancelAfterSeconds != null ? cancelAfterSeconds : NO_CANCELLATION;
-        this.queryExecutionFutures = new HashMap<>();
+        this.queryExecutionFutures = new ConcurrentHashMap<>();
     }
 
     @JsonIgnore //covered by @JsonUnwrapped
@@ -124,13 +127,32 @@ public class SearchJob implements ParameterProvider {
 
     @JsonIgnore
     public void setQueryExecutionFuture(final String queryId, final Future<?> future) {
+        if (future == null) {
+            return;
+        }
         this.queryExecutionFutures.put(queryId, future);
-    }
-
-    public void cancel() {
+        // the job might have been cancelled while the backend was still preparing the request
+        if (cancelled.get()) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Cancels the backend requests of all queries of this job. Queries which did not start yet are not run anymore.
+     *
+     * @return true if the job was cancelled by this call, false if it had been cancelled before
+     */
+    public boolean cancel() {
+        final boolean cancelledNow = cancelled.compareAndSet(false, true);
         this.queryExecutionFutures.values().stream()
                 .filter(Objects::nonNull)
                 .forEach(f -> f.cancel(true));
+        return cancelledNow;
+    }
+
+    @JsonIgnore
+    public boolean isCancelled() {
+        return cancelled.get();
     }
 
     @JsonProperty("results")
@@ -145,7 +167,7 @@ public class SearchJob implements ParameterProvider {
     @JsonProperty("execution")
     public ExecutionInfo execution() {
         final boolean isDone = (resultFuture == null || resultFuture.isDone()) && (queryExecutionFutures.values().stream().allMatch(f -> f == null || f.isDone()));
-        final boolean isCancelled = (!queryExecutionFutures.isEmpty() && queryExecutionFutures.values().stream().allMatch(f -> f != null && f.isCancelled()) || (resultFuture != null && resultFuture.isCancelled()));
+        final boolean isCancelled = cancelled.get() || (!queryExecutionFutures.isEmpty() && queryExecutionFutures.values().stream().allMatch(f -> f != null && f.isCancelled()) || (resultFuture != null && resultFuture.isCancelled()));
         return new ExecutionInfo(isDone, isCancelled, !errors.isEmpty());
     }
 
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.db;
+
+import jakarta.inject.Inject;
+import org.graylog2.Configuration;
+import org.graylog2.plugin.periodical.Periodical;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Cancels asynchronous search jobs whose status is not polled anymore, e.g. because the user navigated away, so the
+ * search cluster does not keep working on searches nobody is waiting for.
+ */
+public class AbandonedSearchJobsCancellation extends Periodical {
+    private static final Logger LOG = LoggerFactory.getLogger(AbandonedSearchJobsCancellation.class);
+
+    private final SearchJobService searchJobService;
+    private final Duration abandonTimeout;
+
+    @Inject
+    public AbandonedSearchJobsCancellation(SearchJobService searchJobService, Configuration configuration) {
+        this.searchJobService = searchJobService;
+        this.abandonTimeout = Duration.ofMillis(configuration.getSearchJobAbandonTimeout().toMilliseconds());
+    }
+
+    @Override
+    public boolean runsForever() {
+        return false;
+    }
+
+    @Override
+    public boolean stopOnGracefulShutdown() {
+        return true;
+    }
+
+    @Override
+    public boolean leaderOnly() {
+        return false;
+    }
+
+    @Override
+    public boolean startOnThisNode() {
+        return !abandonTimeout.isZero();
+    }
+
+    @Override
+    public boolean isDaemon() {
+        return true;
+    }
+
+    @Override
+    public int getInitialDelaySeconds() {
+        return 5;
+    }
+
+    @Override
+    public int getPeriodSeconds() {
+        return 5;
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return LOG;
+    }
+
+    @Override
+    public void doRun() {
+        final int cancelled = searchJobService.cancelAbandoned(abandonTimeout);
+        if (cancelled > 0) {
+            LOG.debug("Cancelled {} search jobs which were not polled for {}", cancelled, abandonTimeout);
+        }
+    }
+}
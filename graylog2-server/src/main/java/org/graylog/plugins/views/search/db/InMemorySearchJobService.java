@@ -16,6 +16,8 @@
  */
 package org.graylog.plugins.views.search.db;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.util.concurrent.Uninterruptibles;
@@ -30,26 +32,41 @@ import org.graylog.plugins.views.search.rest.SearchJobDTO;
 import org.graylog2.plugin.system.NodeId;
 import org.graylog2.shared.utilities.StringUtils;
 
+import java.time.Duration;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import static com.codahale.metrics.MetricRegistry.name;
+
 // TODO dummy that only holds everything in memory for now
 @Singleton
 public class InMemorySearchJobService implements SearchJobService {
 
     private final Cache<String, SearchJob> cache;
     private final NodeId nodeId;
+    // last time in nanos the status of a job was loaded, for jobs which are cancelled when abandoned
+    private final Map<String, Long> lastLoadedByPolledJob = new ConcurrentHashMap<>();
+    private final Meter cancelled;
+    private final Meter abandoned;
 
-    @Inject
     public InMemorySearchJobService(final NodeId nodeId) {
+        this(nodeId, new MetricRegistry());
+    }
+
+    @Inject
+    public InMemorySearchJobService(final NodeId nodeId, final MetricRegistry metricRegistry) {
         this.nodeId = nodeId;
         cache = CacheBuilder.newBuilder()
                 .expireAfterAccess(5, TimeUnit.MINUTES)
                 .maximumSize(1000)
                 .recordStats()
                 .build();
+        this.cancelled = metricRegistry.meter(name(SearchJobService.class, "cancelled"));
+        this.abandoned = metricRegistry.meter(name(SearchJobService.class, "abandoned"));
     }
 
     @Override
@@ -69,6 +86,7 @@ public class InMemorySearchJobService implements SearchJobService {
         if (searchJob == null) {
             return Optional.empty();
         } else {
+            lastLoadedByPolledJob.computeIfPresent(id, (jobId, lastLoaded) -> System.nanoTime());
             if (searchJob.getResultFuture() != null) {
                 try {
                     // force a "conditional join", to catch fast responses without having to poll
@@ -86,11 +104,47 @@ public class InMemorySearchJobService implements SearchJobService {
         if (searchJob == null) {
             return false;
         } else {
-            searchJob.cancel();
+            cancel(searchJob);
             return true;
         }
     }
 
+    @Override
+    public void cancel(final SearchJob searchJob) {
+        lastLoadedByPolledJob.remove(searchJob.getId());
+        if (searchJob.cancel()) {
+            cancelled.mark();
+        }
+    }
+
+    @Override
+    public void cancelWhenAbandoned(final SearchJob searchJob) {
+        if (!isDone(searchJob)) {
+            lastLoadedByPolledJob.put(searchJob.getId(), System.nanoTime());
+        }
+    }
+
+    @Override
+    public int cancelAbandoned(final Duration maxIdleTime) {
+        final long now = System.nanoTime();
+        int count = 0;
+        for (Map.Entry<String, Long> entry : lastLoadedByPolledJob.entrySet()) {
+            final SearchJob searchJob = cache.getIfPresent(entry.getKey());
+            if (searchJob == null || isDone(searchJob)) {
+                lastLoadedByPolledJob.remove(entry.getKey());
+            } else if (now - entry.getValue() >= maxIdleTime.toNanos()) {
+                cancel(searchJob);
+                abandoned.mark();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isDone(final SearchJob searchJob) {
+        return searchJob.getResultFuture() == null || searchJob.getResultFuture().isDone();
+    }
+
     public SearchJob getFromCache(final String id, final SearchUser searchUser) {
         final SearchJob job = cache.getIfPresent(id);
         if (job != null) {
@@ -21,6 +21,7 @@ import org.graylog.plugins.views.search.SearchJob;
 import org.graylog.plugins.views.search.permissions.SearchUser;
 import org.graylog.plugins.views.search.rest.SearchJobDTO;
 
+import java.time.Duration;
 import java.util.Optional;
 
 public interface SearchJobService {
@@ -31,6 +32,29 @@ public interface SearchJobService {
 
     boolean cancel(final String id, final SearchUser searchUser);
 
+    /**
+     * Cancels the job, aborting the requests to the search cluster which are still running for it.
+     */
+    default void cancel(final SearchJob searchJob) {
+        searchJob.cancel();
+    }
+
+    /**
+     * Registers a job whose status is polled by a client. It is cancelled by {@link #cancelAbandoned(Duration)} if
+     * the client stops polling before the job is done.
+     */
+    default void cancelWhenAbandoned(final SearchJob searchJob) {
+    }
+
+    /**
+     * Cancels registered jobs which are still running, but whose status was not loaded within the given time.
+     *
+     * @return the number of cancelled jobs
+     */
+    default int cancelAbandoned(final Duration maxIdleTime) {
+        return 0;
+    }
+
     SearchJob getFromCache(final String id, final SearchUser searchUser);
 
     /**
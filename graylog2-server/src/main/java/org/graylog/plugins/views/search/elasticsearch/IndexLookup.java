@@ -28,4 +28,17 @@ public interface IndexLookup {
 
     Set<IndexRange> indexRangesForStreamsInTimeRange(Collection<String> streamIds,
                                                      TimeRange timeRange);
+
+    /**
+     * Checks if every message in the indices for the searched streams and time range is in at least one of the given
+     * streams, so a search on these indices does not have to filter by stream. This is only known for indices whose
+     * index range lists the streams they contain, so it is never true if the search includes the current write index.
+     *
+     * @param searchedStreamIds the streams determining the searched indices
+     * @param timeRange         the time range determining the searched indices
+     * @param streamIds         the streams the search would filter by
+     */
+    boolean indicesContainOnlyStreams(Collection<String> searchedStreamIds,
+                                      TimeRange timeRange,
+                                      Collection<String> streamIds);
 }
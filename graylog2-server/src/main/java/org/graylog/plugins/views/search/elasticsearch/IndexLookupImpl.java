@@ -82,4 +82,21 @@ public class IndexLookupImpl implements IndexLookup {
                 .filter(i -> indexRangeContainsOneOfStreams.test(i, usedStreams))
                 .collect(Collectors.toSet());
     }
+
+    @Override
+    public boolean indicesContainOnlyStreams(final Collection<String> searchedStreamIds,
+                                             final TimeRange timeRange,
+                                             final Collection<String> streamIds) {
+        if (searchedStreamIds.stream().anyMatch(s -> s.startsWith(Stream.DATASTREAM_PREFIX))) {
+            return false;
+        }
+        final Set<IndexRange> indexRanges = indexRangesForStreamsInTimeRange(searchedStreamIds, timeRange);
+        // without any index, the search runs on all indices
+        if (indexRanges.isEmpty()) {
+            return false;
+        }
+        final Set<String> allowedStreamIds = Set.copyOf(streamIds);
+        return indexRanges.stream()
+                .allMatch(indexRange -> indexRange.streamIds() != null && allowedStreamIds.containsAll(indexRange.streamIds()));
+    }
 }
@@ -0,0 +1,346 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.engine;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.graylog.plugins.views.search.Filter;
+import org.graylog.plugins.views.search.GlobalOverride;
+import org.graylog.plugins.views.search.Query;
+import org.graylog.plugins.views.search.QueryResult;
+import org.graylog.plugins.views.search.SearchJob;
+import org.graylog.plugins.views.search.SearchType;
+import org.graylog.plugins.views.search.elasticsearch.ElasticsearchQueryString;
+import org.graylog.plugins.views.search.searchfilters.model.UsedSearchFilter;
+import org.graylog.plugins.views.search.searchtypes.pivot.Pivot;
+import org.graylog.plugins.views.search.searchtypes.pivot.PivotResult;
+import org.graylog.plugins.views.search.searchtypes.pivot.SeriesSpec;
+import org.graylog.plugins.views.search.searchtypes.pivot.buckets.Time;
+import org.graylog.plugins.views.search.searchtypes.pivot.buckets.TimeUnitInterval;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Count;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Max;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Min;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Percentage;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Sum;
+import org.graylog.plugins.views.search.timeranges.DerivedTimeRange;
+import org.graylog2.Configuration;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.graylog2.plugin.indexer.searches.timeranges.RelativeRange;
+import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+/**
+ * Computes time series pivots over sliding relative time ranges incrementally.
+ *
+ * <p>The buckets of a pivot with a single {@link Time} row group are kept per search job owner, search, query and
+ * pivot. When the same pivot is executed again, e.g. because a dashboard refreshes, only the first bucket, which
+ * has lost messages at the start of the time range, and the buckets from the last complete bucket of the previous
+ * execution to now are queried. The results are merged with the kept buckets in between, buckets which fell out of
+ * the time range are trimmed.
+ *
+ * <p>Only pivots whose buckets can be computed independently of each other are supported: no column groups, no
+ * sorting, no percentage series, and only count, sum, min and max series if the pivot has a rollup. To compute the
+ * total number of messages, a hidden count series is added to the executed pivots. Messages arriving late for buckets
+ * which are not queried again show up once the pivot is fully recomputed, which happens at least every ten minutes.
+ */
+@Singleton
+public class IncrementalPivots {
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalPivots.class);
+
+    private static final String COUNT_SERIES_ID = "incremental-pivot-count";
+    private static final String HEAD_SUFFIX = "-incremental-head";
+    private static final long MAX_STATES = 10_000;
+    private static final Duration STATE_EXPIRY = Duration.ofMinutes(15);
+    // Late messages for buckets which are not queried again only show up after the next full recomputation.
+    private static final Duration FULL_RECOMPUTE_INTERVAL = Duration.ofMinutes(10);
+
+    private final boolean enabled;
+    private final Cache<StateKey, PivotState> states = Caffeine.newBuilder()
+            .maximumSize(MAX_STATES)
+            .expireAfterAccess(STATE_EXPIRY)
+            .build();
+
+    @Inject
+    public IncrementalPivots(Configuration configuration) {
+        this(configuration.isSearchQueryEngineIncrementalPivots());
+    }
+
+    IncrementalPivots(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    private record StateKey(String owner, String searchId, String queryId, String pivotId) {}
+
+    // Everything besides the time range that has an influence on the pivot result.
+    private record Fingerprint(BackendQuery query, @Nullable Filter filter, List<UsedSearchFilter> filters,
+                               Pivot pivot, DateTimeZone timezone, long rangeMillis) {}
+
+    private record PivotState(Fingerprint fingerprint, long from, long to, long fullyComputedAt,
+                              NavigableMap<Long, PivotResult.Row> rows, NavigableMap<Long, Long> counts) {}
+
+    private record Plan(StateKey key, Fingerprint fingerprint, Pivot pivot, long from, long to,
+                        @Nullable PivotState previous, long headEnd, long tailStart) {
+        boolean incremental() {
+            return previous != null;
+        }
+    }
+
+    /**
+     * The rewritten query and how to turn its result into the result of the original query.
+     */
+    public class Execution {
+        private final Query original;
+        private final Query query;
+        private final List<Plan> plans;
+
+        private Execution(Query original, Query query, List<Plan> plans) {
+            this.original = original;
+            this.query = query;
+            this.plans = plans;
+        }
+
+        public Query query() {
+            return query;
+        }
+
+        public QueryResult complete(QueryResult result) {
+            if (plans.isEmpty()) {
+                return result;
+            }
+            final Map<String, SearchType.Result> searchTypeResults = new HashMap<>(result.searchTypes());
+            for (Plan plan : plans) {
+                final SearchType.Result head = searchTypeResults.remove(plan.pivot().id() + HEAD_SUFFIX);
+                final SearchType.Result tail = searchTypeResults.get(plan.pivot().id());
+                if (!(tail instanceof PivotResult tailResult) || (plan.incremental() && !(head instanceof PivotResult))) {
+                    states.invalidate(plan.key());
+                    continue;
+                }
+                searchTypeResults.put(plan.pivot().id(), merge(plan, (PivotResult) head, tailResult));
+            }
+            return result.toBuilder()
+                    .query(original)
+                    .searchTypes(searchTypeResults)
+                    .build();
+        }
+    }
+
+    public Execution prepare(SearchJob searchJob, Query query, DateTimeZone timezone) {
+        if (!enabled || !ElasticsearchQueryString.NAME.equals(query.query().type())) {
+            return new Execution(query, query, List.of());
+        }
+        final List<Plan> plans = new ArrayList<>();
+        final ImmutableSet.Builder<SearchType> searchTypes = ImmutableSet.builder();
+
+        for (SearchType searchType : query.searchTypes()) {
+            final TimeRange timeRange = query.effectiveTimeRange(searchType);
+            final Optional<Long> bucketMillis = bucketMillis(searchType);
+            if (!(searchType instanceof Pivot pivot) || bucketMillis.isEmpty()
+                    || !(timeRange instanceof RelativeRange relativeRange) || relativeRange.isAllMessages()) {
+                // The global override time range is removed from the rewritten query, pin it for other search types.
+                searchTypes.add(searchType.timerange().isPresent()
+                        ? searchType.toBuilder().timerange(DerivedTimeRange.of(timeRange)).build()
+                        : searchType);
+                continue;
+            }
+
+            final long to = timeRange.getTo().getMillis();
+            final long from = timeRange.getFrom().getMillis();
+            final StateKey key = new StateKey(searchJob.getOwner(), searchJob.getSearchId(), query.id(), pivot.id());
+            final Fingerprint fingerprint = new Fingerprint(query.query(), query.filter(), query.filters(), pivot, timezone, to - from);
+            final Pivot executedPivot = pivot.toBuilder()
+                    .series(ImmutableList.<SeriesSpec>builder().addAll(pivot.series()).add(Count.builder().id(COUNT_SERIES_ID).build()).build())
+                    .build();
+
+            final PivotState previous = states.getIfPresent(key);
+            if (previous != null && previous.fingerprint().equals(fingerprint) && !previous.rows().isEmpty()
+                    && from >= previous.from() && to >= previous.to()
+                    && to - previous.fullyComputedAt() < FULL_RECOMPUTE_INTERVAL.toMillis()) {
+                final long alignment = previous.rows().firstKey();
+                final long length = bucketMillis.get();
+                final long headEnd = bucketStart(from, alignment, length) + length;
+                final long tailStart = bucketStart(previous.to(), alignment, length) - length;
+                if (tailStart > headEnd) {
+                    searchTypes.add(withTimeRange(executedPivot, from, headEnd - 1).toBuilder().id(pivot.id() + HEAD_SUFFIX).build());
+                    searchTypes.add(withTimeRange(executedPivot, tailStart, to));
+                    plans.add(new Plan(key, fingerprint, pivot, from, to, previous, headEnd, tailStart));
+                    continue;
+                }
+            }
+            searchTypes.add(withTimeRange(executedPivot, from, to));
+            plans.add(new Plan(key, fingerprint, pivot, from, to, null, 0, 0));
+        }
+
+        if (plans.isEmpty()) {
+            return new Execution(query, query, List.of());
+        }
+        final Query rewritten = query.toBuilder()
+                .globalOverride(query.globalOverride()
+                        .flatMap(GlobalOverride::query)
+                        .map(backendQuery -> GlobalOverride.builder().query(backendQuery).build())
+                        .orElse(null))
+                .searchTypes(searchTypes.build())
+                .build();
+        return new Execution(query, rewritten, plans);
+    }
+
+    private static Pivot withTimeRange(Pivot pivot, long from, long to) {
+        return pivot.toBuilder()
+                .timerange(DerivedTimeRange.of(AbsoluteRange.create(new DateTime(from, DateTimeZone.UTC), new DateTime(to, DateTimeZone.UTC))))
+                .build();
+    }
+
+    private static long bucketStart(long timestamp, long alignment, long length) {
+        return timestamp - Math.floorMod(timestamp - alignment, length);
+    }
+
+    private static Optional<Long> bucketMillis(SearchType searchType) {
+        if (!(searchType instanceof Pivot pivot)
+                || pivot.isSampled()
+                || pivot.rowGroups().size() != 1
+                || !(pivot.rowGroups().get(0) instanceof Time time)
+                || time.fields().size() != 1
+                || !(time.interval() instanceof TimeUnitInterval interval)
+                || !pivot.columnGroups().isEmpty()
+                || !pivot.sort().isEmpty()
+                || pivot.series().stream().anyMatch(series -> series instanceof Percentage)
+                || (pivot.rollup() && !pivot.series().stream().allMatch(IncrementalPivots::isMergeable))) {
+            return Optional.empty();
+        }
+        final Matcher matcher = TimeUnitInterval.TIMEUNIT_PATTERN.matcher(interval.timeunit());
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        // Longer units are calendar based and do not have a fixed length
+        final long quantity = Long.parseLong(matcher.group("quantity"));
+        return switch (matcher.group("unit")) {
+            case "s" -> Optional.of(TimeUnit.SECONDS.toMillis(quantity));
+            case "m" -> Optional.of(TimeUnit.MINUTES.toMillis(quantity));
+            case "h" -> Optional.of(TimeUnit.HOURS.toMillis(quantity));
+            default -> Optional.empty();
+        };
+    }
+
+    private static boolean isMergeable(SeriesSpec series) {
+        return series instanceof Count || series instanceof Sum || series instanceof Min || series instanceof Max;
+    }
+
+    private PivotResult merge(Plan plan, @Nullable PivotResult head, PivotResult tail) {
+        final NavigableMap<Long, PivotResult.Row> rows = new TreeMap<>();
+        final NavigableMap<Long, Long> counts = new TreeMap<>();
+        if (plan.incremental()) {
+            addRows(head, rows, counts, Long.MIN_VALUE, plan.headEnd());
+            rows.putAll(plan.previous().rows().subMap(plan.headEnd(), plan.tailStart()));
+            counts.putAll(plan.previous().counts().subMap(plan.headEnd(), plan.tailStart()));
+            addRows(tail, rows, counts, plan.tailStart(), Long.MAX_VALUE);
+        } else {
+            addRows(tail, rows, counts, Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        final long fullyComputedAt = plan.incremental() ? plan.previous().fullyComputedAt() : plan.to();
+        states.put(plan.key(), new PivotState(plan.fingerprint(), plan.from(), plan.to(), fullyComputedAt, rows, counts));
+
+        final PivotResult.Builder result = PivotResult.builder()
+                .id(plan.pivot().id())
+                .rows(ImmutableList.<PivotResult.Row>builder()
+                        .addAll(rows.values())
+                        .addAll(plan.pivot().rollup() ? List.of(rollupRow(plan.pivot(), rows.values())) : List.of())
+                        .build())
+                .total(counts.values().stream().mapToLong(Long::longValue).sum())
+                .effectiveTimerange(AbsoluteRange.create(new DateTime(plan.from(), DateTimeZone.UTC), tail.effectiveTimerange().to()));
+        if (tail.columnNames() != null) {
+            result.columnNames(tail.columnNames().stream().filter(name -> !COUNT_SERIES_ID.equals(name)).toList());
+        }
+        tail.name().ifPresent(result::name);
+        LOG.debug("Merged incremental pivot {}, {} buckets", plan.pivot().id(), rows.size());
+        return result.build();
+    }
+
+    private static void addRows(PivotResult result, Map<Long, PivotResult.Row> rows, Map<Long, Long> counts, long from, long to) {
+        for (PivotResult.Row row : result.rows()) {
+            if (row.key().size() != 1) {
+                // rollup row, it is recomputed from the merged buckets
+                continue;
+            }
+            final long bucket = DateTime.parse(row.key().get(0)).getMillis();
+            if (bucket < from || bucket >= to) {
+                continue;
+            }
+            final PivotResult.Row.Builder stripped = PivotResult.Row.builder().key(row.key()).source(row.source());
+            long count = 0;
+            for (PivotResult.Value value : row.values()) {
+                if (value.key().equals(List.of(COUNT_SERIES_ID))) {
+                    count = value.value() instanceof Number number ? number.longValue() : 0;
+                } else {
+                    stripped.addValue(value);
+                }
+            }
+            rows.put(bucket, stripped.build());
+            counts.put(bucket, count);
+        }
+    }
+
+    private static PivotResult.Row rollupRow(Pivot pivot, Iterable<PivotResult.Row> rows) {
+        final PivotResult.Row.Builder rollup = PivotResult.Row.builder().key(ImmutableList.of()).source("non-leaf");
+        for (SeriesSpec series : pivot.series()) {
+            Number merged = null;
+            for (PivotResult.Row row : rows) {
+                for (PivotResult.Value value : row.values()) {
+                    if (value.key().equals(List.of(series.id())) && value.value() instanceof Number number) {
+                        merged = merged == null ? number : merge(series, merged, number);
+                    }
+                }
+            }
+            if (merged == null && series instanceof Count) {
+                merged = 0L;
+            }
+            rollup.addValue(PivotResult.Value.create(List.of(series.id()), merged, true, "row-inner"));
+        }
+        return rollup.build();
+    }
+
+    private static Number merge(SeriesSpec series, Number a, Number b) {
+        if (series instanceof Count) {
+            return a.longValue() + b.longValue();
+        }
+        if (series instanceof Sum) {
+            return a.doubleValue() + b.doubleValue();
+        }
+        if (series instanceof Min) {
+            return a.doubleValue() <= b.doubleValue() ? a : b;
+        }
+        return a.doubleValue() >= b.doubleValue() ? a : b;
+    }
+}
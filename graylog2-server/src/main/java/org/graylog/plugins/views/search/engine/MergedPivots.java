@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.engine;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.graylog.plugins.views.search.Query;
+import org.graylog.plugins.views.search.QueryResult;
+import org.graylog.plugins.views.search.SearchType;
+import org.graylog.plugins.views.search.errors.SearchError;
+import org.graylog.plugins.views.search.errors.SearchTypeError;
+import org.graylog.plugins.views.search.searchtypes.pivot.Pivot;
+import org.graylog.plugins.views.search.searchtypes.pivot.PivotResult;
+import org.graylog.plugins.views.search.searchtypes.pivot.SeriesSpec;
+import org.graylog2.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Merges pivots of a query which aggregate over the same buckets into a single pivot.
+ *
+ * <p>Dashboards commonly contain several widgets whose pivots only differ in their series, or which are identical
+ * duplicates. Pivots which are equal apart from their id, name and series are executed as one pivot with the union
+ * of their series, the result is split up again afterwards. Pivots with column groups are only merged if their series
+ * are identical as well, because the column names of their results contain all series. Errors of a merged pivot are
+ * reported for every pivot which took part in it.
+ */
+@Singleton
+public class MergedPivots {
+    private static final Logger LOG = LoggerFactory.getLogger(MergedPivots.class);
+
+    private static final String GROUP_KEY_ID = "merged-pivot";
+
+    private final boolean enabled;
+
+    @Inject
+    public MergedPivots(Configuration configuration) {
+        this(configuration.isSearchQueryEngineMergePivots());
+    }
+
+    MergedPivots(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    private static class Group {
+        private final List<Pivot> members = new ArrayList<>();
+        private final Map<String, SeriesSpec> series = new LinkedHashMap<>();
+
+        Group(Pivot pivot) {
+            add(pivot);
+        }
+
+        boolean accepts(Pivot pivot) {
+            return pivot.series().stream()
+                    .allMatch(spec -> !series.containsKey(spec.id()) || series.get(spec.id()).equals(spec));
+        }
+
+        void add(Pivot pivot) {
+            members.add(pivot);
+            pivot.series().forEach(spec -> series.putIfAbsent(spec.id(), spec));
+        }
+
+        Pivot merged() {
+            return members.get(0).toBuilder()
+                    .series(List.copyOf(series.values()))
+                    .build();
+        }
+    }
+
+    /**
+     * The rewritten query and how to turn its result into the result of the original query.
+     */
+    public static class Execution {
+        private final Query original;
+        private final Query query;
+        private final List<Group> groups;
+
+        private Execution(Query original, Query query, List<Group> groups) {
+            this.original = original;
+            this.query = query;
+            this.groups = groups;
+        }
+
+        public Query query() {
+            return query;
+        }
+
+        public QueryResult complete(QueryResult result) {
+            if (groups.isEmpty()) {
+                return result;
+            }
+            final Map<String, SearchType.Result> searchTypeResults = new HashMap<>(result.searchTypes());
+            for (Group group : groups) {
+                if (!(searchTypeResults.get(group.members.get(0).id()) instanceof PivotResult merged)) {
+                    continue;
+                }
+                final Set<String> mergedSeries = group.series.keySet();
+                for (Pivot member : group.members) {
+                    searchTypeResults.put(member.id(), split(merged, member, mergedSeries));
+                }
+            }
+            return result.toBuilder()
+                    .query(original)
+                    .searchTypes(searchTypeResults)
+                    .errors(result.errors() == null ? null : errors(result.errors()))
+                    .build();
+        }
+
+        /**
+         * Reports each error of a merged pivot for all pivots which were merged into it.
+         */
+        public Set<SearchError> errors(Collection<SearchError> errors) {
+            if (groups.isEmpty()) {
+                return Set.copyOf(errors);
+            }
+            final Set<SearchError> result = new LinkedHashSet<>();
+            for (SearchError error : errors) {
+                result.add(error);
+                if (!(error instanceof SearchTypeError searchTypeError)) {
+                    continue;
+                }
+                groups.stream()
+                        .filter(group -> group.members.get(0).id().equals(searchTypeError.searchTypeId()))
+                        .flatMap(group -> group.members.stream().skip(1))
+                        .forEach(member -> result.add(new SearchTypeError(original, member.id(), searchTypeError.description(), searchTypeError.fatal())));
+            }
+            return result;
+        }
+    }
+
+    public Execution prepare(Query query) {
+        if (!enabled) {
+            return new Execution(query, query, List.of());
+        }
+        final Map<Pivot, List<Group>> groupsByKey = new LinkedHashMap<>();
+        final List<SearchType> others = new ArrayList<>();
+        for (SearchType searchType : query.searchTypes()) {
+            if (!(searchType instanceof Pivot pivot)) {
+                others.add(searchType);
+                continue;
+            }
+            final List<Group> candidates = groupsByKey.computeIfAbsent(groupKey(pivot), key -> new ArrayList<>());
+            candidates.stream()
+                    .filter(group -> group.accepts(pivot))
+                    .findFirst()
+                    .ifPresentOrElse(group -> group.add(pivot), () -> candidates.add(new Group(pivot)));
+        }
+
+        final List<Group> groups = groupsByKey.values().stream()
+                .flatMap(List::stream)
+                .toList();
+        final List<Group> mergedGroups = groups.stream()
+                .filter(group -> group.members.size() > 1)
+                .toList();
+        if (mergedGroups.isEmpty()) {
+            return new Execution(query, query, List.of());
+        }
+        LOG.debug("[{}] Merged {} pivots into {}", query.id(), groups.stream().mapToInt(group -> group.members.size()).sum(), groups.size());
+
+        final Query rewritten = query.toBuilder()
+                .searchTypes(ImmutableSet.<SearchType>builder()
+                        .addAll(others)
+                        .addAll(groups.stream().map(Group::merged).toList())
+                        .build())
+                .build();
+        return new Execution(query, rewritten, mergedGroups);
+    }
+
+    private static Pivot groupKey(Pivot pivot) {
+        return pivot.toBuilder()
+                .id(GROUP_KEY_ID)
+                .name(null)
+                .series(pivot.columnGroups().isEmpty() ? List.of() : pivot.series())
+                .build();
+    }
+
+    private static PivotResult split(PivotResult merged, Pivot member, Set<String> mergedSeries) {
+        final Set<String> series = member.series().stream().map(SeriesSpec::id).collect(Collectors.toSet());
+        final PivotResult.Builder result = PivotResult.builder()
+                .id(member.id())
+                .rows(merged.rows().stream()
+                        .map(row -> PivotResult.Row.builder()
+                                .key(row.key())
+                                .source(row.source())
+                                .values(row.values().stream()
+                                        .filter(value -> value.key().isEmpty() || series.contains(value.key().get(value.key().size() - 1)))
+                                        .collect(ImmutableList.toImmutableList()))
+                                .build())
+                        .collect(ImmutableList.toImmutableList()))
+                .total(merged.total())
+                .effectiveTimerange(merged.effectiveTimerange())
+                // the sample is shared by all series, so its error bounds apply to every member
+                .approximation(merged.approximation());
+        if (merged.columnNames() != null) {
+            result.columnNames(merged.columnNames().stream()
+                    .filter(name -> series.contains(name) || !mergedSeries.contains(name))
+                    .toList());
+        }
+        member.name().ifPresent(result::name);
+        return result.build();
+    }
+}
@@ -44,6 +44,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
@@ -67,6 +68,9 @@ public class QueryEngine {
     private final ElasticsearchBackendProvider elasticsearchBackendProvider;
     private final Map<String, QueryBackend<? extends GeneratedQueryContext>> unversionedBackends;
     private final EffectiveQueryComposer effectiveQueryComposer;
+    private final SearchResultCache searchResultCache;
+    private final IncrementalPivots incrementalPivots;
+    private final MergedPivots mergedPivots;
 
     @Inject
     public QueryEngine(Configuration configuration,
@@ -74,12 +78,18 @@ public class QueryEngine {
                        Map<String, QueryBackend<? extends GeneratedQueryContext>> unversionedBackends,
                        Set<QueryMetadataDecorator> queryMetadataDecorators,
                        QueryParser queryParser,
-                       EffectiveQueryComposer effectiveQueryComposer) {
+                       EffectiveQueryComposer effectiveQueryComposer,
+                       SearchResultCache searchResultCache,
+                       IncrementalPivots incrementalPivots,
+                       MergedPivots mergedPivots) {
         this.elasticsearchBackendProvider = elasticsearchBackendProvider;
         this.unversionedBackends = unversionedBackends;
         this.queryMetadataDecorators = queryMetadataDecorators;
         this.queryParser = queryParser;
         this.effectiveQueryComposer = effectiveQueryComposer;
+        this.searchResultCache = searchResultCache;
+        this.incrementalPivots = incrementalPivots;
+        this.mergedPivots = mergedPivots;
 
         this.indexerJobsQueryPool = createThreadPool(
                 configuration.searchQueryEngineIndexerJobsPoolSize(),
@@ -178,17 +188,30 @@ public class QueryEngine {
     }
 
     private QueryResult prepareAndRun(SearchJob searchJob, Query query, Set<SearchError> validationErrors, DateTimeZone timezone) {
+        if (searchJob.isCancelled()) {
+            LOG.debug("[{}] Search job {} was cancelled, not running query", query.id(), searchJob.getId());
+            return QueryResult.failedQueryWithError(query, new QueryError(query, "Search job was cancelled."));
+        }
+        final Optional<QueryResult> cachedResult = searchResultCache.get(searchJob, query, timezone);
+        if (cachedResult.isPresent()) {
+            LOG.debug("[{}] Using cached result", query.id());
+            return cachedResult.get();
+        }
         final var backend = getBackendForQuery(query);
         LOG.debug("[{}] Using {} to generate query", query.id(), backend);
         // with all the results done, we can execute the current query and eventually complete our own result
         // if any of this throws an exception, the handle in #execute will convert it to an error and return a "failed" result instead
         // if the backend already returns a "failed result" then nothing special happens here
-        final GeneratedQueryContext generatedQueryContext = backend.generate(query, validationErrors, timezone);
+        final MergedPivots.Execution merged = mergedPivots.prepare(query);
+        final IncrementalPivots.Execution execution = incrementalPivots.prepare(searchJob, merged.query(), timezone);
+        final GeneratedQueryContext generatedQueryContext = backend.generate(execution.query(), validationErrors, timezone);
         LOG.trace("[{}] Generated query {}, running it on backend {}", query.id(), generatedQueryContext, backend);
-        final QueryResult result = backend.run(searchJob, query, generatedQueryContext);
+        final QueryResult result = merged.complete(execution.complete(backend.run(searchJob, execution.query(), generatedQueryContext)));
         LOG.debug("[{}] Query returned {}", query.id(), result);
         if (!generatedQueryContext.errors().isEmpty()) {
-            generatedQueryContext.errors().forEach(searchJob::addError);
+            merged.errors(generatedQueryContext.errors()).forEach(searchJob::addError);
+        } else {
+            searchResultCache.put(searchJob, query, timezone, result, backend);
         }
         return result;
     }
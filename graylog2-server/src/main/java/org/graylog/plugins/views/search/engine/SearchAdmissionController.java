@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.engine;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.graylog.plugins.views.search.Query;
+import org.graylog.plugins.views.search.Search;
+import org.graylog.plugins.views.search.SearchType;
+import org.graylog.plugins.views.search.elasticsearch.ElasticsearchQueryString;
+import org.graylog.plugins.views.search.elasticsearch.IndexLookup;
+import org.graylog.plugins.views.search.errors.SearchAdmissionException;
+import org.graylog.plugins.views.search.permissions.SearchUser;
+import org.graylog2.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Limits the estimated cost of the searches which are executed concurrently on this node.
+ *
+ * <p>The cost of a search is the number of indices its queries have to search, at least one per query. Searches
+ * never wait for capacity, they are rejected right away if they don't fit, so request threads are not blocked.
+ * While users are competing for capacity, a user who is already running searches is limited to their share of the
+ * capacity: the capacity divided by the summed weights of the competing users, multiplied by the user's weight.
+ * Users whose search was rejected recently count as competing, so a user submitting many expensive searches can't
+ * keep the capacity to themselves while others are retrying.
+ */
+@Singleton
+public class SearchAdmissionController {
+    private static final Logger LOG = LoggerFactory.getLogger(SearchAdmissionController.class);
+
+    private static final Duration MIN_RETRY_AFTER = Duration.ofSeconds(1);
+
+    /**
+     * Capacity held by an admitted search, has to be released once the search is done.
+     */
+    public interface Permit {
+        void release();
+    }
+
+    private static final Permit UNLIMITED = () -> {};
+
+    private final int capacity;
+    private final int adminWeight;
+    private final IndexLookup indexLookup;
+
+    private final Map<String, UserState> users = new HashMap<>();
+    private int runningCost = 0;
+
+    private final Timer executionTime;
+    private final Meter rejected;
+
+    private static class UserState {
+        private final int weight;
+        private int runningCost = 0;
+        // System.nanoTime() until which the user counts as competing after a rejected search
+        private long competingUntil;
+
+        UserState(int weight) {
+            this.weight = weight;
+        }
+
+        boolean isActive(long now) {
+            return runningCost > 0 || competingUntil - now > 0;
+        }
+    }
+
+    @Inject
+    public SearchAdmissionController(Configuration configuration, IndexLookup indexLookup, MetricRegistry metricRegistry) {
+        this(configuration.getSearchAdmissionMaxConcurrentCost(),
+                configuration.getSearchAdmissionAdminWeight(),
+                indexLookup,
+                metricRegistry);
+    }
+
+    public SearchAdmissionController(int capacity, int adminWeight, IndexLookup indexLookup, MetricRegistry metricRegistry) {
+        this.capacity = capacity;
+        this.adminWeight = adminWeight;
+        this.indexLookup = indexLookup;
+
+        this.executionTime = metricRegistry.timer(name(SearchAdmissionController.class, "execution-time"));
+        this.rejected = metricRegistry.meter(name(SearchAdmissionController.class, "rejected"));
+        metricRegistry.register(name(SearchAdmissionController.class, "running-cost"), (Gauge<Integer>) this::runningCost);
+    }
+
+    /**
+     * Admits the search if it can be executed within the capacity of this node right now.
+     *
+     * @throws SearchAdmissionException if the search is not admitted, containing a hint when to retry
+     */
+    public Permit admit(SearchUser searchUser, Search search) {
+        if (capacity <= 0) {
+            return UNLIMITED;
+        }
+        final int cost = Math.min(capacity, estimateCost(search));
+        final String user = searchUser.username();
+        final int weight = searchUser.isAdmin() ? adminWeight : 1;
+
+        synchronized (this) {
+            final long now = System.nanoTime();
+            users.values().removeIf(state -> !state.isActive(now));
+            final UserState state = users.computeIfAbsent(user, u -> new UserState(weight));
+
+            if (runningCost + cost > capacity) {
+                throw reject(state, now, "Too many searches running");
+            }
+            // A user without running searches is always admitted if the search fits, so everybody makes progress
+            if (state.runningCost > 0 && state.runningCost + cost > fairShare(state)) {
+                throw reject(state, now, "Too many searches of user <" + user + "> running while others are waiting");
+            }
+
+            state.runningCost += cost;
+            runningCost += cost;
+        }
+
+        LOG.debug("Admitted search {} of user {} with cost {}", search.id(), user, cost);
+        return permit(user, cost);
+    }
+
+    private double fairShare(UserState state) {
+        final int totalWeight = users.values().stream().mapToInt(user -> user.weight).sum();
+        return (double) capacity * state.weight / totalWeight;
+    }
+
+    private Permit permit(String user, int cost) {
+        final Timer.Context context = executionTime.time();
+        final AtomicBoolean released = new AtomicBoolean(false);
+        return () -> {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            context.stop();
+            synchronized (this) {
+                runningCost -= cost;
+                final UserState state = users.get(user);
+                if (state != null) {
+                    state.runningCost -= cost;
+                }
+            }
+        };
+    }
+
+    private SearchAdmissionException reject(UserState state, long now, String message) {
+        rejected.mark();
+        // a running search has to finish before this one fits
+        final Duration meanExecutionTime = Duration.ofNanos((long) executionTime.getSnapshot().getMean());
+        final Duration retryAfter = meanExecutionTime.compareTo(MIN_RETRY_AFTER) > 0 ? meanExecutionTime : MIN_RETRY_AFTER;
+        // keep the user competing until shortly after they are expected to retry
+        state.competingUntil = now + retryAfter.multipliedBy(2).toNanos();
+        return new SearchAdmissionException(message + ", please retry later.", retryAfter);
+    }
+
+    int estimateCost(Search search) {
+        return search.queries().stream().mapToInt(this::estimateCost).sum();
+    }
+
+    private int estimateCost(Query query) {
+        if (!ElasticsearchQueryString.NAME.equals(query.query().type())) {
+            return 1;
+        }
+        try {
+            final Set<String> indices = new HashSet<>();
+            if (query.searchTypes().isEmpty()) {
+                indices.addAll(indexLookup.indexNamesForStreamsInTimeRange(query.usedStreamIds(), query.timerange()));
+            }
+            for (SearchType searchType : query.searchTypes()) {
+                indices.addAll(indexLookup.indexNamesForStreamsInTimeRange(query.effectiveStreams(searchType), query.effectiveTimeRange(searchType)));
+            }
+            return Math.max(1, indices.size());
+        } catch (Exception e) {
+            LOG.debug("Unable to estimate cost of query {}", query.id(), e);
+            return 1;
+        }
+    }
+
+    private synchronized int runningCost() {
+        return runningCost;
+    }
+}
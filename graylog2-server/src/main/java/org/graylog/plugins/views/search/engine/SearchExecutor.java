@@ -50,18 +50,21 @@ public class SearchExecutor {
     private final QueryEngine queryEngine;
     private final SearchValidation searchValidation;
     private final SearchNormalization searchNormalization;
+    private final SearchAdmissionController searchAdmissionController;
 
     @Inject
     public SearchExecutor(SearchDomain searchDomain,
                           SearchJobService searchJobService,
                           QueryEngine queryEngine,
                           SearchValidation searchValidation,
-                          SearchNormalization searchNormalization) {
+                          SearchNormalization searchNormalization,
+                          SearchAdmissionController searchAdmissionController) {
         this.searchDomain = searchDomain;
         this.searchJobService = searchJobService;
         this.queryEngine = queryEngine;
         this.searchValidation = searchValidation;
         this.searchNormalization = searchNormalization;
+        this.searchAdmissionController = searchAdmissionController;
     }
 
     public SearchJob executeSync(String searchId, SearchUser searchUser, ExecutionState executionState) {
@@ -122,7 +125,19 @@ public class SearchExecutor {
         }
 
         final Search normalizedSearch = searchNormalization.postValidation(preValidationSearch, searchUser, executionState);
-        final SearchJob searchJob = queryEngine.execute(searchJobService.create(normalizedSearch, searchUser.username(), executionState.cancelAfterSeconds()), validationErrors, searchUser.timeZone().orElse(DEFAULT_TIMEZONE));
+        final SearchAdmissionController.Permit permit = searchAdmissionController.admit(searchUser, normalizedSearch);
+        final SearchJob searchJob;
+        try {
+            searchJob = queryEngine.execute(searchJobService.create(normalizedSearch, searchUser.username(), executionState.cancelAfterSeconds()), validationErrors, searchUser.timeZone().orElse(DEFAULT_TIMEZONE));
+        } catch (RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+        if (searchJob.getResultFuture() != null) {
+            searchJob.getResultFuture().whenComplete((result, throwable) -> permit.release());
+        } else {
+            permit.release();
+        }
         validationErrors.forEach(searchJob::addError);
         return searchJob;
     }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.graylog.plugins.views.search.Parameter;
+import org.graylog.plugins.views.search.Query;
+import org.graylog.plugins.views.search.QueryResult;
+import org.graylog.plugins.views.search.SearchJob;
+import org.graylog.plugins.views.search.SearchType;
+import org.graylog2.Configuration;
+import org.graylog2.indexer.ranges.IndexRange;
+import org.graylog2.indexer.ranges.IndexRangesUpdatedEvent;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Caches the results of queries whose results can no longer change.
+ *
+ * <p>A query is only cached if all of its search types use an absolute time range which ended in the past. Results
+ * of queries covered by read-only indices, whose range has been calculated after rotation, are kept until they have
+ * not been accessed for the configured duration. The current write index can still receive messages with old
+ * timestamps, so results of queries which include it are only kept for {@link #WRITE_INDEX_EXPIRY}, and only if the
+ * write index has been created after the end of the time range. The cache is bounded by the estimated size of the
+ * serialized results.
+ *
+ * <p>The cache key contains the complete query including its streams and filters, the search parameters and the
+ * time zone. Permissions are checked on the query's streams before it is executed, so a cached result is only
+ * returned for a query which has passed the same permission checks. Entries are evicted once the index ranges of
+ * one of their indices change, e.g. because the index has been deleted by retention.
+ */
+@Singleton
+public class SearchResultCache {
+    private static final Logger LOG = LoggerFactory.getLogger(SearchResultCache.class);
+    static final Duration WRITE_INDEX_EXPIRY = Duration.ofMinutes(1);
+
+    private final Cache<Key, Entry> cache;
+    private final boolean enabled;
+    private final ObjectMapper objectMapper;
+
+    record Key(Query query, Set<Parameter> parameters, DateTimeZone timezone) {}
+
+    /**
+     * The indices a query result has been computed from.
+     *
+     * @param indexNames        the names of the indices
+     * @param includesWriteIndex whether one of them is a current write index
+     */
+    record Indices(Set<String> indexNames, boolean includesWriteIndex) {}
+
+    private record Entry(QueryResult result, Indices indices, int weight) {}
+
+    @Inject
+    public SearchResultCache(Configuration configuration, EventBus eventBus, ObjectMapper objectMapper) {
+        this(configuration.searchQueryEngineResultCacheMaxSize().toBytes(),
+                configuration.searchQueryEngineResultCacheExpireAfterAccess().toMilliseconds(), objectMapper);
+        eventBus.register(this);
+    }
+
+    SearchResultCache(long maximumWeightBytes, long expireAfterAccessMillis, ObjectMapper objectMapper) {
+        this.enabled = maximumWeightBytes > 0;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeightBytes)
+                .weigher((Key key, Entry entry) -> entry.weight())
+                .expireAfter(expiry(Duration.ofMillis(expireAfterAccessMillis)))
+                .build();
+    }
+
+    private static Expiry<Key, Entry> expiry(Duration expireAfterAccess) {
+        final long expireAfterAccessNanos = expireAfterAccess.toNanos();
+        final long writeIndexExpiryNanos = Math.min(WRITE_INDEX_EXPIRY.toNanos(), expireAfterAccessNanos);
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+                return entry.indices().includesWriteIndex() ? writeIndexExpiryNanos : expireAfterAccessNanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, entry, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+                // Results including a write index expire a fixed time after they have been stored
+                return entry.indices().includesWriteIndex() ? currentDuration : expireAfterAccessNanos;
+            }
+        };
+    }
+
+    public Optional<QueryResult> get(SearchJob searchJob, Query query, DateTimeZone timezone) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(key(searchJob, query, timezone))).map(Entry::result);
+    }
+
+    /**
+     * Stores the result of the given query if it is complete and computed from indices which won't receive messages
+     * for its time range anymore.
+     */
+    public void put(SearchJob searchJob, Query query, DateTimeZone timezone, QueryResult result, QueryBackend<?> backend) {
+        if (!enabled || result.state() != QueryResult.State.COMPLETED || (result.errors() != null && !result.errors().isEmpty())) {
+            return;
+        }
+        final Optional<Indices> indices = cacheableIndices(query, backend, DateTime.now(DateTimeZone.UTC));
+        if (indices.isEmpty()) {
+            return;
+        }
+        weigh(result).ifPresent(weight -> cache.put(key(searchJob, query, timezone), new Entry(result, indices.get(), weight)));
+    }
+
+    static Optional<Indices> cacheableIndices(Query query, QueryBackend<?> backend, DateTime now) {
+        if (query.searchTypes().isEmpty()) {
+            return Optional.empty();
+        }
+        final ImmutableSet.Builder<String> indexNames = ImmutableSet.builder();
+        boolean includesWriteIndex = false;
+        for (SearchType searchType : query.searchTypes()) {
+            final TimeRange timeRange = query.effectiveTimeRange(searchType);
+            if (!(timeRange instanceof AbsoluteRange) || !timeRange.getTo().isBefore(now)) {
+                return Optional.empty();
+            }
+            for (IndexRange indexRange : backend.indexRangesForStreamsInTimeRange(query.effectiveStreams(searchType), timeRange)) {
+                if (isWriteIndex(indexRange)) {
+                    if (!indexRange.calculatedAt().isAfter(timeRange.getTo())) {
+                        return Optional.empty();
+                    }
+                    includesWriteIndex = true;
+                }
+                indexNames.add(indexRange.indexName());
+            }
+        }
+        return Optional.of(new Indices(indexNames.build(), includesWriteIndex));
+    }
+
+    // The size of the serialized result, which is what the cache saves from being transferred and computed again
+    private Optional<Integer> weigh(QueryResult result) {
+        final CountingOutputStream out = new CountingOutputStream(ByteStreams.nullOutputStream());
+        try {
+            objectMapper.writeValue(out, result);
+        } catch (IOException e) {
+            LOG.debug("Couldn't estimate the size of query result, not caching it", e);
+            return Optional.empty();
+        }
+        return Optional.of((int) Math.min(Integer.MAX_VALUE, out.getCount()));
+    }
+
+    // The current write indices have an "unknown" range with begin and end 0, calculatedAt is their creation time.
+    private static boolean isWriteIndex(IndexRange indexRange) {
+        return indexRange.begin().getMillis() == 0L && indexRange.end().getMillis() == 0L;
+    }
+
+    private static Key key(SearchJob searchJob, Query query, DateTimeZone timezone) {
+        final Set<Parameter> parameters = searchJob.getSearch().parameters();
+        return new Key(query, parameters == null ? Collections.emptySet() : parameters, timezone);
+    }
+
+    @Subscribe
+    public void handleIndexRangesUpdated(IndexRangesUpdatedEvent event) {
+        cache.asMap().values().removeIf(entry -> !Collections.disjoint(entry.indices().indexNames(), event.indexNames()));
+    }
+}
@@ -35,6 +35,7 @@ public class ChunkedRunner {
     private static final Logger LOG = LoggerFactory.getLogger(ChunkedRunner.class);
 
     private final ChunkedOutput<SimpleMessageChunk> output = new ChunkedOutput<>(SimpleMessageChunk.class);
+    private boolean firstChunkWritten = false;
 
     public static ChunkedOutput<SimpleMessageChunk> runAsync(Consumer<Consumer<SimpleMessageChunk>> call) {
 
@@ -90,11 +91,23 @@ public class ChunkedRunner {
         }
     }
 
-    private void write(SimpleMessageChunk chunk) {
+    private synchronized void write(SimpleMessageChunk chunk) {
         try {
-            output.write(chunk);
+            output.write(inResponseOrder(chunk));
         } catch (IOException e) {
             throw new RuntimeException("Failed to write to ChunkedOutput", e);
         }
     }
+
+    // Backends only mark a chunk as first if it contains search hits, e.g. an empty export consists of just the last
+    // chunk. Writers have to start the response with the first chunk written, whatever it contains.
+    private SimpleMessageChunk inResponseOrder(SimpleMessageChunk chunk) {
+        final boolean first = !firstChunkWritten;
+        firstChunkWritten = true;
+        final SimpleMessageChunk.ChunkOrder chunkOrder = switch (chunk.chunkOrder()) {
+            case FIRST, INTERMEDIATE -> first ? SimpleMessageChunk.ChunkOrder.FIRST : SimpleMessageChunk.ChunkOrder.INTERMEDIATE;
+            case LAST, SINGLE -> first ? SimpleMessageChunk.ChunkOrder.SINGLE : SimpleMessageChunk.ChunkOrder.LAST;
+        };
+        return chunkOrder == chunk.chunkOrder() ? chunk : chunk.toBuilder().chunkOrder(chunkOrder).build();
+    }
 }
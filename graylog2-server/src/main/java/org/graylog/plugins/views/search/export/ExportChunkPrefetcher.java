@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.export;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.graylog2.Configuration;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Fetches the chunks of message exports ahead of writing them, for the export backends of all search clusters.
+ * <p>
+ * The time range of an export is split into slices which are fetched in parallel. Every slice prefetches up to
+ * {@code export_prefetch_chunks} chunks while the previous ones are being written, the chunks are published in the
+ * order of the slices, so the messages stay sorted by timestamp. All exports share a pool of
+ * {@code export_prefetch_threads} threads, slices of concurrent exports wait for a free thread.
+ */
+@Singleton
+public class ExportChunkPrefetcher {
+    private static final Logger LOG = LoggerFactory.getLogger(ExportChunkPrefetcher.class);
+
+    /**
+     * Runs the search requests of a single slice, every call returns the next chunk. An empty chunk ends the slice.
+     */
+    public interface ChunkSource<T> {
+        List<T> nextChunk();
+    }
+
+    /**
+     * Writes a chunk of hits to the client.
+     */
+    public interface ChunkPublisher<T> {
+        /**
+         * @return false if the export has to stop, e.g. because the client went away
+         */
+        boolean publish(List<T> hits, SimpleMessageChunk.ChunkOrder chunkOrder);
+    }
+
+    private final int prefetchChunks;
+    private final int parallelSlices;
+    private final ExecutorService executor;
+
+    @Inject
+    public ExportChunkPrefetcher(Configuration configuration) {
+        this(configuration.getExportPrefetchChunks(), configuration.getExportParallelSlices(),
+                configuration.getExportPrefetchThreads());
+    }
+
+    public ExportChunkPrefetcher(int prefetchChunks, int parallelSlices, int threads) {
+        this.prefetchChunks = prefetchChunks;
+        this.parallelSlices = parallelSlices;
+        final ThreadPoolExecutor threadPool = new ThreadPoolExecutor(threads, threads,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("export-prefetch-%d").setDaemon(true).build());
+        threadPool.allowCoreThreadTimeOut(true);
+        this.executor = threadPool;
+    }
+
+    /**
+     * Fetches and publishes all chunks of the export, followed by an empty {@link SimpleMessageChunk.ChunkOrder#LAST last}
+     * chunk. Stops early once the limit of the command has been reached or the publisher fails.
+     *
+     * @param command     the export
+     * @param sliceSource creates the chunk source of a slice, the command passed to it is limited to the slice
+     * @param publisher   writes the chunks
+     */
+    public <T> void run(ExportMessagesCommand command, Function<ExportMessagesCommand, ChunkSource<T>> sliceSource,
+                        ChunkPublisher<T> publisher) {
+        final List<SlicePrefetcher<T>> prefetchers = slicesOf(command.timeRange()).stream()
+                .map(slice -> {
+                    final ExportMessagesCommand sliceCommand = command.toBuilder().timeRange(slice).build();
+                    return new SlicePrefetcher<>(sliceCommand, sliceSource.apply(sliceCommand));
+                })
+                .toList();
+        // Slices are submitted in order, so the slice which is published next never waits behind a later one
+        final List<Future<?>> futures = prefetchers.stream()
+                .<Future<?>>map(executor::submit)
+                .toList();
+
+        try {
+            boolean isFirstChunk = true;
+            int totalCount = 0;
+
+            for (SlicePrefetcher<T> prefetcher : prefetchers) {
+                List<T> hits;
+                while (!(hits = prefetcher.take()).isEmpty()) {
+                    boolean success = publisher.publish(hits, isFirstChunk ? SimpleMessageChunk.ChunkOrder.FIRST : SimpleMessageChunk.ChunkOrder.INTERMEDIATE);
+                    if (!success) {
+                        return;
+                    }
+
+                    totalCount += hits.size();
+                    if (command.limit().isPresent() && totalCount >= command.limit().getAsInt()) {
+                        LOG.info("Limit of {} reached. Stopping message retrieval.", command.limit().getAsInt());
+                        publisher.publish(List.of(), SimpleMessageChunk.ChunkOrder.LAST);
+                        return;
+                    }
+
+                    isFirstChunk = false;
+                }
+            }
+            publisher.publish(List.of(), SimpleMessageChunk.ChunkOrder.LAST);
+        } finally {
+            // Cancels the slices which haven't started yet and interrupts the running ones
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    @VisibleForTesting
+    List<AbsoluteRange> slicesOf(AbsoluteRange timeRange) {
+        final long from = timeRange.getFrom().getMillis();
+        final long duration = timeRange.getTo().getMillis() - from;
+        if (parallelSlices <= 1 || duration < parallelSlices) {
+            return List.of(timeRange);
+        }
+        // The time range filter excludes the end of the range, so consecutive slices do not overlap
+        final List<AbsoluteRange> slices = new ArrayList<>(parallelSlices);
+        DateTime sliceFrom = timeRange.getFrom();
+        for (int i = 1; i < parallelSlices; i++) {
+            final DateTime sliceTo = new DateTime(from + duration * i / parallelSlices, timeRange.getFrom().getZone());
+            slices.add(AbsoluteRange.create(sliceFrom, sliceTo));
+            sliceFrom = sliceTo;
+        }
+        slices.add(AbsoluteRange.create(sliceFrom, timeRange.getTo()));
+        return slices;
+    }
+
+    private record Chunk<T>(List<T> hits, RuntimeException error) {}
+
+    /**
+     * Fetches the chunks of a single slice and keeps them in a bounded queue. An empty chunk marks the end of the slice.
+     */
+    private class SlicePrefetcher<T> implements Runnable {
+        private final ExportMessagesCommand command;
+        private final ChunkSource<T> source;
+        private final BlockingQueue<Chunk<T>> chunks = new ArrayBlockingQueue<>(prefetchChunks);
+
+        SlicePrefetcher(ExportMessagesCommand command, ChunkSource<T> source) {
+            this.command = command;
+            this.source = source;
+        }
+
+        @Override
+        public void run() {
+            try {
+                int totalCount = 0;
+                while (true) {
+                    final List<T> hits = source.nextChunk();
+                    totalCount += hits.size();
+                    // This slice alone can satisfy the limit, the remaining messages would never be published
+                    final boolean limitReached = command.limit().isPresent() && totalCount >= command.limit().getAsInt();
+                    chunks.put(new Chunk<>(hits, null));
+                    if (hits.isEmpty()) {
+                        return;
+                    }
+                    if (limitReached) {
+                        chunks.put(new Chunk<>(List.of(), null));
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                try {
+                    chunks.put(new Chunk<>(List.of(), e));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        List<T> take() {
+            final Chunk<T> chunk;
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExportException("Export has been interrupted", e);
+            }
+            if (chunk.error() != null) {
+                throw chunk.error();
+            }
+            return chunk.hits();
+        }
+    }
+}
@@ -27,7 +27,11 @@ public abstract class SimpleMessageChunk {
     public enum ChunkOrder {
         FIRST,
         INTERMEDIATE,
-        LAST;
+        LAST,
+        /**
+         * The only chunk of a response, it is the first and the last one.
+         */
+        SINGLE;
     }
     public static SimpleMessageChunk from(LinkedHashSet<String> fieldsInOrder, LinkedHashSet<SimpleMessage> messages) {
         return builder().fieldsInOrder(fieldsInOrder).messages(messages).build();
@@ -42,11 +46,11 @@ public abstract class SimpleMessageChunk {
     public abstract LinkedHashSet<SimpleMessage> messages();
 
     public boolean isFirstChunk() {
-        return chunkOrder().equals(ChunkOrder.FIRST);
+        return chunkOrder().equals(ChunkOrder.FIRST) || chunkOrder().equals(ChunkOrder.SINGLE);
     }
 
     public boolean isLastChunk() {
-        return chunkOrder().equals(ChunkOrder.LAST);
+        return chunkOrder().equals(ChunkOrder.LAST) || chunkOrder().equals(ChunkOrder.SINGLE);
     }
 
     public abstract ChunkOrder chunkOrder();
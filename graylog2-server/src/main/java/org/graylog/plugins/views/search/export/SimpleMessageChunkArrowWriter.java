@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.export;
+
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.Provider;
+import org.graylog.plugins.views.search.export.arrow.ArrowStreamWriter;
+import org.graylog2.plugin.Message;
+import org.graylog2.rest.MoreMediaTypes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes message chunks as an Arrow IPC stream: the schema with the first chunk, a record batch for every chunk holding
+ * messages and the end-of-stream marker with the last chunk. A {@link SimpleMessageChunk.ChunkOrder#SINGLE single}
+ * chunk, e.g. of an empty export, gets both. The timestamp becomes a timestamp column, all other fields
+ * are written as dictionary encoded strings, because the field types may differ between the exported indices.
+ */
+@Provider
+@Produces(MoreMediaTypes.APPLICATION_ARROW_STREAM)
+public class SimpleMessageChunkArrowWriter extends SimpleMessageChunkWriter {
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return typesMatch(type, genericType) && MoreMediaTypes.APPLICATION_ARROW_STREAM_TYPE.isCompatible(mediaType);
+    }
+
+    @Override
+    public void writeTo(
+            SimpleMessageChunk chunk,
+            Class<?> type, Type genericType,
+            Annotation[] annotations,
+            MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders,
+            OutputStream entityStream) throws IOException, WebApplicationException {
+
+        final List<ArrowStreamWriter.Column> columns = chunk.fieldsInOrder().stream()
+                .map(field -> new ArrowStreamWriter.Column(field, Message.FIELD_TIMESTAMP.equals(field)
+                        ? ArrowStreamWriter.ColumnType.TIMESTAMP
+                        : ArrowStreamWriter.ColumnType.STRING))
+                .toList();
+        final ArrowStreamWriter writer = new ArrowStreamWriter(entityStream, columns);
+
+        if (chunk.isFirstChunk()) {
+            writer.writeSchema();
+        }
+
+        writer.writeBatch(Arrays.asList(chunk.getAllValuesInOrder()));
+
+        if (chunk.isLastChunk()) {
+            writer.writeEndOfStream();
+        }
+    }
+}
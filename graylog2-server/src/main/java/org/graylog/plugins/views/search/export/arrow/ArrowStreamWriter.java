@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.export.arrow;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.ipc.WriteChannel;
+import org.apache.arrow.vector.ipc.message.ArrowDictionaryBatch;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.ipc.message.MessageSerializer;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.graylog2.plugin.Tools.ES_DATE_FORMAT_FORMATTER;
+
+/**
+ * Writes tabular data in the <a href="https://arrow.apache.org/docs/format/Columnar.html#ipc-streaming-format">Apache
+ * Arrow IPC streaming format</a>, which can be loaded by pandas, Polars, Spark, DuckDB, etc. without parsing.
+ * <p>
+ * The writer keeps no state between calls, so a stream can be produced piecewise: the schema once, then any number of
+ * record batches and finally the end-of-stream marker. String columns are dictionary encoded, every record batch is
+ * preceded by replacement dictionaries holding just the values of that batch, so memory stays bounded by the batch size.
+ * <p>
+ * The Arrow memory allocator needs access to {@code java.nio} internals, the server JAR opens them in its manifest.
+ */
+public class ArrowStreamWriter {
+    private static final BufferAllocator ROOT_ALLOCATOR = new RootAllocator();
+    private static final ArrowType.Int DICTIONARY_INDEX_TYPE = new ArrowType.Int(32, true);
+
+    private static final DateTimeFormatter ISO_PARSER = ISODateTimeFormat.dateTimeParser().withOffsetParsed();
+
+    public enum ColumnType {
+        /**
+         * Dictionary encoded UTF-8 strings, every value which is not a string is converted with {@link Object#toString()}.
+         */
+        STRING,
+        /**
+         * Milliseconds since epoch in UTC, accepts {@link DateTime}, {@link Date}, numbers and ISO 8601 or Elasticsearch
+         * formatted strings.
+         */
+        TIMESTAMP,
+        LONG,
+        DOUBLE
+    }
+
+    public record Column(String name, ColumnType type) {
+    }
+
+    private final WriteChannel channel;
+    private final List<Column> columns;
+    // The schema of the stream declares the value type of dictionary encoded columns, the batches hold the indices
+    private final Schema schema;
+    private final Schema batchSchema;
+
+    public ArrowStreamWriter(OutputStream outputStream, List<Column> columns) {
+        this.channel = new WriteChannel(Channels.newChannel(outputStream));
+        this.columns = List.copyOf(columns);
+        this.schema = new Schema(IntStream.range(0, this.columns.size()).mapToObj(i -> field(i, false)).toList());
+        this.batchSchema = new Schema(IntStream.range(0, this.columns.size()).mapToObj(i -> field(i, true)).toList());
+    }
+
+    public void writeSchema() throws IOException {
+        MessageSerializer.serialize(channel, schema, IpcOption.DEFAULT);
+    }
+
+    /**
+     * Writes a record batch, every row has to contain one value per column, in the order of the columns.
+     */
+    public void writeBatch(List<Object[]> rows) throws IOException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try (BufferAllocator allocator = ROOT_ALLOCATOR.newChildAllocator("arrow-export", 0, Long.MAX_VALUE);
+             VectorSchemaRoot root = VectorSchemaRoot.create(batchSchema, allocator)) {
+            root.allocateNew();
+            for (int i = 0; i < columns.size(); i++) {
+                final int column = i;
+                final List<Object> values = rows.stream().map(row -> row[column]).toList();
+                final BaseFixedWidthVector vector = (BaseFixedWidthVector) root.getVector(column);
+                switch (columns.get(column).type()) {
+                    case STRING -> writeDictionaryEncoded(allocator, (IntVector) vector, column, values);
+                    case TIMESTAMP -> setValues(vector, values, ArrowStreamWriter::toMillis,
+                            (row, value) -> ((TimeStampMilliTZVector) vector).setSafe(row, value));
+                    case LONG -> setValues(vector, values, ArrowStreamWriter::toLong,
+                            (row, value) -> ((BigIntVector) vector).setSafe(row, value));
+                    case DOUBLE -> setValues(vector, values, ArrowStreamWriter::toDouble,
+                            (row, value) -> ((Float8Vector) vector).setSafe(row, value));
+                }
+            }
+            root.setRowCount(rows.size());
+            try (ArrowRecordBatch recordBatch = new VectorUnloader(root).getRecordBatch()) {
+                MessageSerializer.serialize(channel, recordBatch, IpcOption.DEFAULT);
+            }
+        }
+    }
+
+    public void writeEndOfStream() throws IOException {
+        org.apache.arrow.vector.ipc.ArrowStreamWriter.writeEndOfStream(channel, IpcOption.DEFAULT);
+    }
+
+    // String columns use the column index as dictionary id
+    private Field field(int index, boolean dictionaryIndices) {
+        final Column column = columns.get(index);
+        final FieldType fieldType = switch (column.type()) {
+            case STRING -> new FieldType(true, dictionaryIndices ? DICTIONARY_INDEX_TYPE : ArrowType.Utf8.INSTANCE,
+                    new DictionaryEncoding(index, false, DICTIONARY_INDEX_TYPE));
+            case TIMESTAMP -> FieldType.nullable(new ArrowType.Timestamp(TimeUnit.MILLISECOND, "UTC"));
+            case LONG -> FieldType.nullable(new ArrowType.Int(64, true));
+            case DOUBLE -> FieldType.nullable(new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE));
+        };
+        return new Field(column.name(), fieldType, null);
+    }
+
+    private static <T> void setValues(BaseFixedWidthVector vector, List<Object> values, Function<Object, T> converter, BiConsumer<Integer, T> setter) {
+        for (int row = 0; row < values.size(); row++) {
+            final T value = converter.apply(values.get(row));
+            if (value == null) {
+                vector.setNull(row);
+            } else {
+                setter.accept(row, value);
+            }
+        }
+    }
+
+    private void writeDictionaryEncoded(BufferAllocator allocator, IntVector indices, int column, List<Object> values) throws IOException {
+        final Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (int row = 0; row < values.size(); row++) {
+            final Object value = values.get(row);
+            if (value == null) {
+                indices.setNull(row);
+            } else {
+                indices.setSafe(row, dictionary.computeIfAbsent(value.toString(), key -> dictionary.size()));
+            }
+        }
+
+        try (VarCharVector dictionaryValues = new VarCharVector(columns.get(column).name(), allocator)) {
+            dictionaryValues.allocateNew(dictionary.size());
+            dictionary.forEach((value, index) -> dictionaryValues.setSafe(index, value.getBytes(StandardCharsets.UTF_8)));
+            dictionaryValues.setValueCount(dictionary.size());
+            try (VectorSchemaRoot dictionaryRoot = VectorSchemaRoot.of(dictionaryValues);
+                 ArrowDictionaryBatch dictionaryBatch = new ArrowDictionaryBatch(column, new VectorUnloader(dictionaryRoot).getRecordBatch(), false)) {
+                MessageSerializer.serialize(channel, dictionaryBatch, IpcOption.DEFAULT);
+            }
+        }
+    }
+
+    private static Long toMillis(Object value) {
+        return switch (value) {
+            case null -> null;
+            case DateTime dateTime -> dateTime.getMillis();
+            case Date date -> date.getTime();
+            case Number number -> number.longValue();
+            default -> parseMillis(value.toString());
+        };
+    }
+
+    private static Long parseMillis(String value) {
+        for (DateTimeFormatter formatter : List.of(ISO_PARSER, ES_DATE_FORMAT_FORMATTER)) {
+            try {
+                return formatter.parseMillis(value);
+            } catch (IllegalArgumentException ignored) {
+                // try the next format
+            }
+        }
+        return null;
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    private static Double toDouble(Object value) {
+        return value instanceof Number number ? number.doubleValue() : null;
+    }
+}
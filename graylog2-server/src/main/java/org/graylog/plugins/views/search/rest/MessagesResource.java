@@ -127,7 +127,7 @@ public class MessagesResource extends RestResource implements PluginRestResource
     )
     @ApiResponse(description = "CSV export", content = @Content(schema = @Schema(hidden = true)))
     @POST
-    @Produces(MoreMediaTypes.TEXT_CSV)
+    @Produces({MoreMediaTypes.TEXT_CSV, MoreMediaTypes.APPLICATION_ARROW_STREAM})
     @NoAuditEvent("Has custom audit events")
     public ChunkedOutput<SimpleMessageChunk> retrieve(@RequestBody(required = true) @Valid MessagesRequest rawrequest,
                                                       @Context SearchUser searchUser) {
@@ -176,7 +176,7 @@ public class MessagesResource extends RestResource implements PluginRestResource
     @ApiResponse(description = "CSV export", content = @Content(schema = @Schema(hidden = true)))
     @POST
     @Path("{searchId}")
-    @Produces(MoreMediaTypes.TEXT_CSV)
+    @Produces({MoreMediaTypes.TEXT_CSV, MoreMediaTypes.APPLICATION_ARROW_STREAM})
     @NoAuditEvent("Has custom audit events")
     public ChunkedOutput<SimpleMessageChunk> retrieveForSearch(
             @Parameter(description = "ID of an existing Search", name = "searchId") @PathParam("searchId") String searchId,
@@ -32,12 +32,16 @@ import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.InternalServerErrorException;
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.ConnectionCallback;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
@@ -58,6 +62,7 @@ import org.graylog2.audit.jersey.AuditEvent;
 import org.graylog2.audit.jersey.NoAuditEvent;
 import org.graylog2.indexer.searches.SearchesClusterConfig;
 import org.graylog2.plugin.cluster.ClusterConfigService;
+import org.graylog2.plugin.database.users.User;
 import org.graylog2.plugin.indexer.searches.timeranges.RelativeRange;
 import org.graylog2.plugin.rest.PluginRestResource;
 import org.graylog2.shared.rest.PublicCloudAPI;
@@ -70,6 +75,7 @@ import org.slf4j.LoggerFactory;
 import java.net.URI;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @PublicCloudAPI
@@ -183,6 +189,7 @@ public class SearchResource extends RestResource implements PluginRestResource {
                 ExecutionState.empty().withDefaultQueryCancellationIfNotSpecified(searchesClusterConfig) : executionState.withDefaultQueryCancellationIfNotSpecified(searchesClusterConfig);
 
         final SearchJob searchJob = searchExecutor.executeAsync(id, searchUser, enrichedExecutionState);
+        searchJobService.cancelWhenAbandoned(searchJob);
 
         postAuditEvent(searchJob);
 
@@ -244,12 +251,13 @@ public class SearchResource extends RestResource implements PluginRestResource {
     @NoAuditEvent("Creating audit event manually in method body.")
     @Consumes({MediaType.APPLICATION_JSON, SEARCH_FORMAT_V1})
     @Produces({MediaType.APPLICATION_JSON, SEARCH_FORMAT_V1})
-    public Response executeSyncJob(@RequestBody(required = true) @NotNull(message = "Search body is mandatory") SearchDTO searchRequest,
-                                   @Parameter(name = "timeout")
-                                   @QueryParam("timeout") @DefaultValue("60000") @Deprecated long timeout,
-                                   @Context SearchUser searchUser) {
+    public void executeSyncJob(@RequestBody(required = true) @NotNull(message = "Search body is mandatory") SearchDTO searchRequest,
+                               @Parameter(name = "timeout")
+                               @QueryParam("timeout") @DefaultValue("60000") @Deprecated long timeout,
+                               @Context SearchUser searchUser,
+                               @Suspended AsyncResponse asyncResponse) {
         final Search search = searchRequest.toSearch();
-        return executeSyncJobInner(search, searchUser);
+        executeSyncJobInner(search, searchUser, asyncResponse);
     }
 
     @POST
@@ -262,24 +270,39 @@ public class SearchResource extends RestResource implements PluginRestResource {
     @NoAuditEvent("Creating audit event manually in method body.")
     @Consumes({SEARCH_FORMAT_V2})
     @Produces({SEARCH_FORMAT_V2})
-    public Response executeSyncJobv2(@RequestBody(required = true) @NotNull(message = "Search body is mandatory") SearchDTOv2 searchRequest,
-                                     @Parameter(name = "timeout")
-                                     @QueryParam("timeout") @DefaultValue("60000") @Deprecated long timeout,
-                                     @Context SearchUser searchUser) {
+    public void executeSyncJobv2(@RequestBody(required = true) @NotNull(message = "Search body is mandatory") SearchDTOv2 searchRequest,
+                                 @Parameter(name = "timeout")
+                                 @QueryParam("timeout") @DefaultValue("60000") @Deprecated long timeout,
+                                 @Context SearchUser searchUser,
+                                 @Suspended AsyncResponse asyncResponse) {
         final Search search = searchRequest.toSearch();
-        return executeSyncJobInner(search, searchUser);
+        executeSyncJobInner(search, searchUser, asyncResponse);
     }
 
-    private Response executeSyncJobInner(final Search search, final SearchUser searchUser) {
+    private void executeSyncJobInner(final Search search, final SearchUser searchUser, final AsyncResponse asyncResponse) {
         final SearchesClusterConfig searchesClusterConfig = clusterConfigService.get(SearchesClusterConfig.class);
         final ExecutionState enrichedExecutionState = ExecutionState.empty().withDefaultQueryCancellationIfNotSpecified(searchesClusterConfig);
-        final SearchJob searchJob = searchExecutor.executeSync(search, searchUser, enrichedExecutionState);
-
-        postAuditEvent(searchJob);
-
-        final SearchJobDTO searchJobDTO = SearchJobDTO.fromSearchJob(searchJob);
-
-        return Response.ok(searchJobDTO).build();
+        final SearchJob searchJob = searchExecutor.executeAsync(search, searchUser, enrichedExecutionState);
+        final User currentUser = getCurrentUser();
+
+        // nobody is waiting for the result anymore if the client disconnects
+        asyncResponse.register((ConnectionCallback) disconnected -> {
+            LOG.debug("Client disconnected, cancelling search job {}", searchJob.getId());
+            searchJobService.cancel(searchJob);
+        });
+
+        final CompletableFuture<Void> resultFuture = searchJob.getResultFuture() != null
+                ? searchJob.getResultFuture()
+                : CompletableFuture.completedFuture(null);
+        resultFuture.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                LOG.error("Error executing search job <{}>", searchJob.getId(), throwable);
+                asyncResponse.resume(new InternalServerErrorException("Error executing search job: " + throwable.getMessage(), throwable));
+                return;
+            }
+            postAuditEvent(currentUser, searchJob);
+            asyncResponse.resume(Response.ok(SearchJobDTO.fromSearchJob(searchJob)).build());
+        });
     }
 
     @GET
@@ -313,7 +336,11 @@ public class SearchResource extends RestResource implements PluginRestResource {
     }
 
     private void postAuditEvent(SearchJob searchJob) {
-        final SearchJobExecutionEvent searchJobExecutionEvent = SearchJobExecutionEvent.create(getCurrentUser(), searchJob, DateTime.now(DateTimeZone.UTC));
+        postAuditEvent(getCurrentUser(), searchJob);
+    }
+
+    private void postAuditEvent(User user, SearchJob searchJob) {
+        final SearchJobExecutionEvent searchJobExecutionEvent = SearchJobExecutionEvent.create(user, searchJob, DateTime.now(DateTimeZone.UTC));
         this.serverEventBus.post(searchJobExecutionEvent);
     }
 
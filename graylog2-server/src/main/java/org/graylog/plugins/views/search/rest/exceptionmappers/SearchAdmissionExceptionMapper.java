@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.rest.exceptionmappers;
+
+import com.google.common.net.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import org.graylog.plugins.views.search.errors.SearchAdmissionException;
+import org.graylog2.plugin.rest.ApiError;
+import org.graylog2.rest.TooManyRequestsStatus;
+
+public class SearchAdmissionExceptionMapper implements ExceptionMapper<SearchAdmissionException> {
+    @Override
+    public Response toResponse(SearchAdmissionException exception) {
+        final ApiError apiError = ApiError.create(exception.getMessage());
+        return Response.status(new TooManyRequestsStatus())
+                .header(HttpHeaders.RETRY_AFTER, Math.max(1, exception.retryAfter().toSeconds()))
+                .entity(apiError)
+                .build();
+    }
+}
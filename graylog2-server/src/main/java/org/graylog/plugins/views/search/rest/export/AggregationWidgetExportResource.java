@@ -53,7 +53,8 @@ public class AggregationWidgetExportResource extends RestResource {
             MediaType.APPLICATION_JSON,
             MoreMediaTypes.APPLICATION_YAML,
             MediaType.APPLICATION_XML,
-            MoreMediaTypes.APPLICATION_XLS})
+            MoreMediaTypes.APPLICATION_XLS,
+            MoreMediaTypes.APPLICATION_ARROW_STREAM})
     @Path("/{filename}")
     public Response exportData(@RequestBody(required = true) @Valid PivotResult pivotResult,
                                @HeaderParam("Accept") String mediaType,
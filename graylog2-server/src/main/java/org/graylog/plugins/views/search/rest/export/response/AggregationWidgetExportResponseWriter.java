@@ -26,6 +26,7 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.MultivaluedMap;
 import jakarta.ws.rs.ext.MessageBodyWriter;
 import jakarta.ws.rs.ext.Provider;
+import org.graylog.plugins.views.search.searchtypes.export.ArrowWriter;
 import org.graylog.plugins.views.search.searchtypes.export.CSVWriter;
 import org.graylog.plugins.views.search.searchtypes.export.ExportTabularResultResponse;
 import org.graylog.plugins.views.search.searchtypes.export.XLSXWriter;
@@ -41,7 +42,8 @@ import java.lang.reflect.Type;
         MediaType.APPLICATION_JSON,
         MoreMediaTypes.APPLICATION_YAML,
         MediaType.APPLICATION_XML,
-        MoreMediaTypes.APPLICATION_XLS})
+        MoreMediaTypes.APPLICATION_XLS,
+        MoreMediaTypes.APPLICATION_ARROW_STREAM})
 public class AggregationWidgetExportResponseWriter implements MessageBodyWriter<ExportTabularResultResponse> {
 
     private final ObjectMapper objectMapper;
@@ -72,6 +74,7 @@ public class AggregationWidgetExportResponseWriter implements MessageBodyWriter<
             case MoreMediaTypes.APPLICATION_YAML -> yamlMapper.writeValue(outputStream, widgetExportResponse);
             case MediaType.APPLICATION_XML -> xmlMapper.writeValue(outputStream, widgetExportResponse);
             case MoreMediaTypes.APPLICATION_XLS -> XLSXWriter.writeXlsx(widgetExportResponse, outputStream);
+            case MoreMediaTypes.APPLICATION_ARROW_STREAM -> ArrowWriter.writeArrow(widgetExportResponse, outputStream);
             default -> throw new IllegalArgumentException("Media type " + mediaType + " not supported");
         }
     }
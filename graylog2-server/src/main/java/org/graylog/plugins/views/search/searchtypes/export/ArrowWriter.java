@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.searchtypes.export;
+
+import com.google.common.collect.Iterables;
+import org.graylog.plugins.views.search.export.arrow.ArrowStreamWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class ArrowWriter {
+    private static final int BATCH_SIZE = 10_000;
+
+    /**
+     * Writes the rows in batches, the column types are inferred from the first batch. Values of later batches which
+     * are not numbers end up as nulls in numeric columns.
+     */
+    public static void writeArrow(final ExportTabularResultResponse widgetExportResponse,
+                                  final OutputStream outputStream) throws IOException {
+        final List<String> header = widgetExportResponse.header();
+        final Iterator<List<ExportTabularResultResponse.DataRow>> batches =
+                Iterables.partition(widgetExportResponse.dataRows(), BATCH_SIZE).iterator();
+        final List<Object[]> firstBatch = batches.hasNext() ? rows(batches.next(), header.size()) : List.of();
+        final List<ArrowStreamWriter.Column> columns = IntStream.range(0, header.size())
+                .mapToObj(i -> new ArrowStreamWriter.Column(header.get(i), columnType(firstBatch, i)))
+                .toList();
+
+        final ArrowStreamWriter writer = new ArrowStreamWriter(outputStream, columns);
+        writer.writeSchema();
+        writer.writeBatch(firstBatch);
+        while (batches.hasNext()) {
+            writer.writeBatch(rows(batches.next(), header.size()));
+        }
+        writer.writeEndOfStream();
+    }
+
+    private static List<Object[]> rows(List<ExportTabularResultResponse.DataRow> dataRows, int columns) {
+        return dataRows.stream()
+                .map(row -> Arrays.copyOf(row.row().toArray(), columns))
+                .toList();
+    }
+
+    /**
+     * Columns holding integral numbers only become longs, columns holding any other numbers doubles and all others
+     * strings.
+     */
+    private static ArrowStreamWriter.ColumnType columnType(List<Object[]> rows, int column) {
+        boolean numeric = false;
+        boolean integral = true;
+        for (Object[] row : rows) {
+            final Object value = row[column];
+            if (value == null) {
+                continue;
+            }
+            if (!(value instanceof Number)) {
+                return ArrowStreamWriter.ColumnType.STRING;
+            }
+            numeric = true;
+            integral &= value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+        }
+        if (!numeric) {
+            return ArrowStreamWriter.ColumnType.STRING;
+        }
+        return integral ? ArrowStreamWriter.ColumnType.LONG : ArrowStreamWriter.ColumnType.DOUBLE;
+    }
+}
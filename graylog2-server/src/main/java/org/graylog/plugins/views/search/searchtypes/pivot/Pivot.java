@@ -17,6 +17,7 @@
 package org.graylog.plugins.views.search.searchtypes.pivot;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
@@ -50,6 +51,7 @@ import static com.google.common.collect.ImmutableList.of;
 @JsonDeserialize(builder = Pivot.Builder.class)
 public abstract class Pivot implements SearchEngineSearchType {
     public static final String NAME = "pivot";
+    public static final String FIELD_SAMPLE_RATE = "sample_rate";
 
     @Override
     public abstract String type();
@@ -78,6 +80,20 @@ public abstract class Pivot implements SearchEngineSearchType {
     @JsonProperty
     public abstract boolean rollup();
 
+    /**
+     * Opt-in approximation: if set, the aggregations only run over a random sample of the matching documents,
+     * containing roughly this fraction of them. Counts and sums are scaled back up by the backend and the result
+     * carries a {@link PivotResult.Approximation} describing the expected error.
+     */
+    @Nullable
+    @JsonProperty(FIELD_SAMPLE_RATE)
+    public abstract Double sampleRate();
+
+    @JsonIgnore
+    public boolean isSampled() {
+        return sampleRate() != null && sampleRate() < 1.0;
+    }
+
     @Nullable
     @Override
     public abstract Filter filter();
@@ -157,6 +173,11 @@ public abstract class Pivot implements SearchEngineSearchType {
         @JsonProperty
         public abstract Builder rollup(boolean rollup);
 
+        @JsonProperty(FIELD_SAMPLE_RATE)
+        public abstract Builder sampleRate(@Nullable Double sampleRate);
+
+        abstract Double sampleRate();
+
         @JsonProperty
         public abstract Builder filter(@Nullable Filter filter);
 
@@ -184,6 +205,10 @@ public abstract class Pivot implements SearchEngineSearchType {
             if (id() == null) {
                 id(UUID.randomUUID().toString());
             }
+            final Double sampleRate = sampleRate();
+            if (sampleRate != null && !(sampleRate > 0.0 && sampleRate <= 1.0)) {
+                throw new IllegalArgumentException("Sample rate of pivot must be in the range (0, 1], but was " + sampleRate);
+            }
             return autoBuild();
         }
     }
@@ -203,6 +228,7 @@ public abstract class Pivot implements SearchEngineSearchType {
                 .id(id())
                 .name(name().orElse(null))
                 .rollup(rollup())
+                .sampleRate(sampleRate())
                 .series(series())
                 .type(type());
         return builder.build();
@@ -57,6 +57,10 @@ public abstract class PivotResult implements SearchType.Result {
     @JsonProperty(FIELD_EFFECTIVE_TIMERANGE)
     public abstract AbsoluteRange effectiveTimerange();
 
+    @JsonProperty
+    @Nullable
+    public abstract Approximation approximation();
+
     public static Builder builder() {
         return new AutoValue_PivotResult.Builder().type(Pivot.NAME);
     }
@@ -101,6 +105,9 @@ public abstract class PivotResult implements SearchType.Result {
         @JsonProperty
         public abstract Builder effectiveTimerange(AbsoluteRange effectiveTimerange);
 
+        @JsonProperty
+        public abstract Builder approximation(@Nullable Approximation approximation);
+
         public abstract PivotResult build();
     }
 
@@ -167,4 +174,31 @@ public abstract class PivotResult implements SearchType.Result {
             return new Value(ImmutableList.copyOf(key), value, rollup, source);
         }
     }
+
+    /**
+     * Describes the error of a pivot result which was computed from a random sample of the matching documents.
+     *
+     * @param sampleRate            the fraction of documents the aggregations ran over
+     * @param sampleSize            the number of documents in the sample
+     * @param relativeStandardError the relative standard error of the scaled up total, {@code sqrt((1 - p) / n)}
+     *                              for a sample rate {@code p} and sample size {@code n}. For a single scaled up
+     *                              count {@code c} it is {@code sqrt((1 - p) / (p * c))}, so small buckets are
+     *                              less accurate than the total.
+     */
+    public record Approximation(@JsonProperty("sample_rate") double sampleRate,
+                                @JsonProperty("sample_size") long sampleSize,
+                                @JsonProperty("relative_standard_error") double relativeStandardError) {
+
+        @JsonCreator
+        public static Approximation create(@JsonProperty("sample_rate") double sampleRate,
+                                           @JsonProperty("sample_size") long sampleSize,
+                                           @JsonProperty("relative_standard_error") double relativeStandardError) {
+            return new Approximation(sampleRate, sampleSize, relativeStandardError);
+        }
+
+        public static Approximation of(double sampleRate, long sampleSize) {
+            final double relativeStandardError = sampleSize == 0 ? 1.0 : Math.sqrt((1.0 - sampleRate) / sampleSize);
+            return new Approximation(sampleRate, sampleSize, relativeStandardError);
+        }
+    }
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.searchtypes.pivot;
+
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Count;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Sum;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.SumOfSquares;
+
+/**
+ * Helpers for backends executing a {@link Pivot} with a {@link Pivot#sampleRate() sample rate}.
+ * <p>
+ * The aggregations of a sampled pivot run over a Bernoulli sample of the matching documents, so every document is
+ * part of the sample with the probability {@code p}. Additive series (counts and sums) are unbiased estimates after
+ * dividing them by {@code p}. Averages, minimums, maximums, percentiles and the latest value are computed on the sample
+ * as they are. Cardinalities are not scaled, because distinct values do not grow linearly with the number of
+ * documents; they are a lower bound of the exact value.
+ */
+public final class PivotSampling {
+    private PivotSampling() {
+    }
+
+    public static boolean isScaled(SeriesSpec seriesSpec) {
+        return seriesSpec instanceof Count || seriesSpec instanceof Sum || seriesSpec instanceof SumOfSquares;
+    }
+
+    public static Object scale(Pivot pivot, SeriesSpec seriesSpec, Object value) {
+        if (!pivot.isSampled() || !isScaled(seriesSpec)) {
+            return value;
+        }
+        final double sampleRate = pivot.sampleRate();
+        return switch (value) {
+            case Long l -> Math.round(l / sampleRate);
+            case Integer i -> Math.round(i / sampleRate);
+            case Number n -> n.doubleValue() / sampleRate;
+            case null, default -> value;
+        };
+    }
+
+    public static long scaleTotal(Pivot pivot, long total) {
+        return pivot.isSampled() ? Math.round(total / pivot.sampleRate()) : total;
+    }
+
+    public static PivotResult.Builder addApproximation(Pivot pivot, PivotResult.Builder resultBuilder, long sampleSize) {
+        if (pivot.isSampled()) {
+            resultBuilder.approximation(PivotResult.Approximation.of(pivot.sampleRate(), sampleSize));
+        }
+        return resultBuilder;
+    }
+}
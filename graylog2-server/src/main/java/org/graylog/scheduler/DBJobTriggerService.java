@@ -42,14 +42,17 @@ import org.graylog2.database.MongoConnection;
 import org.graylog2.database.utils.MongoUtils;
 import org.graylog2.plugin.system.NodeId;
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -67,6 +70,7 @@ import static com.mongodb.client.model.Filters.lte;
 import static com.mongodb.client.model.Filters.ne;
 import static com.mongodb.client.model.Filters.not;
 import static com.mongodb.client.model.Filters.or;
+import static com.mongodb.client.model.Projections.include;
 import static com.mongodb.client.model.Sorts.ascending;
 import static com.mongodb.client.model.Sorts.descending;
 import static com.mongodb.client.model.Updates.combine;
@@ -109,6 +113,15 @@ public class DBJobTriggerService {
     private final Duration lockExpirationDuration;
     private final MongoCollection<JobTriggerDto> collection;
     private final MongoUtils<JobTriggerDto> mongoUtils;
+    private final Set<ChangeListener> changeListeners = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Gets notified when a trigger becomes runnable at a new next time through this service instance. Changes done
+     * by other nodes are not reported.
+     */
+    public interface ChangeListener {
+        void triggerScheduled(String triggerId, DateTime nextTime);
+    }
 
     /**
      * Creates a new job trigger service for user job triggers. Use {@link DBSystemJobTriggerService} for system job triggers.
@@ -260,7 +273,9 @@ public class DBJobTriggerService {
      * @throws NullPointerException when the trigger or trigger ID is null
      */
     public JobTriggerDto getOrCreate(JobTriggerDto trigger) {
-        return collection.getOrCreate(requireNonNull(trigger, "trigger cannot be null"));
+        final JobTriggerDto result = collection.getOrCreate(requireNonNull(trigger, "trigger cannot be null"));
+        notifyScheduled(result);
+        return result;
     }
 
     /**
@@ -281,7 +296,9 @@ public class DBJobTriggerService {
         }
 
         var id = insertedIdAsString(collection.insertOne(trigger));
-        return trigger.toBuilder().id(id).build();
+        final JobTriggerDto createdTrigger = trigger.toBuilder().id(id).build();
+        notifyScheduled(createdTrigger);
+        return createdTrigger;
     }
 
     /**
@@ -316,7 +333,39 @@ public class DBJobTriggerService {
             updates.add(set(FIELD_END_TIME, trigger.endTime()));
         }
 
-        return collection.updateOne(idEq(getId(trigger)), combine(updates)).getModifiedCount() > 0;
+        final boolean updated = collection.updateOne(idEq(getId(trigger)), combine(updates)).getModifiedCount() > 0;
+        if (updated) {
+            notifyScheduled(trigger);
+        }
+        return updated;
+    }
+
+    /**
+     * Applies the given update to a runnable trigger of the given job definition which matches the given filter and
+     * hasn't been locked by any node yet. This allows folding new work into a trigger that is still waiting for its
+     * execution instead of creating another one.
+     *
+     * @param jobDefinitionId the job definition ID of the trigger
+     * @param filter          additional filter for the trigger, usually on its data
+     * @param update          the update to apply to the trigger
+     * @return the updated trigger or an empty optional if there is no pending trigger matching the filter
+     */
+    public Optional<JobTriggerDto> updatePendingTrigger(String jobDefinitionId, Bson filter, Bson update) {
+        if (isNullOrEmpty(jobDefinitionId)) {
+            throw new IllegalArgumentException("jobDefinitionId cannot be null or empty");
+        }
+
+        final var query = and(
+                eq(FIELD_JOB_DEFINITION_ID, jobDefinitionId),
+                // Locked triggers are already executing and would not pick up the update anymore
+                eq(FIELD_LOCK_OWNER, null),
+                eq(FIELD_STATUS, JobTriggerStatus.RUNNABLE),
+                filter
+        );
+
+        return Optional.ofNullable(collection.findOneAndUpdate(query,
+                combine(update, set(FIELD_UPDATED_AT, clock.nowUTC())),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)));
     }
 
     /**
@@ -373,12 +422,114 @@ public class DBJobTriggerService {
     public Optional<JobTriggerDto> nextRunnableTrigger() {
         final DateTime now = clock.nowUTC();
 
+        // We want to lock the trigger with the oldest next time
+        final var sort = ascending(FIELD_NEXT_TIME);
+
+        // Atomically update, lock and return the next runnable trigger
+        final JobTriggerDto trigger = collection.findOneAndUpdate(runnableFilter(now), lockUpdate(now),
+                new FindOneAndUpdateOptions().sort(sort).returnDocument(ReturnDocument.AFTER)
+        );
+
+        return Optional.ofNullable(trigger);
+    }
+
+    /**
+     * Locks and returns up to {@code limit} runnable triggers, oldest next time first. The triggers are locked with a
+     * single update which only matches triggers that are still runnable, so concurrent lock attempts of other nodes
+     * are handled the same way as in {@link #nextRunnableTrigger()}. The caller needs to take care of releasing
+     * the trigger locks.
+     *
+     * @param limit the maximum number of triggers to lock
+     * @return the locked triggers
+     */
+    public List<JobTriggerDto> nextRunnableTriggers(int limit) {
+        if (limit < 1) {
+            return List.of();
+        }
+        final DateTime now = clock.nowUTC();
+        final var filter = runnableFilter(now);
+
+        final List<ObjectId> candidateIds = new ArrayList<>();
+        try (var cursor = collection.find(filter, Document.class)
+                .projection(include(FIELD_ID))
+                .sort(ascending(FIELD_NEXT_TIME))
+                .limit(limit)
+                .cursor()) {
+            cursor.forEachRemaining(doc -> candidateIds.add(doc.getObjectId(FIELD_ID)));
+        }
+        if (candidateIds.isEmpty()) {
+            return List.of();
+        }
+
+        // The filter is evaluated again for every candidate, so triggers which have been locked by another node in
+        // the meantime are skipped.
+        collection.updateMany(and(in(FIELD_ID, candidateIds), filter), lockUpdate(now));
+
+        // None of the candidates was locked by this node before, because the runnable filter excludes them, and
+        // only the scheduler thread locks triggers.
+        final var lockedFilter = and(
+                in(FIELD_ID, candidateIds),
+                eq(FIELD_LOCK_OWNER, nodeId),
+                eq(FIELD_STATUS, JobTriggerStatus.RUNNING)
+        );
+        try (final var stream = stream(collection.find(lockedFilter).sort(ascending(FIELD_NEXT_TIME)))) {
+            return stream.toList();
+        }
+    }
+
+    /**
+     * Returns the next times of runnable triggers which are due until the given time.
+     *
+     * @param until the latest next time to include
+     * @return mapping of trigger ID to next time
+     */
+    public Map<String, DateTime> runnableTriggerTimes(DateTime until) {
+        final var filter = and(
+                eq(FIELD_LOCK_OWNER, null),
+                eq(FIELD_STATUS, JobTriggerStatus.RUNNABLE),
+                lte(FIELD_NEXT_TIME, until),
+                constraintsFilter()
+        );
+        final Map<String, DateTime> triggerTimes = new HashMap<>();
+        try (var cursor = collection.find(filter, Document.class)
+                .projection(include(FIELD_ID, FIELD_NEXT_TIME))
+                .cursor()) {
+            cursor.forEachRemaining(doc -> triggerTimes.put(
+                    doc.getObjectId(FIELD_ID).toHexString(),
+                    new DateTime(doc.getDate(FIELD_NEXT_TIME), DateTimeZone.UTC)));
+        }
+        return triggerTimes;
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(requireNonNull(listener, "listener cannot be null"));
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void notifyScheduled(JobTriggerDto trigger) {
+        if (trigger.id() != null && trigger.status() == JobTriggerStatus.RUNNABLE) {
+            notifyScheduled(trigger.id(), trigger.nextTime());
+        }
+    }
+
+    private void notifyScheduled(String triggerId, DateTime nextTime) {
+        changeListeners.forEach(listener -> listener.triggerScheduled(triggerId, nextTime));
+    }
+
+    private Bson constraintsFilter() {
         // exclude triggers which require a constraint that is not satisfied by this node
-        final var constraintsQuery = not(
+        return not(
                 elemMatch(FIELD_CONSTRAINTS, new Document("$nin", schedulerCapabilitiesService.getNodeCapabilities()))
         );
+    }
 
-        final var filter = or(and(
+    private Bson runnableFilter(DateTime now) {
+        final var constraintsQuery = constraintsFilter();
+
+        return or(and(
                         // We cannot lock a trigger that is already locked by another node
                         eq(FIELD_LOCK_OWNER, null),
                         eq(FIELD_STATUS, JobTriggerStatus.RUNNABLE),
@@ -400,23 +551,16 @@ public class DBJobTriggerService {
                         constraintsQuery,
                         lt(FIELD_LAST_LOCK_TIME, now.minus(lockExpirationDuration.toMilliseconds())))
         );
-        // We want to lock the trigger with the oldest next time
-        final var sort = ascending(FIELD_NEXT_TIME);
+    }
 
-        final var lockUpdate = combine(
+    private Bson lockUpdate(DateTime now) {
+        return combine(
                 set(FIELD_LOCK_OWNER, nodeId),
                 set(FIELD_LAST_LOCK_OWNER, nodeId),
                 set(FIELD_STATUS, JobTriggerStatus.RUNNING),
                 set(FIELD_TRIGGERED_AT, Optional.of(now)),
                 set(FIELD_LAST_LOCK_TIME, now)
         );
-
-        // Atomically update, lock and return the next runnable trigger
-        final JobTriggerDto trigger = collection.findOneAndUpdate(filter, lockUpdate,
-                new FindOneAndUpdateOptions().sort(sort).returnDocument(ReturnDocument.AFTER)
-        );
-
-        return Optional.ofNullable(trigger);
     }
 
     /**
@@ -473,7 +617,12 @@ public class DBJobTriggerService {
             updates.add(set(FIELD_LAST_EXECUTION_DURATION, Optional.of(duration.getMillis())));
         });
 
-        return collection.updateOne(filter, combine(updates)).getModifiedCount() == 1;
+        final boolean released = collection.updateOne(filter, combine(updates)).getModifiedCount() == 1;
+        if (released && triggerUpdate.nextTime().isPresent()
+                && triggerUpdate.status().orElse(JobTriggerStatus.RUNNABLE) == JobTriggerStatus.RUNNABLE) {
+            notifyScheduled(trigger.id(), triggerUpdate.nextTime().get());
+        }
+        return released;
     }
 
     /**
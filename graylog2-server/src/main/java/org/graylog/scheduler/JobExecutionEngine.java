@@ -44,8 +44,8 @@ import org.joda.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -60,6 +60,8 @@ import static org.graylog.tracing.GraylogSemanticAttributes.SCHEDULER_JOB_DEFINI
  */
 public class JobExecutionEngine {
     private static final long DEFAULT_BACKOFF = 5000L;
+    // How often the trigger timeline is synced with the database to pick up changes done by other nodes
+    private static final Duration RESYNC_INTERVAL = Duration.standardSeconds(10);
 
 
     public interface Factory {
@@ -82,6 +84,11 @@ public class JobExecutionEngine {
     private final RefreshingLockService.Factory refreshingLockServiceFactory;
     private final Map<String, Integer> concurrencyLimits;
     private final long backoffMillis;
+    private final String name;
+    private final MetricRegistry metricRegistry;
+    private final JobTriggerTimeline timeline = new JobTriggerTimeline();
+    private final DBJobTriggerService.ChangeListener timelineListener = timeline::schedule;
+    private volatile long nextResyncMillis = 0L;
 
     private final Counter executionSuccessful;
     private final Counter executionFailed;
@@ -133,6 +140,8 @@ public class JobExecutionEngine {
         this.refreshingLockServiceFactory = refreshingLockServiceFactory;
         this.concurrencyLimits = schedulerConfig.concurrencyLimits();
         this.backoffMillis = backoffMillis;
+        this.name = name;
+        this.metricRegistry = metricRegistry;
 
         this.executionSuccessful = metricRegistry.counter(MetricRegistry.name(getClass(), name, "executions", "successful"));
         this.executionFailed = metricRegistry.counter(MetricRegistry.name(getClass(), name, "executions", "failed"));
@@ -167,6 +176,11 @@ public class JobExecutionEngine {
                 MetricRegistry.name(getClass(), name, "executions", "overdue", "type", jobType),
                 (Gauge<Long>) () -> gaugeCache.getAll(jobFactories.keySet()).get(jobType)
         ));
+        MetricUtils.safelyRegister(metricRegistry, MetricRegistry.name(getClass(), name, "timeline", "size"),
+                (Gauge<Integer>) timeline::size);
+
+        // Triggers which are released or scheduled on this node are added to the timeline right away
+        jobTriggerService.addChangeListener(timelineListener);
     }
 
     /**
@@ -174,6 +188,7 @@ public class JobExecutionEngine {
      */
     public void shutdown() {
         isRunning.set(false);
+        jobTriggerService.removeChangeListener(timelineListener);
     }
 
     private void cleanup() {
@@ -187,10 +202,11 @@ public class JobExecutionEngine {
     }
 
     /**
-     * Execute the engine. This will try to lock a trigger and execute the job if there are free slots in the
-     * worker pool and the engine is not shutting down.
+     * Execute the engine. This will try to lock as many triggers as there are free slots in the worker pool and
+     * execute the related jobs if the engine is not shutting down. The database is only asked for runnable triggers
+     * if the trigger timeline has due entries or if the timeline needs to be synced again.
      *
-     * @return true if a job trigger has been locked and the related job has been triggered, false otherwise
+     * @return true if at least one job trigger has been locked and the related job has been triggered, false otherwise
      */
     public boolean execute() {
         // Cleanup stale scheduler state *before* processing any triggers for the first time.
@@ -201,25 +217,63 @@ public class JobExecutionEngine {
 
         // We want to avoid a call to the database if there are no free slots in the pool or the engine is shutting down
         if (isRunning.get() && workerPool.hasFreeSlots()) {
-            final Optional<JobTriggerDto> triggerOptional = jobTriggerService.nextRunnableTrigger();
-
-            if (triggerOptional.isPresent()) {
-                final JobTriggerDto trigger = triggerOptional.get();
+            final DateTime now = DateTime.now(DateTimeZone.UTC);
+            final boolean resync = now.getMillis() >= nextResyncMillis;
+            if (resync) {
+                final DateTime nextResync = now.plus(RESYNC_INTERVAL);
+                timeline.scheduleAll(jobTriggerService.runnableTriggerTimes(nextResync));
+                nextResyncMillis = nextResync.getMillis();
+            }
 
-                if (!workerPool.execute(() -> handleTriggerWithConcurrencyLimit(trigger))) {
-                    // The job couldn't be executed so we have to release the trigger again with the same nextTime
-                    jobTriggerService.releaseTrigger(trigger, JobTriggerUpdate.withNextTime(trigger.nextTime()));
-                    executionDenied.mark();
-                    return false;
+            if (resync || timeline.hasDue(now)) {
+                final int freeSlots = workerPool.freeSlots();
+                final List<JobTriggerDto> triggers = jobTriggerService.nextRunnableTriggers(freeSlots);
+                triggers.forEach(trigger -> timeline.remove(trigger.id()));
+                if (triggers.size() < freeSlots) {
+                    // Everything that is runnable right now has been locked, so the remaining due entries are stale.
+                    // (e.g. locked by another node or deleted)
+                    timeline.removeDue(now);
                 }
 
-                return true;
+                boolean executed = false;
+                for (final JobTriggerDto trigger : triggers) {
+                    recordSchedulingLag(trigger);
+                    if (workerPool.execute(() -> handleTriggerWithConcurrencyLimit(trigger))) {
+                        executed = true;
+                    } else {
+                        // The job couldn't be executed so we have to release the trigger again with the same nextTime
+                        jobTriggerService.releaseTrigger(trigger, JobTriggerUpdate.withNextTime(trigger.nextTime()));
+                        executionDenied.mark();
+                    }
+                }
+                if (executed) {
+                    return true;
+                }
             }
         }
         executionDenied.mark();
         return false;
     }
 
+    /**
+     * Returns the time until the next trigger in the timeline is due or the timeline needs to be synced again.
+     *
+     * @return milliseconds until the engine should be executed again
+     */
+    public long millisUntilNextTrigger() {
+        final long now = DateTime.now(DateTimeZone.UTC).getMillis();
+        final long next = timeline.nextTimeMillis()
+                .map(nextTime -> Math.min(nextTime, nextResyncMillis))
+                .orElse(nextResyncMillis);
+        return Math.max(0L, next - now);
+    }
+
+    private void recordSchedulingLag(JobTriggerDto trigger) {
+        trigger.triggeredAt().ifPresent(triggeredAt -> metricRegistry
+                .histogram(MetricRegistry.name(getClass(), name, "executions", "lag", "type", trigger.jobDefinitionType()))
+                .update(Math.max(0L, triggeredAt.getMillis() - trigger.nextTime().getMillis())));
+    }
+
     public void updateLockedJobs() {
         if (workerPool.anySlotsUsed()) {
             jobTriggerService.updateLockedJobTriggers();
@@ -125,11 +125,14 @@ public abstract class JobSchedulerService extends AbstractExecutionThreadService
             try {
                 if (!jobExecutionEngine.execute() && isRunning()) {
                     // When the execution engine returned false, there are either no free worker threads or no
-                    // runnable triggers. To avoid busy spinning we sleep for the configured duration or until
-                    // we receive a job completion event via the scheduler event bus.
-                    if (sleeper.sleep(loopSleepDuration.getQuantity(), loopSleepDuration.getUnit())) {
-                        log.debug("Waited for {} {} because there are either no free worker threads or no runnable triggers",
-                                loopSleepDuration.getQuantity(), loopSleepDuration.getUnit());
+                    // runnable triggers. To avoid busy spinning we sleep until the next trigger is due, at most for
+                    // the configured duration, or until we receive a job completion event via the scheduler event bus.
+                    final long sleepMillis = workerPool.hasFreeSlots()
+                            ? Math.min(loopSleepDuration.toMilliseconds(), jobExecutionEngine.millisUntilNextTrigger())
+                            : loopSleepDuration.toMilliseconds();
+                    if (sleeper.sleep(sleepMillis, TimeUnit.MILLISECONDS)) {
+                        log.debug("Waited for {} ms because there are either no free worker threads or no runnable triggers",
+                                sleepMillis);
                     }
                 }
             } catch (InterruptedException e) {
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.scheduler;
+
+import org.joda.time.DateTime;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Node-local index of the next times of job triggers. The entries are only hints which tell the scheduler when it
+ * is worth trying to lock triggers. The trigger locks in the database stay the single source of truth, so a stale
+ * entry only costs a lock attempt that doesn't return anything.
+ */
+class JobTriggerTimeline {
+    private final Map<String, Long> nextTimes = new HashMap<>();
+    private final NavigableMap<Long, Set<String>> timeline = new TreeMap<>();
+
+    synchronized void schedule(String triggerId, DateTime nextTime) {
+        remove(triggerId);
+        final long millis = nextTime.getMillis();
+        nextTimes.put(triggerId, millis);
+        timeline.computeIfAbsent(millis, key -> new HashSet<>()).add(triggerId);
+    }
+
+    synchronized void scheduleAll(Map<String, DateTime> triggerTimes) {
+        triggerTimes.forEach(this::schedule);
+    }
+
+    synchronized void remove(String triggerId) {
+        final Long millis = nextTimes.remove(triggerId);
+        if (millis != null) {
+            final Set<String> triggerIds = timeline.get(millis);
+            triggerIds.remove(triggerId);
+            if (triggerIds.isEmpty()) {
+                timeline.remove(millis);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries which are due at the given time.
+     */
+    synchronized void removeDue(DateTime now) {
+        final NavigableMap<Long, Set<String>> due = timeline.headMap(now.getMillis(), true);
+        due.values().forEach(triggerIds -> triggerIds.forEach(nextTimes::remove));
+        due.clear();
+    }
+
+    synchronized boolean hasDue(DateTime now) {
+        return !timeline.isEmpty() && timeline.firstKey() <= now.getMillis();
+    }
+
+    synchronized Optional<Long> nextTimeMillis() {
+        return timeline.isEmpty() ? Optional.empty() : Optional.of(timeline.firstKey());
+    }
+
+    synchronized int size() {
+        return nextTimes.size();
+    }
+}
@@ -227,6 +227,13 @@ public class Configuration extends CaConfiguration implements CommonNodeConfigur
     @Parameter(value = "stream_processing_max_faults", validators = PositiveIntegerValidator.class)
     private int streamProcessingMaxFaults = 3;
 
+    @Documentation("""
+            Stream changes are applied to the stream routing after this delay. All changes which happen within the delay
+            are applied at once, and only the rules of the changed streams are built again.
+            """)
+    @Parameter(value = "stream_router_reload_delay")
+    private Duration streamRouterReloadDelay = Duration.milliseconds(250);
+
     @Documentation("""
             Since 0.21 the Graylog server supports pluggable output modules. This means a single message can be written to multiple
             outputs. The next setting defines the timeout for a single output module, including the default output module where all
@@ -483,6 +490,93 @@ public class Configuration extends CaConfiguration implements CommonNodeConfigur
     @Parameter("search_query_engine_data_lake_jobs_queue_size")
     private int searchQueryEngineDataLakeJobsQueueSize = 0;
 
+    @Documentation("""
+            The maximum size of the query results kept in the search result cache, estimated by their serialized size.
+            Only results of queries with an absolute time range in the past are cached. Results which include the
+            current write index are only kept for one minute. A value of "0" disables the cache.
+            Default: 64mb
+            """)
+    @Parameter("search_query_engine_result_cache_max_size")
+    private Size searchQueryEngineResultCacheMaxSize = Size.megabytes(64);
+
+    @Documentation("""
+            Cached query results which have not been accessed for this duration are evicted from the search
+            result cache.
+            Default: 1h
+            """)
+    @Parameter(value = "search_query_engine_result_cache_expire_after_access", validators = PositiveDurationValidator.class)
+    private Duration searchQueryEngineResultCacheExpireAfterAccess = Duration.hours(1L);
+
+    @Documentation("""
+            Compute time series pivots over sliding relative time ranges incrementally. When a dashboard widget is
+            refreshed, only the first bucket and the buckets since the last complete bucket of the previous refresh
+            are queried and merged with the previously computed buckets. Messages which arrive with timestamps older
+            than the last complete bucket show up once the pivot is fully recomputed, at least every ten minutes.
+            Default: false
+            """)
+    @Parameter("search_query_engine_incremental_pivots")
+    private boolean searchQueryEngineIncrementalPivots = false;
+
+    @Documentation("""
+            Merge pivots of the same query which only differ in their series into a single pivot, so that widgets
+            aggregating over the same buckets share one aggregation on the search cluster.
+            Default: false
+            """)
+    @Parameter("search_query_engine_merge_pivots")
+    private boolean searchQueryEngineMergePivots = false;
+
+    @Documentation("""
+            Maximum estimated cost of the searches which are executed concurrently on this node. The cost of a search
+            is the number of indices its queries have to search, at least one per query. Searches exceeding the limit
+            are rejected immediately with HTTP status 429 (Too Many Requests). While several users compete for the
+            capacity, every user is limited to their share of it. A value of "0" disables admission control.
+            Default: 0
+            """)
+    @Parameter("search_admission_max_concurrent_cost")
+    private int searchAdmissionMaxConcurrentCost = 0;
+
+    @Documentation("""
+            Share of the search capacity an administrator gets relative to other users while users compete for
+            the search capacity.
+            Default: 1
+            """)
+    @Parameter(value = "search_admission_admin_weight", validators = PositiveIntegerValidator.class)
+    private int searchAdmissionAdminWeight = 1;
+
+    @Documentation("""
+            Asynchronous searches are cancelled, including their requests to the search cluster, if the client which
+            started them did not poll their status for this long, e.g. because the user navigated away. A value of
+            "0" disables the cancellation of abandoned searches. The timeout has to be considerably longer than the
+            interval in which clients poll the status of their searches, e.g. "60s".
+            Default: 0
+            """)
+    @Parameter("search_job_abandon_timeout")
+    private Duration searchJobAbandonTimeout = Duration.seconds(0L);
+
+    @Documentation("""
+            The number of chunks which are fetched ahead from the search cluster while a message export writes
+            the current chunk to the client.
+            Default: 2
+            """)
+    @Parameter(value = "export_prefetch_chunks", validators = PositiveIntegerValidator.class)
+    private int exportPrefetchChunks = 2;
+
+    @Documentation("""
+            The number of slices the time range of a message export is split into. The slices are fetched in
+            parallel and written in order.
+            Default: 1
+            """)
+    @Parameter(value = "export_parallel_slices", validators = PositiveIntegerValidator.class)
+    private int exportParallelSlices = 1;
+
+    @Documentation("""
+            The number of threads fetching the slices of message exports, shared by all exports. Slices of
+            concurrent exports wait for a free thread.
+            Default: 8
+            """)
+    @Parameter(value = "export_prefetch_threads", validators = PositiveIntegerValidator.class)
+    private int exportPrefetchThreads = 8;
+
     @Documentation("""
             Enabling this parameter will activate automatic security configuration. Graylog server will
             set a default 30-day automatic certificate renewal policy and create a self-signed CA. This CA
@@ -524,6 +618,14 @@ public class Configuration extends CaConfiguration implements CommonNodeConfigur
     @Parameter(value = "max_events_collection_size")
     private Size maxEventsCollectionSize = Size.megabytes(100);
 
+    @Documentation("""
+            Read cluster events with a MongoDB change stream instead of polling the capped "cluster_events" collection.
+            Change streams require a replica set. Nodes fall back to polling if the MongoDB deployment doesn't
+            support them.
+            """)
+    @Parameter(value = "cluster_events_change_streams_enabled")
+    private boolean clusterEventsChangeStreamsEnabled = false;
+
     public boolean maintainsStreamAwareFieldTypes() {
         return streamAwareFieldTypes;
     }
@@ -841,6 +943,46 @@ public class Configuration extends CaConfiguration implements CommonNodeConfigur
         return searchQueryEngineDataLakeJobsQueueSize;
     }
 
+    public Size searchQueryEngineResultCacheMaxSize() {
+        return searchQueryEngineResultCacheMaxSize;
+    }
+
+    public Duration searchQueryEngineResultCacheExpireAfterAccess() {
+        return searchQueryEngineResultCacheExpireAfterAccess;
+    }
+
+    public boolean isSearchQueryEngineIncrementalPivots() {
+        return searchQueryEngineIncrementalPivots;
+    }
+
+    public boolean isSearchQueryEngineMergePivots() {
+        return searchQueryEngineMergePivots;
+    }
+
+    public int getSearchAdmissionMaxConcurrentCost() {
+        return searchAdmissionMaxConcurrentCost;
+    }
+
+    public int getSearchAdmissionAdminWeight() {
+        return searchAdmissionAdminWeight;
+    }
+
+    public Duration getSearchJobAbandonTimeout() {
+        return searchJobAbandonTimeout;
+    }
+
+    public int getExportPrefetchChunks() {
+        return exportPrefetchChunks;
+    }
+
+    public int getExportParallelSlices() {
+        return exportParallelSlices;
+    }
+
+    public int getExportPrefetchThreads() {
+        return exportPrefetchThreads;
+    }
+
     public String getPreflightWebPassword() {
         return preflightWebPassword;
     }
@@ -77,6 +77,10 @@ public abstract class PivotEntity implements SearchTypeEntity {
     @JsonProperty
     public abstract boolean rollup();
 
+    @Nullable
+    @JsonProperty(Pivot.FIELD_SAMPLE_RATE)
+    public abstract Double sampleRate();
+
     @Nullable
     @Override
     public abstract Filter filter();
@@ -150,6 +154,9 @@ public abstract class PivotEntity implements SearchTypeEntity {
         @JsonProperty
         public abstract Builder rollup(boolean rollup);
 
+        @JsonProperty(Pivot.FIELD_SAMPLE_RATE)
+        public abstract Builder sampleRate(@Nullable Double sampleRate);
+
         @JsonProperty
         public abstract Builder filter(@Nullable Filter filter);
 
@@ -191,6 +198,7 @@ public abstract class PivotEntity implements SearchTypeEntity {
                 .columnGroups(columnGroups)
                 .series(series())
                 .rollup(rollup())
+                .sampleRate(sampleRate())
                 .query(query().orElse(null))
                 .filter(filter())
                 .filters(filters().stream().map(filter -> filter.toNativeEntity(parameters, nativeEntities)).toList())
@@ -20,6 +20,7 @@ import com.mongodb.MongoNamespace;
 import com.mongodb.WriteConcern;
 import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.ChangeStreamIterable;
 import com.mongodb.client.DistinctIterable;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.ListIndexesIterable;
@@ -237,6 +238,15 @@ public interface MongoCollection<TDocument extends MongoEntity> {
     @Nonnull
     <TResult> AggregateIterable<TResult> aggregate(@Nonnull List<? extends Bson> pipeline, @Nonnull Class<TResult> resultClass);
 
+    /**
+     * Creates a change stream for this collection.
+     *
+     * @param pipeline the aggregation pipeline to apply to the change stream
+     * @return the change stream iterable
+     */
+    @Nonnull
+    ChangeStreamIterable<TDocument> watch(@Nonnull List<? extends Bson> pipeline);
+
     /**
      * Executes a mix of inserts, updates, replaces, and deletes.
      *
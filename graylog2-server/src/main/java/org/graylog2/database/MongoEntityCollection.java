@@ -20,6 +20,7 @@ import com.mongodb.MongoNamespace;
 import com.mongodb.WriteConcern;
 import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.ChangeStreamIterable;
 import com.mongodb.client.DistinctIterable;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.ListIndexesIterable;
@@ -167,6 +168,12 @@ public class MongoEntityCollection<T extends MongoEntity> implements MongoCollec
         return delegate.aggregate(pipeline, resultClass);
     }
 
+    @Nonnull
+    @Override
+    public ChangeStreamIterable<T> watch(@Nonnull List<? extends Bson> pipeline) {
+        return delegate.watch(pipeline);
+    }
+
     @Nonnull
     @Override
     public BulkWriteResult bulkWrite(@Nonnull List<? extends WriteModel<? extends T>> requests) {
@@ -16,6 +16,9 @@
  */
 package org.graylog2.events;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.joschi.jadconfig.util.Size;
 import com.google.common.annotations.VisibleForTesting;
@@ -24,17 +27,24 @@ import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
 import com.mongodb.CursorType;
+import com.mongodb.MongoCommandException;
 import com.mongodb.MongoException;
 import com.mongodb.MongoQueryException;
 import com.mongodb.WriteConcern;
+import com.mongodb.client.ChangeStreamIterable;
 import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.CreateCollectionOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.graylog2.bindings.providers.MongoJackObjectMapperProvider;
@@ -48,22 +58,50 @@ import org.graylog2.shared.utilities.AutoValueUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Distributes cluster events between the nodes via the capped {@value #COLLECTION_NAME} collection.
+ * <p>
+ * Events of other nodes are read with a tailable cursor or, if enabled, with a change stream which picks up new
+ * events as soon as they have been written and resumes after errors without missing any. Events are posted to the
+ * local event bus in batches of all events which have been read at once; events of a batch which implement
+ * {@link CoalescingClusterEvent} are combined before they are posted.
+ */
 public class ClusterEventService extends AbstractExecutionThreadService {
     private static final Logger LOG = LoggerFactory.getLogger(ClusterEventService.class);
 
     @VisibleForTesting
     static final String COLLECTION_NAME = "cluster_events";
 
+    @VisibleForTesting
+    static final int MAX_BATCH_SIZE = 1000;
+
+    // The error code of MongoDB deployments which don't support change streams, e.g. standalone servers
+    private static final int CHANGE_STREAMS_NOT_SUPPORTED = 40573;
+    // ChangeStreamFatalError, InvalidResumeToken and ChangeStreamHistoryLost
+    private static final Set<Integer> CHANGE_STREAM_RESUME_ERRORS = Set.of(280, 260, 286);
+
     private final MongoCollection<ClusterEvent> collection;
     private final NodeId nodeId;
     private final ObjectMapper objectMapper;
     private final EventBus serverEventBus;
     private final RestrictedChainingClassLoader chainingClassLoader;
+    private final Histogram propagationLatency;
+    private final Meter coalescedEvents;
     private Offset offset;
+    private boolean changeStreamsEnabled;
+    private BsonDocument resumeToken;
+    private Offset catchUpOffset;
 
     @Inject
     public ClusterEventService(final MongoJackObjectMapperProvider mapperProvider,
@@ -73,13 +111,18 @@ public class ClusterEventService extends AbstractExecutionThreadService {
                                final EventBus serverEventBus,
                                final ClusterEventBus clusterEventBus,
                                final Offset offset,
-                               @Named("max_events_collection_size") final Size maxEventsCollectionSize) {
+                               @Named("max_events_collection_size") final Size maxEventsCollectionSize,
+                               @Named("cluster_events_change_streams_enabled") final boolean changeStreamsEnabled,
+                               final MetricRegistry metricRegistry) {
         this.nodeId = nodeId;
         this.objectMapper = mapperProvider.get();
         this.chainingClassLoader = chainingClassLoader;
         this.serverEventBus = serverEventBus;
         this.collection = prepareCollection(mongoConnection, mapperProvider, maxEventsCollectionSize);
         this.offset = offset;
+        this.changeStreamsEnabled = changeStreamsEnabled;
+        this.propagationLatency = metricRegistry.histogram(name(ClusterEventService.class, "propagation-latency"));
+        this.coalescedEvents = metricRegistry.meter(name(ClusterEventService.class, "coalesced-events"));
 
         clusterEventBus.registerClusterEventSubscriber(this);
     }
@@ -119,16 +162,24 @@ public class ClusterEventService extends AbstractExecutionThreadService {
     @Override
     protected void run() {
         while (isRunning()) {
-            final var events = eventsIterable(this.offset)
-                    .cursorType(CursorType.TailableAwait)
-                    .maxAwaitTime(1, TimeUnit.SECONDS)
-                    .noCursorTimeout(true);
-            try (final var cursor = events.iterator()) {
-                if (!isRunning()) {
-                    return;
+            try {
+                if (changeStreamsEnabled) {
+                    watchEvents();
+                } else {
+                    tailEvents();
                 }
-                iterateEvents(cursor);
             } catch (Exception e) {
+                if (changeStreamsEnabled && e instanceof MongoCommandException mce) {
+                    if (mce.getErrorCode() == CHANGE_STREAMS_NOT_SUPPORTED) {
+                        LOG.warn("MongoDB doesn't support change streams, falling back to polling cluster events.");
+                        changeStreamsEnabled = false;
+                        continue;
+                    }
+                    if (CHANGE_STREAM_RESUME_ERRORS.contains(mce.getErrorCode())) {
+                        // The change stream can't be resumed, start over from the last processed event
+                        resumeToken = null;
+                    }
+                }
                 if (!(e instanceof MongoQueryException mqe && mqe.getErrorCodeName().equals("QueryPlanKilled"))) {
                     LOG.warn("Error while reading cluster events from MongoDB, retrying.", e);
                 }
@@ -144,6 +195,29 @@ public class ClusterEventService extends AbstractExecutionThreadService {
         }
     }
 
+    private void tailEvents() {
+        final var events = eventsIterable(this.offset)
+                .cursorType(CursorType.TailableAwait)
+                .maxAwaitTime(1, TimeUnit.SECONDS)
+                .noCursorTimeout(true);
+        try (final var cursor = events.iterator()) {
+            if (!isRunning()) {
+                return;
+            }
+            iterateEvents(cursor);
+        }
+    }
+
+    private void watchEvents() {
+        this.catchUpOffset = resumeToken == null ? offset : null;
+        try (final var cursor = changeStreamIterable(this.offset, this.resumeToken).cursor()) {
+            if (!isRunning()) {
+                return;
+            }
+            iterateChanges(cursor);
+        }
+    }
+
     @VisibleForTesting
     void iterateEvents(MongoCursor<ClusterEvent> cursor) {
         LOG.debug("Opened MongoDB cursor on \"{}\"", COLLECTION_NAME);
@@ -155,17 +229,102 @@ public class ClusterEventService extends AbstractExecutionThreadService {
                 }
                 continue;
             }
+            final List<ClusterEvent> batch = new ArrayList<>();
+            batch.add(clusterEvent);
+            // Only take the events which have already been fetched, to avoid waiting for more events
+            while (batch.size() < MAX_BATCH_SIZE && cursor.available() > 0) {
+                batch.add(cursor.next());
+            }
+            processEvents(batch);
+        }
+    }
+
+    @VisibleForTesting
+    void iterateChanges(MongoChangeStreamCursor<ChangeStreamDocument<ClusterEvent>> cursor) {
+        LOG.debug("Opened MongoDB change stream on \"{}\"", COLLECTION_NAME);
+        while (isRunning()) {
+            final var change = cursor.tryNext();
+            if (change == null) {
+                // Keep the position in the change stream even if there are no new events
+                if (cursor.getResumeToken() != null) {
+                    this.resumeToken = cursor.getResumeToken();
+                }
+                continue;
+            }
+            final List<ClusterEvent> batch = new ArrayList<>();
+            addChange(batch, change);
+            var lastChange = change;
+            while (batch.size() < MAX_BATCH_SIZE && cursor.available() > 0) {
+                lastChange = cursor.next();
+                addChange(batch, lastChange);
+            }
+            if (!batch.isEmpty()) {
+                processEvents(batch);
+            }
+            this.resumeToken = lastChange.getResumeToken();
+        }
+    }
+
+    private void addChange(List<ClusterEvent> batch, ChangeStreamDocument<ClusterEvent> change) {
+        final ClusterEvent clusterEvent = change.getFullDocument();
+        if (clusterEvent != null && !isProcessed(clusterEvent)) {
+            batch.add(clusterEvent);
+        }
+    }
+
+    // A change stream which is started from the offset instead of a resume token can return events which have
+    // already been processed, because the operation time used as start only has a resolution of seconds.
+    private boolean isProcessed(ClusterEvent clusterEvent) {
+        if (catchUpOffset == null || catchUpOffset.lastSeen() == null || clusterEvent.timestamp() == null) {
+            return false;
+        }
+        return clusterEvent.timestamp().before(catchUpOffset.lastSeen())
+                || (clusterEvent.timestamp().equals(catchUpOffset.lastSeen()) && clusterEvent.id() != null && clusterEvent.id().equals(catchUpOffset.lastId()));
+    }
+
+    private void processEvents(List<ClusterEvent> clusterEvents) {
+        final long now = System.currentTimeMillis();
+        final List<Object> payloads = new ArrayList<>(clusterEvents.size());
+        for (final ClusterEvent clusterEvent : clusterEvents) {
             LOG.trace("Processing cluster event: {}", clusterEvent);
+            if (clusterEvent.timestamp() != null) {
+                propagationLatency.update(Math.max(0, now - clusterEvent.timestamp().getTime()));
+            }
             Object payload = extractPayload(clusterEvent.payload(), clusterEvent.eventClass());
             if (payload != null) {
-                serverEventBus.post(payload);
+                payloads.add(payload);
             } else {
                 LOG.warn("Couldn't extract payload of cluster event with ID <{}>", clusterEvent.id());
                 LOG.debug("Invalid payload in cluster event: {}", clusterEvent);
             }
+        }
+
+        final List<Object> coalesced = coalesce(payloads);
+        coalescedEvents.mark(payloads.size() - coalesced.size());
+        coalesced.forEach(serverEventBus::post);
+
+        final ClusterEvent last = clusterEvents.get(clusterEvents.size() - 1);
+        this.offset = new Offset(last.timestamp(), last.id());
+    }
 
-            this.offset = new Offset(clusterEvent.timestamp(), clusterEvent.id());
+    /**
+     * Combines all events of the same class which implement {@link CoalescingClusterEvent}. The combined event takes
+     * the position of the last event it has been combined from; all other events keep their order.
+     */
+    @VisibleForTesting
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static List<Object> coalesce(List<Object> payloads) {
+        final Map<Object, Object> events = new LinkedHashMap<>();
+        for (final Object payload : payloads) {
+            if (payload instanceof CoalescingClusterEvent coalescing) {
+                final Object previous = events.remove(payload.getClass());
+                events.put(payload.getClass(), previous == null ? payload : ((CoalescingClusterEvent) previous).coalesce(coalescing));
+            } else {
+                // Events which can't be combined are never merged with other events
+                events.put(new Object(), payload);
+            }
         }
+        return List.copyOf(events.values());
     }
 
     @Subscribe
@@ -214,6 +373,24 @@ public class ClusterEventService extends AbstractExecutionThreadService {
         return collection.find(query);
     }
 
+    @VisibleForTesting
+    ChangeStreamIterable<ClusterEvent> changeStreamIterable(Offset offset, @Nullable BsonDocument resumeToken) {
+        // Cluster events are written with an upsert, which shows up as insert in the change stream
+        final var pipeline = List.of(Aggregates.match(Filters.and(
+                Filters.eq("operationType", "insert"),
+                Filters.ne("fullDocument." + ClusterEvent.FIELD_PRODUCER, nodeId.getNodeId()))));
+        final var changeStream = collection.watch(pipeline)
+                .batchSize(MAX_BATCH_SIZE)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) {
+            return changeStream.resumeAfter(resumeToken);
+        }
+        if (offset.lastSeen() == null) {
+            return changeStream;
+        }
+        return changeStream.startAtOperationTime(new BsonTimestamp((int) TimeUnit.MILLISECONDS.toSeconds(offset.lastSeen().getTime()), 0));
+    }
+
     private Object extractPayload(Object payload, String eventClass) {
         try {
             final Class<?> clazz = chainingClassLoader.loadClassSafely(eventClass);
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog2.events;
+
+/**
+ * A cluster event which can be combined with other events of the same type.
+ * <p>
+ * Cluster events received from other nodes are delivered in batches. All events of a batch which implement this
+ * interface and have the same class are combined into one event which is posted in place of the last of them. This
+ * avoids reloading the same state over and over again when many events arrive at once, for example when a lot of
+ * streams get changed in bulk.
+ *
+ * @param <T> the type of the event
+ */
+public interface CoalescingClusterEvent<T extends CoalescingClusterEvent<T>> {
+    /**
+     * Combines this event with a later event of the same type.
+     *
+     * @param other the later event
+     * @return an event describing the changes of both events
+     */
+    T coalesce(T other);
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog2.indexer.ranges;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.google.common.collect.ImmutableSortedSet;
+import org.joda.time.DateTime;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.function.Supplier;
+
+/**
+ * In-memory copy of the index ranges, used to answer time range lookups without querying MongoDB.
+ *
+ * <p>The ranges are kept in an immutable snapshot, sorted by begin timestamp and augmented with the running
+ * maximum of the end timestamps. This makes the snapshot a flattened interval tree: a lookup binary-searches the
+ * last range starting before the end of the requested interval and walks backwards only as long as an earlier range
+ * can still overlap it. Updates are rare compared to lookups and replace the snapshot as a whole.
+ *
+ * <p>The cache is loaded lazily from the given loader on the first lookup. It is loaded again on the first lookup
+ * after the reload interval has passed, so changes which were missed by the updates (e.g. a lost cluster event or
+ * a direct database change) are only visible for a limited time.
+ */
+class IndexRangeCache {
+    static final Duration RELOAD_INTERVAL = Duration.ofMinutes(5);
+
+    private final Supplier<Collection<? extends IndexRange>> loader;
+    private final long reloadIntervalNanos;
+    private final Ticker ticker;
+    private final Object lock = new Object();
+
+    private volatile Snapshot snapshot;
+
+    IndexRangeCache(Supplier<Collection<? extends IndexRange>> loader) {
+        this(loader, RELOAD_INTERVAL, Ticker.systemTicker());
+    }
+
+    IndexRangeCache(Supplier<Collection<? extends IndexRange>> loader, Duration reloadInterval, Ticker ticker) {
+        this.loader = loader;
+        this.reloadIntervalNanos = reloadInterval.toNanos();
+        this.ticker = ticker;
+    }
+
+    SortedSet<IndexRange> find(DateTime begin, DateTime end) {
+        return snapshot().find(begin.getMillis(), end.getMillis());
+    }
+
+    void put(IndexRange indexRange) {
+        synchronized (lock) {
+            if (snapshot != null) {
+                final Map<String, IndexRange> ranges = new HashMap<>(snapshot.byIndexName);
+                ranges.put(indexRange.indexName(), indexRange);
+                snapshot = new Snapshot(ranges, snapshot.loadedAt);
+            }
+        }
+    }
+
+    void remove(String indexName) {
+        synchronized (lock) {
+            if (snapshot != null && snapshot.byIndexName.containsKey(indexName)) {
+                final Map<String, IndexRange> ranges = new HashMap<>(snapshot.byIndexName);
+                ranges.remove(indexName);
+                snapshot = new Snapshot(ranges, snapshot.loadedAt);
+            }
+        }
+    }
+
+    private Snapshot snapshot() {
+        final Snapshot current = snapshot;
+        if (current != null && !isExpired(current)) {
+            return current;
+        }
+        // Loading under the lock makes sure that updates applied after the load are not lost.
+        synchronized (lock) {
+            if (snapshot == null || isExpired(snapshot)) {
+                final long loadedAt = ticker.read();
+                final Map<String, IndexRange> ranges = new HashMap<>();
+                for (IndexRange indexRange : loader.get()) {
+                    ranges.put(indexRange.indexName(), indexRange);
+                }
+                snapshot = new Snapshot(ranges, loadedAt);
+            }
+            return snapshot;
+        }
+    }
+
+    private boolean isExpired(Snapshot current) {
+        return ticker.read() - current.loadedAt >= reloadIntervalNanos;
+    }
+
+    private static class Snapshot {
+        private final Map<String, IndexRange> byIndexName;
+        // Ticker value of the last full load, updates don't reset it.
+        private final long loadedAt;
+        // Ranges of the current write indices (begin and end are both 0) match every lookup.
+        private final List<IndexRange> unknownRanges;
+        private final IndexRange[] sortedByBegin;
+        private final long[] begins;
+        private final long[] maxEnds;
+
+        Snapshot(Map<String, IndexRange> byIndexName, long loadedAt) {
+            this.byIndexName = Map.copyOf(byIndexName);
+            this.loadedAt = loadedAt;
+
+            final List<IndexRange> unknown = new ArrayList<>();
+            final List<IndexRange> known = new ArrayList<>(byIndexName.size());
+            for (IndexRange indexRange : byIndexName.values()) {
+                if (indexRange.begin().getMillis() == 0L && indexRange.end().getMillis() == 0L) {
+                    unknown.add(indexRange);
+                } else {
+                    known.add(indexRange);
+                }
+            }
+            known.sort(Comparator.comparingLong(indexRange -> indexRange.begin().getMillis()));
+
+            this.unknownRanges = List.copyOf(unknown);
+            this.sortedByBegin = known.toArray(new IndexRange[0]);
+            this.begins = new long[sortedByBegin.length];
+            this.maxEnds = new long[sortedByBegin.length];
+            long maxEnd = Long.MIN_VALUE;
+            for (int i = 0; i < sortedByBegin.length; i++) {
+                begins[i] = sortedByBegin[i].begin().getMillis();
+                maxEnd = Math.max(maxEnd, sortedByBegin[i].end().getMillis());
+                maxEnds[i] = maxEnd;
+            }
+        }
+
+        SortedSet<IndexRange> find(long begin, long end) {
+            final ImmutableSortedSet.Builder<IndexRange> result = ImmutableSortedSet.orderedBy(IndexRange.COMPARATOR);
+            result.addAll(unknownRanges);
+
+            // Walk backwards from the last range that begins at or before the end of the requested interval. Once
+            // no earlier range ends at or after the requested begin, none of the remaining ones can overlap.
+            for (int i = lastBeginAtOrBefore(end); i >= 0 && maxEnds[i] >= begin; i--) {
+                if (sortedByBegin[i].end().getMillis() >= begin) {
+                    result.add(sortedByBegin[i]);
+                }
+            }
+            return result.build();
+        }
+
+        private int lastBeginAtOrBefore(long timestamp) {
+            int index = Arrays.binarySearch(begins, timestamp);
+            if (index < 0) {
+                return -index - 2;
+            }
+            // Several ranges can share the same begin timestamp, binarySearch returns any of them.
+            while (index + 1 < begins.length && begins[index + 1] == timestamp) {
+                index++;
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog2.indexer.ranges;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Cluster event which is posted when the index ranges of the given indices have been created, updated or removed.
+ */
+public record IndexRangesUpdatedEvent(@JsonProperty("index_names") Set<String> indexNames) {
+    public static IndexRangesUpdatedEvent create(String... indexNames) {
+        return new IndexRangesUpdatedEvent(Set.copyOf(Arrays.asList(indexNames)));
+    }
+}
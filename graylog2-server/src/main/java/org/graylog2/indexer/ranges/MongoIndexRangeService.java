@@ -33,6 +33,7 @@ import org.graylog2.audit.AuditActor;
 import org.graylog2.audit.AuditEventSender;
 import org.graylog2.database.MongoCollections;
 import org.graylog2.database.NotFoundException;
+import org.graylog2.events.ClusterEventBus;
 import org.graylog2.indexer.indexset.registry.IndexSetRegistry;
 import org.graylog2.indexer.indices.Indices;
 import org.graylog2.indexer.indices.events.IndicesClosedEvent;
@@ -45,16 +46,14 @@ import org.joda.time.DateTimeZone;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.concurrent.TimeUnit;
 
 import static com.mongodb.client.model.Filters.and;
 import static com.mongodb.client.model.Filters.eq;
 import static com.mongodb.client.model.Filters.exists;
-import static com.mongodb.client.model.Filters.gte;
 import static com.mongodb.client.model.Filters.in;
-import static com.mongodb.client.model.Filters.lte;
-import static com.mongodb.client.model.Filters.or;
 import static org.graylog2.audit.AuditEventTypes.ES_INDEX_RANGE_CREATE;
 import static org.graylog2.audit.AuditEventTypes.ES_INDEX_RANGE_DELETE;
 import static org.graylog2.indexer.indices.Indices.checkIfHealthy;
@@ -69,6 +68,8 @@ public class MongoIndexRangeService implements IndexRangeService {
     private final AuditEventSender auditEventSender;
     private final NodeId nodeId;
     private final MongoCollection<MongoIndexRange> collection;
+    private final ClusterEventBus clusterEventBus;
+    private final IndexRangeCache cache;
 
     @Inject
     public MongoIndexRangeService(MongoCollections mongoCollections,
@@ -76,12 +77,15 @@ public class MongoIndexRangeService implements IndexRangeService {
                                   IndexSetRegistry indexSetRegistry,
                                   AuditEventSender auditEventSender,
                                   NodeId nodeId,
-                                  EventBus eventBus) {
+                                  EventBus eventBus,
+                                  ClusterEventBus clusterEventBus) {
         this.indices = indices;
         this.indexSetRegistry = indexSetRegistry;
         this.auditEventSender = auditEventSender;
         this.nodeId = nodeId;
         this.collection = mongoCollections.nonEntityCollection(COLLECTION_NAME, MongoIndexRange.class);
+        this.clusterEventBus = clusterEventBus;
+        this.cache = new IndexRangeCache(this::findAll);
 
         eventBus.register(this);
 
@@ -107,21 +111,10 @@ public class MongoIndexRangeService implements IndexRangeService {
         if (end.isBefore(begin)) {
             throw new RuntimeException("Calculation of IndexRanges error: end time (" + end + ") is earlier than begin time (" + begin + ")");
         }
-        final var query = or(
-                and(
-                        exists("start", false),  // "start" has been used by the old index ranges in MongoDB
-                        lte(IndexRange.FIELD_BEGIN, end.getMillis()),
-                        gte(IndexRange.FIELD_END, begin.getMillis())
-                ),
-                // or find current deflector indices (these have begin/end 0)
-                and(
-                        exists("start", false),  // "start" has been used by the old index ranges in MongoDB
-                        eq(IndexRange.FIELD_BEGIN, 0L),
-                        eq(IndexRange.FIELD_END, 0L)
-                )
-        );
-
-        return ImmutableSortedSet.copyOf(IndexRange.COMPARATOR, collection.find(query));
+        // Served from the in-memory cache, this is called for every search and event definition execution.
+        // The cache matches the same ranges as a query for "begin <= end AND end >= begin" plus the ranges of the
+        // current deflector indices (these have begin/end 0).
+        return cache.find(begin, end);
     }
 
     @Override
@@ -170,21 +163,58 @@ public class MongoIndexRangeService implements IndexRangeService {
 
     @Override
     public void save(IndexRange indexRange) {
-        remove(indexRange.indexName());
-        collection.insertOne(MongoIndexRange.create(indexRange));
+        final MongoIndexRange mongoIndexRange = MongoIndexRange.create(indexRange);
+        collection.deleteMany(in(IndexRange.FIELD_INDEX_NAME, indexRange.indexName()));
+        collection.insertOne(mongoIndexRange);
+        cache.put(mongoIndexRange);
+        clusterEventBus.post(IndexRangesUpdatedEvent.create(indexRange.indexName()));
     }
 
     @Override
     public boolean renameIndex(String from, String to) {
-        return collection.updateMany(
+        final boolean renamed = collection.updateMany(
                         eq(IndexRange.FIELD_INDEX_NAME, from),
                         Updates.set(IndexRange.FIELD_INDEX_NAME, to))
                 .getMatchedCount() > 0;
+        if (renamed) {
+            reloadCachedRanges(Set.of(from, to));
+            clusterEventBus.post(IndexRangesUpdatedEvent.create(from, to));
+        }
+        return renamed;
     }
 
     @Override
     public boolean remove(String index) {
-        return collection.deleteMany(in(IndexRange.FIELD_INDEX_NAME, index)).getDeletedCount() > 0;
+        final boolean removed = collection.deleteMany(in(IndexRange.FIELD_INDEX_NAME, index)).getDeletedCount() > 0;
+        if (removed) {
+            cache.remove(index);
+            clusterEventBus.post(IndexRangesUpdatedEvent.create(index));
+        }
+        return removed;
+    }
+
+    private void reloadCachedRanges(Set<String> indexNames) {
+        for (String indexName : indexNames) {
+            final MongoIndexRange indexRange = collection.find(and(
+                    exists("start", false),
+                    eq(IndexRange.FIELD_INDEX_NAME, indexName))).first();
+            if (indexRange == null) {
+                cache.remove(indexName);
+            } else {
+                cache.put(indexRange);
+            }
+        }
+    }
+
+    /**
+     * Keeps the index range cache in sync with changes made by other nodes. The event is also delivered for changes
+     * made on this node, which are already reflected in the cache, reloading them again is harmless.
+     */
+    @Subscribe
+    @AllowConcurrentEvents
+    public void handleIndexRangesUpdated(IndexRangesUpdatedEvent event) {
+        LOG.debug("Index ranges of {} have been updated. Reloading cached index ranges.", event.indexNames());
+        reloadCachedRanges(event.indexNames());
     }
 
     @Subscribe
@@ -20,7 +20,6 @@ import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricSet;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.BlockedListener;
 import com.rabbitmq.client.Channel;
@@ -50,7 +49,6 @@ import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.util.Locale;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
@@ -98,6 +96,7 @@ public class AmqpConsumer {
     private final InputFailureRecorder inputFailureRecorder;
     private final AmqpTransport amqpTransport;
     private final EncryptedValueService encryptedValueService;
+    private final TransportExecutorFactory transportExecutorFactory;
     private final Duration connectionRecoveryInterval;
     private final StandardMetricsCollector metricsCollector;
 
@@ -118,6 +117,7 @@ public class AmqpConsumer {
                         InputFailureRecorder inputFailureRecorder,
                         AmqpTransport amqpTransport,
                         EncryptedValueService encryptedValueService,
+                        TransportExecutorFactory transportExecutorFactory,
                         Duration connectionRecoveryInterval) {
         this.nodeId = nodeId;
         this.hostname = configuration.getString(CK_HOSTNAME);
@@ -139,6 +139,7 @@ public class AmqpConsumer {
         this.inputFailureRecorder = inputFailureRecorder;
         this.amqpTransport = amqpTransport;
         this.encryptedValueService = encryptedValueService;
+        this.transportExecutorFactory = transportExecutorFactory;
         this.connectionRecoveryInterval = connectionRecoveryInterval;
         this.metricsCollector = new StandardMetricsCollector(new LocalMetricRegistry(), "amqp");
     }
@@ -176,6 +177,13 @@ public class AmqpConsumer {
                         if (amqpTransport.isThrottled()) {
                             amqpTransport.blockUntilUnthrottled();
                         }
+                        if (!amqpTransport.acquireThrottlePermits(1)) {
+                            // the transport is stopping, hand the message back to the broker
+                            if (channel.isOpen()) {
+                                channel.basicNack(deliveryTag, false, true);
+                            }
+                            return;
+                        }
 
                         sourceInput.processRawMessage(rawMessage);
                         channel.basicAck(deliveryTag, false);
@@ -217,10 +225,8 @@ public class AmqpConsumer {
     }
 
     private void establishConnection() throws IOException, TimeoutException {
-        this.executorService = Executors.newFixedThreadPool(parallelQueues, new ThreadFactoryBuilder()
-                .setNameFormat("amqp-consumer-%d " + sourceInput.toIdentifier())
-                .setDaemon(true)
-                .build());
+        this.executorService = transportExecutorFactory.create(
+                "amqp-consumer-%d " + sourceInput.toIdentifier(), parallelQueues, true);
 
         final ConnectionFactory factory = new ConnectionFactory();
         factory.setExceptionHandler(new DefaultExceptionHandler() {
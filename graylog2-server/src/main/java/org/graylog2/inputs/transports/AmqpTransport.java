@@ -83,6 +83,7 @@ public class AmqpTransport extends ThrottleableTransport2 {
     private final MetricRegistry localRegistry;
     private final NodeId nodeId;
     private final EncryptedValueService encryptedValueService;
+    private final TransportExecutorFactory transportExecutorFactory;
     private ScheduledExecutorService amqpScheduler;
 
     private AmqpConsumer consumer;
@@ -95,13 +96,15 @@ public class AmqpTransport extends ThrottleableTransport2 {
                          EventBus eventBus,
                          LocalMetricRegistry localRegistry,
                          NodeId nodeId,
-                         EncryptedValueService encryptedValueService) {
+                         EncryptedValueService encryptedValueService,
+                         TransportExecutorFactory transportExecutorFactory) {
         super(eventBus, configuration);
         this.configuration = configuration;
         this.eventBus = eventBus;
         this.localRegistry = localRegistry;
         this.nodeId = nodeId;
         this.encryptedValueService = encryptedValueService;
+        this.transportExecutorFactory = transportExecutorFactory;
 
         localRegistry.register("read_bytes_1sec", new Gauge<Long>() {
             @Override
@@ -175,6 +178,7 @@ public class AmqpTransport extends ThrottleableTransport2 {
                 inputFailureRecorder,
                 this,
                 encryptedValueService,
+                transportExecutorFactory,
                 connectionRecoveryInterval()
         );
         localRegistry.registerAll(consumer.getMetricSet());
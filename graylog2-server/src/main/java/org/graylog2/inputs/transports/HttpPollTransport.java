@@ -62,9 +62,12 @@ import java.net.URL;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -95,16 +98,20 @@ public class HttpPollTransport extends ThrottleableTransport2 {
     private final ScheduledExecutorService scheduler;
     private final OkHttpClient httpClient;
     private final EncryptedValueService encryptedValueService;
+    private final TransportExecutorFactory transportExecutorFactory;
+    private final AtomicBoolean polling = new AtomicBoolean(false);
 
     private volatile boolean paused = true;
     private ScheduledFuture<?> scheduledFuture;
+    private ExecutorService pollExecutor;
 
     @AssistedInject
     public HttpPollTransport(@Assisted Configuration configuration,
                              EventBus serverEventBus,
                              ServerStatus serverStatus,
                              @Named("daemonScheduler") ScheduledExecutorService scheduler,
-                             OkHttpClient httpClient, EncryptedValueService encryptedValueService) {
+                             OkHttpClient httpClient, EncryptedValueService encryptedValueService,
+                             TransportExecutorFactory transportExecutorFactory) {
         super(serverEventBus, configuration);
         this.configuration = configuration;
         this.serverEventBus = serverEventBus;
@@ -112,6 +119,7 @@ public class HttpPollTransport extends ThrottleableTransport2 {
         this.scheduler = scheduler;
         this.httpClient = httpClient;
         this.encryptedValueService = encryptedValueService;
+        this.transportExecutorFactory = transportExecutorFactory;
     }
 
     @VisibleForTesting
@@ -175,7 +183,7 @@ public class HttpPollTransport extends ThrottleableTransport2 {
                 LOG.debug("Message processing paused, not polling HTTP resource {}.", url);
                 return;
             }
-            if (isThrottled()) {
+            if (isThrottled() || !tryAcquireThrottlePermits(1)) {
                 // this transport won't block, but we can simply skip this iteration
                 LOG.debug("Not polling HTTP resource {} because we are throttled.", url);
                 return;
@@ -198,11 +206,47 @@ public class HttpPollTransport extends ThrottleableTransport2 {
             }
         };
 
-        scheduledFuture = scheduler.scheduleAtFixedRate(task, 0,
+        scheduledFuture = scheduler.scheduleAtFixedRate(pollTask(input, task), 0,
                 configuration.getInt(CK_INTERVAL),
                 TimeUnit.valueOf(configuration.getString(CK_TIMEUNIT)));
     }
 
+    /**
+     * The blocking HTTP request runs on the shared scheduler by default. With virtual threads enabled, the scheduler
+     * only triggers the request, which then runs on a virtual thread. At most one request per input is in flight.
+     */
+    private Runnable pollTask(MessageInput input, Runnable task) {
+        if (!transportExecutorFactory.isVirtualThreads()) {
+            return task;
+        }
+        final ExecutorService executor = transportExecutorFactory.create("http-poll-transport-" + input.getId() + "-%d", 1, true);
+        pollExecutor = executor;
+        return () -> {
+            if (!polling.compareAndSet(false, true)) {
+                LOG.debug("Previous poll of input <{}> is still running, skipping this iteration.", input.getId());
+                return;
+            }
+            // the submitted task resets the flag once it is done, otherwise it has to be reset here
+            boolean submitted = false;
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        polling.set(false);
+                    }
+                });
+                submitted = true;
+            } catch (RejectedExecutionException e) {
+                LOG.debug("Poll executor of input <{}> has been shut down, skipping this iteration.", input.getId());
+            } finally {
+                if (!submitted) {
+                    polling.set(false);
+                }
+            }
+        };
+    }
+
     private String getHeaderString() {
         final String standardHeaders = Objects.requireNonNullElse(configuration.getString(CK_HEADERS), "");
 
@@ -241,6 +285,10 @@ public class HttpPollTransport extends ThrottleableTransport2 {
         if (scheduledFuture != null) {
             scheduledFuture.cancel(true);
         }
+        if (pollExecutor != null) {
+            pollExecutor.shutdownNow();
+            pollExecutor = null;
+        }
     }
 
     @Override
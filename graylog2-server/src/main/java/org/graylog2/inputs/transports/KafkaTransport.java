@@ -24,16 +24,17 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import jakarta.inject.Named;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.InvalidOffsetException;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.AuthorizationException;
 import org.apache.kafka.common.errors.WakeupException;
 import org.apache.kafka.common.serialization.ByteArrayDeserializer;
@@ -71,14 +72,17 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
@@ -97,6 +101,7 @@ public class KafkaTransport extends ThrottleableTransport {
     public static final String CK_OFFSET_RESET = "offset_reset";
     public static final String CK_GROUP_ID = "group_id";
     public static final String CK_CUSTOM_PROPERTIES = "custom_properties";
+    public static final String CK_BATCH_MODE = "batch_mode";
 
     // See https://kafka.apache.org/090/documentation.html for available values for "auto.offset.reset".
     private static final ImmutableMap<String, String> OFFSET_RESET_VALUES = ImmutableMap.of(
@@ -120,6 +125,7 @@ public class KafkaTransport extends ThrottleableTransport {
     private final AtomicLong lastSecBytesRead = new AtomicLong(0);
     private final AtomicLong lastSecBytesReadTmp = new AtomicLong(0);
     private final ExecutorService executor;
+    private final Map<TopicPartition, AtomicLong> partitionLags = new ConcurrentHashMap<>();
 
     private volatile boolean stopped = false;
     private volatile boolean paused = true;
@@ -134,7 +140,8 @@ public class KafkaTransport extends ThrottleableTransport {
                           NodeId nodeId,
                           EventBus serverEventBus,
                           ServerStatus serverStatus,
-                          @Named("daemonScheduler") ScheduledExecutorService scheduler) {
+                          @Named("daemonScheduler") ScheduledExecutorService scheduler,
+                          TransportExecutorFactory transportExecutorFactory) {
         super(serverEventBus, configuration);
         this.configuration = configuration;
         this.localRegistry = localRegistry;
@@ -144,7 +151,7 @@ public class KafkaTransport extends ThrottleableTransport {
         this.scheduler = scheduler;
         this.metricRegistry = localRegistry;
         final int numThreads = configuration.getInt(CK_THREADS);
-        this.executor = executorService(numThreads);
+        this.executor = executorService(transportExecutorFactory, numThreads);
 
         localRegistry.register("read_bytes_1sec", new Gauge<Long>() {
             @Override
@@ -237,6 +244,11 @@ public class KafkaTransport extends ThrottleableTransport {
         props.put(org.apache.kafka.clients.consumer.ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
         props.put(org.apache.kafka.clients.consumer.ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
 
+        if (configuration.getBoolean(CK_BATCH_MODE, false)) {
+            // Offsets are committed explicitly after the records of a poll have been handed over to the input buffer.
+            props.put("enable.auto.commit", "false");
+        }
+
         insertCustomProperties(props);
 
         final int numThreads = configuration.getInt(CK_THREADS);
@@ -251,17 +263,32 @@ public class KafkaTransport extends ThrottleableTransport {
     private class ConsumerRunnable implements Runnable {
         private final MessageInput input;
         private final KafkaConsumer<byte[], byte[]> consumer;
+        private final boolean batchMode;
 
         public ConsumerRunnable(Properties props, MessageInput input, int threadId) {
             this.input = input;
+            this.batchMode = configuration.getBoolean(CK_BATCH_MODE, false);
             final Properties nprops = (Properties) props.clone();
             nprops.put("client.id", "gl2-" + nodeId.getShortNodeId() + "-" + input.getId() + "-" + threadId);
             consumer = new KafkaConsumer<>(nprops);
             //noinspection ConstantConditions
-            consumer.subscribe(Pattern.compile(configuration.getString(CK_TOPIC_FILTER)));
+            consumer.subscribe(Pattern.compile(configuration.getString(CK_TOPIC_FILTER)), new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    partitions.forEach(KafkaTransport.this::removePartitionLag);
+                }
+
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                }
+            });
         }
 
         private void consumeRecords(ConsumerRecords<byte[], byte[]> consumerRecords) {
+            if (batchMode) {
+                consumeRecordBatch(consumerRecords);
+                return;
+            }
             for (final ConsumerRecord<byte[], byte[]> record : consumerRecords) {
                 if (paused) {
                     // we try not to spin here, so we wait until the lifecycle goes back to running.
@@ -275,6 +302,9 @@ public class KafkaTransport extends ThrottleableTransport {
                 if (isThrottled()) {
                     blockUntilUnthrottled();
                 }
+                if (!acquireThrottlePermits(1)) {
+                    break;
+                }
 
                 // process the message, this will immediately mark the message as having been processed. this gets tricky
                 // if we get an exception about processing it down below.
@@ -292,6 +322,59 @@ public class KafkaTransport extends ThrottleableTransport {
             }
         }
 
+        /**
+         * Hands over all records of a poll to the input at once and commits their offsets afterwards. If the input is
+         * stopped before, neither happens and the records will be consumed again.
+         */
+        private void consumeRecordBatch(ConsumerRecords<byte[], byte[]> consumerRecords) {
+            if (consumerRecords.isEmpty()) {
+                return;
+            }
+            if (paused) {
+                // we try not to spin here, so we wait until the lifecycle goes back to running.
+                LOG.debug("Message processing is paused, blocking until message processing is turned back on.");
+                Uninterruptibles.awaitUninterruptibly(pausedLatch);
+            }
+            if (stopped) {
+                return;
+            }
+            if (isThrottled()) {
+                blockUntilUnthrottled();
+            }
+            if (!acquireThrottlePermits(consumerRecords.count())) {
+                return;
+            }
+
+            final List<RawMessage> rawMessages = new ArrayList<>(consumerRecords.count());
+            for (final ConsumerRecord<byte[], byte[]> record : consumerRecords) {
+                final byte[] bytes = record.value();
+
+                // it is possible that the message is null
+                if (bytes == null) {
+                    continue;
+                }
+                totalBytesRead.addAndGet(bytes.length);
+                lastSecBytesReadTmp.addAndGet(bytes.length);
+
+                rawMessages.add(new RawMessage(bytes));
+            }
+            input.processRawMessages(rawMessages);
+            consumer.commitAsync((offsets, e) -> {
+                if (e != null) {
+                    LOG.warn("Unable to commit offsets {}. Records might be consumed again.", offsets, e);
+                }
+            });
+        }
+
+        private void updatePartitionLag() {
+            for (final TopicPartition partition : consumer.assignment()) {
+                final OptionalLong lag = consumer.currentLag(partition);
+                if (lag.isPresent()) {
+                    partitionLag(partition).set(lag.getAsLong());
+                }
+            }
+        }
+
         private Optional<ConsumerRecords<byte[], byte[]>> tryPoll() {
             try {
                 final ConsumerRecords<byte[], byte[]> consumerRecords = consumer.poll(Duration.ofSeconds(1));
@@ -323,6 +406,7 @@ public class KafkaTransport extends ThrottleableTransport {
                 }
                 try {
                     consumeRecords(consumerRecords.get());
+                    updatePartitionLag();
                 } catch (Exception e) {
                     LOG.error("Exception in consumer thread. Stopping input", e);
                     stopped = true;
@@ -331,7 +415,10 @@ public class KafkaTransport extends ThrottleableTransport {
             }
             // explicitly commit our offsets when stopping.
             // this might trigger a couple of times, but it won't hurt
-            consumer.commitAsync();
+            if (!batchMode) {
+                consumer.commitAsync();
+            }
+            consumer.assignment().forEach(KafkaTransport.this::removePartitionLag);
             stopLatch.countDown();
             consumer.close(Duration.ofSeconds(5));
         }
@@ -395,6 +482,9 @@ public class KafkaTransport extends ThrottleableTransport {
                                 if (isThrottled()) {
                                     blockUntilUnthrottled();
                                 }
+                                if (!acquireThrottlePermits(1)) {
+                                    break;
+                                }
 
                                 // process the message, this will immediately mark the message as having been processed. this gets tricky
                                 // if we get an exception about processing it down below.
@@ -430,6 +520,24 @@ public class KafkaTransport extends ThrottleableTransport {
         }
     }
 
+    private AtomicLong partitionLag(TopicPartition partition) {
+        return partitionLags.computeIfAbsent(partition, p -> {
+            final AtomicLong lag = new AtomicLong(0);
+            localRegistry.register(partitionLagMetricName(p), (Gauge<Long>) lag::get);
+            return lag;
+        });
+    }
+
+    private void removePartitionLag(TopicPartition partition) {
+        if (partitionLags.remove(partition) != null) {
+            localRegistry.remove(partitionLagMetricName(partition));
+        }
+    }
+
+    private static String partitionLagMetricName(TopicPartition partition) {
+        return name("partition_lag", partition.topic(), String.valueOf(partition.partition()));
+    }
+
     private void insertCustomProperties(Properties props) {
         try {
             final Properties customProperties = new Properties();
@@ -440,10 +548,9 @@ public class KafkaTransport extends ThrottleableTransport {
         }
     }
 
-    private ExecutorService executorService(int numThreads) {
-        final ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("kafka-transport-%d").build();
+    private ExecutorService executorService(TransportExecutorFactory transportExecutorFactory, int numThreads) {
         return new InstrumentedExecutorService(
-                Executors.newFixedThreadPool(numThreads, threadFactory),
+                transportExecutorFactory.create("kafka-transport-%d", numThreads, false),
                 metricRegistry,
                 name(this.getClass(), "executor-service"));
     }
@@ -553,6 +660,12 @@ public class KafkaTransport extends ThrottleableTransport {
                     "Number of processor threads to spawn. Use one thread per Kafka topic partition.",
                     ConfigurationField.Optional.NOT_OPTIONAL));
 
+            cr.addField(new BooleanField(
+                    CK_BATCH_MODE,
+                    "Batch mode",
+                    false,
+                    "Hand over all records of a poll at once and commit their offsets only afterwards. Not used in legacy mode."));
+
             cr.addField(new DropdownField(
                     CK_OFFSET_RESET,
                     "Auto offset reset",
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog2.inputs.transports;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executors used by transports which block on I/O (e.g. HTTP poll, AMQP and Kafka).
+ * <p>
+ * If {@code input_transports_virtual_threads} is enabled, every task runs on its own virtual thread, so a blocked
+ * transport only occupies a carrier thread while it's actually running. Otherwise, a fixed pool of platform threads
+ * is used.
+ */
+@Singleton
+public class TransportExecutorFactory {
+    private final boolean virtualThreads;
+
+    @Inject
+    public TransportExecutorFactory(@Named("input_transports_virtual_threads") boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Create a new executor for a transport.
+     *
+     * @param nameFormat the {@link ThreadFactoryBuilder#setNameFormat(String) name format} of the created threads
+     * @param numThreads the number of platform threads, ignored when using virtual threads
+     * @param daemon     whether created platform threads are daemon threads, virtual threads are always daemon threads
+     * @return a new executor which has to be shut down by the caller
+     */
+    public ExecutorService create(String nameFormat, int numThreads, boolean daemon) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(new ThreadFactoryBuilder()
+                    .setThreadFactory(Thread.ofVirtual().factory())
+                    .setNameFormat(nameFormat)
+                    .build());
+        }
+        return Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                .setNameFormat(nameFormat)
+                .setDaemon(daemon)
+                .build());
+    }
+}
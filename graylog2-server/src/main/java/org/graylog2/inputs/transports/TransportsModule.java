@@ -40,5 +40,7 @@ public class TransportsModule extends Graylog2Module {
 
         bind(EventLoopGroupFactory.class).asEagerSingleton();
         bind(EventLoopGroup.class).toProvider(EventLoopGroupProvider.class).asEagerSingleton();
+
+        serviceBinder().addBinding().to(VirtualThreadPinningMonitor.class);
     }
 }
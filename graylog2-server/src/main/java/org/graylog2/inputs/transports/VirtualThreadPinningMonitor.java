@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog2.inputs.transports;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.AbstractIdleService;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Records JFR {@code jdk.VirtualThreadPinned} events as metric if input transports are running on virtual threads.
+ * A virtual thread is pinned if it blocks while it can't be unmounted from its carrier thread, e.g. inside of a
+ * {@code synchronized} block. Frequent pinning means that the transport is effectively blocking carrier threads.
+ */
+@Singleton
+public class VirtualThreadPinningMonitor extends AbstractIdleService {
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final TransportExecutorFactory transportExecutorFactory;
+    private final Timer pinnedTime;
+
+    private RecordingStream recordingStream;
+
+    @Inject
+    public VirtualThreadPinningMonitor(TransportExecutorFactory transportExecutorFactory,
+                                       MetricRegistry metricRegistry) {
+        this.transportExecutorFactory = transportExecutorFactory;
+        this.pinnedTime = metricRegistry.timer(name(VirtualThreadPinningMonitor.class, "pinnedTime"));
+    }
+
+    @Override
+    protected void startUp() throws Exception {
+        if (!transportExecutorFactory.isVirtualThreads()) {
+            return;
+        }
+        try {
+            recordingStream = new RecordingStream();
+            recordingStream.enable(PINNED_EVENT);
+            recordingStream.onEvent(PINNED_EVENT, event ->
+                    pinnedTime.update(event.getDuration().toNanos(), TimeUnit.NANOSECONDS));
+            recordingStream.startAsync();
+        } catch (Exception e) {
+            LOG.warn("Unable to record pinned virtual threads, metric won't be available.", e);
+            recordingStream = null;
+        }
+    }
+
+    @Override
+    protected void shutDown() throws Exception {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+}
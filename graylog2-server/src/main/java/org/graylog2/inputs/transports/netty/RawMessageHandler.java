@@ -45,13 +45,13 @@ public class RawMessageHandler extends SimpleChannelInboundHandler<ByteBuf> {
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
-        final byte[] bytes = new byte[msg.readableBytes()];
-        msg.readBytes(bytes);
         InetSocketAddress remoteAddress = (InetSocketAddress) ctx.channel().remoteAddress();
         if (ctx.channel().hasAttr(ORIGINAL_IP_KEY)) {
             remoteAddress = ctx.channel().attr(ORIGINAL_IP_KEY).get();
         }
-        final RawMessage raw = new RawMessage(bytes, remoteAddress);
+        // Copy the readable bytes straight into the raw message instead of going through an intermediate byte array.
+        // The buffer is released after this method returns, so the raw message must not keep a reference to it.
+        final RawMessage raw = new RawMessage(msg.nioBuffer(), remoteAddress);
         input.processRawMessage(raw);
     }
 
@@ -63,6 +63,15 @@ public abstract class BaseConfiguration extends PathConfiguration implements Com
     @Parameter(value = "processbuffer_processors", required = true, validator = PositiveIntegerValidator.class)
     private int processBufferProcessors = defaultNumberOfProcessBufferProcessors();
 
+    @Documentation("""
+            Number of process buffer decoders running in parallel.
+            By default (0), raw messages are decoded by the process buffer processors right before they are processed.
+            Set this to a positive value to decode messages in a separate stage of the process buffer instead. This allows
+            sizing decoding (e.g. GELF, CEF, NetFlow) and processing capacity independently.
+            """)
+    @Parameter(value = "processbuffer_decoders", required = true)
+    private int processBufferDecoders = 0;
+
     @Documentation("""
             Wait strategy describing how buffer processors wait on a cursor sequence. (default: sleeping)
             Possible types:
@@ -114,6 +123,15 @@ public abstract class BaseConfiguration extends PathConfiguration implements Com
     @Parameter("inputbuffer_processors")
     private int inputbufferProcessors = 2;
 
+    @Documentation("""
+            Run the threads of blocking message input transports (HTTP poll/JSON path, AMQP and Kafka) as virtual threads
+            instead of platform threads.
+            The number of carrier threads can be limited with the JVM system properties
+            "jdk.virtualThreadScheduler.parallelism" and "jdk.virtualThreadScheduler.maxPoolSize".
+            """)
+    @Parameter("input_transports_virtual_threads")
+    private boolean inputTransportsVirtualThreads = false;
+
     @Documentation("tbd")
     @Parameter("message_recordings_enable")
     private boolean messageRecordingsEnable = false;
@@ -198,6 +216,10 @@ public abstract class BaseConfiguration extends PathConfiguration implements Com
         return processBufferProcessors;
     }
 
+    public int getProcessBufferDecoders() {
+        return processBufferDecoders;
+    }
+
     private WaitStrategy getWaitStrategy(String waitStrategyName, String configOptionName) {
         switch (waitStrategyName) {
             case "sleeping":
@@ -247,6 +269,10 @@ public abstract class BaseConfiguration extends PathConfiguration implements Com
         return inputbufferProcessors;
     }
 
+    public boolean isInputTransportsVirtualThreads() {
+        return inputTransportsVirtualThreads;
+    }
+
     public int getShutdownTimeout() {
         return shutdownTimeout;
     }
@@ -299,6 +325,14 @@ public abstract class BaseConfiguration extends PathConfiguration implements Com
         return messageJournalEnabled ? messageJournalMode : NOOP_JOURNAL_MODE;
     }
 
+    @ValidatorMethod
+    @SuppressWarnings("unused")
+    public void validateProcessBufferDecoders() throws ValidationException {
+        if (processBufferDecoders < 0) {
+            throw new ValidationException("Parameter \"processbuffer_decoders\" must not be negative.");
+        }
+    }
+
     @ValidatorMethod
     public void validateJournalMode() throws ValidationException {
         if (!messageJournalEnabled) {
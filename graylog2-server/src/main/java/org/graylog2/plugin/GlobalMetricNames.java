@@ -41,6 +41,8 @@ public final class GlobalMetricNames {
 
     public static final String PROCESS_BUFFER_USAGE = "org.graylog2.buffers.process.usage";
     public static final String PROCESS_BUFFER_SIZE = "org.graylog2.buffers.process.size";
+    public static final String PROCESS_BUFFER_PENDING_DECODE = "org.graylog2.buffers.process.pending-decode";
+    public static final String PROCESS_BUFFER_PENDING_PROCESS = "org.graylog2.buffers.process.pending-process";
 
     public static final String OUTPUT_BUFFER_USAGE = "org.graylog2.buffers.output.usage";
     public static final String OUTPUT_BUFFER_SIZE = "org.graylog2.buffers.output.size";
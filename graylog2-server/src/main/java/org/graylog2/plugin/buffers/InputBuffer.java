@@ -18,6 +18,17 @@ package org.graylog2.plugin.buffers;
 
 import org.graylog2.plugin.journal.RawMessage;
 
+import java.util.List;
+
 public interface InputBuffer extends EventBuffer {
     void insert(RawMessage message);
+
+    /**
+     * Insert a batch of messages. Implementations may publish all messages at once instead of one by one.
+     *
+     * @param messages the messages to insert, in order
+     */
+    default void insert(List<RawMessage> messages) {
+        messages.forEach(this::insert);
+    }
 }
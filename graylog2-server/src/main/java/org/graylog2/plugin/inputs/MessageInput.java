@@ -42,7 +42,9 @@ import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -380,6 +382,41 @@ public abstract class MessageInput implements Stoppable {
     }
 
     public void processRawMessage(RawMessage rawMessage) {
+        final int payloadLength = rawMessage.getPayloadSize();
+        if (!prepareRawMessage(rawMessage)) {
+            return;
+        }
+
+        inputBuffer.insert(rawMessage);
+
+        markIncoming(1, payloadLength);
+    }
+
+    /**
+     * Process a batch of raw messages, e. g. all records of a single poll. The messages are inserted into the
+     * input buffer at once.
+     *
+     * @param rawMessages the messages to process, in order
+     */
+    public void processRawMessages(List<RawMessage> rawMessages) {
+        final List<RawMessage> messages = new ArrayList<>(rawMessages.size());
+        long payloadLength = 0;
+        for (final RawMessage rawMessage : rawMessages) {
+            if (prepareRawMessage(rawMessage)) {
+                messages.add(rawMessage);
+                payloadLength += rawMessage.getPayloadSize();
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        inputBuffer.insert(messages);
+
+        markIncoming(messages.size(), payloadLength);
+    }
+
+    private boolean prepareRawMessage(RawMessage rawMessage) {
         final int payloadLength = rawMessage.getPayloadSize();
         if (payloadLength == 0) {
             LOG.debug("Discarding empty message {} from input {} (remote address {}). Turn logger org.graylog2.plugin.journal.RawMessage to TRACE to see originating stack trace.",
@@ -387,7 +424,7 @@ public abstract class MessageInput implements Stoppable {
                     toIdentifier(),
                     rawMessage.getRemoteAddress() == null ? "unknown" : rawMessage.getRemoteAddress());
             emptyMessages.inc();
-            return;
+            return false;
         }
 
         // add the common message metadata for this input/codec
@@ -396,11 +433,12 @@ public abstract class MessageInput implements Stoppable {
         rawMessage.addSourceNode(getId(), serverStatus.getNodeId());
         // Wrap at unsigned int maximum
         rawMessage.setSequenceNr((int) sequenceNr.getAndUpdate(i -> i == 0xFFFF_FFFFL ? 0 : i + 1));
+        return true;
+    }
 
-        inputBuffer.insert(rawMessage);
-
-        incomingMessages.mark();
-        globalIncomingMessages.inc();
+    private void markIncoming(int count, long payloadLength) {
+        incomingMessages.mark(count);
+        globalIncomingMessages.inc(count);
         rawSize.mark(payloadLength);
         globalRawSize.inc(payloadLength);
     }
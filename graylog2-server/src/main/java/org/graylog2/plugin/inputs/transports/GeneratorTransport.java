@@ -56,6 +56,9 @@ public abstract class GeneratorTransport extends ThrottleableTransport {
                     if (isThrottled()) {
                         blockUntilUnthrottled();
                     }
+                    if (!acquireThrottlePermits(1)) {
+                        continue;
+                    }
                     final RawMessage rawMessage = GeneratorTransport.this.produceRawMessage(input);
                     if (rawMessage != null) {
                         input.processRawMessage(rawMessage);
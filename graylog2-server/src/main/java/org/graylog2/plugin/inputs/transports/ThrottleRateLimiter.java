@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog2.plugin.inputs.transports;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.math.LongMath;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A non-blocking rate limiter for throttling transports.
+ * <p>
+ * It implements the generic cell rate algorithm, so the complete state is a single timestamp which is updated with
+ * compare-and-set. Callers never block and the rate can be changed at any time, e.g. from the thread receiving
+ * {@link org.graylog2.plugin.ThrottleState} updates, without coordinating with the threads acquiring permits.
+ */
+public class ThrottleRateLimiter {
+    private static final long UNLIMITED = 0L;
+    private static final long BLOCKED = Long.MAX_VALUE;
+
+    private final Ticker ticker;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrivalTime;
+
+    // Nanoseconds between two permits, UNLIMITED or BLOCKED
+    private volatile long intervalNanos = UNLIMITED;
+
+    public ThrottleRateLimiter() {
+        this(Ticker.systemTicker(), 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param ticker    the time source
+     * @param burst     how much time worth of permits can be acquired at once after a quiet period
+     * @param burstUnit the time unit of the {@code burst} argument
+     */
+    @VisibleForTesting
+    ThrottleRateLimiter(Ticker ticker, long burst, TimeUnit burstUnit) {
+        this.ticker = ticker;
+        this.burstNanos = burstUnit.toNanos(burst);
+        this.theoreticalArrivalTime = new AtomicLong(ticker.read());
+    }
+
+    /**
+     * Update the rate of this limiter.
+     *
+     * @param permitsPerSecond the new rate, {@link Double#POSITIVE_INFINITY} disables limiting, zero or less
+     *                         rejects all permits
+     */
+    public void setRate(double permitsPerSecond) {
+        if (Double.isInfinite(permitsPerSecond) || Double.isNaN(permitsPerSecond)) {
+            intervalNanos = UNLIMITED;
+        } else if (permitsPerSecond <= 0) {
+            intervalNanos = BLOCKED;
+        } else {
+            intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        }
+    }
+
+    /**
+     * @return the current rate in permits per second
+     */
+    public double getRate() {
+        final long interval = intervalNanos;
+        if (interval == UNLIMITED) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (interval == BLOCKED) {
+            return 0;
+        }
+        return (double) TimeUnit.SECONDS.toNanos(1) / interval;
+    }
+
+    /**
+     * Try to acquire the given number of permits without blocking.
+     *
+     * @param permits the number of permits, e.g. the number of messages
+     * @return {@code true} if the permits have been acquired, {@code false} if the caller should back off
+     */
+    public boolean tryAcquire(int permits) {
+        final long interval = intervalNanos;
+        if (interval == UNLIMITED) {
+            return true;
+        }
+        if (interval == BLOCKED) {
+            return false;
+        }
+        final long now = ticker.read();
+        final long cost = LongMath.saturatedMultiply(interval, permits);
+        while (true) {
+            final long tat = theoreticalArrivalTime.get();
+            final long start = Math.max(tat, now);
+            if (start - now > burstNanos) {
+                return false;
+            }
+            if (theoreticalArrivalTime.compareAndSet(tat, LongMath.saturatedAdd(start, cost))) {
+                return true;
+            }
+        }
+    }
+}
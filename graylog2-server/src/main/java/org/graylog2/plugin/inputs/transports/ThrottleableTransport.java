@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Placeholder class for implementing logic to throttle certain transports which support back pressure.
@@ -43,12 +44,17 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @Deprecated()
 public abstract class ThrottleableTransport implements Transport {
     private static final Logger log = LoggerFactory.getLogger(ThrottleableTransport.class);
+    private static final long PERMIT_RECHECK_INTERVAL_MS = 10;
     public static final String CK_THROTTLING_ALLOWED = "throttling_allowed";
     protected final boolean throttlingAllowed;
     private final AtomicBoolean currentlyThrottled = new AtomicBoolean(false);
     protected final EventBus eventBus;
     private volatile CountDownLatch blockLatch = null;
     private long lastUncommitted;
+    private final ThrottleRateLimiter rateLimiter = new ThrottleRateLimiter();
+    private final LongAdder acquiredPermits = new LongAdder();
+    private long lastRateUpdate = System.nanoTime();
+    private volatile boolean stopped = false;
 
     public static class Config implements Transport.Config {
         @Override
@@ -75,6 +81,7 @@ public abstract class ThrottleableTransport implements Transport {
 
     @Override
     public void launch(MessageInput input) throws MisfireException {
+        markStarted();
         // Call this before registering on the event bus. There might be stuff in doLaunch() that needs to run first.
         doLaunch(input);
 
@@ -95,6 +102,7 @@ public abstract class ThrottleableTransport implements Transport {
     @Override
     public void stop() {
         // always unblock the transport when shutting down to avoid deadlock
+        stopped = true;
         if (currentlyThrottled.get()) {
             blockLatch.countDown();
         }
@@ -111,6 +119,10 @@ public abstract class ThrottleableTransport implements Transport {
         }
     }
 
+    void markStarted() {
+        stopped = false;
+    }
+
     /**
      * Performs the same purpose as {@link #stop()} but guarantees that the superclass'  actions are performed.
      */
@@ -126,6 +138,8 @@ public abstract class ThrottleableTransport implements Transport {
         if (!throttlingAllowed) {
             return;
         }
+        updateRateLimit(throttleState);
+
         // check if we are throttled
         final boolean throttled = determineIfThrottled(throttleState);
         if (currentlyThrottled.get()) {
@@ -215,6 +229,104 @@ public abstract class ThrottleableTransport implements Transport {
         return false;
     }
 
+    private void updateRateLimit(ThrottleState state) {
+        final long now = System.nanoTime();
+        final double elapsedSeconds = (now - lastRateUpdate) / 1.0E09;
+        lastRateUpdate = now;
+        final double currentRate = elapsedSeconds > 0 ? acquiredPermits.sumThenReset() / elapsedSeconds : 0;
+
+        final double previousRate = rateLimiter.getRate();
+        final double targetRate = determineRateLimit(state, currentRate);
+        if (targetRate <= 0 || Double.isInfinite(targetRate) || Double.isInfinite(previousRate)) {
+            // apply a full stop or no limit right away, halving the difference would never reach them
+            rateLimiter.setRate(targetRate);
+        } else {
+            // move halfway to the target to avoid oscillating between throttled and unthrottled inputs
+            rateLimiter.setRate(previousRate + (targetRate - previousRate) / 2);
+        }
+        log.debug("[{}] Rate limit: {} messages/s (current rate {} messages/s)", getClass().getSimpleName(),
+                rateLimiter.getRate(), currentRate);
+    }
+
+    /**
+     * Determines the number of messages per second this transport may read, based on the state of the journal.
+     * Enforced on the transports acquiring permits via {@link #acquireThrottlePermits(int)} or
+     * {@link #tryAcquireThrottlePermits(int)} for the messages they read.
+     * <p>
+     * The rate is derived from the rate this transport has been reading at: it is scaled by the ratio of the journal
+     * read rate to the journal append rate, and reduced further the more of the journal is used. Above 90% journal
+     * utilization, no messages are accepted.
+     * </p>
+     * <p>
+     * If the transport was started without the <code>throttling_allowed</code> flag enabled, this method will <b>not</b> be called!
+     * </p>
+     *
+     * @param state       the current state of the processing system
+     * @param currentRate the number of messages per second this transport has acquired permits for since the last
+     *                    update
+     * @return the number of messages per second or {@link Double#POSITIVE_INFINITY} for no limit
+     */
+    protected double determineRateLimit(ThrottleState state, double currentRate) {
+        final double utilization = Tools.percentageOf(state.journalSizeLimit, state.journalSize);
+        if (state.uncommittedJournalEntries == 0
+                || (utilization < 50 && state.readEventsPerSec >= state.appendEventsPerSec)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // allow the rate to grow again if the journal is being drained
+        final double readRatio = state.appendEventsPerSec == 0 ? 2.0 :
+                Math.min(2.0, (double) state.readEventsPerSec / state.appendEventsPerSec);
+        final double headroom = Math.min(1.0, Math.max(0.0, (90 - utilization) / 40));
+        // never let the rate drop to zero below 90% utilization, it couldn't recover from that
+        final double baseRate = Math.max(currentRate, state.readEventsPerSec / 100.0);
+        return baseRate * readRatio * headroom;
+    }
+
+    /**
+     * Tries to acquire permits for reading the given number of messages, without blocking.
+     * Transports which must not block (e.g. when running on an event loop) can use this to read less
+     * instead of waiting in {@link #acquireThrottlePermits(int)}.
+     *
+     * @param permits the number of messages to read
+     * @return {@code true} if the messages may be read, {@code false} if the transport should back off
+     */
+    public boolean tryAcquireThrottlePermits(int permits) {
+        if (!throttlingAllowed) {
+            return true;
+        }
+        if (rateLimiter.tryAcquire(permits)) {
+            acquiredPermits.add(permits);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Acquires permits for reading the given number of messages, waiting until the rate limit allows it.
+     * Transports which may block call this for every message, or for every batch of messages, they read.
+     *
+     * @param permits the number of messages to read
+     * @return {@code true} if the messages may be read, {@code false} if the transport has been stopped or the
+     * thread has been interrupted while waiting
+     */
+    public boolean acquireThrottlePermits(int permits) {
+        if (!throttlingAllowed) {
+            return true;
+        }
+        while (!rateLimiter.tryAcquire(permits)) {
+            if (stopped) {
+                return false;
+            }
+            try {
+                Thread.sleep(PERMIT_RECHECK_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        acquiredPermits.add(permits);
+        return true;
+    }
+
     /**
      * Blocks until the blockLatch is released.
      */
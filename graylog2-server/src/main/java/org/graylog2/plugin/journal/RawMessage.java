@@ -86,15 +86,32 @@ public class RawMessage implements Serializable {
         this(Long.MIN_VALUE, new UUID(), Tools.nowUTC(), remoteAddress, payload);
     }
 
+    /**
+     * Creates a raw message by copying the remaining bytes of the given buffer directly into the journal message,
+     * without an intermediate byte array. The position of the buffer is not changed.
+     */
+    public RawMessage(@Nonnull ByteBuffer payload, @Nullable InetSocketAddress remoteAddress) {
+        this(Long.MIN_VALUE, new UUID(), Tools.nowUTC(), ResolvableInetSocketAddress.wrap(remoteAddress),
+                ByteString.copyFrom(checkNotNull(payload, "The message payload must not be null!").duplicate()));
+    }
+
     public RawMessage(long journalOffset,
                       @Nonnull UUID id,
                       DateTime timestamp,
                       @Nullable ResolvableInetSocketAddress remoteAddress,
                       @Nonnull byte[] payload) {
+        this(journalOffset, id, timestamp, remoteAddress,
+                ByteString.copyFrom(checkNotNull(payload, "The message payload must not be null!")));
+    }
+
+    private RawMessage(long journalOffset,
+                       @Nonnull UUID id,
+                       DateTime timestamp,
+                       @Nullable ResolvableInetSocketAddress remoteAddress,
+                       @Nonnull ByteString payload) {
         checkNotNull(id, "The message id must not be null!");
-        checkNotNull(payload, "The message payload must not be null!");
         sequenceNr = 0;
-        if (payload.length == 0 && log.isTraceEnabled()) {
+        if (payload.isEmpty() && log.isTraceEnabled()) {
             log.trace("The message payload should not be empty, message {} from {} will be discarded.",
                     id,
                     remoteAddress == null ? "unknown" : remoteAddress,
@@ -115,7 +132,7 @@ public class RawMessage implements Serializable {
             setRemoteAddress(remoteAddress);
         }
 
-        msgBuilder.setPayload(ByteString.copyFrom(payload));
+        msgBuilder.setPayload(payload);
     }
 
     public void addSourceNode(String sourceInputId, NodeId nodeId) {
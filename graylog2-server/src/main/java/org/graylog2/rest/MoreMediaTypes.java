@@ -87,6 +87,16 @@ public abstract class MoreMediaTypes {
      * A {@link MediaType} constant representing {@value #APPLICATION_XLS} media type.
      */
     public final static MediaType APPLICATION_XLS_TYPE = new MediaType("application", "vnd.ms-excel");
+    /**
+     * A {@code String} constant representing {@value #APPLICATION_ARROW_STREAM} media type.
+     */
+    public final static String APPLICATION_ARROW_STREAM = "application/vnd.apache.arrow.stream";
+    /**
+     * A {@link MediaType} constant representing {@value #APPLICATION_ARROW_STREAM} media type.
+     *
+     * @see <a href="https://www.iana.org/assignments/media-types/application/vnd.apache.arrow.stream">IANA registration</a>
+     */
+    public final static MediaType APPLICATION_ARROW_STREAM_TYPE = new MediaType("application", "vnd.apache.arrow.stream");
     /**
      * A {@link MediaType} constant representing {@value #APPLICATION_NDJSON} media type.
      */
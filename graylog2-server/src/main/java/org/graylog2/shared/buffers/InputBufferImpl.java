@@ -36,6 +36,7 @@ import jakarta.inject.Inject;
 import jakarta.inject.Provider;
 import jakarta.inject.Singleton;
 
+import java.util.List;
 import java.util.concurrent.ThreadFactory;
 
 import static com.codahale.metrics.MetricRegistry.name;
@@ -108,6 +109,18 @@ public class InputBufferImpl implements InputBuffer {
         incomingMessages.mark();
     }
 
+    @Override
+    public void insert(List<RawMessage> messages) {
+        // Claiming the sequences of a whole batch at once reduces contention between the inputs publishing into the
+        // ring buffer. A batch must not be larger than the ring buffer, though.
+        final int batchSize = ringBuffer.getBufferSize();
+        for (int from = 0; from < messages.size(); from += batchSize) {
+            final List<RawMessage> batch = messages.subList(from, Math.min(from + batchSize, messages.size()));
+            ringBuffer.publishEvents(RawMessageEvent.TRANSLATOR, batch.toArray(new RawMessage[0]));
+            incomingMessages.mark(batch.size());
+        }
+    }
+
     @Override
     public long getUsage() {
         return ringBuffer.getBufferSize() - ringBuffer.remainingCapacity();
@@ -23,6 +23,7 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.WaitStrategy;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
@@ -52,12 +53,14 @@ public class ProcessBuffer extends Buffer {
 
     private final Meter incomingMessages;
     private final PartitioningWorkHandler<ProcessBufferProcessor, MessageEvent>[] processors;
+    private final PartitioningWorkHandler<WorkHandler<MessageEvent>, MessageEvent>[] decoders;
 
     @Inject
     public ProcessBuffer(MetricRegistry metricRegistry,
                          DecodingProcessor.Factory decodingProcessorFactory,
                          ProcessBufferProcessor.Factory bufferProcessorFactory,
                          @Named("processbuffer_processors") int processorCount,
+                         @Named("processbuffer_decoders") int decoderCount,
                          @Named("ring_size") int ringSize,
                          @Named("processor_wait_strategy") String waitStrategyName) {
         this.ringBufferSize = ringSize;
@@ -85,19 +88,50 @@ public class ProcessBuffer extends Buffer {
 
         //noinspection unchecked
         processors = new PartitioningWorkHandler[processorCount];
-        for (int i = 0; i < processorCount; i++) {
-            processors[i] = new PartitioningWorkHandler<>(
-                    bufferProcessorFactory.create(decodingProcessorFactory.create(decodeTime, parseTime)), i,
-                    processorCount);
+        //noinspection unchecked
+        decoders = new PartitioningWorkHandler[Math.max(decoderCount, 0)];
+
+        if (decoders.length == 0) {
+            // Decoding is done by the process buffer processors right before processing the message.
+            for (int i = 0; i < processorCount; i++) {
+                processors[i] = new PartitioningWorkHandler<>(
+                        bufferProcessorFactory.create(decodingProcessorFactory.create(decodeTime, parseTime)), i,
+                        processorCount);
+            }
+            disruptor.handleEventsWith(processors);
+        } else {
+            // Decoding runs in a separate stage. The processors only see events which have already been decoded,
+            // each processor still handles one event at a time.
+            for (int i = 0; i < decoders.length; i++) {
+                final DecodingProcessor decodingProcessor = decodingProcessorFactory.create(decodeTime, parseTime);
+                decoders[i] = new PartitioningWorkHandler<>(event -> decodingProcessor.onEvent(event, 0L, false), i,
+                        decoders.length);
+            }
+            for (int i = 0; i < processorCount; i++) {
+                processors[i] = new PartitioningWorkHandler<>(bufferProcessorFactory.create(null), i, processorCount);
+            }
+            disruptor.handleEventsWith(decoders).then(processors);
+
+            safelyRegister(metricRegistry, GlobalMetricNames.PROCESS_BUFFER_PENDING_DECODE, (Gauge<Long>) () ->
+                    disruptor.getCursor() - minimumSequence(disruptor, decoders));
+            safelyRegister(metricRegistry, GlobalMetricNames.PROCESS_BUFFER_PENDING_PROCESS, (Gauge<Long>) () ->
+                    minimumSequence(disruptor, decoders) - minimumSequence(disruptor, processors));
         }
-        disruptor.handleEventsWith(processors);
 
         ringBuffer = disruptor.start();
 
         LOG.info("Initialized ProcessBuffer with ring size <{}> and wait strategy <{}>, " +
-                        "running {} parallel buffer processors.",
-                ringBufferSize, waitStrategy.getClass().getSimpleName(), processorCount);
+                        "running {} parallel buffer processors and {} parallel decoders.",
+                ringBufferSize, waitStrategy.getClass().getSimpleName(), processorCount, decoders.length);
+
+    }
 
+    private static long minimumSequence(Disruptor<MessageEvent> disruptor, EventHandler<MessageEvent>[] handlers) {
+        long minimum = Long.MAX_VALUE;
+        for (final EventHandler<MessageEvent> handler : handlers) {
+            minimum = Math.min(minimum, disruptor.getSequenceValueFor(handler));
+        }
+        return minimum;
     }
 
     private ThreadFactory threadFactory(MetricRegistry metricRegistry) {
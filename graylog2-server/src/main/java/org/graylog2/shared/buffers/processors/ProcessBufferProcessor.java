@@ -43,6 +43,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.Locale;
@@ -63,6 +64,7 @@ public class ProcessBufferProcessor implements WorkHandler<MessageEvent> {
     private final OutputBuffer outputBuffer;
     private final ProcessingStatusRecorder processingStatusRecorder;
     private final MessageULIDGenerator messageULIDGenerator;
+    @Nullable
     private final DecodingProcessor decodingProcessor;
     private final Provider<Stream> defaultStreamProvider;
     private final FailureSubmissionService failureSubmissionService;
@@ -79,7 +81,7 @@ public class ProcessBufferProcessor implements WorkHandler<MessageEvent> {
                                   OutputBuffer outputBuffer,
                                   ProcessingStatusRecorder processingStatusRecorder,
                                   MessageULIDGenerator messageULIDGenerator,
-                                  @Assisted DecodingProcessor decodingProcessor,
+                                  @Assisted @Nullable DecodingProcessor decodingProcessor,
                                   @DefaultStream Provider<Stream> defaultStreamProvider,
                                   FailureSubmissionService failureSubmissionService,
                                   StreamMetrics streamMetrics,
@@ -110,7 +112,10 @@ public class ProcessBufferProcessor implements WorkHandler<MessageEvent> {
             // Decode the RawMessage to a Message object. The DecodingProcessor used to be a separate handler in the
             // ProcessBuffer. Due to performance problems discovered during 1.0.0 testing, we decided to move this here.
             // TODO The DecodingProcessor does not need to be a EventHandler. We decided to do it like this to keep the change as small as possible for 1.0.0.
-            decodingProcessor.onEvent(event, 0L, false);
+            // If no DecodingProcessor is set, the message has already been decoded by a separate stage of the ProcessBuffer.
+            if (decodingProcessor != null) {
+                decodingProcessor.onEvent(event, 0L, false);
+            }
 
             if (event.isSingleMessage()) {
                 dispatchMessage(event.getMessage());
@@ -217,7 +222,11 @@ public class ProcessBufferProcessor implements WorkHandler<MessageEvent> {
     }
 
     public interface Factory {
-        ProcessBufferProcessor create(DecodingProcessor decodingProcessor);
+        /**
+         * @param decodingProcessor the processor used to decode raw messages before processing them or {@code null}
+         *                          if messages are decoded by a separate stage
+         */
+        ProcessBufferProcessor create(@Nullable DecodingProcessor decodingProcessor);
     }
 
     @Override
@@ -16,9 +16,14 @@
  */
 package org.graylog2.streams;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.github.joschi.jadconfig.util.Duration;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.bson.types.ObjectId;
 import org.graylog2.indexer.indexset.events.IndexSetCreatedEvent;
 import org.graylog2.indexer.indexset.events.IndexSetDeletedEvent;
 import org.graylog2.plugin.Message;
@@ -31,35 +36,53 @@ import org.slf4j.LoggerFactory;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static com.codahale.metrics.MetricRegistry.name;
 
 /**
  * Routes a {@link org.graylog2.plugin.Message} to its streams.
+ * <p>
+ * Stream changes are collected and applied to the router engine after a short delay, so a burst of changes only
+ * results in one engine update. Changes of single streams only load and rebuild the changed streams, everything else
+ * (e.g. index set changes) rebuilds the engine from all streams.
  */
 public class StreamRouter {
     private static final Logger LOG = LoggerFactory.getLogger(StreamRouter.class);
 
     private final ServerStatus serverStatus;
     private final ScheduledExecutorService scheduler;
+    private final Duration reloadDelay;
 
     private final AtomicReference<StreamRouterEngine> routerEngine = new AtomicReference<>(null);
     private final StreamRouterEngineUpdater engineUpdater;
+    private final AtomicBoolean updateScheduled = new AtomicBoolean(false);
 
     @Inject
     public StreamRouter(StreamService streamService,
                         ServerStatus serverStatus,
                         StreamRouterEngine.Factory routerEngineFactory,
                         EventBus serverEventBus,
-                        @Named("daemonScheduler") ScheduledExecutorService scheduler) {
+                        @Named("daemonScheduler") ScheduledExecutorService scheduler,
+                        @Named("stream_router_reload_delay") Duration reloadDelay,
+                        MetricRegistry metricRegistry) {
         this.serverStatus = serverStatus;
         this.scheduler = scheduler;
+        this.reloadDelay = reloadDelay;
 
-        this.engineUpdater = new StreamRouterEngineUpdater(routerEngine, routerEngineFactory, streamService, executorService());
+        this.engineUpdater = new StreamRouterEngineUpdater(routerEngine, routerEngineFactory, streamService,
+                executorService(), updateScheduled, metricRegistry);
         this.routerEngine.set(engineUpdater.getNewEngine());
 
         // TODO: This class needs lifecycle management to avoid leaking objects in the EventBus
@@ -73,19 +96,29 @@ public class StreamRouter {
     @Subscribe
     @SuppressWarnings("unused")
     public void handleStreamsUpdate(StreamsChangedEvent event) {
-        scheduler.submit(engineUpdater);
+        engineUpdater.addChangedStreams(event.streamIds());
+        scheduleUpdate();
     }
 
     @Subscribe
     @SuppressWarnings("unused")
     public void handleIndexSetCreation(IndexSetCreatedEvent event) {
-        scheduler.submit(engineUpdater);
+        engineUpdater.requestFullReload();
+        scheduleUpdate();
     }
 
     @Subscribe
     @SuppressWarnings("unused")
     public void handleIndexSetDeletion(IndexSetDeletedEvent event) {
-        scheduler.submit(engineUpdater);
+        engineUpdater.requestFullReload();
+        scheduleUpdate();
+    }
+
+    private void scheduleUpdate() {
+        // Changes which arrive while an update is scheduled are picked up by that update
+        if (updateScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(engineUpdater, reloadDelay.toMilliseconds(), TimeUnit.MILLISECONDS);
+        }
     }
 
     private ExecutorService executorService() {
@@ -109,31 +142,78 @@ public class StreamRouter {
         private final StreamRouterEngine.Factory engineFactory;
         private final StreamService streamService;
         private final ExecutorService executorService;
+        private final AtomicBoolean updateScheduled;
+        private final Set<String> changedStreamIds = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean fullReload = new AtomicBoolean(false);
+        private final Timer updateTimer;
+        private final Meter fullReloads;
+        private final Meter incrementalReloads;
 
         public StreamRouterEngineUpdater(AtomicReference<StreamRouterEngine> routerEngine,
                                          StreamRouterEngine.Factory engineFactory,
                                          StreamService streamService,
-                                         ExecutorService executorService) {
+                                         ExecutorService executorService,
+                                         AtomicBoolean updateScheduled,
+                                         MetricRegistry metricRegistry) {
             this.routerEngine = routerEngine;
             this.engineFactory = engineFactory;
             this.streamService = streamService;
             this.executorService = executorService;
+            this.updateScheduled = updateScheduled;
+            this.updateTimer = metricRegistry.timer(name(StreamRouter.class, "engine-update-time"));
+            this.fullReloads = metricRegistry.meter(name(StreamRouter.class, "engine-full-reloads"));
+            this.incrementalReloads = metricRegistry.meter(name(StreamRouter.class, "engine-incremental-reloads"));
+        }
+
+        void addChangedStreams(Set<String> streamIds) {
+            if (streamIds.isEmpty() || !streamIds.stream().allMatch(ObjectId::isValid)) {
+                requestFullReload();
+            } else {
+                changedStreamIds.addAll(streamIds);
+            }
+        }
+
+        void requestFullReload() {
+            fullReload.set(true);
         }
 
         @Override
-        public void run() {
-            try {
-                final StreamRouterEngine engine = getNewEngine();
-
-                if (engine.getFingerprint().equals(routerEngine.get().getFingerprint())) {
-                    LOG.debug("Not updating router engine, streams did not change (fingerprint={})", engine.getFingerprint());
-                } else {
-                    LOG.debug("Updating to new stream router engine. (old-fingerprint={} new-fingerprint={}",
-                            routerEngine.get().getFingerprint(), engine.getFingerprint());
+        public synchronized void run() {
+            // Reset before collecting the changes, so changes which arrive during the update schedule another one
+            updateScheduled.set(false);
+            final boolean full = fullReload.getAndSet(false);
+            final Set<String> streamIds = new HashSet<>(changedStreamIds);
+            changedStreamIds.removeAll(streamIds);
+
+            try (final Timer.Context ignored = updateTimer.time()) {
+                if (full) {
+                    fullReloads.mark();
+                    final StreamRouterEngine engine = getNewEngine();
+
+                    if (engine.getFingerprint().equals(routerEngine.get().getFingerprint())) {
+                        LOG.debug("Not updating router engine, streams did not change (fingerprint={})", engine.getFingerprint());
+                    } else {
+                        LOG.debug("Updating to new stream router engine. (old-fingerprint={} new-fingerprint={}",
+                                routerEngine.get().getFingerprint(), engine.getFingerprint());
+                        routerEngine.set(engine);
+                    }
+                } else if (!streamIds.isEmpty()) {
+                    incrementalReloads.mark();
+                    final Set<Stream> updatedStreams = streamService.loadByIds(streamIds).stream()
+                            .filter(stream -> !Boolean.TRUE.equals(stream.getDisabled()))
+                            .collect(Collectors.toSet());
+                    final Set<String> removedStreamIds = new HashSet<>(streamIds);
+                    updatedStreams.forEach(stream -> removedStreamIds.remove(stream.getId()));
+
+                    final StreamRouterEngine engine = routerEngine.get().withChangedStreams(updatedStreams, removedStreamIds);
+                    LOG.debug("Updating stream router engine for {} changed streams. (old-fingerprint={} new-fingerprint={}",
+                            streamIds.size(), routerEngine.get().getFingerprint(), engine.getFingerprint());
                     routerEngine.set(engine);
                 }
             } catch (Exception e) {
                 LOG.error("Stream router engine update failed!", e);
+                // Don't lose the changes, the next update rebuilds the engine from all streams
+                requestFullReload();
             }
         }
 
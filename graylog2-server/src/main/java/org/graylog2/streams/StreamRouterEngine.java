@@ -41,6 +41,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
@@ -61,6 +63,10 @@ public class StreamRouterEngine {
     private static final Logger LOG = LoggerFactory.getLogger(StreamRouterEngine.class);
     private static final String METER_NAME_CANNOT_REMOVE_DEFAULT = "cannotRemoveDefault";
 
+    private static final List<StreamRuleType> RULE_TYPE_ORDER = List.of(StreamRuleType.ALWAYS_MATCH, StreamRuleType.PRESENCE,
+            StreamRuleType.EXACT, StreamRuleType.MATCH_INPUT, StreamRuleType.GREATER, StreamRuleType.SMALLER,
+            StreamRuleType.CONTAINS, StreamRuleType.REGEX);
+
     private final EnumSet<StreamRuleType> ruleTypesNotNeedingFieldPresence = EnumSet.of(StreamRuleType.PRESENCE, StreamRuleType.EXACT, StreamRuleType.REGEX, StreamRuleType.ALWAYS_MATCH, StreamRuleType.CONTAINS, StreamRuleType.MATCH_INPUT);
     private final List<Stream> streams;
     private final StreamFaultManager streamFaultManager;
@@ -70,6 +76,7 @@ public class StreamRouterEngine {
     private final String fingerprint;
     private final Provider<Stream> defaultStreamProvider;
 
+    private final Map<String, List<Rule>> rulesByStream;
     private final List<Rule> rulesList;
     private final Counter cannotRemoveDefaultMeter;
 
@@ -93,63 +100,86 @@ public class StreamRouterEngine {
         this.defaultStreamProvider = defaultStreamProvider;
         this.cannotRemoveDefaultMeter = metricRegistry.counter(name(this.getClass(), METER_NAME_CANNOT_REMOVE_DEFAULT));
 
-        final List<Rule> alwaysMatchRules = Lists.newArrayList();
-        final List<Rule> presenceRules = Lists.newArrayList();
-        final List<Rule> exactRules = Lists.newArrayList();
-        final List<Rule> greaterRules = Lists.newArrayList();
-        final List<Rule> smallerRules = Lists.newArrayList();
-        final List<Rule> regexRules = Lists.newArrayList();
-        final List<Rule> containsRules = Lists.newArrayList();
-        final List<Rule> matchInputRules = Lists.newArrayList();
+        this.rulesByStream = buildRules(streams, Map.of());
+        this.rulesList = sortedRules(streams, rulesByStream);
+    }
+
+    private StreamRouterEngine(StreamRouterEngine previous, List<Stream> streams, Map<String, List<Rule>> reusableRules) {
+        this.streams = streams;
+        this.streamFaultManager = previous.streamFaultManager;
+        this.streamMetrics = previous.streamMetrics;
+        this.timeLimiter = previous.timeLimiter;
+        this.streamProcessingTimeout = streamFaultManager.getStreamProcessingTimeout();
+        this.fingerprint = new StreamListFingerprint(streams).getFingerprint();
+        this.defaultStreamProvider = previous.defaultStreamProvider;
+        this.cannotRemoveDefaultMeter = previous.cannotRemoveDefaultMeter;
+        this.rulesByStream = buildRules(streams, reusableRules);
+        this.rulesList = sortedRules(streams, rulesByStream);
+    }
 
+    /**
+     * Creates a new engine with the given stream changes applied. The rules of all streams which didn't change are
+     * taken over from this engine, only the rules of the updated streams are built again.
+     *
+     * @param updatedStreams   streams which have been created or changed
+     * @param removedStreamIds IDs of the streams which have been deleted or disabled
+     * @return the new engine
+     */
+    public StreamRouterEngine withChangedStreams(Collection<Stream> updatedStreams, Set<String> removedStreamIds) {
+        final Map<String, Stream> updatedById = Maps.newLinkedHashMap();
+        updatedStreams.forEach(stream -> updatedById.put(stream.getId(), stream));
+
+        final List<Stream> newStreams = Lists.newArrayListWithCapacity(streams.size() + updatedById.size());
+        for (final Stream stream : streams) {
+            if (removedStreamIds.contains(stream.getId())) {
+                continue;
+            }
+            // Keep the position of changed streams, new streams are added at the end
+            newStreams.add(updatedById.getOrDefault(stream.getId(), stream));
+        }
+        final Set<String> existingIds = Sets.newHashSet();
+        streams.forEach(stream -> existingIds.add(stream.getId()));
+        updatedById.values().stream()
+                .filter(stream -> !existingIds.contains(stream.getId()) && !removedStreamIds.contains(stream.getId()))
+                .forEach(newStreams::add);
+
+        final Map<String, List<Rule>> reusableRules = Maps.newHashMap(rulesByStream);
+        updatedById.keySet().forEach(reusableRules::remove);
+        removedStreamIds.forEach(reusableRules::remove);
+
+        return new StreamRouterEngine(this, newStreams, reusableRules);
+    }
+
+    private Map<String, List<Rule>> buildRules(List<Stream> streams, Map<String, List<Rule>> reusableRules) {
+        final Map<String, List<Rule>> rules = Maps.newHashMapWithExpectedSize(streams.size());
         for (Stream stream : streams) {
+            final List<Rule> existingRules = reusableRules.get(stream.getId());
+            if (existingRules != null) {
+                rules.put(stream.getId(), existingRules);
+                continue;
+            }
+            final List<Rule> streamRules = Lists.newArrayList();
             for (StreamRule streamRule : stream.getStreamRules()) {
-                final Rule rule;
                 try {
-                    rule = new Rule(stream, streamRule, stream.getMatchingType());
+                    streamRules.add(new Rule(stream, streamRule, stream.getMatchingType(), streamMetrics, streamFaultManager, timeLimiter));
                 } catch (InvalidStreamRuleTypeException e) {
                     LOG.warn("Invalid stream rule type. Skipping matching for this rule. " + e.getMessage(), e);
-                    continue;
-                }
-                switch (streamRule.getType()) {
-                    case ALWAYS_MATCH:
-                        alwaysMatchRules.add(rule);
-                        break;
-                    case PRESENCE:
-                        presenceRules.add(rule);
-                        break;
-                    case EXACT:
-                        exactRules.add(rule);
-                        break;
-                    case GREATER:
-                        greaterRules.add(rule);
-                        break;
-                    case SMALLER:
-                        smallerRules.add(rule);
-                        break;
-                    case REGEX:
-                        regexRules.add(rule);
-                        break;
-                    case CONTAINS:
-                        containsRules.add(rule);
-                        break;
-                    case MATCH_INPUT:
-                        matchInputRules.add(rule);
-                        break;
                 }
             }
+            rules.put(stream.getId(), streamRules);
         }
+        return rules;
+    }
 
-        final int size = alwaysMatchRules.size() + presenceRules.size() + exactRules.size() + greaterRules.size() + smallerRules.size() + containsRules.size() + regexRules.size() + matchInputRules.size();
-        this.rulesList = Lists.newArrayListWithCapacity(size);
-        this.rulesList.addAll(alwaysMatchRules);
-        this.rulesList.addAll(presenceRules);
-        this.rulesList.addAll(exactRules);
-        this.rulesList.addAll(matchInputRules);
-        this.rulesList.addAll(greaterRules);
-        this.rulesList.addAll(smallerRules);
-        this.rulesList.addAll(containsRules);
-        this.rulesList.addAll(regexRules);
+    // Rules are evaluated grouped by type, cheap rule types first
+    private static List<Rule> sortedRules(List<Stream> streams, Map<String, List<Rule>> rulesByStream) {
+        final List<Rule> rules = Lists.newArrayList();
+        for (Stream stream : streams) {
+            rules.addAll(rulesByStream.getOrDefault(stream.getId(), List.of()));
+        }
+        // The sort is stable, so the rules of each type keep the order of their streams
+        rules.sort(Comparator.comparingInt(rule -> RULE_TYPE_ORDER.indexOf(rule.getStreamRule().getType())));
+        return rules;
     }
 
     /**
@@ -260,7 +290,7 @@ public class StreamRouterEngine {
 
             for (final StreamRule streamRule : stream.getStreamRules()) {
                 try {
-                    final Rule rule = new Rule(stream, streamRule, stream.getMatchingType());
+                    final Rule rule = new Rule(stream, streamRule, stream.getMatchingType(), streamMetrics, streamFaultManager, timeLimiter);
                     match.addRule(rule);
                 } catch (InvalidStreamRuleTypeException e) {
                     LOG.warn("Invalid stream rule type. Skipping matching for this rule. " + e.getMessage(), e);
@@ -275,21 +305,29 @@ public class StreamRouterEngine {
         return matches;
     }
 
-    private class Rule {
+    // Static so rules which are taken over by a new engine don't keep the previous engine alive
+    private static class Rule {
         private final Stream stream;
         private final StreamRule rule;
         private final String streamId;
         private final String streamRuleId;
         private final StreamRuleMatcher matcher;
         private final Stream.MatchingType matchingType;
+        private final StreamMetrics streamMetrics;
+        private final StreamFaultManager streamFaultManager;
+        private final TimeLimiter timeLimiter;
 
-        public Rule(Stream stream, StreamRule rule, Stream.MatchingType matchingType) throws InvalidStreamRuleTypeException {
+        public Rule(Stream stream, StreamRule rule, Stream.MatchingType matchingType, StreamMetrics streamMetrics,
+                    StreamFaultManager streamFaultManager, TimeLimiter timeLimiter) throws InvalidStreamRuleTypeException {
             this.stream = stream;
             this.rule = rule;
             this.streamId = stream.getId();
             this.streamRuleId = rule.getId();
             this.matchingType = matchingType;
             this.matcher = StreamRuleMatcherFactory.build(rule.getType());
+            this.streamMetrics = streamMetrics;
+            this.streamFaultManager = streamFaultManager;
+            this.timeLimiter = timeLimiter;
         }
 
         public Stream.MatchingType getMatchingType() {
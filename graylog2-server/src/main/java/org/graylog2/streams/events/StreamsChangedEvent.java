@@ -21,10 +21,11 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableSet;
+import org.graylog2.events.CoalescingClusterEvent;
 
 @JsonAutoDetect
 @AutoValue
-public abstract class StreamsChangedEvent {
+public abstract class StreamsChangedEvent implements CoalescingClusterEvent<StreamsChangedEvent> {
     private static final String FIELD_STREAM_IDS = "stream_ids";
 
     @JsonProperty(FIELD_STREAM_IDS)
@@ -38,4 +39,9 @@ public abstract class StreamsChangedEvent {
     public static StreamsChangedEvent create(String streamId) {
         return create(ImmutableSet.of(streamId));
     }
+
+    @Override
+    public StreamsChangedEvent coalesce(StreamsChangedEvent other) {
+        return create(ImmutableSet.<String>builder().addAll(streamIds()).addAll(other.streamIds()).build());
+    }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.events.notifications;
+
+import com.github.joschi.jadconfig.util.Duration;
+import com.google.common.collect.ImmutableList;
+import org.graylog.events.JobSchedulerTestClock;
+import org.graylog.events.event.EventDto;
+import org.graylog.events.event.EventWithContext;
+import org.graylog.events.event.TestEvent;
+import org.graylog.events.processor.EventDefinition;
+import org.graylog.events.processor.EventDefinitionConfiguration;
+import org.graylog.scheduler.DBJobDefinitionService;
+import org.graylog.scheduler.DBJobTriggerService;
+import org.graylog.scheduler.JobDefinitionDto;
+import org.graylog.scheduler.JobTriggerDto;
+import org.graylog.scheduler.schedule.OnceJobSchedule;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.joda.time.DateTimeZone.UTC;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class EventNotificationHandlerTest {
+    private static final String NOTIFICATION_ID = "notification-1";
+    private static final String JOB_DEFINITION_ID = "job-definition-1";
+
+    private final JobSchedulerTestClock clock = new JobSchedulerTestClock(DateTime.parse("2024-01-01T00:00:00.000Z"));
+
+    @Mock
+    private DBJobDefinitionService jobDefinitionService;
+    @Mock
+    private DBJobTriggerService jobTriggerService;
+    @Mock
+    private DBNotificationService notificationService;
+    @Mock
+    private NotificationGracePeriodService notificationGracePeriodService;
+    @Mock
+    private EventDefinitionConfiguration eventDefinitionConfiguration;
+    @Mock
+    private EventDefinition eventDefinition;
+    @Mock
+    private JobDefinitionDto jobDefinition;
+    @Mock
+    private NotificationDto notification;
+    @Mock
+    private EventNotificationConfig notificationConfig;
+
+    @BeforeEach
+    void setUp() {
+        when(eventDefinition.id()).thenReturn("1");
+        when(eventDefinition.notifications()).thenReturn(ImmutableList.of(EventNotificationHandler.Config.builder()
+                .notificationId(NOTIFICATION_ID)
+                .build()));
+        when(jobDefinition.id()).thenReturn(JOB_DEFINITION_ID);
+        when(jobDefinitionService.getByConfigField(anyString(), eq(NOTIFICATION_ID))).thenReturn(Optional.of(jobDefinition));
+        when(notificationService.get(NOTIFICATION_ID)).thenReturn(Optional.of(notification));
+        when(notification.config()).thenReturn(notificationConfig);
+        when(notificationConfig.toJobTriggerData(any(EventDto.class)))
+                .thenAnswer(invocation -> EventNotificationExecutionJob.Data.builder().eventDto(invocation.getArgument(0)).build());
+        when(jobTriggerService.create(any(JobTriggerDto.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private EventNotificationHandler handler(Duration coalescingWindow) {
+        when(eventDefinitionConfiguration.getNotificationCoalescingWindow()).thenReturn(coalescingWindow);
+        return new EventNotificationHandler(jobDefinitionService, jobTriggerService, notificationService,
+                notificationGracePeriodService, clock, eventDefinitionConfiguration);
+    }
+
+    private List<EventWithContext> events(DateTime... timestamps) {
+        return Arrays.stream(timestamps)
+                .map(timestamp -> {
+                    final TestEvent event = new TestEvent(timestamp);
+                    event.setTimerangeStart(timestamp.minusMinutes(1));
+                    event.setTimerangeEnd(timestamp);
+                    return EventWithContext.create(event);
+                })
+                .toList();
+    }
+
+    @Test
+    void schedulesOneJobPerEventWithoutCoalescing() {
+        handler(Duration.seconds(0)).handleEvents(eventDefinition, events(clock.nowUTC(), clock.nowUTC(), clock.nowUTC()));
+
+        verify(jobTriggerService, times(3)).create(any(JobTriggerDto.class));
+        verify(jobTriggerService, never()).updatePendingTrigger(anyString(), any(), any());
+    }
+
+    @Test
+    void schedulesOneCoalescedJobForAllEvents() {
+        final DateTime first = new DateTime(2024, 1, 1, 0, 0, UTC);
+        final DateTime last = first.plusMinutes(5);
+        when(jobTriggerService.updatePendingTrigger(eq(JOB_DEFINITION_ID), any(), any())).thenReturn(Optional.empty());
+
+        handler(Duration.seconds(30)).handleEvents(eventDefinition, events(first.plusMinutes(2), first, last));
+
+        final ArgumentCaptor<JobTriggerDto> triggerCaptor = ArgumentCaptor.forClass(JobTriggerDto.class);
+        verify(jobTriggerService, times(1)).create(triggerCaptor.capture());
+
+        final JobTriggerDto trigger = triggerCaptor.getValue();
+        assertThat(trigger.jobDefinitionId()).isEqualTo(JOB_DEFINITION_ID);
+        assertThat(trigger.nextTime()).isEqualTo(clock.nowUTC().plusSeconds(30));
+        assertThat(trigger.data()).get().isInstanceOfSatisfying(EventNotificationExecutionJob.Data.class, data -> {
+            assertThat(data.eventDto().eventTimestamp()).isEqualTo(first.plusMinutes(2));
+            assertThat(data.coalescedEvents()).isEqualTo(2);
+            assertThat(data.coalescedTimerangeStart()).isEqualTo(first.minusMinutes(1));
+            assertThat(data.coalescedTimerangeEnd()).isEqualTo(last);
+        });
+    }
+
+    @Test
+    void addsEventsToPendingCoalescedJob() {
+        when(jobTriggerService.updatePendingTrigger(eq(JOB_DEFINITION_ID), any(), any()))
+                .thenReturn(Optional.of(JobTriggerDto.builder()
+                        .id("trigger-1")
+                        .jobDefinitionId(JOB_DEFINITION_ID)
+                        .jobDefinitionType(EventNotificationExecutionJob.TYPE_NAME)
+                        .schedule(OnceJobSchedule.create())
+                        .build()));
+
+        handler(Duration.seconds(30)).handleEvents(eventDefinition, events(clock.nowUTC(), clock.nowUTC()));
+
+        verify(jobTriggerService, times(1)).updatePendingTrigger(eq(JOB_DEFINITION_ID), any(), any());
+        verify(jobTriggerService, never()).create(any(JobTriggerDto.class));
+    }
+
+    @Test
+    void skipsEventsInGracePeriod() {
+        when(notificationGracePeriodService.inGracePeriod(any(), eq(NOTIFICATION_ID), any())).thenReturn(true);
+
+        handler(Duration.seconds(30)).handleEvents(eventDefinition, events(clock.nowUTC(), clock.nowUTC()));
+
+        verify(jobTriggerService, never()).updatePendingTrigger(anyString(), any(), any());
+        verify(jobTriggerService, never()).create(any(JobTriggerDto.class));
+    }
+}
@@ -31,7 +31,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -49,6 +51,50 @@ public class DBEventProcessorStateServiceTest {
         stateService = new DBEventProcessorStateService(mongoCollections);
     }
 
+    @Test
+    public void aggregationSlices() {
+        final DateTime now = DateTime.now(DateTimeZone.UTC);
+        final EventProcessorStateDto.AggregationSlices slices = new EventProcessorStateDto.AggregationSlices("fingerprint", List.of(
+                new EventProcessorStateDto.AggregationSlice(now.minusMinutes(1), now, Set.of("stream-1"), List.of(
+                        new EventProcessorStateDto.AggregationSliceRow(List.of("a", "b"), List.of(1.0, 2.5))))));
+
+        // Slices are only stored for existing state records
+        assertThat(stateService.setAggregationSlices("abc123", slices)).isFalse();
+        assertThat(stateService.getAggregationSlices("abc123")).isEmpty();
+
+        stateService.setState("abc123", now.minusHours(1), now);
+        assertThat(stateService.setAggregationSlices("abc123", slices)).isTrue();
+        assertThat(stateService.getAggregationSlices("abc123")).contains(slices);
+
+        // Updating the processed timestamps keeps the slices
+        stateService.setState("abc123", now.minusHours(1), now.plusMinutes(1));
+        assertThat(stateService.getAggregationSlices("abc123")).contains(slices);
+
+        assertThat(stateService.setAggregationSlices("abc123", null)).isTrue();
+        assertThat(stateService.getAggregationSlices("abc123")).isEmpty();
+    }
+
+    @Test
+    public void streamingGap() {
+        final DateTime now = DateTime.now(DateTimeZone.UTC);
+
+        // Gaps are only stored for existing state records
+        stateService.addStreamingGap("abc123", new EventProcessorStateDto.StreamingGap(now.minusMinutes(2), now.minusMinutes(1)));
+        assertThat(stateService.findByEventDefinitionId("abc123")).isEmpty();
+
+        stateService.setState("abc123", now.minusHours(1), now);
+        stateService.addStreamingGap("abc123", new EventProcessorStateDto.StreamingGap(now.minusMinutes(2), now.minusMinutes(1)));
+        stateService.addStreamingGap("abc123", new EventProcessorStateDto.StreamingGap(now.minusMinutes(3), now.minusMinutes(2)));
+        assertThat(stateService.findByEventDefinitionId("abc123").map(EventProcessorStateDto::streamingGap))
+                .contains(new EventProcessorStateDto.StreamingGap(now.minusMinutes(3), now.minusMinutes(1)));
+
+        // Only gaps which end before the given timestamp are removed
+        stateService.removeStreamingGapBefore("abc123", now.minusMinutes(1));
+        assertThat(stateService.findByEventDefinitionId("abc123").map(EventProcessorStateDto::streamingGap)).isPresent();
+        stateService.removeStreamingGapBefore("abc123", now);
+        assertThat(stateService.findByEventDefinitionId("abc123").map(EventProcessorStateDto::streamingGap)).isEmpty();
+    }
+
     @Test
     public void persistence() {
         final DateTime now = DateTime.now(DateTimeZone.UTC);
@@ -65,6 +65,7 @@ import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.graylog2.plugin.streams.Stream.NON_MESSAGE_STREAM_IDS;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -96,6 +97,10 @@ public class AggregationEventProcessorTest {
     private NotificationService notificationService;
     @Mock
     private StreamService streamService;
+    @Mock
+    private StreamingFilterEvaluator streamingFilterEvaluator;
+    @Mock
+    private IncrementalAggregation incrementalAggregation;
 
     private PermittedStreams permittedStreams;
     private EventStreamService eventStreamService;
@@ -140,7 +145,7 @@ public class AggregationEventProcessorTest {
                 .build();
 
         final AggregationEventProcessor eventProcessor = new AggregationEventProcessor(eventDefinitionDto, searchFactory,
-                eventProcessorDependencyCheck, stateService, moreSearch, eventStreamService, messages, permittedStreams, Set.of(), messageFactory);
+                eventProcessorDependencyCheck, stateService, moreSearch, eventStreamService, messages, permittedStreams, Set.of(), messageFactory, streamingFilterEvaluator, incrementalAggregation);
 
         assertThatCode(() -> eventProcessor.createEvents(eventFactory, parameters, (events) -> {})).doesNotThrowAnyException();
 
@@ -156,6 +161,48 @@ public class AggregationEventProcessorTest {
         verify(searchFactory, never()).create(eq(config), eq(parameters), any(AggregationSearch.User.class), eq(eventDefinitionDto), eq(List.of()));
     }
 
+    @Test
+    public void createEventsSkipsSearchForStreamedFilter() throws Exception {
+        when(eventProcessorDependencyCheck.hasMessagesIndexedUpTo(any(TimeRange.class))).thenReturn(true);
+
+        final DateTime now = DateTime.now(DateTimeZone.UTC);
+        final AbsoluteRange timerange = AbsoluteRange.create(now.minusHours(1), now.minusHours(1).plusMillis(SEARCH_WINDOW_MS));
+        final EventDefinitionDto eventDefinitionDto = buildEventDefinitionDto(ImmutableSet.of(), ImmutableList.of(), null, emptyList());
+        final AggregationEventProcessorParameters parameters = AggregationEventProcessorParameters.builder()
+                .timerange(timerange)
+                .build();
+        when(streamingFilterEvaluator.covers(eventDefinitionDto, timerange)).thenReturn(true);
+
+        final AggregationEventProcessor eventProcessor = new AggregationEventProcessor(eventDefinitionDto, searchFactory,
+                eventProcessorDependencyCheck, stateService, moreSearch, eventStreamService, messages, permittedStreams, Set.of(), messageFactory, streamingFilterEvaluator, incrementalAggregation);
+
+        assertThatCode(() -> eventProcessor.createEvents(eventFactory, parameters.forScheduledExecution(), (events) -> {})).doesNotThrowAnyException();
+
+        verify(moreSearch, never()).scrollQuery(any(), any(), any(), any(), any(), anyInt(), any());
+        verify(stateService, times(1)).setState("dto-id-1", timerange.from(), timerange.to());
+    }
+
+    @Test
+    public void createEventsSearchesStreamedFilterForManualExecution() throws Exception {
+        when(eventProcessorDependencyCheck.hasMessagesIndexedUpTo(any(TimeRange.class))).thenReturn(true);
+        when(streamService.getSystemStreamIds(false)).thenReturn(NON_MESSAGE_STREAM_IDS);
+
+        final DateTime now = DateTime.now(DateTimeZone.UTC);
+        final AbsoluteRange timerange = AbsoluteRange.create(now.minusHours(1), now.minusHours(1).plusMillis(SEARCH_WINDOW_MS));
+        final EventDefinitionDto eventDefinitionDto = buildEventDefinitionDto(ImmutableSet.of(), ImmutableList.of(), null, emptyList());
+        final AggregationEventProcessorParameters parameters = AggregationEventProcessorParameters.builder()
+                .timerange(timerange)
+                .build();
+
+        final AggregationEventProcessor eventProcessor = new AggregationEventProcessor(eventDefinitionDto, searchFactory,
+                eventProcessorDependencyCheck, stateService, moreSearch, eventStreamService, messages, permittedStreams, Set.of(), messageFactory, streamingFilterEvaluator, incrementalAggregation);
+
+        assertThatCode(() -> eventProcessor.createEvents(eventFactory, parameters, (events) -> {})).doesNotThrowAnyException();
+
+        verify(streamingFilterEvaluator, never()).covers(any(), any());
+        verify(moreSearch, times(1)).scrollQuery(any(), any(), any(), any(), any(), anyInt(), any());
+    }
+
     @Test
     public void createEventsWithoutRequiredMessagesBeingIndexed() throws Exception {
         final DateTime now = DateTime.now(DateTimeZone.UTC);
@@ -176,7 +223,7 @@ public class AggregationEventProcessorTest {
                 .build();
 
         final AggregationEventProcessor eventProcessor = new AggregationEventProcessor(eventDefinitionDto, searchFactory,
-                eventProcessorDependencyCheck, stateService, moreSearch, eventStreamService, messages, permittedStreams, Set.of(), messageFactory);
+                eventProcessorDependencyCheck, stateService, moreSearch, eventStreamService, messages, permittedStreams, Set.of(), messageFactory, streamingFilterEvaluator, incrementalAggregation);
 
         // If the dependency check returns true, there should be no exception raised and the state service should be called
         when(eventProcessorDependencyCheck.hasMessagesIndexedUpTo(timerange)).thenReturn(true);
@@ -291,7 +338,7 @@ public class AggregationEventProcessorTest {
         final EventDefinitionDto eventDefinitionDto = buildEventDefinitionDto(ImmutableSet.of(), ImmutableList.of(series), null, filters);
         final AggregationEventProcessor eventProcessor = new AggregationEventProcessor(
                 eventDefinitionDto, searchFactory, eventProcessorDependencyCheck, stateService, moreSearch,
-                eventStreamService, messages, permittedStreams, Set.of(), messageFactory);
+                eventStreamService, messages, permittedStreams, Set.of(), messageFactory, streamingFilterEvaluator, incrementalAggregation);
 
         eventProcessor.sourceMessagesForEvent(event, messageConsumer, batchLimit);
     }
@@ -84,6 +84,8 @@ public class AggregationSearchUtilsTest {
     private StreamService streamService;
     @Mock
     private EventFactory eventFactory;
+    @Mock
+    private IncrementalAggregation incrementalAggregation;
 
     private PermittedStreams permittedStreams;
     private EventStreamService eventStreamService;
@@ -130,7 +132,8 @@ public class AggregationSearchUtilsTest {
                 searchFactory,
                 eventStreamService,
                 messageFactory,
-                permittedStreams
+                permittedStreams,
+                incrementalAggregation
         );
 
         final AggregationResult result = AggregationResult.builder()
@@ -241,7 +244,8 @@ public class AggregationSearchUtilsTest {
                 searchFactory,
                 eventStreamService,
                 messageFactory,
-                permittedStreams
+                permittedStreams,
+                incrementalAggregation
         );
 
         final AggregationResult result = AggregationResult.builder()
@@ -327,7 +331,8 @@ public class AggregationSearchUtilsTest {
                 searchFactory,
                 eventStreamService,
                 messageFactory,
-                permittedStreams
+                permittedStreams,
+                incrementalAggregation
         );
 
         final AggregationResult result = AggregationResult.builder()
@@ -443,7 +448,8 @@ public class AggregationSearchUtilsTest {
                 searchFactory,
                 eventStreamService,
                 messageFactory,
-                permittedStreams
+                permittedStreams,
+                incrementalAggregation
         );
 
         final AggregationResult result = AggregationResult.builder()
@@ -535,7 +541,8 @@ public class AggregationSearchUtilsTest {
                 searchFactory,
                 eventStreamService,
                 messageFactory,
-                permittedStreams
+                permittedStreams,
+                incrementalAggregation
         );
         final AggregationResult result = buildAggregationResult(timerange, timerange.to(), ImmutableList.of("one", "two"));
         final ImmutableList<EventWithContext> eventsWithContext = searchUtils.eventsFromAggregationResult(eventFactory, parameters, result, (event) -> {});
@@ -598,7 +605,8 @@ public class AggregationSearchUtilsTest {
                 searchFactory,
                 eventStreamService,
                 messageFactory,
-                permittedStreams
+                permittedStreams,
+                incrementalAggregation
         );
         final AggregationResult result = buildAggregationResult(timerange, timerange.to(), ImmutableList.of("one", "two"));
         final ImmutableList<EventWithContext> eventsWithContext = searchUtils.eventsFromAggregationResult(eventFactory, parameters, result, (event) -> {});
@@ -652,7 +660,8 @@ public class AggregationSearchUtilsTest {
                 searchFactory,
                 eventStreamService,
                 messageFactory,
-                permittedStreams
+                permittedStreams,
+                incrementalAggregation
         );
 
         final AggregationResult result = AggregationResult.builder()
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.events.processor.aggregation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.graylog.events.processor.DBEventProcessorStateService;
+import org.graylog.events.processor.EventDefinition;
+import org.graylog.events.processor.EventDefinitionConfiguration;
+import org.graylog.events.processor.EventProcessorStateDto.AggregationSlice;
+import org.graylog.events.processor.EventProcessorStateDto.AggregationSliceRow;
+import org.graylog.events.processor.EventProcessorStateDto.AggregationSlices;
+import org.graylog.plugins.views.search.searchtypes.pivot.SeriesSpec;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Cardinality;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Count;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Max;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IncrementalAggregationTest {
+    private static final long MINUTE = 60_000;
+    private static final DateTime START = new DateTime(2024, 1, 1, 12, 0, DateTimeZone.UTC);
+    private static final Count COUNT = Count.builder().id("count-1").build();
+    private static final AggregationSearch.User OWNER = new AggregationSearch.User("owner", DateTimeZone.UTC);
+
+    @Mock
+    private EventDefinitionConfiguration configuration;
+    @Mock
+    private DBEventProcessorStateService stateService;
+    @Mock
+    private AggregationSearch.Factory searchFactory;
+    @Mock
+    private AggregationSearch search;
+    @Mock
+    private EventDefinition eventDefinition;
+
+    private IncrementalAggregation incrementalAggregation;
+
+    @BeforeEach
+    void setUp() {
+        when(configuration.isIncrementalAggregationEnabled()).thenReturn(true);
+        incrementalAggregation = new IncrementalAggregation(configuration, stateService);
+    }
+
+    private static AggregationEventProcessorConfig config(List<SeriesSpec> series, List<String> groupBy) {
+        return AggregationEventProcessorConfig.builder()
+                .query("")
+                .streams(ImmutableSet.of("stream-1"))
+                .groupBy(groupBy)
+                .series(series)
+                .conditions(null)
+                .searchWithinMs(3 * MINUTE)
+                .executeEveryMs(MINUTE)
+                .build();
+    }
+
+    private static AggregationEventProcessorParameters parameters(DateTime from, DateTime to) {
+        return AggregationEventProcessorParameters.builder()
+                .timerange(AbsoluteRange.create(from, to))
+                .build();
+    }
+
+    private static AggregationKeyResult countResult(DateTime timestamp, double count) {
+        return AggregationKeyResult.builder()
+                .key(ImmutableList.of())
+                .timestamp(timestamp)
+                .seriesValues(ImmutableList.of(AggregationSeriesValue.builder()
+                        .series(COUNT)
+                        .key(ImmutableList.of())
+                        .value(count)
+                        .build()))
+                .build();
+    }
+
+    private static AggregationSlice countSlice(DateTime from, double count) {
+        return new AggregationSlice(from, from.plus(MINUTE), Set.of("stream-1"),
+                List.of(new AggregationSliceRow(List.of(), List.of(count))));
+    }
+
+    private void searchReturns(AggregationKeyResult... keyResults) throws Exception {
+        when(searchFactory.create(any(), any(), any(), any(), anyList())).thenReturn(search);
+        when(search.doSearch()).thenReturn(AggregationResult.builder()
+                .keyResults(List.of(keyResults))
+                .effectiveTimerange(AbsoluteRange.create(START, START.plus(MINUTE)))
+                .totalAggregatedMessages(0)
+                .sourceStreams(Set.of("stream-1"))
+                .build());
+    }
+
+    @Test
+    void searchesAllSlicesWithoutStoredState() throws Exception {
+        final AggregationEventProcessorConfig config = config(List.of(COUNT), List.of());
+        when(eventDefinition.id()).thenReturn("definition-1");
+        when(stateService.getAggregationSlices("definition-1")).thenReturn(Optional.empty());
+        searchReturns(
+                countResult(START.plus(MINUTE), 1),
+                countResult(START.plus(2 * MINUTE), 2),
+                countResult(START.plus(3 * MINUTE), 3));
+
+        final AggregationResult result = incrementalAggregation.search(eventDefinition, config,
+                parameters(START, START.plus(3 * MINUTE)), OWNER, searchFactory);
+
+        assertThat(result.keyResults()).hasSize(1);
+        assertThat(result.keyResults().get(0).timestamp()).contains(START.plus(3 * MINUTE));
+        assertThat(result.keyResults().get(0).seriesValues().get(0).value()).isEqualTo(6);
+
+        final ArgumentCaptor<AggregationEventProcessorConfig> configCaptor = ArgumentCaptor.forClass(AggregationEventProcessorConfig.class);
+        final ArgumentCaptor<AggregationEventProcessorParameters> parametersCaptor = ArgumentCaptor.forClass(AggregationEventProcessorParameters.class);
+        verify(searchFactory).create(configCaptor.capture(), parametersCaptor.capture(), eq(OWNER), eq(eventDefinition), eq(List.of()));
+        assertThat(configCaptor.getValue().searchWithinMs()).isEqualTo(MINUTE);
+        assertThat(parametersCaptor.getValue().timerange()).isEqualTo(AbsoluteRange.create(START, START.plus(3 * MINUTE)));
+
+        // Only the slices which are part of the next window are kept
+        final ArgumentCaptor<AggregationSlices> slicesCaptor = ArgumentCaptor.forClass(AggregationSlices.class);
+        verify(stateService).setAggregationSlices(eq("definition-1"), slicesCaptor.capture());
+        assertThat(slicesCaptor.getValue().fingerprint()).isEqualTo(IncrementalAggregation.fingerprint(config));
+        assertThat(slicesCaptor.getValue().slices())
+                .extracting(AggregationSlice::from)
+                .containsExactly(START.plus(MINUTE), START.plus(2 * MINUTE));
+    }
+
+    @Test
+    void onlySearchesNewSlices() throws Exception {
+        final AggregationEventProcessorConfig config = config(List.of(COUNT), List.of());
+        when(eventDefinition.id()).thenReturn("definition-1");
+        when(stateService.getAggregationSlices("definition-1")).thenReturn(Optional.of(new AggregationSlices(
+                IncrementalAggregation.fingerprint(config),
+                List.of(countSlice(START.plus(MINUTE), 2), countSlice(START.plus(2 * MINUTE), 3)))));
+        searchReturns(countResult(START.plus(4 * MINUTE), 4));
+
+        final AggregationResult result = incrementalAggregation.search(eventDefinition, config,
+                parameters(START.plus(MINUTE), START.plus(4 * MINUTE)), OWNER, searchFactory);
+
+        assertThat(result.keyResults()).hasSize(1);
+        assertThat(result.keyResults().get(0).seriesValues().get(0).value()).isEqualTo(9);
+
+        final ArgumentCaptor<AggregationEventProcessorParameters> parametersCaptor = ArgumentCaptor.forClass(AggregationEventProcessorParameters.class);
+        verify(searchFactory).create(any(), parametersCaptor.capture(), any(), any(), anyList());
+        assertThat(parametersCaptor.getValue().timerange()).isEqualTo(AbsoluteRange.create(START.plus(3 * MINUTE), START.plus(4 * MINUTE)));
+    }
+
+    @Test
+    void ignoresSlicesOfDifferentConfig() throws Exception {
+        final AggregationEventProcessorConfig config = config(List.of(COUNT), List.of());
+        when(eventDefinition.id()).thenReturn("definition-1");
+        when(stateService.getAggregationSlices("definition-1")).thenReturn(Optional.of(new AggregationSlices(
+                "outdated",
+                List.of(countSlice(START.plus(MINUTE), 2), countSlice(START.plus(2 * MINUTE), 3)))));
+        searchReturns(countResult(START.plus(4 * MINUTE), 4));
+
+        incrementalAggregation.search(eventDefinition, config,
+                parameters(START.plus(MINUTE), START.plus(4 * MINUTE)), OWNER, searchFactory);
+
+        final ArgumentCaptor<AggregationEventProcessorParameters> parametersCaptor = ArgumentCaptor.forClass(AggregationEventProcessorParameters.class);
+        verify(searchFactory).create(any(), parametersCaptor.capture(), any(), any(), anyList());
+        assertThat(parametersCaptor.getValue().timerange()).isEqualTo(AbsoluteRange.create(START.plus(MINUTE), START.plus(4 * MINUTE)));
+    }
+
+    @Test
+    void combinesSlicesPerWindowAndGroup() {
+        final Max max = Max.builder().id("max-1").field("took_ms").build();
+        final AggregationEventProcessorConfig config = config(List.of(COUNT, max), List.of("host"));
+        final TreeMap<Long, AggregationSlice> slices = new TreeMap<>();
+        final List<AggregationSlice> sliceList = List.of(
+                new AggregationSlice(START, START.plus(MINUTE), Set.of("stream-1"), List.of(
+                        new AggregationSliceRow(List.of("a"), List.of(1.0, 10.0)))),
+                new AggregationSlice(START.plus(MINUTE), START.plus(2 * MINUTE), Set.of("stream-1"), List.of(
+                        new AggregationSliceRow(List.of("a"), List.of(2.0, 5.0)),
+                        new AggregationSliceRow(List.of("b"), List.of(1.0, Double.NaN)))),
+                new AggregationSlice(START.plus(2 * MINUTE), START.plus(3 * MINUTE), Set.of(), List.of()),
+                new AggregationSlice(START.plus(3 * MINUTE), START.plus(4 * MINUTE), Set.of("stream-1"), List.of(
+                        new AggregationSliceRow(List.of("b"), List.of(4.0, 7.0)))));
+        sliceList.forEach(slice -> slices.put(slice.from().getMillis(), slice));
+
+        final AggregationResult result = IncrementalAggregation.combine(config, AbsoluteRange.create(START, START.plus(4 * MINUTE)), slices);
+
+        assertThat(result.sourceStreams()).containsExactly("stream-1");
+        assertThat(result.keyResults()).hasSize(4);
+        final Map<String, List<Double>> firstWindow = Map.of(
+                "a", List.of(3.0, 10.0),
+                "b", List.of(1.0, Double.NaN));
+        final Map<String, List<Double>> secondWindow = Map.of(
+                "a", List.of(2.0, 5.0),
+                "b", List.of(5.0, 7.0));
+        result.keyResults().forEach(keyResult -> {
+            final DateTime timestamp = keyResult.timestamp().orElseThrow();
+            final Map<String, List<Double>> expected = timestamp.equals(START.plus(3 * MINUTE)) ? firstWindow : secondWindow;
+            assertThat(keyResult.seriesValues())
+                    .extracting(AggregationSeriesValue::value)
+                    .containsExactlyElementsOf(expected.get(keyResult.key().get(0)));
+        });
+    }
+
+    @Test
+    void returnsRowsForEmptyWindowsWithoutGroupBy() {
+        final AggregationEventProcessorConfig config = config(List.of(COUNT), List.of());
+
+        final AggregationResult result = IncrementalAggregation.combine(config, AbsoluteRange.create(START, START.plus(3 * MINUTE)), new TreeMap<>());
+
+        assertThat(result.keyResults()).hasSize(1);
+        assertThat(result.keyResults().get(0).seriesValues().get(0).value()).isEqualTo(0);
+    }
+
+    @Test
+    void onlyCombinableAggregationsAreEligible() {
+        final AggregationEventProcessorParameters parameters = parameters(START, START.plus(3 * MINUTE));
+
+        assertThat(incrementalAggregation.isEligible(config(List.of(COUNT), List.of()), parameters, false)).isTrue();
+        assertThat(incrementalAggregation.isEligible(config(List.of(COUNT), List.of()), parameters, true)).isFalse();
+        assertThat(incrementalAggregation.isEligible(config(List.of(Cardinality.builder().id("card-1").field("user").build()), List.of()), parameters, false)).isFalse();
+        assertThat(incrementalAggregation.isEligible(config(List.of(COUNT), List.of()), parameters(START, START.plus(MINUTE / 2 * 5)), false)).isFalse();
+        assertThat(incrementalAggregation.isEligible(config(List.of(COUNT), List.of()).toBuilder().searchWithinMs(MINUTE).build(), parameters, false)).isFalse();
+    }
+}
@@ -99,6 +99,8 @@ public class PivotAggregationSearchTest {
     private StreamService streamService;
     @Mock
     private SearchNormalization searchNormalization;
+    @Mock
+    private SharedAggregationSearchExecutor sharedSearchExecutor;
 
     private final PermittedStreams permittedStreams = new PermittedStreams(Stream::of, (categories) -> Stream.of(), () -> NON_EDITABLE_STREAM_IDS);
 
@@ -583,6 +585,7 @@ public class PivotAggregationSearchTest {
                 queryStringDecorators,
                 streamService,
                 searchNormalization,
+                sharedSearchExecutor,
                 false
         );
     }
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.events.processor.aggregation;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.joschi.jadconfig.util.Duration;
+import com.google.common.collect.ImmutableSet;
+import org.graylog.events.EventsConfigurationTestProvider;
+import org.graylog.events.processor.EventDefinition;
+import org.graylog.events.processor.EventDefinitionConfiguration;
+import org.graylog.events.processor.EventProcessorException;
+import org.graylog.plugins.views.search.Query;
+import org.graylog.plugins.views.search.QueryResult;
+import org.graylog.plugins.views.search.Search;
+import org.graylog.plugins.views.search.SearchJob;
+import org.graylog.plugins.views.search.SearchType;
+import org.graylog.plugins.views.search.db.SearchJobService;
+import org.graylog.plugins.views.search.elasticsearch.ElasticsearchQueryString;
+import org.graylog.plugins.views.search.engine.QueryEngine;
+import org.graylog.plugins.views.search.errors.SearchTypeError;
+import org.graylog.plugins.views.search.searchtypes.pivot.Pivot;
+import org.graylog.plugins.views.search.searchtypes.pivot.PivotResult;
+import org.graylog.plugins.views.search.searchtypes.pivot.buckets.Values;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Count;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SharedAggregationSearchExecutorTest {
+    private static final String QUERY_ID = "query-1";
+    private static final String PIVOT_ID = "pivot-1";
+    private static final AbsoluteRange TIMERANGE = AbsoluteRange.create("2024-01-01T00:00:00.000Z", "2024-01-01T00:01:00.000Z");
+
+    @Mock
+    private SearchJobService searchJobService;
+    @Mock
+    private QueryEngine queryEngine;
+    @Mock
+    private EventDefinitionConfiguration eventDefinitionConfiguration;
+    @Mock
+    private EventDefinition eventDefinition;
+
+    private final AggregationSearch.User user = new AggregationSearch.User("test", DateTimeZone.UTC);
+    private SharedAggregationSearchExecutor executor;
+    private boolean answerWithResults = true;
+
+    @BeforeEach
+    void setUp() {
+        when(eventDefinitionConfiguration.getSharedSearchWindow()).thenReturn(Duration.milliseconds(300));
+        executor = new SharedAggregationSearchExecutor(searchJobService, queryEngine, EventsConfigurationTestProvider.create(),
+                eventDefinitionConfiguration, new MetricRegistry());
+
+        when(searchJobService.create(any(), eq("test"), eq(SearchJob.NO_CANCELLATION)))
+                .thenAnswer(invocation -> new SearchJob("job", invocation.getArgument(0), "test", "node"));
+        when(queryEngine.execute(any(), anySet(), any()))
+                .thenAnswer(invocation -> completeWithPivotResults(invocation.getArgument(0)));
+    }
+
+    @Test
+    void executesSearchesOfTheSameQueryAsOneSearchJob() {
+        final CompletableFuture<Map<String, QueryResult>> oneGroup = executeAsync(search("source:foo", "host"));
+        final CompletableFuture<Map<String, QueryResult>> twoGroups = executeAsync(search("source:foo", "host", "source"));
+
+        assertThat(pivotResult(oneGroup.join()).total()).isEqualTo(1);
+        assertThat(pivotResult(twoGroups.join()).total()).isEqualTo(2);
+        assertThat(oneGroup.join().get(QUERY_ID).searchTypes()).containsOnlyKeys(PIVOT_ID);
+
+        verify(queryEngine, times(1)).execute(any(), anySet(), any());
+    }
+
+    @Test
+    void executesSearchesOfDifferentQueriesSeparately() {
+        final CompletableFuture<Map<String, QueryResult>> foo = executeAsync(search("source:foo", "host"));
+        final CompletableFuture<Map<String, QueryResult>> bar = executeAsync(search("source:bar", "host", "source"));
+
+        assertThat(pivotResult(foo.join()).total()).isEqualTo(1);
+        assertThat(pivotResult(bar.join()).total()).isEqualTo(2);
+
+        verify(queryEngine, times(2)).execute(any(), anySet(), any());
+    }
+
+    @Test
+    void reportsMissingPivotResultAsError() {
+        answerWithResults = false;
+        final CompletableFuture<Map<String, QueryResult>> oneGroup = executeAsync(search("source:foo", "host"));
+        final CompletableFuture<Map<String, QueryResult>> twoGroups = executeAsync(search("source:foo", "host", "source"));
+
+        for (CompletableFuture<Map<String, QueryResult>> results : List.of(oneGroup, twoGroups)) {
+            final QueryResult queryResult = results.join().get(QUERY_ID);
+            assertThat(queryResult.searchTypes()).isEmpty();
+            assertThat(queryResult.errors())
+                    .singleElement()
+                    .isInstanceOfSatisfying(SearchTypeError.class, error -> assertThat(error.searchTypeId()).isEqualTo(PIVOT_ID));
+        }
+    }
+
+    private CompletableFuture<Map<String, QueryResult>> executeAsync(Search search) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return executor.execute(search, QUERY_ID, PIVOT_ID, user, eventDefinition);
+            } catch (EventProcessorException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private static PivotResult pivotResult(Map<String, QueryResult> results) {
+        return (PivotResult) results.get(QUERY_ID).searchTypes().get(PIVOT_ID);
+    }
+
+    private static Search search(String queryString, String... groupBy) {
+        final Pivot pivot = Pivot.builder()
+                .id(PIVOT_ID)
+                .rollup(true)
+                .rowGroups(List.of(groupBy).stream()
+                        .map(field -> Values.builder().field(field).limit(10).build())
+                        .collect(Collectors.toList()))
+                .series(Count.builder().build())
+                .build();
+        final Query query = Query.builder()
+                .id(QUERY_ID)
+                .query(ElasticsearchQueryString.of(queryString))
+                .timerange(TIMERANGE)
+                .searchTypes(ImmutableSet.of(pivot))
+                .build();
+        return Search.builder().queries(ImmutableSet.of(query)).build();
+    }
+
+    // Answers every pivot with a result whose total is the number of its row groups
+    private SearchJob completeWithPivotResults(SearchJob searchJob) {
+        for (Query query : searchJob.getSearch().queries()) {
+            final Map<String, SearchType.Result> results = !answerWithResults ? Map.of() : query.searchTypes().stream()
+                    .collect(Collectors.toMap(SearchType::id, searchType -> PivotResult.builder()
+                            .id(searchType.id())
+                            .total(((Pivot) searchType).rowGroups().size())
+                            .columnNames(List.of())
+                            .effectiveTimerange(TIMERANGE)
+                            .build()));
+            searchJob.addQueryResultFuture(query.id(), CompletableFuture.completedFuture(QueryResult.builder()
+                    .query(query)
+                    .searchTypes(results)
+                    .build()));
+        }
+        return searchJob.seal();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.events.processor.aggregation;
+
+import org.graylog2.plugin.Message;
+import org.graylog2.plugin.MessageFactory;
+import org.graylog2.plugin.TestMessageFactory;
+import org.graylog2.plugin.streams.Stream;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StreamingFilterQueryCompilerTest {
+    private final MessageFactory messageFactory = new TestMessageFactory();
+
+    private Message message(Map<String, Object> fields) {
+        final Message message = messageFactory.createMessage("the message", "Web-01", DateTime.now(DateTimeZone.UTC));
+        message.addFields(fields);
+        return message;
+    }
+
+    private Predicate<Message> compile(String query) {
+        return StreamingFilterQueryCompiler.compile(query).orElseThrow(AssertionError::new);
+    }
+
+    @Test
+    void matchesEverythingForEmptyQueries() {
+        final Message message = message(Map.of());
+
+        assertThat(compile("").test(message)).isTrue();
+        assertThat(compile("*").test(message)).isTrue();
+        assertThat(compile("*:*").test(message)).isTrue();
+    }
+
+    @Test
+    void matchesExactFieldValues() {
+        final Predicate<Message> predicate = compile("action:login");
+
+        assertThat(predicate.test(message(Map.of("action", "login")))).isTrue();
+        assertThat(predicate.test(message(Map.of("action", "Login")))).isFalse();
+        assertThat(predicate.test(message(Map.of("action", "logout")))).isFalse();
+        assertThat(predicate.test(message(Map.of()))).isFalse();
+        assertThat(predicate.test(message(Map.of("action", List.of("logout", "login"))))).isTrue();
+    }
+
+    @Test
+    void matchesNumericValues() {
+        final Predicate<Message> predicate = compile("status:200");
+
+        assertThat(predicate.test(message(Map.of("status", 200)))).isTrue();
+        assertThat(predicate.test(message(Map.of("status", 200.0d)))).isTrue();
+        assertThat(predicate.test(message(Map.of("status", 404L)))).isFalse();
+        assertThat(predicate.test(message(Map.of("status", "200")))).isTrue();
+    }
+
+    @Test
+    void matchesSourceCaseInsensitive() {
+        assertThat(compile("source:web-01").test(message(Map.of()))).isTrue();
+        assertThat(compile("source:web-02").test(message(Map.of()))).isFalse();
+    }
+
+    @Test
+    void matchesStreamsAgainstRoutedStreams() {
+        final Stream stream = mock(Stream.class);
+        when(stream.getId()).thenReturn("5f4dfb9c69be46153b9a9a7b");
+        final Message routed = message(Map.of());
+        routed.addStream(stream);
+
+        final Predicate<Message> predicate = compile("streams:5f4dfb9c69be46153b9a9a7b");
+
+        assertThat(predicate.test(routed)).isTrue();
+        assertThat(predicate.test(message(Map.of()))).isFalse();
+    }
+
+    @Test
+    void matchesExistsQueries() {
+        final Predicate<Message> predicate = compile("_exists_:user");
+
+        assertThat(predicate.test(message(Map.of("user", "jane")))).isTrue();
+        assertThat(predicate.test(message(Map.of()))).isFalse();
+    }
+
+    @Test
+    void matchesBooleanQueries() {
+        final Predicate<Message> predicate = compile("action:login AND (result:failure OR result:error) AND NOT user:admin");
+
+        assertThat(predicate.test(message(Map.of("action", "login", "result", "failure", "user", "jane")))).isTrue();
+        assertThat(predicate.test(message(Map.of("action", "login", "result", "error")))).isTrue();
+        assertThat(predicate.test(message(Map.of("action", "login", "result", "success", "user", "jane")))).isFalse();
+        assertThat(predicate.test(message(Map.of("action", "login", "result", "failure", "user", "admin")))).isFalse();
+        assertThat(predicate.test(message(Map.of("result", "failure")))).isFalse();
+    }
+
+    @Test
+    void usesOrAsDefaultOperator() {
+        final Predicate<Message> predicate = compile("action:login action:logout");
+
+        assertThat(predicate.test(message(Map.of("action", "login")))).isTrue();
+        assertThat(predicate.test(message(Map.of("action", "logout")))).isTrue();
+        assertThat(predicate.test(message(Map.of("action", "other")))).isFalse();
+    }
+
+    @Test
+    void matchesPurelyNegativeQueries() {
+        final Predicate<Message> predicate = compile("NOT action:login");
+
+        assertThat(predicate.test(message(Map.of("action", "logout")))).isTrue();
+        assertThat(predicate.test(message(Map.of()))).isTrue();
+        assertThat(predicate.test(message(Map.of("action", "login")))).isFalse();
+    }
+
+    @Test
+    void doesNotCompileQueriesDependingOnTheIndexMapping() {
+        assertThat(StreamingFilterQueryCompiler.compile("login")).isEmpty();
+        assertThat(StreamingFilterQueryCompiler.compile("message:login")).isEmpty();
+        assertThat(StreamingFilterQueryCompiler.compile("action:log*")).isEmpty();
+        assertThat(StreamingFilterQueryCompiler.compile("status:[200 TO 299]")).isEmpty();
+        assertThat(StreamingFilterQueryCompiler.compile("user:\"jane doe\"")).isEmpty();
+        assertThat(StreamingFilterQueryCompiler.compile("action:login AND failed")).isEmpty();
+        assertThat(StreamingFilterQueryCompiler.compile("action:(")).isEmpty();
+        assertThat(StreamingFilterQueryCompiler.compile("gl2_accounted_message_size:100")).isEmpty();
+        assertThat(StreamingFilterQueryCompiler.compile("_id:abc")).isEmpty();
+    }
+}
@@ -48,10 +48,14 @@ import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class OTelLogsServiceTest {
@@ -70,10 +74,15 @@ class OTelLogsServiceTest {
         logsService = new OTelLogsService(transport, input);
     }
 
+    private void givenThrottlePermits(boolean available) {
+        when(transport.tryAcquireThrottlePermits(anyInt())).thenReturn(available);
+    }
+
     // Test processing a request using the official example from
     // https://github.com/open-telemetry/opentelemetry-proto/blob/7312bdf63218acf27fe96430b7231de37fd091f2/examples/logs.json
     @Test
     void testExport() throws IOException {
+        givenThrottlePermits(true);
         final var requestBuilder = ExportLogsServiceRequest.newBuilder();
         JsonFormat.parser().merge(
                 Resources.toString(Resources.getResource(OTelGrpcInput.class, "logs.json"), StandardCharsets.UTF_8),
@@ -99,8 +108,29 @@ class OTelLogsServiceTest {
         verify(responseObserver).onCompleted();
     }
 
+    @Test
+    void exportIsRejectedWithoutThrottlePermits() {
+        givenThrottlePermits(false);
+        final ExportLogsServiceRequest request = ExportLogsServiceRequest.newBuilder()
+                .addResourceLogs(ResourceLogs.newBuilder()
+                        .addScopeLogs(ScopeLogs.newBuilder()
+                                .addLogRecords(LogRecord.newBuilder()
+                                        .setBody(AnyValue.newBuilder().setStringValue("log message 1")))
+                                .addLogRecords(LogRecord.newBuilder()
+                                        .setBody(AnyValue.newBuilder().setStringValue("log message 2")))))
+                .build();
+
+        logsService.export(request, responseObserver);
+
+        verify(transport).tryAcquireThrottlePermits(2);
+        verify(input, never()).processRawMessage(any());
+        verify(responseObserver).onError(any());
+        verify(responseObserver, never()).onCompleted();
+    }
+
     @Test
     void exportDistributesRequestSizeAcrossRecords() {
+        givenThrottlePermits(true);
         final ExportLogsServiceRequest request = ExportLogsServiceRequest.newBuilder()
                 .addResourceLogs(ResourceLogs.newBuilder()
                         .setResource(Resource.newBuilder()
@@ -140,6 +170,7 @@ class OTelLogsServiceTest {
 
     @Test
     void exportWithSingleLogRecordAssignsFullRequestSize() {
+        givenThrottlePermits(true);
         final ExportLogsServiceRequest request = ExportLogsServiceRequest.newBuilder()
                 .addResourceLogs(ResourceLogs.newBuilder()
                         .setResource(Resource.newBuilder()
@@ -62,6 +62,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
@@ -176,6 +177,7 @@ class KinesisConsumerIT {
 
         final KinesisTransport transport = mock(KinesisTransport.class);
         when(transport.isThrottled()).thenReturn(false);
+        when(transport.acquireThrottlePermits(anyInt())).thenReturn(true);
 
         // The consumer reports KCL failures through the InputFailureRecorder instead of throwing, so
         // capture those signals as well. Transient vs. terminal matters here: the 2-arg setFailing()
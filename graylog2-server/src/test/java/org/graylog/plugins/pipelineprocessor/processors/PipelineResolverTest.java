@@ -35,10 +35,16 @@ import org.junit.jupiter.api.Test;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
 import static java.util.Objects.requireNonNull;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 class PipelineResolverTest {
 
@@ -291,4 +297,37 @@ class PipelineResolverTest {
             assertThat(connections.get(0).id()).isEqualTo("pipeline-1");
         });
     }
+
+    @Test
+    void resolvePipelinesReusesUnchangedRulesAndPipelines() throws Exception {
+        final var registry = PipelineMetricRegistry.create(metricRegistry, Pipeline.class.getName(), Rule.class.getName());
+        final var ruleParser = spy(new PipelineRuleParser(new FunctionRegistry(Map.of())));
+        final var rules = new AtomicReference<>(rule1);
+        final var resolver = new PipelineResolver(
+                ruleParser,
+                PipelineResolverConfig.of(() -> Stream.of(rules.get()), () -> Stream.of(pipeline1), Stream::of)
+        );
+
+        final var pipelines = resolver.resolvePipelines(registry);
+        final var unchangedPipelines = resolver.resolvePipelines(registry);
+
+        assertThat(unchangedPipelines.get("pipeline-1")).isSameAs(pipelines.get("pipeline-1"));
+        verify(ruleParser, times(1)).parseRule(eq("rule-1"), anyString(), eq(false));
+        verify(ruleParser, times(1)).parsePipeline(eq("pipeline-1"), anyString());
+
+        // A changed rule is parsed again and the pipelines using it are resolved again
+        rules.set(rule1.toBuilder().source("""
+                rule "test-rule-1"
+                when false
+                then
+                end
+                """).build());
+        final var changedPipelines = resolver.resolvePipelines(registry);
+
+        assertThat(changedPipelines.get("pipeline-1")).isNotSameAs(pipelines.get("pipeline-1"));
+        verify(ruleParser, times(2)).parseRule(eq("rule-1"), anyString(), eq(false));
+        verify(ruleParser, times(2)).parsePipeline(eq("pipeline-1"), anyString());
+        assertThat(changedPipelines.get("pipeline-1").stages().first().getRules().get(0).when()
+                .evaluateBool(EvaluationContext.emptyContext())).isFalse();
+    }
 }
@@ -17,11 +17,16 @@
 package org.graylog.plugins.pipelineprocessor.processors;
 
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.graylog.plugins.pipelineprocessor.ast.Pipeline;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -88,4 +93,38 @@ public class StateTest {
             executor.shutdownNow();
         }
     }
+
+    @Test
+    public void stageIteratorsAreCachedPerPipelineSet() {
+        final Pipeline pipeline1 = Pipeline.empty("pipeline-1").withId("pipeline-1");
+        final Pipeline pipeline2 = Pipeline.empty("pipeline-2").withId("pipeline-2");
+        final ImmutableMap<String, Pipeline> pipelines = ImmutableMap.of("pipeline-1", pipeline1, "pipeline-2", pipeline2);
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final PipelineInterpreter.State state = new PipelineInterpreter.State(pipelines, ImmutableSetMultimap.of(), null,
+                metricRegistry, 1, true);
+
+        state.getStageIterator(ImmutableSet.of(pipeline1, pipeline2));
+        state.getStageIterator(Set.of(pipeline2, pipeline1));
+        // An equal pipeline which is not part of the state is not cached
+        state.getStageIterator(Set.of(Pipeline.empty("pipeline-1").withId("pipeline-1")));
+
+        assertThat(stageCacheGauge(metricRegistry, "misses")).isEqualTo(1L);
+        assertThat(stageCacheGauge(metricRegistry, "hits")).isEqualTo(1L);
+
+        // A new state with the same pipeline instances takes over the cached stage iterators
+        final MetricRegistry newMetricRegistry = new MetricRegistry();
+        final PipelineInterpreter.State newState = new PipelineInterpreter.State(pipelines, ImmutableSetMultimap.of(), null,
+                newMetricRegistry, 1, true);
+        newState.reuseStageIterators(state);
+        newState.getStageIterator(Set.of(pipeline1, pipeline2));
+
+        assertThat(stageCacheGauge(newMetricRegistry, "misses")).isEqualTo(0L);
+        assertThat(stageCacheGauge(newMetricRegistry, "hits")).isEqualTo(1L);
+    }
+
+    private static Object stageCacheGauge(MetricRegistry metricRegistry, String name) {
+        return metricRegistry.getGauges()
+                .get("org.graylog.plugins.pipelineprocessor.processors.PipelineInterpreter.stage-cache." + name)
+                .getValue();
+    }
 }
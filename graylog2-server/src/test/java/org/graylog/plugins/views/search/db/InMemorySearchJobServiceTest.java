@@ -18,6 +18,7 @@ package org.graylog.plugins.views.search.db;
 
 import jakarta.ws.rs.ForbiddenException;
 import org.assertj.core.api.Assertions;
+import org.graylog.plugins.views.search.QueryResult;
 import org.graylog.plugins.views.search.Search;
 import org.graylog.plugins.views.search.SearchJob;
 import org.graylog.plugins.views.search.permissions.SearchUser;
@@ -27,7 +28,9 @@ import org.graylog2.plugin.system.SimpleNodeId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.graylog.plugins.views.search.SearchJob.NO_CANCELLATION;
 
@@ -63,6 +66,55 @@ public class InMemorySearchJobServiceTest {
                 .isEmpty();
     }
 
+    @Test
+    public void cancelsAbandonedJobs() {
+        final SearchJob jannettesJob = runningJob("Jannette");
+        final CompletableFuture<Void> backendRequest = new CompletableFuture<>();
+        jannettesJob.setQueryExecutionFuture("query", backendRequest);
+        toTest.cancelWhenAbandoned(jannettesJob);
+
+        Assertions.assertThat(toTest.cancelAbandoned(Duration.ofMinutes(1))).isZero();
+        Assertions.assertThat(jannettesJob.isCancelled()).isFalse();
+
+        Assertions.assertThat(toTest.cancelAbandoned(Duration.ZERO)).isEqualTo(1);
+        Assertions.assertThat(jannettesJob.isCancelled()).isTrue();
+        Assertions.assertThat(backendRequest).isCancelled();
+        Assertions.assertThat(jannettesJob.execution().cancelled()).isTrue();
+
+        Assertions.assertThat(toTest.cancelAbandoned(Duration.ZERO)).isZero();
+    }
+
+    @Test
+    public void doesNotCancelUnwatchedOrFinishedJobs() {
+        final SearchJob unwatchedJob = runningJob("Jannette");
+
+        final SearchJob finishedJob = toTest.create(Search.builder().build(), "Jannette", NO_CANCELLATION);
+        finishedJob.addQueryResultFuture("query", CompletableFuture.completedFuture(QueryResult.emptyResult()));
+        finishedJob.seal();
+        toTest.cancelWhenAbandoned(finishedJob);
+
+        Assertions.assertThat(toTest.cancelAbandoned(Duration.ZERO)).isZero();
+        Assertions.assertThat(unwatchedJob.isCancelled()).isFalse();
+        Assertions.assertThat(finishedJob.isCancelled()).isFalse();
+    }
+
+    @Test
+    public void cancelledJobCancelsBackendRequestsStartedLater() {
+        final SearchJob jannettesJob = runningJob("Jannette");
+
+        Assertions.assertThat(toTest.cancel(jannettesJob.getId(), searchUser("Jannette"))).isTrue();
+
+        final CompletableFuture<Void> backendRequest = new CompletableFuture<>();
+        jannettesJob.setQueryExecutionFuture("query", backendRequest);
+        Assertions.assertThat(backendRequest).isCancelled();
+    }
+
+    private SearchJob runningJob(final String owner) {
+        final SearchJob searchJob = toTest.create(Search.builder().build(), owner, NO_CANCELLATION);
+        searchJob.addQueryResultFuture("query", new CompletableFuture<>());
+        return searchJob.seal();
+    }
+
     private SearchUser searchUser(final String username) {
         return TestSearchUser.builder()
                 .withUser(u -> u.withUsername(username))
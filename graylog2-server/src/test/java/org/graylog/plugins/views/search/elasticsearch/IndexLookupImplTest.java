@@ -28,6 +28,7 @@ import org.junit.jupiter.api.Test;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TimeZone;
@@ -77,15 +78,51 @@ class IndexLookupImplTest {
         assertThat(result).isEmpty();
     }
 
+    @Test
+    void indicesContainOnlyStreamsIfAllIndexRangesOnlyListSearchedStreams() {
+        final IndexRange indexRange1 = mockIndexRange("index1", List.of("s-1"));
+        final IndexRange indexRange2 = mockIndexRange("index2", List.of("s-1", "s-2"));
+
+        final IndexLookup sut = new IndexLookupImpl(
+                mockIndexRangeService(sortedSetOf(indexRange1, indexRange2), timeRangeWithMatchingIndexRange),
+                mockStreamService(streamIds),
+                mockIndexRangeContains(indexRange1, indexRange2));
+
+        assertThat(sut.indicesContainOnlyStreams(streamIds, timeRangeWithMatchingIndexRange, streamIds)).isTrue();
+        assertThat(sut.indicesContainOnlyStreams(streamIds, timeRangeWithMatchingIndexRange, Set.of("s-1"))).isFalse();
+    }
+
+    @Test
+    void indicesDoNotContainOnlyStreamsIfAnIndexRangeIsIncomplete() {
+        final IndexRange indexRange1 = mockIndexRange("index1", List.of("s-1"));
+        final IndexRange writeIndexRange = mockIndexRange("index2", null);
+
+        final IndexLookup sut = new IndexLookupImpl(
+                mockIndexRangeService(sortedSetOf(indexRange1, writeIndexRange), timeRangeWithMatchingIndexRange),
+                mockStreamService(streamIds),
+                mockIndexRangeContains(indexRange1, writeIndexRange));
+
+        assertThat(sut.indicesContainOnlyStreams(streamIds, timeRangeWithMatchingIndexRange, streamIds)).isFalse();
+    }
+
+    @Test
+    void indicesDoNotContainOnlyStreamsIfNoIndicesFound() {
+        final IndexLookup sut = new IndexLookupImpl(mock(IndexRangeService.class), mockStreamService(streamIds), mock(IndexRangeContainsOneOfStreams.class));
+
+        assertThat(sut.indicesContainOnlyStreams(streamIds, timeRangeWithNoIndexRanges, streamIds)).isFalse();
+    }
+
     private IndexRangeService mockIndexRangeService(SortedSet<IndexRange> indexRanges, TimeRange timeRangeWithMatchingIndexRange) {
         final IndexRangeService indexRangeService = mock(IndexRangeService.class);
         when(indexRangeService.find(timeRangeWithMatchingIndexRange.getFrom(), timeRangeWithMatchingIndexRange.getTo())).thenReturn(indexRanges);
         return indexRangeService;
     }
 
-    private static IndexRangeContainsOneOfStreams mockIndexRangeContains(IndexRange matchingIndexRange) {
+    private static IndexRangeContainsOneOfStreams mockIndexRangeContains(IndexRange... matchingIndexRanges) {
         IndexRangeContainsOneOfStreams indexRangeContainsOneOfStreams = mock(IndexRangeContainsOneOfStreams.class);
-        doReturn(true).when(indexRangeContainsOneOfStreams).test(eq(matchingIndexRange), any());
+        for (IndexRange matchingIndexRange : matchingIndexRanges) {
+            doReturn(true).when(indexRangeContainsOneOfStreams).test(eq(matchingIndexRange), any());
+        }
         return indexRangeContainsOneOfStreams;
     }
 
@@ -107,6 +144,12 @@ class IndexLookupImplTest {
         return indexRange1;
     }
 
+    private IndexRange mockIndexRange(final String name, final List<String> streamIds) {
+        final IndexRange indexRange = mockIndexRange(name);
+        when(indexRange.streamIds()).thenReturn(streamIds);
+        return indexRange;
+    }
+
     SortedSet<IndexRange> sortedSetOf(IndexRange... indexRanges) {
         final Comparator<IndexRange> indexRangeComparator = Comparator.comparing(IndexRange::indexName);
         final TreeSet<IndexRange> indexRangeSets = new TreeSet<>(indexRangeComparator);
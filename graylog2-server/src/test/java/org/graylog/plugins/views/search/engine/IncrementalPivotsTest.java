@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.engine;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.graylog.plugins.views.search.Query;
+import org.graylog.plugins.views.search.QueryResult;
+import org.graylog.plugins.views.search.SearchJob;
+import org.graylog.plugins.views.search.SearchType;
+import org.graylog.plugins.views.search.elasticsearch.ElasticsearchQueryString;
+import org.graylog.plugins.views.search.searchtypes.pivot.Pivot;
+import org.graylog.plugins.views.search.searchtypes.pivot.PivotResult;
+import org.graylog.plugins.views.search.searchtypes.pivot.SortSpec;
+import org.graylog.plugins.views.search.searchtypes.pivot.buckets.Time;
+import org.graylog.plugins.views.search.searchtypes.pivot.buckets.TimeUnitInterval;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Count;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.graylog2.plugin.indexer.searches.timeranges.RelativeRange;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeUtils;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IncrementalPivotsTest {
+    private static final DateTime NOW = new DateTime(2024, 1, 1, 12, 0, 30, DateTimeZone.UTC);
+    private static final String COUNT = "count()";
+
+    private final Pivot pivot = Pivot.builder()
+            .id("pivot-1")
+            .rowGroups(Time.builder().field("timestamp").interval(TimeUnitInterval.Builder.builder().timeunit("1m").build()).build())
+            .series(Count.builder().build())
+            .rollup(true)
+            .build();
+    private Query query;
+    private SearchJob searchJob;
+    private IncrementalPivots incrementalPivots;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        query = Query.builder()
+                .id("query-1")
+                .timerange(RelativeRange.create(600))
+                .query(ElasticsearchQueryString.of("*"))
+                .searchTypes(ImmutableSet.of(pivot))
+                .build();
+        DateTimeUtils.setCurrentMillisFixed(NOW.getMillis());
+        searchJob = mock(SearchJob.class);
+        when(searchJob.getOwner()).thenReturn("admin");
+        when(searchJob.getSearchId()).thenReturn("search-1");
+        incrementalPivots = new IncrementalPivots(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        DateTimeUtils.setCurrentMillisSystem();
+    }
+
+    // Simulates the backend: one message per second, every returned bucket contains the messages within the range.
+    private static QueryResult execute(Query query) {
+        final Map<String, SearchType.Result> results = new HashMap<>();
+        for (SearchType searchType : query.searchTypes()) {
+            final AbsoluteRange range = (AbsoluteRange) query.effectiveTimeRange(searchType);
+            final PivotResult.Builder result = PivotResult.builder().id(searchType.id()).effectiveTimerange(range).total(0);
+            for (DateTime bucket = range.from().withSecondOfMinute(0).withMillisOfSecond(0); !bucket.isAfter(range.to()); bucket = bucket.plusMinutes(1)) {
+                final long start = Math.max(bucket.getMillis(), range.from().getMillis());
+                final long end = Math.min(bucket.plusMinutes(1).getMillis() - 1, range.to().getMillis());
+                final long count = (end - start) / 1000 + 1;
+                result.addRow(PivotResult.Row.builder()
+                        .key(ImmutableList.of(bucket.toString()))
+                        .source("leaf")
+                        .addValue(PivotResult.Value.create(List.of(COUNT), count, true, "row-leaf"))
+                        .addValue(PivotResult.Value.create(List.of("incremental-pivot-count"), count, true, "row-leaf"))
+                        .build());
+            }
+            results.put(searchType.id(), result.build());
+        }
+        return QueryResult.builder().query(query).searchTypes(results).build();
+    }
+
+    private static long countOf(PivotResult.Row row) {
+        assertThat(row.values()).hasSize(1);
+        return ((Number) row.values().get(0).value()).longValue();
+    }
+
+    @Test
+    void onlyQueriesFirstBucketAndTailOnRefresh() {
+        final IncrementalPivots.Execution first = incrementalPivots.prepare(searchJob, query, DateTimeZone.UTC);
+        assertThat(first.query().searchTypes()).extracting(SearchType::id).containsExactly("pivot-1");
+        final PivotResult full = (PivotResult) first.complete(execute(first.query())).searchTypes().get("pivot-1");
+        assertThat(full.total()).isEqualTo(601);
+
+        DateTimeUtils.setCurrentMillisFixed(NOW.plusMinutes(3).getMillis());
+        final IncrementalPivots.Execution refresh = incrementalPivots.prepare(searchJob, query, DateTimeZone.UTC);
+        assertThat(refresh.query().searchTypes()).extracting(SearchType::id)
+                .containsExactlyInAnyOrder("pivot-1", "pivot-1-incremental-head");
+        final Pivot tail = (Pivot) refresh.query().searchTypes().stream().filter(s -> s.id().equals("pivot-1")).findFirst().orElseThrow();
+        assertThat(refresh.query().effectiveTimeRange(tail).getFrom()).isEqualTo(NOW.withSecondOfMinute(0).minusMinutes(1));
+
+        final QueryResult result = refresh.complete(execute(refresh.query()));
+        assertThat(result.query()).isEqualTo(query);
+        assertThat(result.searchTypes()).containsOnlyKeys("pivot-1");
+
+        final PivotResult merged = (PivotResult) result.searchTypes().get("pivot-1");
+        final DateTime from = NOW.plusMinutes(3).minusMinutes(10);
+        assertThat(merged.total()).isEqualTo(601);
+        assertThat(merged.effectiveTimerange().from()).isEqualTo(from);
+        // 11 buckets, the first and the last one being partial, plus the rollup row
+        assertThat(merged.rows()).hasSize(12);
+        assertThat(merged.rows().get(0).key()).containsExactly(from.withSecondOfMinute(0).toString());
+        assertThat(countOf(merged.rows().get(0))).isEqualTo(30);
+        assertThat(countOf(merged.rows().get(5))).isEqualTo(60);
+        assertThat(countOf(merged.rows().get(10))).isEqualTo(31);
+        assertThat(merged.rows().get(11).key()).isEmpty();
+        assertThat(countOf(merged.rows().get(11))).isEqualTo(601);
+    }
+
+    @Test
+    void leavesUnsupportedPivotsUntouched() {
+        final Query unsupported = query.toBuilder()
+                .searchTypes(ImmutableSet.of(pivot.toBuilder().sort(List.of(mock(SortSpec.class))).build()))
+                .build();
+
+        final IncrementalPivots.Execution execution = incrementalPivots.prepare(searchJob, unsupported, DateTimeZone.UTC);
+
+        assertThat(execution.query()).isSameAs(unsupported);
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.engine;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.graylog.plugins.views.search.Query;
+import org.graylog.plugins.views.search.QueryResult;
+import org.graylog.plugins.views.search.SearchType;
+import org.graylog.plugins.views.search.elasticsearch.ElasticsearchQueryString;
+import org.graylog.plugins.views.search.errors.SearchError;
+import org.graylog.plugins.views.search.errors.SearchTypeError;
+import org.graylog.plugins.views.search.searchtypes.pivot.Pivot;
+import org.graylog.plugins.views.search.searchtypes.pivot.PivotResult;
+import org.graylog.plugins.views.search.searchtypes.pivot.SeriesSpec;
+import org.graylog.plugins.views.search.searchtypes.pivot.buckets.Values;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Average;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Count;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.graylog2.plugin.indexer.searches.timeranges.RelativeRange;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MergedPivotsTest {
+    private static final AbsoluteRange RANGE = AbsoluteRange.create(new DateTime(2024, 1, 1, 0, 0, DateTimeZone.UTC), new DateTime(2024, 1, 1, 1, 0, DateTimeZone.UTC));
+
+    private final MergedPivots mergedPivots = new MergedPivots(true);
+
+    private static Pivot pivot(String id, SeriesSpec... series) {
+        return Pivot.builder()
+                .id(id)
+                .name("Widget " + id)
+                .rowGroups(Values.builder().field("source").limit(10).build())
+                .series(series)
+                .rollup(true)
+                .build();
+    }
+
+    private static Query query(SearchType... searchTypes) throws Exception {
+        return Query.builder()
+                .id("query-1")
+                .timerange(RelativeRange.create(300))
+                .query(ElasticsearchQueryString.of("*"))
+                .searchTypes(ImmutableSet.copyOf(searchTypes))
+                .build();
+    }
+
+    // Simulates the backend: two sources, every series has the value 1 in every row.
+    private static QueryResult execute(Query query) {
+        return execute(query, null);
+    }
+
+    private static QueryResult execute(Query query, PivotResult.Approximation approximation) {
+        final Map<String, SearchType.Result> results = new HashMap<>();
+        for (SearchType searchType : query.searchTypes()) {
+            final Pivot pivot = (Pivot) searchType;
+            final List<String> seriesIds = pivot.series().stream().map(SeriesSpec::id).toList();
+            final PivotResult.Builder result = PivotResult.builder()
+                    .id(pivot.id())
+                    .effectiveTimerange(RANGE)
+                    .total(42)
+                    .approximation(approximation)
+                    .columnNames(Stream.concat(Stream.of("source"), seriesIds.stream().sorted()).toList());
+            for (String source : List.of("source-1", "source-2")) {
+                final PivotResult.Row.Builder row = PivotResult.Row.builder().key(ImmutableList.of(source)).source("leaf");
+                seriesIds.forEach(id -> row.addValue(PivotResult.Value.create(List.of(id), 1, true, "row-leaf")));
+                result.addRow(row.build());
+            }
+            final PivotResult.Row.Builder rollup = PivotResult.Row.builder().key(ImmutableList.of()).source("non-leaf");
+            seriesIds.forEach(id -> rollup.addValue(PivotResult.Value.create(List.of(id), 2, true, "row-inner")));
+            result.addRow(rollup.build());
+            results.put(pivot.id(), result.build());
+        }
+        return QueryResult.builder().query(query).searchTypes(results).build();
+    }
+
+    private static List<String> seriesOf(PivotResult result) {
+        return result.rows().stream()
+                .flatMap(row -> row.values().stream())
+                .map(value -> value.key().get(value.key().size() - 1))
+                .distinct()
+                .toList();
+    }
+
+    @Test
+    void mergesPivotsWhichOnlyDifferInSeries() throws Exception {
+        final Query query = query(
+                pivot("pivot-1", Count.builder().build()),
+                pivot("pivot-2", Average.builder().field("took_ms").build()),
+                pivot("pivot-3", Count.builder().build(), Average.builder().field("took_ms").build()));
+
+        final MergedPivots.Execution execution = mergedPivots.prepare(query);
+
+        assertThat(execution.query().searchTypes()).hasSize(1);
+        final Pivot merged = (Pivot) execution.query().searchTypes().iterator().next();
+        assertThat(merged.series()).extracting(SeriesSpec::id).containsExactly("count()", "avg(took_ms)");
+
+        final QueryResult result = execution.complete(execute(execution.query()));
+
+        assertThat(result.query()).isEqualTo(query);
+        assertThat(result.searchTypes()).containsOnlyKeys("pivot-1", "pivot-2", "pivot-3");
+
+        final PivotResult first = (PivotResult) result.searchTypes().get("pivot-1");
+        assertThat(first.id()).isEqualTo("pivot-1");
+        assertThat(first.name()).contains("Widget pivot-1");
+        assertThat(first.total()).isEqualTo(42);
+        assertThat(first.rows()).hasSize(3);
+        assertThat(seriesOf(first)).containsExactly("count()");
+        assertThat(first.columnNames()).containsExactly("source", "count()");
+
+        final PivotResult second = (PivotResult) result.searchTypes().get("pivot-2");
+        assertThat(seriesOf(second)).containsExactly("avg(took_ms)");
+        assertThat(second.columnNames()).containsExactly("source", "avg(took_ms)");
+
+        final PivotResult third = (PivotResult) result.searchTypes().get("pivot-3");
+        assertThat(seriesOf(third)).containsExactly("count()", "avg(took_ms)");
+        assertThat(third.columnNames()).containsExactly("source", "avg(took_ms)", "count()");
+    }
+
+    @Test
+    void keepsApproximationOfMergedSampledPivots() throws Exception {
+        final Query query = query(
+                pivot("pivot-1", Count.builder().build()).toBuilder().sampleRate(0.1).build(),
+                pivot("pivot-2", Average.builder().field("took_ms").build()).toBuilder().sampleRate(0.1).build());
+        final PivotResult.Approximation approximation = PivotResult.Approximation.of(0.1, 1000);
+
+        final MergedPivots.Execution execution = mergedPivots.prepare(query);
+
+        assertThat(execution.query().searchTypes()).hasSize(1);
+        final QueryResult result = execution.complete(execute(execution.query(), approximation));
+
+        final PivotResult first = (PivotResult) result.searchTypes().get("pivot-1");
+        assertThat(seriesOf(first)).containsExactly("count()");
+        assertThat(first.approximation()).isEqualTo(approximation);
+
+        final PivotResult second = (PivotResult) result.searchTypes().get("pivot-2");
+        assertThat(seriesOf(second)).containsExactly("avg(took_ms)");
+        assertThat(second.approximation()).isEqualTo(approximation);
+    }
+
+    @Test
+    void doesNotMergeSampledPivotsWithDifferentSampleRates() throws Exception {
+        final Query query = query(
+                pivot("pivot-1", Count.builder().build()).toBuilder().sampleRate(0.1).build(),
+                pivot("pivot-2", Count.builder().build()).toBuilder().sampleRate(0.5).build());
+
+        final MergedPivots.Execution execution = mergedPivots.prepare(query);
+
+        assertThat(execution.query()).isEqualTo(query);
+    }
+
+    @Test
+    void doesNotMergePivotsWithDifferentBuckets() throws Exception {
+        final Pivot other = pivot("pivot-2", Count.builder().build()).toBuilder()
+                .rowGroups(Values.builder().field("source").limit(20).build())
+                .build();
+        final Query query = query(pivot("pivot-1", Count.builder().build()), other);
+
+        final MergedPivots.Execution execution = mergedPivots.prepare(query);
+
+        assertThat(execution.query()).isEqualTo(query);
+    }
+
+    @Test
+    void doesNotMergeConflictingSeries() throws Exception {
+        final Query query = query(
+                pivot("pivot-1", Average.builder().id("series").field("took_ms").build()),
+                pivot("pivot-2", Average.builder().id("series").field("size").build()));
+
+        final MergedPivots.Execution execution = mergedPivots.prepare(query);
+
+        assertThat(execution.query()).isEqualTo(query);
+    }
+
+    @Test
+    void onlyMergesIdenticalPivotsWithColumnGroups() throws Exception {
+        final Pivot withColumns = pivot("pivot-1", Count.builder().build()).toBuilder()
+                .columnGroups(Values.builder().field("action").limit(5).build())
+                .build();
+        final Query query = query(
+                withColumns,
+                withColumns.toBuilder().id("pivot-2").build(),
+                withColumns.toBuilder().id("pivot-3").series(Average.builder().field("took_ms").build()).build());
+
+        final MergedPivots.Execution execution = mergedPivots.prepare(query);
+
+        assertThat(execution.query().searchTypes()).extracting(SearchType::id).containsExactlyInAnyOrder("pivot-1", "pivot-3");
+        final QueryResult result = execution.complete(execute(execution.query()));
+        assertThat(result.searchTypes()).containsOnlyKeys("pivot-1", "pivot-2", "pivot-3");
+    }
+
+    @Test
+    void reportsErrorsOfMergedPivotForEveryMember() throws Exception {
+        final Query query = query(
+                pivot("pivot-1", Count.builder().build()),
+                pivot("pivot-2", Average.builder().field("took_ms").build()));
+
+        final MergedPivots.Execution execution = mergedPivots.prepare(query);
+        final SearchTypeError error = new SearchTypeError(execution.query(), "pivot-1", "Aggregation failed", true);
+        final QueryResult failed = QueryResult.builder()
+                .query(execution.query())
+                .searchTypes(Map.of())
+                .errors(Set.of(error))
+                .build();
+
+        final QueryResult result = execution.complete(failed);
+
+        assertThat(result.searchTypes()).isEmpty();
+        assertThat(result.errors())
+                .extracting(e -> ((SearchTypeError) e).searchTypeId())
+                .containsExactlyInAnyOrder("pivot-1", "pivot-2");
+        assertThat(result.errors()).allMatch(SearchError::fatal);
+        assertThat(execution.errors(List.of(error))).hasSize(2);
+    }
+
+    @Test
+    void leavesQueryUntouchedWhenDisabled() throws Exception {
+        final Query query = query(pivot("pivot-1", Count.builder().build()), pivot("pivot-2", Count.builder().build()));
+
+        final MergedPivots.Execution execution = new MergedPivots(false).prepare(query);
+
+        assertThat(execution.query()).isEqualTo(query);
+    }
+}
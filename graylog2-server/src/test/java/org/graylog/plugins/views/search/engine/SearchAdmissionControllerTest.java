@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.engine;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableSet;
+import org.graylog.plugins.views.search.Query;
+import org.graylog.plugins.views.search.Search;
+import org.graylog.plugins.views.search.elasticsearch.IndexLookup;
+import org.graylog.plugins.views.search.errors.SearchAdmissionException;
+import org.graylog.plugins.views.search.permissions.SearchUser;
+import org.graylog.plugins.views.search.rest.TestSearchUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchAdmissionControllerTest {
+    private final Search search = Search.builder()
+            .queries(ImmutableSet.of(Query.builder().build()))
+            .build();
+
+    private IndexLookup indexLookup;
+    private MetricRegistry metricRegistry;
+
+    @BeforeEach
+    void setUp() {
+        indexLookup = mock(IndexLookup.class);
+        metricRegistry = new MetricRegistry();
+    }
+
+    private SearchAdmissionController controller(int capacity) {
+        return new SearchAdmissionController(capacity, 1, indexLookup, metricRegistry);
+    }
+
+    private static SearchUser user(String username) {
+        return TestSearchUser.builder().withUser(user -> user.withUsername(username)).build();
+    }
+
+    @Test
+    void admitsEverythingWhenDisabled() {
+        final SearchAdmissionController controller = controller(0);
+
+        for (int i = 0; i < 10; i++) {
+            controller.admit(user("frank"), search);
+        }
+    }
+
+    @Test
+    void estimatesCostFromIndices() {
+        when(indexLookup.indexNamesForStreamsInTimeRange(any(), any())).thenReturn(Set.of("graylog_0", "graylog_1", "graylog_2"));
+        final SearchAdmissionController controller = controller(10);
+
+        assertThat(controller.estimateCost(search)).isEqualTo(3);
+    }
+
+    @Test
+    void rejectsSearchesExceedingCapacityWithoutWaiting() {
+        final SearchAdmissionController controller = controller(1);
+        final SearchAdmissionController.Permit permit = controller.admit(user("frank"), search);
+
+        assertThatThrownBy(() -> controller.admit(user("jane"), search))
+                .isInstanceOf(SearchAdmissionException.class)
+                .satisfies(e -> assertThat(((SearchAdmissionException) e).retryAfter()).isGreaterThanOrEqualTo(Duration.ofSeconds(1)));
+
+        permit.release();
+        assertThat(controller.admit(user("jane"), search)).isNotNull();
+    }
+
+    @Test
+    void limitsUsersToTheirShareWhileOthersAreCompeting() {
+        final SearchAdmissionController controller = controller(2);
+        final SearchAdmissionController.Permit first = controller.admit(user("frank"), search);
+        controller.admit(user("frank"), search);
+        assertThatThrownBy(() -> controller.admit(user("jane"), search)).isInstanceOf(SearchAdmissionException.class);
+
+        first.release();
+
+        // jane has been rejected recently, frank only gets half of the capacity until she had her turn
+        assertThatThrownBy(() -> controller.admit(user("frank"), search)).isInstanceOf(SearchAdmissionException.class);
+        assertThat(controller.admit(user("jane"), search)).isNotNull();
+    }
+
+    @Test
+    void admitsUserWithoutRunningSearchesBeyondTheirShare() {
+        when(indexLookup.indexNamesForStreamsInTimeRange(any(), any())).thenReturn(Set.of("graylog_0", "graylog_1", "graylog_2"));
+        final SearchAdmissionController controller = controller(4);
+        final SearchAdmissionController.Permit permit = controller.admit(user("frank"), search);
+        assertThatThrownBy(() -> controller.admit(user("jane"), search)).isInstanceOf(SearchAdmissionException.class);
+
+        permit.release();
+
+        // the cost of 3 exceeds jane's share of 2, but she has nothing running
+        assertThat(controller.admit(user("jane"), search)).isNotNull();
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.graylog.plugins.views.search.engine;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableSet;
 import jakarta.ws.rs.NotFoundException;
 import org.assertj.core.api.Condition;
@@ -29,6 +30,7 @@ import org.graylog.plugins.views.search.SearchType;
 import org.graylog.plugins.views.search.db.InMemorySearchJobService;
 import org.graylog.plugins.views.search.db.SearchJobService;
 import org.graylog.plugins.views.search.elasticsearch.ElasticsearchQueryString;
+import org.graylog.plugins.views.search.elasticsearch.IndexLookup;
 import org.graylog.plugins.views.search.elasticsearch.QueryStringDecorators;
 import org.graylog.plugins.views.search.engine.normalization.DecorateQueryStringsNormalizer;
 import org.graylog.plugins.views.search.engine.normalization.PluggableSearchNormalization;
@@ -82,6 +84,9 @@ public class SearchExecutorTest {
     @Mock
     private StreamService streamService;
 
+    @Mock
+    private IndexLookup indexLookup;
+
     @Captor
     private ArgumentCaptor<SearchJob> searchJobCaptor;
 
@@ -101,7 +106,8 @@ public class SearchExecutorTest {
                                         Optional.of((queryString, job, query) -> PositionTrackingQuery.of("decorated"))
                                 )
                         )
-                ), streamService));
+                ), streamService),
+                new SearchAdmissionController(0, 1, indexLookup, new MetricRegistry()));
         when(queryEngine.execute(any(), any(), any())).thenAnswer(invocation -> {
             final SearchJob searchJob = invocation.getArgument(0);
             searchJob.addQueryResultFuture("query", CompletableFuture.completedFuture(QueryResult.emptyResult()));
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.engine;
+
+import com.google.common.collect.ImmutableSet;
+import org.graylog.plugins.views.search.Query;
+import org.graylog.plugins.views.search.QueryResult;
+import org.graylog.plugins.views.search.Search;
+import org.graylog.plugins.views.search.SearchJob;
+import org.graylog.plugins.views.search.elasticsearch.ElasticsearchQueryString;
+import org.graylog.plugins.views.search.searchtypes.MessageList;
+import org.graylog2.indexer.ranges.IndexRange;
+import org.graylog2.indexer.ranges.IndexRangesUpdatedEvent;
+import org.graylog2.indexer.ranges.MongoIndexRange;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.graylog2.plugin.indexer.searches.timeranges.RelativeRange;
+import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
+import org.graylog2.shared.bindings.providers.ObjectMapperProvider;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchResultCacheTest {
+    private static final DateTime FROM = new DateTime(2024, 1, 1, 0, 0, DateTimeZone.UTC);
+    private static final DateTime TO = new DateTime(2024, 1, 2, 0, 0, DateTimeZone.UTC);
+
+    private SearchJob searchJob;
+    private QueryBackend<?> backend;
+    private SearchResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        final Search search = mock(Search.class);
+        when(search.parameters()).thenReturn(ImmutableSet.of());
+        searchJob = mock(SearchJob.class);
+        when(searchJob.getSearch()).thenReturn(search);
+        backend = mock(QueryBackend.class);
+        cache = new SearchResultCache(1024 * 1024, 60 * 60_000, new ObjectMapperProvider().get());
+    }
+
+    private static Query query(TimeRange timeRange) {
+        return Query.builder()
+                .id("query-1")
+                .timerange(timeRange)
+                .query(ElasticsearchQueryString.of("source:foo"))
+                .searchTypes(ImmutableSet.of(MessageList.builder().id("messages-1").build()))
+                .build();
+    }
+
+    private static QueryResult result(Query query) {
+        return QueryResult.builder().query(query).searchTypes(Map.of()).build();
+    }
+
+    private void indexRanges(IndexRange... indexRanges) {
+        when(backend.indexRangesForStreamsInTimeRange(any(), any())).thenReturn(Set.of(indexRanges));
+    }
+
+    private static IndexRange rotatedRange(String index) {
+        return MongoIndexRange.create(index, FROM, TO, TO.plusHours(1), 0);
+    }
+
+    private static IndexRange writeIndexRange(String index, DateTime createdAt) {
+        final DateTime unknown = new DateTime(0L, DateTimeZone.UTC);
+        return MongoIndexRange.create(index, unknown, unknown, createdAt, 0);
+    }
+
+    @Test
+    void cachesQueriesCoveredByReadOnlyIndices() {
+        final Query query = query(AbsoluteRange.create(FROM, TO));
+        indexRanges(rotatedRange("graylog_1"), writeIndexRange("graylog_2", TO.plusHours(1)));
+
+        cache.put(searchJob, query, DateTimeZone.UTC, result(query), backend);
+
+        assertThat(cache.get(searchJob, query, DateTimeZone.UTC)).contains(result(query));
+        assertThat(cache.get(searchJob, query, DateTimeZone.forID("Europe/Berlin"))).isEmpty();
+    }
+
+    @Test
+    void marksResultsIncludingTheWriteIndex() {
+        final Query query = query(AbsoluteRange.create(FROM, TO));
+
+        indexRanges(rotatedRange("graylog_1"));
+        assertThat(SearchResultCache.cacheableIndices(query, backend, DateTime.now(DateTimeZone.UTC)))
+                .contains(new SearchResultCache.Indices(Set.of("graylog_1"), false));
+
+        // The write index can still receive messages with old timestamps, such results expire quickly
+        indexRanges(rotatedRange("graylog_1"), writeIndexRange("graylog_2", TO.plusHours(1)));
+        assertThat(SearchResultCache.cacheableIndices(query, backend, DateTime.now(DateTimeZone.UTC)))
+                .contains(new SearchResultCache.Indices(Set.of("graylog_1", "graylog_2"), true));
+    }
+
+    @Test
+    void doesNotCacheQueriesWhichCanStillChange() {
+        final Query relative = query(RelativeRange.create(300));
+        indexRanges(rotatedRange("graylog_1"));
+        cache.put(searchJob, relative, DateTimeZone.UTC, result(relative), backend);
+        assertThat(cache.get(searchJob, relative, DateTimeZone.UTC)).isEmpty();
+
+        // The current write index has been created before the end of the time range and may still receive messages
+        final Query absolute = query(AbsoluteRange.create(FROM, TO));
+        indexRanges(rotatedRange("graylog_1"), writeIndexRange("graylog_2", TO.minusHours(1)));
+        cache.put(searchJob, absolute, DateTimeZone.UTC, result(absolute), backend);
+        assertThat(cache.get(searchJob, absolute, DateTimeZone.UTC)).isEmpty();
+    }
+
+    @Test
+    void evictsEntriesWhenIndexRangesChange() {
+        final Query query = query(AbsoluteRange.create(FROM, TO));
+        indexRanges(rotatedRange("graylog_1"));
+        cache.put(searchJob, query, DateTimeZone.UTC, result(query), backend);
+
+        cache.handleIndexRangesUpdated(IndexRangesUpdatedEvent.create("graylog_0"));
+        assertThat(cache.get(searchJob, query, DateTimeZone.UTC)).isPresent();
+
+        cache.handleIndexRangesUpdated(IndexRangesUpdatedEvent.create("graylog_1"));
+        assertThat(cache.get(searchJob, query, DateTimeZone.UTC)).isEmpty();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.export;
+
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExportChunkPrefetcherTest {
+    private static final DateTime FROM = new DateTime(2024, 1, 1, 0, 0, DateTimeZone.UTC);
+    private static final AbsoluteRange RANGE = AbsoluteRange.create(FROM, FROM.plusHours(3));
+
+    private record Published(List<String> hits, SimpleMessageChunk.ChunkOrder chunkOrder) {}
+
+    private static ExportMessagesCommand command() {
+        return ExportMessagesCommand.withDefaults().toBuilder().timeRange(RANGE).build();
+    }
+
+    // Every slice returns two chunks named after the hour it starts at, followed by the empty chunk ending the slice
+    private static ExportChunkPrefetcher.ChunkSource<String> source(ExportMessagesCommand slice) {
+        final String hour = String.valueOf(slice.timeRange().getFrom().getHourOfDay());
+        final Iterator<List<String>> chunks = List.of(List.of(hour + "a"), List.of(hour + "b"), List.<String>of()).iterator();
+        return chunks::next;
+    }
+
+    @Test
+    void splitsTimeRangeIntoAdjacentSlices() {
+        final List<AbsoluteRange> slices = new ExportChunkPrefetcher(2, 3, 1).slicesOf(RANGE);
+
+        assertThat(slices).containsExactly(
+                AbsoluteRange.create(FROM, FROM.plusHours(1)),
+                AbsoluteRange.create(FROM.plusHours(1), FROM.plusHours(2)),
+                AbsoluteRange.create(FROM.plusHours(2), FROM.plusHours(3)));
+        assertThat(new ExportChunkPrefetcher(2, 1, 1).slicesOf(RANGE)).containsExactly(RANGE);
+    }
+
+    @Test
+    void publishesChunksOfAllSlicesInOrder() {
+        final List<Published> published = new ArrayList<>();
+
+        // a single thread fetches one slice after the other, the slices still have to be published in order
+        new ExportChunkPrefetcher(1, 3, 1).run(command(), ExportChunkPrefetcherTest::source,
+                (hits, chunkOrder) -> published.add(new Published(hits, chunkOrder)));
+
+        assertThat(published).extracting(Published::hits)
+                .containsExactly(List.of("0a"), List.of("0b"), List.of("1a"), List.of("1b"), List.of("2a"), List.of("2b"), List.of());
+        assertThat(published).extracting(Published::chunkOrder)
+                .containsExactly(SimpleMessageChunk.ChunkOrder.FIRST,
+                        SimpleMessageChunk.ChunkOrder.INTERMEDIATE,
+                        SimpleMessageChunk.ChunkOrder.INTERMEDIATE,
+                        SimpleMessageChunk.ChunkOrder.INTERMEDIATE,
+                        SimpleMessageChunk.ChunkOrder.INTERMEDIATE,
+                        SimpleMessageChunk.ChunkOrder.INTERMEDIATE,
+                        SimpleMessageChunk.ChunkOrder.LAST);
+    }
+
+    @Test
+    void stopsAtLimit() {
+        final List<Published> published = new ArrayList<>();
+        final ExportMessagesCommand command = command().toBuilder().limit(3).build();
+
+        new ExportChunkPrefetcher(2, 3, 3).run(command, ExportChunkPrefetcherTest::source,
+                (hits, chunkOrder) -> published.add(new Published(hits, chunkOrder)));
+
+        assertThat(published).extracting(Published::hits)
+                .containsExactly(List.of("0a"), List.of("0b"), List.of("1a"), List.of());
+        assertThat(published.get(published.size() - 1).chunkOrder()).isEqualTo(SimpleMessageChunk.ChunkOrder.LAST);
+    }
+
+    @Test
+    void stopsWhenPublishingFails() {
+        final List<Published> published = new ArrayList<>();
+
+        new ExportChunkPrefetcher(2, 3, 3).run(command(), ExportChunkPrefetcherTest::source,
+                (hits, chunkOrder) -> published.add(new Published(hits, chunkOrder)) && published.size() < 2);
+
+        assertThat(published).extracting(Published::hits).containsExactly(List.of("0a"), List.of("0b"));
+    }
+
+    @Test
+    void rethrowsErrorsOfSlices() {
+        final List<Published> published = new ArrayList<>();
+
+        assertThatThrownBy(() -> new ExportChunkPrefetcher(2, 3, 3).<String>run(command(),
+                slice -> slice.timeRange().getFrom().equals(FROM) ? source(slice) : () -> {
+                    throw new ExportException("Search failed");
+                },
+                (hits, chunkOrder) -> published.add(new Published(hits, chunkOrder))))
+                .isInstanceOf(ExportException.class)
+                .hasMessage("Search failed");
+        assertThat(published).extracting(Published::hits).containsExactly(List.of("0a"), List.of("0b"));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.export;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryEncoder;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.graylog.plugins.views.search.Search;
+import org.graylog2.rest.MoreMediaTypes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.graylog.plugins.views.search.export.LinkedHashSetUtil.linkedHashSetOf;
+import static org.graylog.plugins.views.search.export.TestData.simpleMessageChunk;
+
+class SimpleMessageChunkArrowWriterTest {
+    private static final byte[] END_OF_STREAM = {-1, -1, -1, -1, 0, 0, 0, 0};
+
+    private SimpleMessageChunkArrowWriter sut;
+
+    @BeforeEach
+    void setUp() {
+        sut = new SimpleMessageChunkArrowWriter();
+    }
+
+    @Test
+    void isWritableForSimpleMessages() {
+        boolean isWritable = sut.isWriteable(SimpleMessageChunk.class, null, null, MoreMediaTypes.APPLICATION_ARROW_STREAM_TYPE);
+        assertThat(isWritable).isTrue();
+    }
+
+    @Test
+    void isNotWritableForOtherMediaTypes() {
+        boolean isWritable = sut.isWriteable(SimpleMessageChunk.class, null, null, MoreMediaTypes.TEXT_CSV_TYPE);
+        assertThat(isWritable).isFalse();
+    }
+
+    @Test
+    void isNotWritableForOtherClasses() {
+        boolean isWritable = sut.isWriteable(Search.class, null, null, MoreMediaTypes.APPLICATION_ARROW_STREAM_TYPE);
+        assertThat(isWritable).isFalse();
+    }
+
+    @Test
+    void writesSchemaForFirstChunk() {
+        SimpleMessageChunk chunk = simpleMessageChunk("timestamp,source,message",
+                new Object[]{"2015-01-01T01:00:00.000Z", "source-1", "some text"});
+        SimpleMessageChunk firstChunk = chunk.toBuilder().chunkOrder(SimpleMessageChunk.ChunkOrder.FIRST).build();
+
+        byte[] first = write(firstChunk);
+        byte[] intermediate = write(chunk);
+
+        assertThat(first.length).isGreaterThan(intermediate.length);
+        assertThat(containsUtf8(first, "message")).isTrue();
+        assertThat(containsUtf8(intermediate, "message")).isFalse();
+        assertThat(containsUtf8(intermediate, "some text")).isTrue();
+    }
+
+    @Test
+    void writesNothingForIntermediateChunkWithoutMessages() {
+        SimpleMessageChunk chunk = SimpleMessageChunk.from(linkedHashSetOf("timestamp", "message"), new LinkedHashSet<>());
+
+        assertThat(write(chunk)).isEmpty();
+    }
+
+    @Test
+    void writesEndOfStreamForLastChunk() {
+        SimpleMessageChunk chunk = SimpleMessageChunk.from(linkedHashSetOf("timestamp", "message"), new LinkedHashSet<>())
+                .toBuilder().chunkOrder(SimpleMessageChunk.ChunkOrder.LAST).build();
+
+        assertThat(write(chunk)).containsExactly(END_OF_STREAM);
+    }
+
+    @Test
+    void writesMessagesOfLastChunkBeforeEndOfStream() {
+        SimpleMessageChunk chunk = simpleMessageChunk("timestamp,message",
+                new Object[]{"2015-01-01T01:00:00.000Z", "some text"})
+                .toBuilder().chunkOrder(SimpleMessageChunk.ChunkOrder.LAST).build();
+
+        byte[] result = write(chunk);
+
+        assertThat(ByteBuffer.wrap(result).order(ByteOrder.LITTLE_ENDIAN).getInt()).isEqualTo(0xFFFFFFFF);
+        assertThat(containsUtf8(result, "some text")).isTrue();
+        assertThat(Arrays.copyOfRange(result, result.length - END_OF_STREAM.length, result.length)).containsExactly(END_OF_STREAM);
+    }
+
+    @Test
+    void writesStreamWhichCanBeReadBack() throws IOException {
+        SimpleMessageChunk first = simpleMessageChunk("timestamp,source",
+                new Object[]{"2015-01-01T01:00:00.000Z", "source-1"})
+                .toBuilder().chunkOrder(SimpleMessageChunk.ChunkOrder.FIRST).build();
+        SimpleMessageChunk last = simpleMessageChunk("timestamp,source",
+                new Object[]{"2015-01-01T02:00:00.000Z", "source-2"})
+                .toBuilder().chunkOrder(SimpleMessageChunk.ChunkOrder.LAST).build();
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(write(first));
+        stream.write(write(last));
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(stream.toByteArray()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertThat(root.getSchema().getFields()).extracting(Field::getName).containsExactly("timestamp", "source");
+
+            List<String> sources = new ArrayList<>();
+            while (reader.loadNextBatch()) {
+                FieldVector source = root.getVector("source");
+                long dictionaryId = source.getField().getDictionary().getId();
+                try (ValueVector decoded = DictionaryEncoder.decode(source, reader.getDictionaryVectors().get(dictionaryId))) {
+                    for (int i = 0; i < decoded.getValueCount(); i++) {
+                        sources.add(decoded.getObject(i).toString());
+                    }
+                }
+            }
+            assertThat(sources).containsExactly("source-1", "source-2");
+        }
+    }
+
+    @Test
+    void writesStreamWhichCanBeReadBackForEmptyExport() throws IOException {
+        SimpleMessageChunk chunk = SimpleMessageChunk.from(linkedHashSetOf("timestamp", "message"), new LinkedHashSet<>())
+                .toBuilder().chunkOrder(SimpleMessageChunk.ChunkOrder.SINGLE).build();
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(write(chunk)), allocator)) {
+            assertThat(reader.getVectorSchemaRoot().getSchema().getFields()).extracting(Field::getName).containsExactly("timestamp", "message");
+            assertThat(reader.loadNextBatch()).isFalse();
+        }
+    }
+
+    private static boolean containsUtf8(byte[] bytes, String value) {
+        return new String(bytes, StandardCharsets.ISO_8859_1).contains(new String(value.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1));
+    }
+
+    private byte[] write(SimpleMessageChunk chunk) {
+        ByteArrayOutputStream entityStream = new ByteArrayOutputStream();
+        try {
+            sut.writeTo(chunk, SimpleMessageChunk.class, null, null, null, null, entityStream);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return entityStream.toByteArray();
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.export.arrow;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryEncoder;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArrowStreamWriterTest {
+    private static final List<ArrowStreamWriter.Column> COLUMNS = List.of(
+            new ArrowStreamWriter.Column("timestamp", ArrowStreamWriter.ColumnType.TIMESTAMP),
+            new ArrowStreamWriter.Column("source", ArrowStreamWriter.ColumnType.STRING),
+            new ArrowStreamWriter.Column("count", ArrowStreamWriter.ColumnType.LONG),
+            new ArrowStreamWriter.Column("avg", ArrowStreamWriter.ColumnType.DOUBLE));
+
+    @Test
+    void writesStreamWhichCanBeReadBack() throws IOException {
+        final List<List<Object>> rows = read(write(writer -> {
+            writer.writeSchema();
+            writer.writeBatch(rows(
+                    new Object[]{"2015-01-01T01:00:00.000Z", "source-1", 1L, 1.5},
+                    new Object[]{"2015-01-01T02:00:00.000Z", "source-2", null, null}));
+            writer.writeBatch(rows(new Object[]{"2015-01-01T03:00:00.000Z", "source-3", 3L, 3.5}));
+            writer.writeEndOfStream();
+        }));
+
+        assertThat(rows).containsExactly(
+                List.of(1420074000000L, "source-1", 1L, 1.5),
+                Arrays.asList(1420077600000L, "source-2", null, null),
+                List.of(1420081200000L, "source-3", 3L, 3.5));
+    }
+
+    @Test
+    void declaresColumnTypesInSchema() throws IOException {
+        final byte[] bytes = write(writer -> {
+            writer.writeSchema();
+            writer.writeEndOfStream();
+        });
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(bytes), allocator)) {
+            final List<Field> fields = reader.getVectorSchemaRoot().getSchema().getFields();
+            assertThat(fields).extracting(Field::getName).containsExactly("timestamp", "source", "count", "avg");
+            assertThat(fields.get(0).getType()).isInstanceOf(ArrowType.Timestamp.class);
+            assertThat(fields.get(1).getDictionary()).isNotNull();
+            assertThat(fields.get(2).getType()).isEqualTo(new ArrowType.Int(64, true));
+            assertThat(fields.get(3).getType()).isInstanceOf(ArrowType.FloatingPoint.class);
+            assertThat(reader.loadNextBatch()).isFalse();
+        }
+    }
+
+    @Test
+    void encodesStringsAsDictionaryPerBatch() throws IOException {
+        final byte[] bytes = write(writer -> {
+            writer.writeSchema();
+            writer.writeBatch(rows(
+                    new Object[]{null, "source-1", 1L, null},
+                    new Object[]{null, "source-2", 2L, null},
+                    new Object[]{null, "source-1", 3L, null}));
+            writer.writeBatch(rows(new Object[]{null, "source-3", 4L, null}));
+            writer.writeEndOfStream();
+        });
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(bytes), allocator)) {
+            final FieldVector source = reader.getVectorSchemaRoot().getVector("source");
+            final long dictionaryId = source.getField().getDictionary().getId();
+
+            assertThat(reader.loadNextBatch()).isTrue();
+            assertThat(reader.getDictionaryVectors().get(dictionaryId).getVector().getValueCount()).isEqualTo(2);
+            assertThat(source.getObject(0)).isEqualTo(source.getObject(2));
+
+            assertThat(reader.loadNextBatch()).isTrue();
+            assertThat(reader.getDictionaryVectors().get(dictionaryId).getVector().getValueCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void convertsTimestamps() throws IOException {
+        final List<ArrowStreamWriter.Column> columns = COLUMNS.subList(0, 1);
+        final List<List<Object>> rows = read(write(columns, writer -> {
+            writer.writeSchema();
+            writer.writeBatch(rows(
+                    new Object[]{"2015-01-01T01:00:00.000+01:00"},
+                    new Object[]{"2015-01-01 00:00:01.000"},
+                    new Object[]{"not a timestamp"},
+                    new Object[]{42L}));
+        }));
+
+        assertThat(rows).containsExactly(
+                List.of(1420070400000L),
+                List.of(1420070401000L),
+                Arrays.asList((Object) null),
+                List.of(42L));
+    }
+
+    @Test
+    void skipsEmptyBatches() throws IOException {
+        final byte[] bytes = write(writer -> writer.writeBatch(List.of()));
+
+        assertThat(bytes).isEmpty();
+    }
+
+    private interface WriterCall {
+        void accept(ArrowStreamWriter writer) throws IOException;
+    }
+
+    private static byte[] write(WriterCall call) throws IOException {
+        return write(COLUMNS, call);
+    }
+
+    private static byte[] write(List<ArrowStreamWriter.Column> columns, WriterCall call) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        call.accept(new ArrowStreamWriter(outputStream, columns));
+        return outputStream.toByteArray();
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return List.of(rows);
+    }
+
+    /**
+     * Reads the stream back, decoding dictionary encoded columns and converting timestamps to epoch milliseconds.
+     */
+    private static List<List<Object>> read(byte[] bytes) throws IOException {
+        final List<List<Object>> rows = new ArrayList<>();
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(bytes), allocator)) {
+            final VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            while (reader.loadNextBatch()) {
+                final List<ValueVector> decoded = new ArrayList<>();
+                try {
+                    for (FieldVector vector : root.getFieldVectors()) {
+                        final var dictionary = vector.getField().getDictionary();
+                        decoded.add(dictionary == null ? vector : DictionaryEncoder.decode(vector, reader.getDictionaryVectors().get(dictionary.getId())));
+                    }
+                    for (int row = 0; row < root.getRowCount(); row++) {
+                        final List<Object> values = new ArrayList<>();
+                        for (ValueVector vector : decoded) {
+                            values.add(value(vector, row));
+                        }
+                        rows.add(values);
+                    }
+                } finally {
+                    decoded.stream().filter(vector -> !root.getFieldVectors().contains(vector)).forEach(ValueVector::close);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static Object value(ValueVector vector, int row) {
+        if (vector.isNull(row)) {
+            return null;
+        }
+        return switch (vector) {
+            case TimeStampMilliTZVector timestamps -> timestamps.get(row);
+            case VarCharVector strings -> strings.getObject(row).toString();
+            default -> vector.getObject(row);
+        };
+    }
+}
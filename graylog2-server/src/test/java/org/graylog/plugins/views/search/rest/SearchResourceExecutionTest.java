@@ -16,9 +16,12 @@
  */
 package org.graylog.plugins.views.search.rest;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.eventbus.EventBus;
 import jakarta.ws.rs.ForbiddenException;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.ConnectionCallback;
 import jakarta.ws.rs.core.Response;
 import org.graylog.plugins.views.search.Query;
 import org.graylog.plugins.views.search.QueryResult;
@@ -28,7 +31,9 @@ import org.graylog.plugins.views.search.SearchExecutionGuard;
 import org.graylog.plugins.views.search.SearchJob;
 import org.graylog.plugins.views.search.db.InMemorySearchJobService;
 import org.graylog.plugins.views.search.db.SearchJobService;
+import org.graylog.plugins.views.search.elasticsearch.IndexLookup;
 import org.graylog.plugins.views.search.engine.QueryEngine;
+import org.graylog.plugins.views.search.engine.SearchAdmissionController;
 import org.graylog.plugins.views.search.engine.SearchExecutor;
 import org.graylog.plugins.views.search.engine.normalization.PluggableSearchNormalization;
 import org.graylog.plugins.views.search.engine.validation.PluggableSearchValidation;
@@ -92,6 +97,12 @@ public class SearchResourceExecutionTest {
     @Mock
     private StreamService streamService;
 
+    @Mock
+    private IndexLookup indexLookup;
+
+    @Mock
+    private AsyncResponse asyncResponse;
+
     private final NodeId nodeId = new SimpleNodeId("5ca1ab1e-0000-4000-a000-000000000000");
 
     private SearchResource searchResource;
@@ -105,7 +116,8 @@ public class SearchResourceExecutionTest {
                 searchJobService,
                 queryEngine,
                 new PluggableSearchValidation(executionGuard, Collections.emptySet()),
-                new PluggableSearchNormalization(Collections.emptySet(), streamService));
+                new PluggableSearchNormalization(Collections.emptySet(), streamService),
+                new SearchAdmissionController(0, 1, indexLookup, new MetricRegistry()));
 
         this.searchResource = new SearchResource(searchDomain, searchExecutor, searchJobService, eventBus, clusterConfigService) {
             @Override
@@ -176,7 +188,7 @@ public class SearchResourceExecutionTest {
 
         when(queryEngine.execute(any(), any(), any())).thenReturn(searchJob);
 
-        final Response response = this.searchResource.executeSyncJob(search, 100, searchUser);
+        this.searchResource.executeSyncJob(search, 100, searchUser, asyncResponse);
 
         final ArgumentCaptor<SearchJobExecutionEvent> eventCaptor = ArgumentCaptor.forClass(SearchJobExecutionEvent.class);
         verify(this.eventBus, times(1)).post(eventCaptor.capture());
@@ -198,7 +210,7 @@ public class SearchResourceExecutionTest {
         doThrow(new ForbiddenException()).when(executionGuard).check(any(), any());
 
         try {
-            this.searchResource.executeSyncJob(search, 100, searchUser);
+            this.searchResource.executeSyncJob(search, 100, searchUser, asyncResponse);
         } catch (ForbiddenException ignored) {
         }
 
@@ -215,9 +227,9 @@ public class SearchResourceExecutionTest {
 
         when(queryEngine.execute(any(), any(), any())).thenReturn(searchJob);
 
-        final Response response = this.searchResource.executeSyncJob(search, 100, searchUser);
+        this.searchResource.executeSyncJob(search, 100, searchUser, asyncResponse);
 
-        final SearchJobDTO responseSearchJob = (SearchJobDTO) response.getEntity();
+        final SearchJobDTO responseSearchJob = (SearchJobDTO) resumedResponse().getEntity();
         assertThat(responseSearchJob.searchJobIdentifier().owner()).isEqualTo("peterchen");
     }
 
@@ -238,7 +250,7 @@ public class SearchResourceExecutionTest {
         throwGuardException();
 
         assertThatExceptionOfType(ForbiddenException.class)
-                .isThrownBy(() -> this.searchResource.executeSyncJob(search, 0, searchUser));
+                .isThrownBy(() -> this.searchResource.executeSyncJob(search, 0, searchUser, asyncResponse));
     }
 
     @Test
@@ -260,7 +272,44 @@ public class SearchResourceExecutionTest {
         when(searchUser.streams().loadMessageStreamsWithFallback()).thenReturn(ImmutableSet.of());
 
         assertThatExceptionOfType(MissingStreamPermissionException.class)
-                .isThrownBy(() -> this.searchResource.executeSyncJob(searchDTO, 0, searchUser));
+                .isThrownBy(() -> this.searchResource.executeSyncJob(searchDTO, 0, searchUser, asyncResponse));
+    }
+
+    @Test
+    public void executeSyncJobCancelsJobWhenClientDisconnects() {
+        mockCurrentUserName("peterchen");
+
+        final SearchDTO search = makeSearchDTO();
+
+        final SearchJob searchJob = new SearchJob("deadbeef", search.toSearch(), "peterchen", "5ca1ab1e-0000-4000-a000-000000000000");
+        final CompletableFuture<QueryResult> queryResult = new CompletableFuture<>();
+        searchJob.addQueryResultFuture("query", queryResult);
+        final CompletableFuture<Void> backendRequest = new CompletableFuture<>();
+        searchJob.setQueryExecutionFuture("query", backendRequest);
+        searchJob.seal();
+
+        when(queryEngine.execute(any(), any(), any())).thenReturn(searchJob);
+
+        this.searchResource.executeSyncJob(search, 100, searchUser, asyncResponse);
+
+        final ArgumentCaptor<ConnectionCallback> callbackCaptor = ArgumentCaptor.forClass(ConnectionCallback.class);
+        verify(asyncResponse).register(callbackCaptor.capture());
+        verify(asyncResponse, never()).resume(any(Object.class));
+
+        callbackCaptor.getValue().onDisconnect(asyncResponse);
+
+        assertThat(searchJob.isCancelled()).isTrue();
+        assertThat(backendRequest).isCancelled();
+
+        queryResult.complete(QueryResult.emptyResult());
+        verify(asyncResponse).resume(any(Response.class));
+        verify(this.eventBus, times(1)).post(any(SearchJobExecutionEvent.class));
+    }
+
+    private Response resumedResponse() {
+        final ArgumentCaptor<Object> responseCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(asyncResponse).resume(responseCaptor.capture());
+        return (Response) responseCaptor.getValue();
     }
 
     private void throwGuardExceptionFor() {
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.plugins.views.search.searchtypes.pivot;
+
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Average;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Cardinality;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Count;
+import org.graylog.plugins.views.search.searchtypes.pivot.series.Sum;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class PivotSamplingTest {
+    private static final Count COUNT = Count.builder().build();
+    private static final Sum SUM = Sum.builder().field("bytes").build();
+    private static final Average AVG = Average.builder().field("took_ms").build();
+    private static final Cardinality CARD = Cardinality.builder().field("source").build();
+
+    private static Pivot pivot(Double sampleRate) {
+        return Pivot.builder()
+                .series(COUNT, SUM, AVG, CARD)
+                .rollup(true)
+                .sampleRate(sampleRate)
+                .build();
+    }
+
+    @Test
+    void scalesAdditiveSeriesOfSampledPivots() {
+        final Pivot pivot = pivot(0.1);
+
+        assertThat(PivotSampling.scale(pivot, COUNT, 42L)).isEqualTo(420L);
+        assertThat((Double) PivotSampling.scale(pivot, SUM, 12.5)).isCloseTo(125.0, within(1e-9));
+        assertThat(PivotSampling.scale(pivot, AVG, 12.5)).isEqualTo(12.5);
+        assertThat(PivotSampling.scale(pivot, CARD, 7L)).isEqualTo(7L);
+        assertThat(PivotSampling.scale(pivot, COUNT, null)).isNull();
+        assertThat(PivotSampling.scaleTotal(pivot, 1000)).isEqualTo(10000);
+    }
+
+    @Test
+    void leavesUnsampledPivotsAlone() {
+        for (Pivot pivot : new Pivot[]{pivot(null), pivot(1.0)}) {
+            assertThat(pivot.isSampled()).isFalse();
+            assertThat(PivotSampling.scale(pivot, COUNT, 42L)).isEqualTo(42L);
+            assertThat(PivotSampling.scaleTotal(pivot, 1000)).isEqualTo(1000);
+            assertThat(PivotSampling.addApproximation(pivot, resultBuilder(), 1000).build().approximation()).isNull();
+        }
+    }
+
+    @Test
+    void addsApproximationToSampledResults() {
+        final PivotResult result = PivotSampling.addApproximation(pivot(0.2), resultBuilder(), 1000).build();
+
+        assertThat(result.approximation()).isNotNull();
+        assertThat(result.approximation().sampleRate()).isEqualTo(0.2);
+        assertThat(result.approximation().sampleSize()).isEqualTo(1000);
+        assertThat(result.approximation().relativeStandardError()).isCloseTo(Math.sqrt(0.8 / 1000), within(1e-12));
+    }
+
+    @Test
+    void rejectsInvalidSampleRates() {
+        assertThatThrownBy(() -> pivot(0.0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> pivot(1.5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> pivot(Double.NaN)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static PivotResult.Builder resultBuilder() {
+        final DateTime now = DateTime.now(DateTimeZone.UTC);
+        return PivotResult.builder()
+                .id("pivot")
+                .total(0)
+                .effectiveTimerange(AbsoluteRange.create(now.minusMinutes(5), now));
+    }
+}
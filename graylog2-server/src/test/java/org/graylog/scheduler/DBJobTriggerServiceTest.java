@@ -22,6 +22,7 @@ import com.github.joschi.jadconfig.util.Duration;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
 import org.bson.types.ObjectId;
 import org.graylog.events.JobSchedulerTestClock;
 import org.graylog.events.TestJobTriggerData;
@@ -48,6 +49,7 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -547,6 +549,94 @@ class DBJobTriggerServiceTest {
         assertThat(dbJobTriggerService.nextRunnableTrigger()).isEmpty();
     }
 
+    @Test
+    void nextRunnableTriggers() {
+        // No triggers yet
+        assertThat(dbJobTriggerService.nextRunnableTriggers(10)).isEmpty();
+
+        final JobTriggerDto trigger1 = createIntervalTrigger(clock.nowUTC().plusSeconds(11));
+        final JobTriggerDto trigger2 = createIntervalTrigger(clock.nowUTC().plusSeconds(10));
+        final JobTriggerDto trigger3 = createIntervalTrigger(clock.nowUTC().plusSeconds(12));
+        final JobTriggerDto trigger4 = createIntervalTrigger(clock.nowUTC().plusSeconds(30));
+
+        assertThat(dbJobTriggerService.runnableTriggerTimes(clock.nowUTC().plusSeconds(20)))
+                .containsOnlyKeys(trigger1.id(), trigger2.id(), trigger3.id())
+                .containsEntry(trigger2.id(), trigger2.nextTime());
+
+        // Nothing is due yet
+        assertThat(dbJobTriggerService.nextRunnableTriggers(10)).isEmpty();
+
+        clock.plus(20, TimeUnit.SECONDS);
+
+        // The limit is respected and the triggers with the oldest next time are locked first
+        final List<JobTriggerDto> firstBatch = dbJobTriggerService.nextRunnableTriggers(2);
+        assertThat(firstBatch).extracting(JobTriggerDto::id).containsExactly(trigger2.id(), trigger1.id());
+        assertNextTrigger(Optional.of(firstBatch.get(0)), trigger2);
+        assertNextTrigger(Optional.of(firstBatch.get(1)), trigger1);
+
+        // Locked triggers are not returned again
+        assertThat(dbJobTriggerService.nextRunnableTriggers(10)).extracting(JobTriggerDto::id).containsExactly(trigger3.id());
+        assertThat(dbJobTriggerService.nextRunnableTriggers(10)).isEmpty();
+
+        clock.plus(20, TimeUnit.SECONDS);
+
+        assertThat(dbJobTriggerService.nextRunnableTriggers(10)).extracting(JobTriggerDto::id).containsExactly(trigger4.id());
+    }
+
+    @Test
+    void notifiesChangeListenersAboutScheduledTriggers() {
+        final Map<String, DateTime> scheduled = new HashMap<>();
+        dbJobTriggerService.addChangeListener(scheduled::put);
+
+        final JobTriggerDto trigger = createIntervalTrigger(clock.nowUTC().plusSeconds(10));
+        assertThat(scheduled).containsEntry(trigger.id(), trigger.nextTime());
+
+        clock.plus(10, TimeUnit.SECONDS);
+        final JobTriggerDto lockedTrigger = dbJobTriggerService.nextRunnableTrigger().orElseThrow();
+        final DateTime nextTime = clock.nowUTC().plusSeconds(30);
+        assertThat(dbJobTriggerService.releaseTrigger(lockedTrigger, JobTriggerUpdate.withNextTime(nextTime))).isTrue();
+        assertThat(scheduled).containsEntry(trigger.id(), nextTime);
+    }
+
+    @Test
+    void updatePendingTrigger() {
+        final JobTriggerDto trigger = dbJobTriggerService.create(JobTriggerDto.Builder.create(clock)
+                .jobDefinitionId("abc-123")
+                .jobDefinitionType("event-processor-execution-v1")
+                .nextTime(clock.nowUTC().plusSeconds(10))
+                .schedule(OnceJobSchedule.create())
+                .data(TestJobTriggerData.create(Map.of("key", "a", "count", 1)))
+                .build());
+
+        // Filter and job definition need to match
+        assertThat(dbJobTriggerService.updatePendingTrigger("abc-123", Filters.eq("data.map.key", "b"), Updates.inc("data.map.count", 1))).isEmpty();
+        assertThat(dbJobTriggerService.updatePendingTrigger("xyz-789", Filters.eq("data.map.key", "a"), Updates.inc("data.map.count", 1))).isEmpty();
+
+        assertThat(dbJobTriggerService.updatePendingTrigger("abc-123", Filters.eq("data.map.key", "a"), Updates.inc("data.map.count", 2)))
+                .get()
+                .satisfies(updated -> {
+                    assertThat(updated.id()).isEqualTo(trigger.id());
+                    assertThat(updated.data()).get().isEqualTo(TestJobTriggerData.create(Map.of("key", "a", "count", 3)));
+                });
+
+        // Locked triggers are executing already and must not be updated anymore
+        clock.plus(10, TimeUnit.SECONDS);
+        assertThat(dbJobTriggerService.nextRunnableTrigger()).isPresent();
+        assertThat(dbJobTriggerService.updatePendingTrigger("abc-123", Filters.eq("data.map.key", "a"), Updates.inc("data.map.count", 1))).isEmpty();
+    }
+
+    private JobTriggerDto createIntervalTrigger(DateTime nextTime) {
+        return dbJobTriggerService.create(JobTriggerDto.Builder.create(clock)
+                .jobDefinitionId("abc-123")
+                .jobDefinitionType("event-processor-execution-v1")
+                .nextTime(nextTime)
+                .schedule(IntervalJobSchedule.builder()
+                        .interval(1)
+                        .unit(TimeUnit.SECONDS)
+                        .build())
+                .build());
+    }
+
     @Test
     @MongoDBFixtures("job-triggers.json")
     void nextRunnableTriggerWithEndTime() {
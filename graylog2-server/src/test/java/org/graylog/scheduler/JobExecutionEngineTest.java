@@ -18,16 +18,22 @@ package org.graylog.scheduler;
 
 import com.codahale.metrics.MetricRegistry;
 import org.graylog.scheduler.eventbus.JobSchedulerEventBus;
+import org.graylog.scheduler.schedule.OnceJobSchedule;
 import org.graylog.scheduler.worker.JobWorkerPool;
 import org.graylog2.cluster.lock.RefreshingLockService;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -67,4 +73,54 @@ class JobExecutionEngineTest {
 
         verify(jobTriggerService, times(1)).updateLockedJobTriggers();
     }
+
+    @Test
+    void locksTriggersForAllFreeSlotsAndRecordsSchedulingLag() {
+        JobExecutionEngine underTest = new JobExecutionEngine(jobTriggerService, jobDefinitionLookup, eventBus, scheduleStrategies, jobTriggerUpdatesFactory,
+                refreshingLockServiceFactory, jobFactory, workerPool, "test", jobSchedulerConfig, metricRegistry);
+
+        final DateTime now = DateTime.now(DateTimeZone.UTC);
+        final List<JobTriggerDto> triggers = List.of(trigger("trigger-1", now.minusSeconds(2), now), trigger("trigger-2", now, now));
+        given(workerPool.hasFreeSlots()).willReturn(true);
+        given(workerPool.freeSlots()).willReturn(3);
+        given(jobTriggerService.runnableTriggerTimes(any())).willReturn(Map.of());
+        given(jobTriggerService.nextRunnableTriggers(3)).willReturn(triggers);
+        given(workerPool.execute(any())).willReturn(true);
+
+        assertThat(underTest.execute()).isTrue();
+
+        verify(workerPool, times(2)).execute(any());
+        assertThat(metricRegistry.histogram(MetricRegistry.name(JobExecutionEngine.class, "test", "executions", "lag", "type", "test-job"))
+                .getSnapshot().getValues()).containsExactlyInAnyOrder(0L, 2000L);
+    }
+
+    @Test
+    void doesNotAskForTriggersUntilTimelineIsDue() {
+        JobExecutionEngine underTest = new JobExecutionEngine(jobTriggerService, jobDefinitionLookup, eventBus, scheduleStrategies, jobTriggerUpdatesFactory,
+                refreshingLockServiceFactory, jobFactory, workerPool, "test", jobSchedulerConfig, metricRegistry);
+
+        given(workerPool.hasFreeSlots()).willReturn(true);
+        given(workerPool.freeSlots()).willReturn(3);
+        given(jobTriggerService.runnableTriggerTimes(any())).willReturn(Map.of("trigger-1", DateTime.now(DateTimeZone.UTC).plusHours(1)));
+        given(jobTriggerService.nextRunnableTriggers(3)).willReturn(List.of());
+
+        // The first execution syncs the timeline
+        assertThat(underTest.execute()).isFalse();
+        assertThat(underTest.execute()).isFalse();
+
+        verify(jobTriggerService, times(1)).runnableTriggerTimes(any());
+        verify(jobTriggerService, times(1)).nextRunnableTriggers(3);
+        assertThat(underTest.millisUntilNextTrigger()).isPositive();
+    }
+
+    private static JobTriggerDto trigger(String id, DateTime nextTime, DateTime triggeredAt) {
+        return JobTriggerDto.builder()
+                .id(id)
+                .jobDefinitionId("job-1")
+                .jobDefinitionType("test-job")
+                .nextTime(nextTime)
+                .triggeredAt(triggeredAt)
+                .schedule(OnceJobSchedule.create())
+                .build();
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog.scheduler;
+
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobTriggerTimelineTest {
+    private final DateTime now = DateTime.parse("2024-01-01T00:00:00.000Z");
+    private final JobTriggerTimeline timeline = new JobTriggerTimeline();
+
+    @Test
+    void tracksEarliestNextTime() {
+        assertThat(timeline.nextTimeMillis()).isEmpty();
+        assertThat(timeline.hasDue(now)).isFalse();
+
+        timeline.scheduleAll(Map.of("a", now.plusSeconds(10), "b", now.plusSeconds(5)));
+
+        assertThat(timeline.nextTimeMillis()).contains(now.plusSeconds(5).getMillis());
+        assertThat(timeline.hasDue(now)).isFalse();
+        assertThat(timeline.hasDue(now.plusSeconds(5))).isTrue();
+    }
+
+    @Test
+    void reschedulingReplacesPreviousNextTime() {
+        timeline.schedule("a", now.plusSeconds(5));
+        timeline.schedule("a", now.plusSeconds(60));
+
+        assertThat(timeline.size()).isEqualTo(1);
+        assertThat(timeline.nextTimeMillis()).contains(now.plusSeconds(60).getMillis());
+
+        timeline.remove("a");
+
+        assertThat(timeline.size()).isZero();
+        assertThat(timeline.nextTimeMillis()).isEmpty();
+    }
+
+    @Test
+    void removesDueEntries() {
+        timeline.scheduleAll(Map.of("a", now.minusSeconds(1), "b", now, "c", now.plusSeconds(1)));
+
+        timeline.removeDue(now);
+
+        assertThat(timeline.size()).isEqualTo(1);
+        assertThat(timeline.hasDue(now)).isFalse();
+        assertThat(timeline.nextTimeMillis()).contains(now.plusSeconds(1).getMillis());
+    }
+}
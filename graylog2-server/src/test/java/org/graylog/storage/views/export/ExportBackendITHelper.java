@@ -139,6 +139,11 @@ public abstract class ExportBackendITHelper {
             public Set<IndexRange> indexRangesForStreamsInTimeRange(Collection<String> streamIds, TimeRange timeRange) {
                 return Set.of();
             }
+
+            @Override
+            public boolean indicesContainOnlyStreams(Collection<String> searchedStreamIds, TimeRange timeRange, Collection<String> streamIds) {
+                return false;
+            }
         };
     }
 
@@ -16,6 +16,7 @@
  */
 package org.graylog2.events;
 
+import com.codahale.metrics.MetricRegistry;
 import com.github.joschi.jadconfig.util.Size;
 import com.google.common.base.Stopwatch;
 import com.google.common.eventbus.EventBus;
@@ -92,7 +93,7 @@ class ClusterEventServicePerformanceTest {
     private ClusterEventService createClusterEventService(NodeId nodeId, EventBus serverEventBus, ClusterEventBus clusterEventBus) {
         final var service = new ClusterEventService(objectMapperProvider, mongodb.mongoConnection(),
                 nodeId, new RestrictedChainingClassLoader(new ChainingClassLoader(this.getClass().getClassLoader()),
-                SafeClasses.allGraylogInternal()), serverEventBus, clusterEventBus, offset, Size.megabytes(100));
+                SafeClasses.allGraylogInternal()), serverEventBus, clusterEventBus, offset, Size.megabytes(100), false, new MetricRegistry());
         service.startAsync().awaitRunning();
         return service;
     }
@@ -16,6 +16,7 @@
  */
 package org.graylog2.events;
 
+import com.codahale.metrics.MetricRegistry;
 import com.github.joschi.jadconfig.util.Size;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
@@ -55,7 +56,7 @@ class ClusterEventServiceShutdownTest {
                 new SimpleNodeId(nodeId),
                 new RestrictedChainingClassLoader(new ChainingClassLoader(getClass().getClassLoader()),
                         SafeClasses.allGraylogInternal()),
-                serverEventBus, clusterEventBus, offset, Size.megabytes(100));
+                serverEventBus, clusterEventBus, offset, Size.megabytes(100), false, new MetricRegistry());
         service.startAsync().awaitRunning();
         return service;
     }
@@ -16,9 +16,11 @@
  */
 package org.graylog2.events;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.joschi.jadconfig.util.Size;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.eventbus.DeadEvent;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
@@ -38,6 +40,7 @@ import org.graylog2.security.RestrictedChainingClassLoader;
 import org.graylog2.security.SafeClasses;
 import org.graylog2.shared.bindings.providers.ObjectMapperProvider;
 import org.graylog2.shared.plugins.ChainingClassLoader;
+import org.graylog2.streams.events.StreamsChangedEvent;
 import org.graylog2.system.debug.DebugEvent;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
@@ -52,6 +55,7 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -102,7 +106,9 @@ public class ClusterEventServiceTest {
                 serverEventBus,
                 clusterEventBus,
                 initialOffset,
-                COLLECTION_SIZE
+                COLLECTION_SIZE,
+                false,
+                new MetricRegistry()
         );
     }
 
@@ -162,6 +168,20 @@ public class ClusterEventServiceTest {
         verify(clusterEventBus, never()).post(any());
     }
 
+    @Test
+    public void coalescesEventsOfSameClass() {
+        final SimpleEvent first = new SimpleEvent("first");
+        final SimpleEvent second = new SimpleEvent("second");
+
+        assertThat(ClusterEventService.coalesce(List.of(
+                StreamsChangedEvent.create("stream-1"),
+                first,
+                StreamsChangedEvent.create("stream-2"),
+                second,
+                StreamsChangedEvent.create("stream-1"))))
+                .containsExactly(first, second, StreamsChangedEvent.create(ImmutableSet.of("stream-1", "stream-2")));
+    }
+
     @Test
     public void cursorReopenDoesNotReprocessLastEvent() {
         final SimpleEventHandler handler = new SimpleEventHandler();
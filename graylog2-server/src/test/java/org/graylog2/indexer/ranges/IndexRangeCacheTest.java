@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog2.indexer.ranges;
+
+import org.graylog2.utilities.FakeTicker;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexRangeCacheTest {
+    private static final DateTime NOW = new DateTime(2024, 1, 10, 0, 0, DateTimeZone.UTC);
+
+    private static IndexRange range(String index, int beginDay, int endDay) {
+        return MongoIndexRange.create(index, day(beginDay), day(endDay), NOW, 0);
+    }
+
+    private static DateTime day(int day) {
+        return new DateTime(2024, 1, day, 0, 0, DateTimeZone.UTC);
+    }
+
+    @Test
+    void findsOverlappingRangesIncludingLongRangesStartingEarlier() {
+        final IndexRange unknown = MongoIndexRange.create("graylog_deflector", new DateTime(0L, DateTimeZone.UTC), new DateTime(0L, DateTimeZone.UTC), NOW, 0);
+        final IndexRangeCache cache = new IndexRangeCache(() -> List.of(
+                range("graylog_long", 1, 9),
+                range("graylog_1", 1, 2),
+                range("graylog_2", 2, 3),
+                range("graylog_3", 3, 4),
+                range("graylog_4", 5, 6),
+                unknown));
+
+        assertThat(cache.find(day(3), day(3))).extracting(IndexRange::indexName)
+                .containsExactlyInAnyOrder("graylog_deflector", "graylog_long", "graylog_2", "graylog_3");
+        assertThat(cache.find(day(7), day(8))).extracting(IndexRange::indexName)
+                .containsExactlyInAnyOrder("graylog_deflector", "graylog_long");
+        assertThat(cache.find(day(20), day(21))).extracting(IndexRange::indexName)
+                .containsExactly("graylog_deflector");
+    }
+
+    @Test
+    void loadsLazilyAndAppliesUpdates() {
+        final AtomicInteger loads = new AtomicInteger();
+        final IndexRangeCache cache = new IndexRangeCache(() -> {
+            loads.incrementAndGet();
+            return List.of(range("graylog_1", 1, 2));
+        });
+
+        // Updates before the first load are picked up by the load itself
+        cache.put(range("graylog_ignored", 1, 2));
+        assertThat(loads).hasValue(0);
+
+        assertThat(cache.find(day(1), day(2))).extracting(IndexRange::indexName).containsExactly("graylog_1");
+        cache.put(range("graylog_2", 2, 3));
+        cache.put(range("graylog_1", 4, 5));
+        assertThat(cache.find(day(1), day(2))).extracting(IndexRange::indexName).containsExactly("graylog_2");
+
+        cache.remove("graylog_2");
+        assertThat(cache.find(day(1), day(5))).extracting(IndexRange::indexName).containsExactly("graylog_1");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void reloadsAfterReloadInterval() {
+        final AtomicInteger loads = new AtomicInteger();
+        final FakeTicker ticker = new FakeTicker(Duration.ZERO);
+        final IndexRangeCache cache = new IndexRangeCache(() -> {
+            loads.incrementAndGet();
+            return List.of(range("graylog_" + loads.get(), 1, 2));
+        }, Duration.ofMinutes(5), ticker);
+
+        assertThat(cache.find(day(1), day(2))).extracting(IndexRange::indexName).containsExactly("graylog_1");
+
+        // Updates don't postpone the reload
+        ticker.advance(Duration.ofMinutes(4));
+        cache.put(range("graylog_update", 1, 2));
+        assertThat(cache.find(day(1), day(2))).extracting(IndexRange::indexName)
+                .containsExactlyInAnyOrder("graylog_1", "graylog_update");
+
+        ticker.advance(Duration.ofMinutes(1));
+        assertThat(cache.find(day(1), day(2))).extracting(IndexRange::indexName).containsExactly("graylog_2");
+        assertThat(cache.find(day(1), day(2))).extracting(IndexRange::indexName).containsExactly("graylog_2");
+        assertThat(loads).hasValue(2);
+    }
+}
@@ -18,6 +18,7 @@ package org.graylog2.indexer.ranges;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.eventbus.EventBus;
+import com.mongodb.client.model.Filters;
 import org.assertj.jodatime.api.Assertions;
 import org.graylog.testing.mongodb.MongoDBExtension;
 import org.graylog.testing.mongodb.MongoDBFixtures;
@@ -25,6 +26,7 @@ import org.graylog2.audit.NullAuditEventSender;
 import org.graylog2.bindings.providers.MongoJackObjectMapperProvider;
 import org.graylog2.database.MongoCollections;
 import org.graylog2.database.NotFoundException;
+import org.graylog2.events.ClusterEventBus;
 import org.graylog2.indexer.ElasticsearchException;
 import org.graylog2.indexer.indexset.registry.IndexSetRegistry;
 import org.graylog2.indexer.indices.HealthStatus;
@@ -52,6 +54,7 @@ import java.util.SortedSet;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -66,15 +69,19 @@ public class MongoIndexRangeServiceTest {
     private Indices indices;
     @Mock
     private IndexSetRegistry indexSetRegistry;
+    @Mock
+    private ClusterEventBus clusterEventBus;
+    private MongoCollections mongoCollections;
     private EventBus localEventBus;
     private MongoIndexRangeService indexRangeService;
 
     @BeforeEach
     public void setUp(MongoCollections mongoCollections) throws Exception {
+        this.mongoCollections = mongoCollections;
         localEventBus = new EventBus("local-event-bus");
         indexRangeService = new MongoIndexRangeService(
                 mongoCollections, indices, indexSetRegistry,
-                new NullAuditEventSender(), new SimpleNodeId("5ca1ab1e-0000-4000-a000-000000000000"), localEventBus);
+                new NullAuditEventSender(), new SimpleNodeId("5ca1ab1e-0000-4000-a000-000000000000"), localEventBus, clusterEventBus);
     }
 
     @Test
@@ -375,4 +382,38 @@ public class MongoIndexRangeServiceTest {
             assertThat(r.stream().anyMatch(s -> s.indexName().equals("graylog_warm_2"))).isTrue();
         });
     }
+
+    @Test
+    @MongoDBFixtures("MongoIndexRangeServiceTest.json")
+    public void findReflectsSavedAndRemovedIndexRanges() {
+        final DateTime begin = new DateTime(2015, 1, 1, 12, 0, DateTimeZone.UTC);
+        final DateTime end = new DateTime(2015, 1, 1, 13, 0, DateTimeZone.UTC);
+        assertThat(indexRangeService.find(begin, end)).extracting(IndexRange::indexName).containsExactly("graylog_1");
+
+        indexRangeService.save(MongoIndexRange.create("graylog_3", begin, end, DateTime.now(DateTimeZone.UTC), 42));
+        assertThat(indexRangeService.find(begin, end)).extracting(IndexRange::indexName).containsExactlyInAnyOrder("graylog_1", "graylog_3");
+        verify(clusterEventBus).post(IndexRangesUpdatedEvent.create("graylog_3"));
+
+        indexRangeService.remove("graylog_1");
+        assertThat(indexRangeService.find(begin, end)).extracting(IndexRange::indexName).containsExactly("graylog_3");
+        verify(clusterEventBus).post(IndexRangesUpdatedEvent.create("graylog_1"));
+    }
+
+    @Test
+    @MongoDBFixtures("MongoIndexRangeServiceTest.json")
+    public void handleIndexRangesUpdatedReloadsChangesFromOtherNodes() {
+        final DateTime begin = new DateTime(2015, 1, 1, 12, 0, DateTimeZone.UTC);
+        final DateTime end = new DateTime(2015, 1, 1, 13, 0, DateTimeZone.UTC);
+        assertThat(indexRangeService.find(begin, end)).extracting(IndexRange::indexName).containsExactly("graylog_1");
+
+        // Simulate another node changing the index ranges
+        final var collection = mongoCollections.nonEntityCollection("index_ranges", MongoIndexRange.class);
+        collection.insertOne(MongoIndexRange.create("graylog_3", begin, end, DateTime.now(DateTimeZone.UTC), 42));
+        collection.deleteMany(Filters.eq(IndexRange.FIELD_INDEX_NAME, "graylog_1"));
+        assertThat(indexRangeService.find(begin, end)).extracting(IndexRange::indexName).containsExactly("graylog_1");
+
+        localEventBus.post(IndexRangesUpdatedEvent.create("graylog_1", "graylog_3"));
+
+        assertThat(indexRangeService.find(begin, end)).extracting(IndexRange::indexName).containsExactly("graylog_3");
+    }
 }
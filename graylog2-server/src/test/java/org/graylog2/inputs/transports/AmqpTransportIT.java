@@ -128,7 +128,8 @@ class AmqpTransportIT {
                 new EventBus(),
                 new LocalMetricRegistry(),
                 new SimpleNodeId("node-1"),
-                new EncryptedValueService(UUID.randomUUID().toString())
+                new EncryptedValueService(UUID.randomUUID().toString()),
+                new TransportExecutorFactory(false)
         );
 
         final var input = mock(MessageInput.class);
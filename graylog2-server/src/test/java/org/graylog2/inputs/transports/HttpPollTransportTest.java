@@ -18,18 +18,28 @@ package org.graylog2.inputs.transports;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.eventbus.EventBus;
+import okhttp3.Call;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okio.Buffer;
+import org.graylog2.plugin.InputFailureRecorder;
 import org.graylog2.plugin.ServerStatus;
+import org.graylog2.plugin.ThrottleState;
 import org.graylog2.plugin.configuration.Configuration;
+import org.graylog2.plugin.inputs.MessageInput;
+import org.graylog2.plugin.inputs.transports.ThrottleableTransport;
+import org.graylog2.plugin.lifecycles.Lifecycle;
 import org.graylog2.security.encryption.EncryptedValueService;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
 import static jakarta.ws.rs.core.MediaType.TEXT_PLAIN;
@@ -42,6 +52,18 @@ import static org.graylog2.inputs.transports.HttpPollTransport.PUT;
 import static org.graylog2.inputs.transports.HttpPollTransport.parseHeaders;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * @author Lennart Koopmann <lennart@torch.sh>
@@ -91,7 +113,7 @@ public class HttpPollTransportTest {
     public void testGetRequestBuilder() throws IOException, NullPointerException {
         Map<String, Object> configVals = Map.of();
         Configuration config = new Configuration(configVals);
-        HttpPollTransport httpPollTransport = new HttpPollTransport(config, serverEventBus, serverStatus, scheduler, httpClient, encryptedValueService);
+        HttpPollTransport httpPollTransport = new HttpPollTransport(config, serverEventBus, serverStatus, scheduler, httpClient, encryptedValueService, new TransportExecutorFactory(false));
         Request request = httpPollTransport.getRequestBuilder()
                 .url("https://url.com")
                 .build();
@@ -104,7 +126,7 @@ public class HttpPollTransportTest {
                 CK_HTTP_BODY, "body",
                 CK_CONTENT_TYPE, APPLICATION_JSON);
         config = new Configuration(configVals);
-        httpPollTransport = new HttpPollTransport(config, serverEventBus, serverStatus, scheduler, httpClient, encryptedValueService);
+        httpPollTransport = new HttpPollTransport(config, serverEventBus, serverStatus, scheduler, httpClient, encryptedValueService, new TransportExecutorFactory(false));
         request = httpPollTransport.getRequestBuilder()
                 .url("https://url.com")
                 .build();
@@ -117,7 +139,7 @@ public class HttpPollTransportTest {
                 CK_HTTP_BODY, "body",
                 CK_CONTENT_TYPE, APPLICATION_JSON);
         config = new Configuration(configVals);
-        httpPollTransport = new HttpPollTransport(config, serverEventBus, serverStatus, scheduler, httpClient, encryptedValueService);
+        httpPollTransport = new HttpPollTransport(config, serverEventBus, serverStatus, scheduler, httpClient, encryptedValueService, new TransportExecutorFactory(false));
         request = httpPollTransport.getRequestBuilder()
                 .url("https://url.com")
                 .build();
@@ -131,7 +153,7 @@ public class HttpPollTransportTest {
                 CK_HTTP_BODY, "body",
                 CK_CONTENT_TYPE, TEXT_PLAIN);
         config = new Configuration(configVals);
-        httpPollTransport = new HttpPollTransport(config, serverEventBus, serverStatus, scheduler, httpClient, encryptedValueService);
+        httpPollTransport = new HttpPollTransport(config, serverEventBus, serverStatus, scheduler, httpClient, encryptedValueService, new TransportExecutorFactory(false));
         request = httpPollTransport.getRequestBuilder()
                 .url("https://url.com")
                 .build();
@@ -141,6 +163,79 @@ public class HttpPollTransportTest {
         assertEquals(TEXT_PLAIN, request.body().contentType().type() + "/" + request.body().contentType().subtype());
     }
 
+    @Test
+    public void skipsPollsWhileRateLimited() throws Exception {
+        final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        final OkHttpClient httpClient = mock(OkHttpClient.class);
+        final Call call = mock(Call.class);
+        when(httpClient.newCall(any())).thenReturn(call);
+        when(call.execute()).thenThrow(new IOException("Connection refused"));
+        final InputFailureRecorder inputFailureRecorder = mock(InputFailureRecorder.class);
+
+        final Configuration config = new Configuration(Map.of(
+                ThrottleableTransport.CK_THROTTLING_ALLOWED, true,
+                "target_url", "http://localhost:9000/api",
+                "interval", 1,
+                "timeunit", TimeUnit.MINUTES.toString()));
+        final HttpPollTransport httpPollTransport = new HttpPollTransport(config, mock(EventBus.class), mock(ServerStatus.class),
+                scheduler, httpClient, mock(EncryptedValueService.class), new TransportExecutorFactory(false));
+        httpPollTransport.launch(mock(MessageInput.class), inputFailureRecorder);
+        httpPollTransport.lifecycleStateChange(Lifecycle.RUNNING);
+
+        final ArgumentCaptor<Runnable> poll = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleAtFixedRate(poll.capture(), eq(0L), anyLong(), eq(TimeUnit.MINUTES));
+
+        // 90% journal utilization doesn't throttle the transport, but the rate limit drops to zero
+        httpPollTransport.updateThrottleState(throttleState(10, 90));
+        poll.getValue().run();
+        verify(httpClient, never()).newCall(any());
+
+        httpPollTransport.updateThrottleState(throttleState(0, 0));
+        poll.getValue().run();
+        verify(httpClient).newCall(any());
+        verify(inputFailureRecorder).setFailing(eq(HttpPollTransport.class), any(), any());
+    }
+
+    @Test
+    public void pollsAgainAfterFailedSubmission() throws Exception {
+        final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        final ExecutorService pollExecutor = mock(ExecutorService.class);
+        doThrow(new RejectedExecutionException("shut down")).doNothing().when(pollExecutor).execute(any());
+        final TransportExecutorFactory transportExecutorFactory = mock(TransportExecutorFactory.class);
+        when(transportExecutorFactory.isVirtualThreads()).thenReturn(true);
+        when(transportExecutorFactory.create(anyString(), anyInt(), anyBoolean())).thenReturn(pollExecutor);
+
+        final Configuration config = new Configuration(Map.of(
+                "target_url", "http://localhost:9000/api",
+                "interval", 1,
+                "timeunit", TimeUnit.MINUTES.toString()));
+        final HttpPollTransport httpPollTransport = new HttpPollTransport(config, mock(EventBus.class), mock(ServerStatus.class),
+                scheduler, mock(OkHttpClient.class), mock(EncryptedValueService.class), transportExecutorFactory);
+        httpPollTransport.launch(mock(MessageInput.class), mock(InputFailureRecorder.class));
+
+        final ArgumentCaptor<Runnable> poll = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).scheduleAtFixedRate(poll.capture(), eq(0L), anyLong(), eq(TimeUnit.MINUTES));
+
+        poll.getValue().run();
+        poll.getValue().run();
+        verify(pollExecutor, times(2)).execute(any());
+
+        // the second poll has been submitted but hasn't finished yet
+        poll.getValue().run();
+        verify(pollExecutor, times(2)).execute(any());
+    }
+
+    private static ThrottleState throttleState(long uncommittedJournalEntries, long journalSize) {
+        final ThrottleState state = new ThrottleState();
+        state.uncommittedJournalEntries = uncommittedJournalEntries;
+        state.journalSize = journalSize;
+        state.journalSizeLimit = 100;
+        state.appendEventsPerSec = 1000;
+        state.readEventsPerSec = 1000;
+        state.processBufferCapacity = 100;
+        return state;
+    }
+
     @SuppressWarnings("ConstantConditions")
     private static String bodyToString(final Request request) throws IOException {
         final Request copy = request.newBuilder().build();
@@ -50,7 +50,9 @@ import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.graylog2.shared.utilities.StringUtils.f;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -65,6 +67,9 @@ abstract class KafkaTransportIT {
     @Captor
     ArgumentCaptor<RawMessage> messageCaptor;
 
+    @Captor
+    ArgumentCaptor<List<RawMessage>> messageBatchCaptor;
+
     private final List<KafkaTransport> launchedTransports = new ArrayList<>();
 
     /**
@@ -142,11 +147,45 @@ abstract class KafkaTransportIT {
         assertThat(receivedPayloads).containsExactlyInAnyOrderElementsOf(messageValues);
     }
 
-    @SuppressForbidden("Executors.newSingleThreadScheduledExecutor is okay in tests")
+    @SlowTest
+    void batchConsumer() throws Exception {
+        final var topic = "test-batch";
+        kafka().createTopic(topic);
+
+        final List<String> messageValues = IntStream.range(0, 10)
+                .mapToObj(i -> f("batch-message-%d", i))
+                .toList();
+
+        try (KafkaProducer<String, byte[]> producer = kafka().createByteArrayProducer()) {
+            for (final String messageValue : messageValues) {
+                producer.send(new ProducerRecord<>(topic, messageValue.getBytes(StandardCharsets.UTF_8)));
+            }
+            producer.flush();
+        }
+
+        final var input = launchTransport(topic, "batch-consumer", true);
+
+        verify(input, timeout(10_000).atLeastOnce()).processRawMessages(messageBatchCaptor.capture());
+        verify(input, never()).processRawMessage(any());
+
+        final List<String> receivedPayloads = messageBatchCaptor.getAllValues().stream()
+                .flatMap(List::stream)
+                .map(rawMessage -> new String(rawMessage.getPayload(), StandardCharsets.UTF_8))
+                .toList();
+
+        assertThat(receivedPayloads).containsExactlyInAnyOrderElementsOf(messageValues);
+    }
+
     private MessageInput launchTransport(String topicFilter, String groupId) throws Exception {
+        return launchTransport(topicFilter, groupId, false);
+    }
+
+    @SuppressForbidden("Executors.newSingleThreadScheduledExecutor is okay in tests")
+    private MessageInput launchTransport(String topicFilter, String groupId, boolean batchMode) throws Exception {
         final var serverStatus = mock(ServerStatus.class);
         final var config = new Configuration(Map.of(
                 KafkaTransport.CK_LEGACY, false,
+                KafkaTransport.CK_BATCH_MODE, batchMode,
                 KafkaTransport.CK_THREADS, 1,
                 KafkaTransport.CK_BOOTSTRAP, f("localhost:%d", kafka().getKafkaPort()),
                 KafkaTransport.CK_FETCH_MIN_BYTES, 1,
@@ -161,7 +200,8 @@ abstract class KafkaTransportIT {
                 new SimpleNodeId("node-1"),
                 new EventBus(),
                 serverStatus,
-                Executors.newSingleThreadScheduledExecutor()
+                Executors.newSingleThreadScheduledExecutor(),
+                new TransportExecutorFactory(false)
         );
         final var input = mock(MessageInput.class);
         when(input.getId()).thenReturn("TEST");
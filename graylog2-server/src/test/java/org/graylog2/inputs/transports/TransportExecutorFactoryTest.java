@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog2.inputs.transports;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransportExecutorFactoryTest {
+    @Test
+    void createsPlatformThreadsByDefault() throws Exception {
+        final ExecutorService executor = new TransportExecutorFactory(false).create("test-%d", 1, true);
+        try {
+            final Thread thread = executor.submit(Thread::currentThread).get();
+
+            assertThat(thread.isVirtual()).isFalse();
+            assertThat(thread.isDaemon()).isTrue();
+            assertThat(thread.getName()).isEqualTo("test-0");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void createsVirtualThreadsIfEnabled() throws Exception {
+        final ExecutorService executor = new TransportExecutorFactory(true).create("test-%d", 1, false);
+        try {
+            final Thread first = executor.submit(Thread::currentThread).get();
+            final Thread second = executor.submit(Thread::currentThread).get();
+
+            assertThat(first.isVirtual()).isTrue();
+            assertThat(first.getName()).isEqualTo("test-0");
+            assertThat(second.getName()).isEqualTo("test-1");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -54,6 +54,7 @@ public class RawMessageHandlerTest {
         final ResolvableInetSocketAddress actual = captor.getValue().getRemoteAddress();
         final ResolvableInetSocketAddress expected = ResolvableInetSocketAddress.wrap(new InetSocketAddress("6.6.6.6", 0));
         assertThat(actual).isEqualTo(expected);
+        assertThat(captor.getValue().getPayload()).containsExactly(1, 2, 3);
     }
 
     @Test
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog2.plugin.inputs.transports;
+
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThrottleRateLimiterTest {
+    private final AtomicLong nanos = new AtomicLong(0);
+    private ThrottleRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new ThrottleRateLimiter(new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        }, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void unlimitedByDefault() {
+        assertThat(rateLimiter.getRate()).isInfinite();
+        assertThat(rateLimiter.tryAcquire(Integer.MAX_VALUE)).isTrue();
+    }
+
+    @Test
+    void rejectsEverythingWithZeroRate() {
+        rateLimiter.setRate(0);
+
+        assertThat(rateLimiter.getRate()).isZero();
+        assertThat(rateLimiter.tryAcquire(1)).isFalse();
+    }
+
+    @Test
+    void limitsToRateWithBurst() {
+        rateLimiter.setRate(10);
+
+        // one second worth of permits as burst, plus the permit which reaches the limit
+        int acquired = 0;
+        while (rateLimiter.tryAcquire(1)) {
+            acquired++;
+        }
+        assertThat(acquired).isEqualTo(11);
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(rateLimiter.tryAcquire(1)).isTrue();
+        assertThat(rateLimiter.tryAcquire(1)).isFalse();
+    }
+
+    @Test
+    void rateCanBeChanged() {
+        rateLimiter.setRate(1);
+        assertThat(rateLimiter.tryAcquire(2)).isTrue();
+        assertThat(rateLimiter.tryAcquire(1)).isFalse();
+
+        rateLimiter.setRate(Double.POSITIVE_INFINITY);
+        assertThat(rateLimiter.tryAcquire(1000)).isTrue();
+        assertThat(rateLimiter.getRate()).isInfinite();
+    }
+}
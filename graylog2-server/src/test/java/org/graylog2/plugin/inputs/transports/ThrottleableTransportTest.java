@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog2.plugin.inputs.transports;
+
+import com.codahale.metrics.MetricSet;
+import com.google.common.eventbus.EventBus;
+import org.graylog2.plugin.InputFailureRecorder;
+import org.graylog2.plugin.ThrottleState;
+import org.graylog2.plugin.configuration.Configuration;
+import org.graylog2.plugin.inputs.MessageInput;
+import org.graylog2.plugin.inputs.codecs.CodecAggregator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+
+class ThrottleableTransportTest {
+    private static TestTransport transport(boolean throttlingAllowed) {
+        return new TestTransport(new Configuration(Map.of(ThrottleableTransport.CK_THROTTLING_ALLOWED, throttlingAllowed)));
+    }
+
+    private static ThrottleState state(long uncommitted, long journalSize, long appendEventsPerSec, long readEventsPerSec) {
+        final ThrottleState state = new ThrottleState();
+        state.uncommittedJournalEntries = uncommitted;
+        state.journalSize = journalSize;
+        state.journalSizeLimit = 100;
+        state.appendEventsPerSec = appendEventsPerSec;
+        state.readEventsPerSec = readEventsPerSec;
+        state.processBufferCapacity = 100;
+        return state;
+    }
+
+    @Test
+    void doesNotLimitWithEmptyJournal() {
+        assertThat(transport(true).determineRateLimit(state(0, 95, 1000, 10), 100)).isInfinite();
+    }
+
+    @Test
+    void doesNotLimitWhileJournalIsDrainedBelowHalfUtilization() {
+        assertThat(transport(true).determineRateLimit(state(10, 40, 1000, 1000), 100)).isInfinite();
+    }
+
+    @Test
+    void scalesCurrentRateByJournalReadRatio() {
+        assertThat(transport(true).determineRateLimit(state(10, 40, 1000, 500), 200)).isCloseTo(100, within(0.001));
+    }
+
+    @Test
+    void limitsGrowthOfCurrentRateWhileJournalIsDrained() {
+        assertThat(transport(true).determineRateLimit(state(10, 70, 100, 1000), 200)).isCloseTo(200, within(0.001));
+    }
+
+    @Test
+    void reducesRateWithJournalUtilization() {
+        final TestTransport transport = transport(true);
+
+        assertThat(transport.determineRateLimit(state(10, 50, 1000, 1000), 200)).isCloseTo(200, within(0.001));
+        assertThat(transport.determineRateLimit(state(10, 70, 1000, 1000), 200)).isCloseTo(100, within(0.001));
+        assertThat(transport.determineRateLimit(state(10, 90, 1000, 1000), 200)).isZero();
+        assertThat(transport.determineRateLimit(state(10, 95, 1000, 1000), 200)).isZero();
+    }
+
+    @Test
+    void keepsMinimumRateBasedOnJournalReadRate() {
+        assertThat(transport(true).determineRateLimit(state(10, 50, 1000, 1000), 0)).isCloseTo(10, within(0.001));
+    }
+
+    @Test
+    void rejectsPermitsWhenRateLimitDropsToZero() {
+        final TestTransport transport = transport(true);
+        assertThat(transport.tryAcquireThrottlePermits(1)).isTrue();
+
+        // 90% journal utilization doesn't throttle the transport yet, but leaves no headroom for the rate
+        transport.updateThrottleState(state(10, 90, 1000, 1000));
+        assertThat(transport.isThrottled()).isFalse();
+        assertThat(transport.tryAcquireThrottlePermits(1)).isFalse();
+
+        transport.updateThrottleState(state(0, 0, 0, 0));
+        assertThat(transport.tryAcquireThrottlePermits(1)).isTrue();
+    }
+
+    @Test
+    void dropsFiniteRateLimitToZero() {
+        final TestTransport transport = transport(true);
+
+        transport.updateThrottleState(state(10, 70, 1000, 1000));
+        assertThat(transport.tryAcquireThrottlePermits(1)).isTrue();
+
+        transport.updateThrottleState(state(10, 90, 1000, 1000));
+        assertThat(transport.isThrottled()).isFalse();
+        assertThat(transport.tryAcquireThrottlePermits(1)).isFalse();
+    }
+
+    @Test
+    void waitsForPermitsUntilStopped() throws Exception {
+        final TestTransport transport = transport(true);
+        transport.updateThrottleState(state(10, 90, 1000, 1000));
+
+        final CompletableFuture<Boolean> acquired = CompletableFuture.supplyAsync(() -> transport.acquireThrottlePermits(1));
+        Thread.sleep(100);
+        assertThat(acquired).isNotDone();
+
+        transport.stop();
+        assertThat(acquired.get(5, TimeUnit.SECONDS)).isFalse();
+    }
+
+    @Test
+    void neverRejectsPermitsIfThrottlingIsNotAllowed() {
+        final TestTransport transport = transport(false);
+
+        transport.updateThrottleState(state(10, 90, 1000, 1000));
+        assertThat(transport.tryAcquireThrottlePermits(1)).isTrue();
+        assertThat(transport.acquireThrottlePermits(1)).isTrue();
+    }
+
+    private static class TestTransport extends ThrottleableTransport2 {
+        TestTransport(Configuration configuration) {
+            super(mock(EventBus.class), configuration);
+        }
+
+        @Override
+        protected void doLaunch(MessageInput input, InputFailureRecorder inputFailureRecorder) {
+        }
+
+        @Override
+        protected void doStop() {
+        }
+
+        @Override
+        public void setMessageAggregator(CodecAggregator aggregator) {
+        }
+
+        @Override
+        public MetricSet getMetricSet() {
+            return null;
+        }
+    }
+}
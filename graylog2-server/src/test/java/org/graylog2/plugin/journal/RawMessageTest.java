@@ -21,6 +21,7 @@ import org.graylog2.plugin.configuration.Configuration;
 import org.graylog2.plugin.system.SimpleNodeId;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
@@ -68,6 +69,17 @@ class RawMessageTest {
         assertEquals(payload.length, decodedMsg.getPayloadSize());
     }
 
+    @Test
+    void createFromByteBufferKeepsBufferPosition() {
+        final ByteBuffer buffer = ByteBuffer.wrap("--testmessage".getBytes(StandardCharsets.UTF_8));
+        buffer.position(2);
+
+        final RawMessage rawMessage = new RawMessage(buffer, null);
+
+        assertArrayEquals("testmessage".getBytes(StandardCharsets.UTF_8), rawMessage.getPayload());
+        assertEquals(2, buffer.position());
+    }
+
     @Nonnull
     private RawMessage createRawMessage(byte[] payload) {
         final RawMessage rawMessage = new RawMessage(payload);
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 Graylog, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the Server Side Public License, version 1,
+ * as published by MongoDB, Inc.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * Server Side Public License for more details.
+ *
+ * You should have received a copy of the Server Side Public License
+ * along with this program. If not, see
+ * <http://www.mongodb.com/licensing/server-side-public-license>.
+ */
+package org.graylog2.shared.buffers;
+
+import com.codahale.metrics.MetricRegistry;
+import org.graylog2.plugin.GlobalMetricNames;
+import org.graylog2.plugin.buffers.MessageEvent;
+import org.graylog2.plugin.journal.RawMessage;
+import org.graylog2.shared.buffers.processors.DecodingProcessor;
+import org.graylog2.shared.buffers.processors.ProcessBufferProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProcessBufferTest {
+    private MetricRegistry metricRegistry;
+    private DecodingProcessor decodingProcessor;
+    private ProcessBufferProcessor processBufferProcessor;
+    private DecodingProcessor.Factory decodingProcessorFactory;
+    private ProcessBufferProcessor.Factory bufferProcessorFactory;
+
+    @BeforeEach
+    void setUp() {
+        metricRegistry = new MetricRegistry();
+        decodingProcessor = mock(DecodingProcessor.class);
+        processBufferProcessor = mock(ProcessBufferProcessor.class);
+        decodingProcessorFactory = mock(DecodingProcessor.Factory.class);
+        bufferProcessorFactory = mock(ProcessBufferProcessor.Factory.class);
+
+        when(decodingProcessorFactory.create(any(), any())).thenReturn(decodingProcessor);
+        when(bufferProcessorFactory.create(any())).thenReturn(processBufferProcessor);
+    }
+
+    @Test
+    void decodesInProcessorsByDefault() throws Exception {
+        final ProcessBuffer processBuffer = new ProcessBuffer(metricRegistry, decodingProcessorFactory,
+                bufferProcessorFactory, 1, 0, 1024, "blocking");
+
+        processBuffer.insertBlocking(rawMessage());
+
+        verify(processBufferProcessor, timeout(5000)).onEvent(any(MessageEvent.class));
+        verify(bufferProcessorFactory).create(decodingProcessor);
+        verify(decodingProcessor, never()).onEvent(any(), anyLong(), anyBoolean());
+        assertThat(metricRegistry.getGauges()).doesNotContainKeys(
+                GlobalMetricNames.PROCESS_BUFFER_PENDING_DECODE,
+                GlobalMetricNames.PROCESS_BUFFER_PENDING_PROCESS);
+    }
+
+    @Test
+    void decodesInSeparateStage() throws Exception {
+        final ProcessBuffer processBuffer = new ProcessBuffer(metricRegistry, decodingProcessorFactory,
+                bufferProcessorFactory, 1, 2, 1024, "blocking");
+
+        processBuffer.insertBlocking(rawMessage());
+        processBuffer.insertBlocking(rawMessage());
+
+        final InOrder inOrder = inOrder(decodingProcessor, processBufferProcessor);
+        inOrder.verify(decodingProcessor, timeout(5000)).onEvent(any(MessageEvent.class), anyLong(), anyBoolean());
+        inOrder.verify(processBufferProcessor, timeout(5000)).onEvent(any(MessageEvent.class));
+        verify(processBufferProcessor, timeout(5000).times(2)).onEvent(any(MessageEvent.class));
+        verify(bufferProcessorFactory).create(isNull());
+
+        assertThat(metricRegistry.getGauges()).containsKeys(
+                GlobalMetricNames.PROCESS_BUFFER_PENDING_DECODE,
+                GlobalMetricNames.PROCESS_BUFFER_PENDING_PROCESS);
+    }
+
+    private static RawMessage rawMessage() {
+        return new RawMessage("hello".getBytes(StandardCharsets.UTF_8));
+    }
+}
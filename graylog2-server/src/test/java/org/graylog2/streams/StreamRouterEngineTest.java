@@ -42,6 +42,7 @@ import org.mockito.quality.Strictness;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -768,6 +769,62 @@ public class StreamRouterEngineTest {
                 engine.match(message2), "Message with \"custom1\" and \"custom2\" should match conditions");
     }
 
+    @Test
+    public void withChangedStreams() throws Exception {
+        final StreamMock stream1 = getStreamMock("test1");
+        final StreamMock stream2 = getStreamMock("test2");
+        final StreamMock stream3 = getStreamMock("test3");
+        stream1.setStreamRules(Lists.newArrayList(exactRule(stream1, "field1", "value")));
+        stream2.setStreamRules(Lists.newArrayList(exactRule(stream2, "field2", "value")));
+        stream3.setStreamRules(Lists.newArrayList(exactRule(stream3, "field3", "value")));
+
+        final StreamRouterEngine engine = newEngine(Lists.newArrayList(stream1, stream2));
+
+        // stream1 gets a different rule, stream2 is removed and stream3 is added
+        final StreamMock updatedStream1 = new StreamMock(ImmutableMap.of("_id", new ObjectId(stream1.getId()), "title", "test1", "matching_type", Stream.MatchingType.AND));
+        updatedStream1.setStreamRules(Lists.newArrayList(exactRule(updatedStream1, "field1", "other")));
+
+        final StreamRouterEngine newEngine = engine.withChangedStreams(List.of(updatedStream1, stream3), Set.of(stream2.getId()));
+
+        assertThat(newEngine.getStreams()).containsExactly(updatedStream1, stream3);
+        assertThat(newEngine.getFingerprint()).isNotEqualTo(engine.getFingerprint());
+
+        final Message message = getMessage();
+        message.addFields(ImmutableMap.of("field1", "value", "field2", "value", "field3", "value"));
+        assertThat(newEngine.match(message)).containsExactly(stream3);
+
+        message.addField("field1", "other");
+        assertThat(newEngine.match(message)).containsExactlyInAnyOrder(updatedStream1, stream3);
+
+        // The old engine is not modified
+        assertThat(engine.getStreams()).containsExactly(stream1, stream2);
+    }
+
+    @Test
+    public void withChangedStreamsMatchesFullRebuild() throws Exception {
+        final StreamMock stream1 = getStreamMock("test1");
+        final StreamMock stream2 = getStreamMock("test2");
+        stream1.setStreamRules(Lists.newArrayList(exactRule(stream1, "field1", "value")));
+        stream2.setStreamRules(Lists.newArrayList(exactRule(stream2, "field2", "value")));
+
+        final StreamRouterEngine engine = newEngine(Lists.newArrayList(stream1));
+        final StreamRouterEngine incremental = engine.withChangedStreams(List.of(stream2), Set.of());
+
+        assertThat(incremental.getFingerprint()).isEqualTo(newEngine(Lists.newArrayList(stream1, stream2)).getFingerprint());
+    }
+
+    private StreamRuleMock exactRule(Stream stream, String field, String value) {
+        return new StreamRuleMock(ImmutableMap.<String, Object>builder()
+                .put("_id", new ObjectId())
+                .put("field", field)
+                .put("value", value)
+                .put("type", StreamRuleType.EXACT.toInteger())
+                .put("inverted", false)
+                .put("stream_id", stream.getId())
+                .build()
+        );
+    }
+
     private StreamMock getStreamMock(String title) {
         return getStreamMock(title, Stream.MatchingType.AND);
     }